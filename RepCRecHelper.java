@@ -5,13 +5,45 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.List;
+import java.util.Properties;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.io.*;
 import transaction.*;
 import operation.OperationConstants;
+import operation.OperationParser;
+import output.AsyncOutputSink;
+import output.BinaryEventLog;
+import output.BufferedOutputSink;
+import output.EventLog;
+import output.JsonEventLog;
+import output.OutputSink;
+import output.ResultsOnlyOutputSink;
+import output.WriterOutputSink;
 import operation.OperationVO;
 
 import site.DataAndLockManager;
+import site.Checkpointer;
+import site.ConfigurationParser;
+import site.FailureDetector;
+import site.MapVariableStore;
+import site.PlacementCatalog;
+import site.PrimitiveVariableStore;
+import site.RecoveryCatchUp;
+import site.Site;
+import site.SiteRpcClient;
+import site.VariableStore;
 import site.VariablesVO;
+import site.WriteAheadLog;
 
 /**
  * Helper class which assists main driver RepCRec.java file in parsing the input file, initializing sites, data and lock manager and transaction manager, and executing operations.
@@ -19,23 +51,795 @@ import site.VariablesVO;
  *
  */
 public class RepCRecHelper {
-	
+	public static final String STORAGE_ENGINE_KEY="storage";
+	public static final String MAP_STORAGE_ENGINE="map";
+	public static final String PRIMITIVE_STORAGE_ENGINE="primitive";
+	public static final String EXECUTION_THREADS_KEY="execution.threads";
+	public static final String INPUT_STREAMING_KEY="input.streaming";
+	public static final String INPUT_QUEUE_CAPACITY_KEY="input.queueCapacity";
+	public static final String OUTPUT_CONSOLE_KEY="output.console";
+	public static final String OUTPUT_MODE_KEY="output.mode";
+	public static final String OUTPUT_ASYNC_KEY="output.async";
+	public static final String OUTPUT_QUEUE_CAPACITY_KEY="output.queueCapacity";
+	public static final String FULL_OUTPUT_MODE="full";
+	public static final String QUIET_OUTPUT_MODE="quiet";
+	public static final String EVENTS_FILE_KEY="events.file";
+	public static final String EVENTS_FORMAT_KEY="events.format";
+	public static final String WAL_ENABLED_KEY="wal.enabled";
+	public static final String WAL_DIRECTORY_KEY="wal.directory";
+	public static final String CHECKPOINT_ENABLED_KEY="checkpoint.enabled";
+	public static final String CHECKPOINT_INTERVAL_TICKS_KEY="checkpoint.intervalTicks";
+	public static final String CHECKPOINT_LOG_LENGTH_KEY="checkpoint.logLength";
+	public static final String DEADLOCK_POLICY_KEY="deadlock.policy";
+	public static final String CATCH_UP_ENABLED_KEY="catchup.enabled";
+	public static final String CATCH_UP_BATCH_SIZE_KEY="catchup.batchSize";
+	public static final String FAILURE_DETECTOR_ENABLED_KEY="failuredetector.enabled";
+	public static final String FAILURE_DETECTOR_HEARTBEAT_INTERVAL_KEY="failuredetector.heartbeatInterval";
+	public static final String FAILURE_DETECTOR_SUSPICION_TIMEOUT_KEY="failuredetector.suspicionTimeout";
+	public static final String FAILURE_DETECTOR_MAX_DELAY_KEY="failuredetector.maxDelay";
+	public static final String FAILURE_DETECTOR_LOSS_RATE_KEY="failuredetector.lossRate";
+	public static final String FAILURE_DETECTOR_SEED_KEY="failuredetector.seed";
+	public static final String SITES_TRANSPORT_KEY="sites.transport";
+	public static final String DIRECT_SITES_TRANSPORT="direct";
+	public static final String TCP_SITES_TRANSPORT="tcp";
+	//Number of worker threads executing the operations of a tick, 1 executes every operation on the calling thread
+	private int numberOfExecutionThreads=1;
+	//Whether the input file is parsed by a separate thread while the operations are executed, instead of being parsed completely up front
+	private boolean isInputStreamed=false;
+	//Number of parsed ticks the parser thread can be ahead of the execution
+	private int inputQueueCapacity=1024;
+	//Only one thread parses the input file at a time, either the main thread or the parser thread of streamInputFile
+	private OperationParser operationParser = new OperationParser();
+	//Whether operations and their output are echoed on the console
+	private boolean isConsoleOutputEnabled=true;
+	//Console the operations and their output are echoed to, and on which what goes wrong is reported
+	private PrintStream console=System.out;
+	//Quiet output only records results: values read, transactions committing or aborting and values dumped
+	private boolean isOutputQuiet=false;
+	//Whether output is written by a background thread
+	private boolean isOutputAsync=false;
+	//Number of lines which can wait for the background thread to write them
+	private int outputQueueCapacity=8192;
+	//File the structured events are recorded to, null not to record them
+	private String eventsFile=null;
+	//Format of the events, binary or json
+	private String eventsFormat=EventLog.BINARY_FORMAT;
+	//Whether the values committed at every site are logged and replayed when the process restarts
+	private boolean isWriteAheadLogEnabled=false;
+	//Directory holding the log of every site, the coordinator log and the checkpoint
+	private String writeAheadLogDirectory="wal";
+	//Log of the decisions to commit of the transaction manager, which tells the sites the records to replay, null unless the write-ahead logs are enabled
+	private CoordinatorLog coordinatorLog=null;
+	//Whether checkpoints of the sites are taken and loaded when the process restarts
+	private boolean isCheckpointEnabled=false;
+	//Number of ticks between two checkpoints, 0 not to take checkpoints every given number of ticks
+	private int checkpointIntervalTicks=1000;
+	//Length in bytes the logs reach before a checkpoint is due, 0 not to take checkpoints by log length
+	private long checkpointLogLength=16L<<20;
+	private Checkpointer checkpointer=null;
+	//Policy deciding the lock requests which conflict with the locks held on a variable
+	private DeadlockPolicy deadlockPolicy=new WaitDiePolicy();
+	//Whether recovered sites copy their replicated variables from up-to-date copies in the background, instead of waiting for committed writes to reach them
+	private boolean isCatchUpEnabled=false;
+	//Number of variables visited at every recovering site per tick
+	private int catchUpBatchSize=1000;
+	private RecoveryCatchUp recoveryCatchUp=null;
+	//Failure detector through which the transaction manager learns of site failures, null if every failure is known at once
+	private FailureDetector failureDetector=null;
+	//Whether the sites are served over loopback sockets instead of being called directly by the transaction manager
+	private boolean areSitesServedOverTcp=false;
+	private SiteRpcClient siteRpcClient=null;
+
 	/**
-	 * A method to initialize site with appropriate variables and values
-	 * @author Ashish Walia
-	 * @param arr - An array of Strings containing variables
-	 * @param value - An array of integers containing values
-	 * @param mapOfVariablesAndValues - A map of variables and values
+	 * A method to configure how operations are executed.
+	 * @param configuration - A Properties object, execution.threads gives the number of worker threads and defaults to 1.
+	 * @throws IllegalArgumentException if the number of worker threads is not a positive integer.
+	 */
+	public void configureExecution(Properties configuration)
+	{
+		if(configuration==null)
+		{
+			return;
+		}
+		numberOfExecutionThreads=ConfigurationParser.parseInt(configuration, EXECUTION_THREADS_KEY, numberOfExecutionThreads, 1);
+		isInputStreamed=ConfigurationParser.parseBoolean(configuration, INPUT_STREAMING_KEY, isInputStreamed);
+		inputQueueCapacity=ConfigurationParser.parseInt(configuration, INPUT_QUEUE_CAPACITY_KEY, inputQueueCapacity, 1);
+	}
+
+	public boolean isInputStreamed()
+	{
+		return isInputStreamed;
+	}
+
+	/**
+	 * A method to configure where the output goes.
+	 * @param configuration - A Properties object, output.console turns the console echo on or off and defaults to true, output.mode is full or quiet
+	 * and defaults to full, output.async makes a background thread write the output and defaults to false, output.queueCapacity gives the number of lines
+	 * which can wait for that thread. events.file gives the file the structured events are recorded to, none by default, and events.format their format,
+	 * binary or json, defaulting to binary.
+	 * @throws IllegalArgumentException if any of the values is invalid.
+	 */
+	public void configureOutput(Properties configuration)
+	{
+		if(configuration==null)
+		{
+			return;
+		}
+		isConsoleOutputEnabled=ConfigurationParser.parseBoolean(configuration, OUTPUT_CONSOLE_KEY, isConsoleOutputEnabled);
+		isOutputAsync=ConfigurationParser.parseBoolean(configuration, OUTPUT_ASYNC_KEY, isOutputAsync);
+		String mode = configuration.getProperty(OUTPUT_MODE_KEY);
+		if(mode!=null && !"".equals(mode.trim()))
+		{
+			if(!FULL_OUTPUT_MODE.equals(mode.trim()) && !QUIET_OUTPUT_MODE.equals(mode.trim()))
+			{
+				throw new IllegalArgumentException("Invalid value "+mode+" for "+OUTPUT_MODE_KEY);
+			}
+			isOutputQuiet=QUIET_OUTPUT_MODE.equals(mode.trim());
+		}
+		outputQueueCapacity=ConfigurationParser.parseInt(configuration, OUTPUT_QUEUE_CAPACITY_KEY, outputQueueCapacity, 1);
+		String file = configuration.getProperty(EVENTS_FILE_KEY);
+		if(file!=null && !"".equals(file.trim()))
+		{
+			eventsFile=file.trim();
+		}
+		String format = configuration.getProperty(EVENTS_FORMAT_KEY);
+		if(format!=null && !"".equals(format.trim()))
+		{
+			if(!EventLog.BINARY_FORMAT.equals(format.trim()) && !EventLog.JSON_FORMAT.equals(format.trim()))
+			{
+				throw new IllegalArgumentException("Invalid value "+format+" for "+EVENTS_FORMAT_KEY);
+			}
+			eventsFormat=format.trim();
+		}
+		operationParser.setEchoEnabled(isConsoleOutputEnabled);
+	}
+
+	/**
+	 * A method to configure the write-ahead logs of the sites.
+	 * @param configuration - A Properties object, wal.enabled turns the logs on and defaults to false, wal.directory gives the directory holding them
+	 * and defaults to wal.
+	 * @throws IllegalArgumentException if any of the values is invalid.
+	 */
+	public void configureWriteAheadLog(Properties configuration)
+	{
+		if(configuration==null)
+		{
+			return;
+		}
+		isWriteAheadLogEnabled=ConfigurationParser.parseBoolean(configuration, WAL_ENABLED_KEY, isWriteAheadLogEnabled);
+		String directory = configuration.getProperty(WAL_DIRECTORY_KEY);
+		if(directory!=null && !"".equals(directory.trim()))
+		{
+			writeAheadLogDirectory=directory.trim();
+		}
+	}
+
+	public boolean isWriteAheadLogEnabled()
+	{
+		return isWriteAheadLogEnabled;
+	}
+
+	/**
+	 * A method to check that the write-ahead logs and checkpoints configured so far can restore the committed state of the sites the catalog describes.
+	 * They don't keep the version numbers of the copies of replicated variables, which quorum reads rely on.
+	 * @param placementCatalog - A PlacementCatalog object describing the sites and variables.
+	 * @throws IllegalArgumentException if replicated variables are read and written through quorums and the logs or checkpoints are enabled.
+	 */
+	public void checkQuorumReplication(PlacementCatalog placementCatalog)
+	{
+		if(placementCatalog!=null && placementCatalog.isQuorumReplication() && (isWriteAheadLogEnabled || isCheckpointEnabled))
+		{
+			throw new IllegalArgumentException(PlacementCatalog.READ_QUORUM_KEY+" and "+PlacementCatalog.WRITE_QUORUM_KEY+" can't be combined with "+WAL_ENABLED_KEY+" or "+CHECKPOINT_ENABLED_KEY+", which don't keep version numbers");
+		}
+	}
+
+	/**
+	 * A method to configure how lock requests which conflict with the locks held on a variable are decided.
+	 * @param configuration - A Properties object, deadlock.policy gives the policy, wait-die, wound-wait, no-wait or waits-for-graph, and defaults to wait-die.
+	 * @throws IllegalArgumentException if the policy is unknown.
+	 */
+	public void configureDeadlockPolicy(Properties configuration)
+	{
+		String policy = (configuration!=null)?configuration.getProperty(DEADLOCK_POLICY_KEY):null;
+		if(policy!=null && !"".equals(policy.trim()))
+		{
+			try
+			{
+				deadlockPolicy=DeadlockPolicy.forName(policy.trim());
+			}
+			catch(IllegalArgumentException illegalArgumentException)
+			{
+				throw new IllegalArgumentException("Invalid value "+policy+" for "+DEADLOCK_POLICY_KEY);
+			}
+		}
+	}
+
+	public DeadlockPolicy getDeadlockPolicy()
+	{
+		return deadlockPolicy;
+	}
+
+	/**
+	 * A method to configure the checkpoints of the sites, which are kept in the directory of the write-ahead logs.
+	 * @param configuration - A Properties object, checkpoint.enabled turns checkpoints on and defaults to false, checkpoint.intervalTicks gives the number
+	 * of ticks between two checkpoints and defaults to 1000, checkpoint.logLength gives the length in bytes the write-ahead logs reach before a checkpoint
+	 * is due and defaults to 16 MB, 0 turning either trigger off.
+	 * @throws IllegalArgumentException if any of the values is invalid.
+	 */
+	public void configureCheckpoints(Properties configuration)
+	{
+		if(configuration==null)
+		{
+			return;
+		}
+		isCheckpointEnabled=ConfigurationParser.parseBoolean(configuration, CHECKPOINT_ENABLED_KEY, isCheckpointEnabled);
+		checkpointIntervalTicks=ConfigurationParser.parseInt(configuration, CHECKPOINT_INTERVAL_TICKS_KEY, checkpointIntervalTicks, 0);
+		checkpointLogLength=ConfigurationParser.parseLong(configuration, CHECKPOINT_LOG_LENGTH_KEY, checkpointLogLength, 0);
+	}
+
+	/**
+	 * A method to configure how recovered sites catch up.
+	 * @param configuration - A Properties object, catchup.enabled turns on catching up the replicated variables of recovered sites from up-to-date copies
+	 * in the background and defaults to false, catchup.batchSize gives the number of variables visited at every recovering site per tick and defaults to 1000.
+	 * @throws IllegalArgumentException if any of the values is invalid.
+	 */
+	public void configureRecoveryCatchUp(Properties configuration)
+	{
+		if(configuration==null)
+		{
+			return;
+		}
+		isCatchUpEnabled=ConfigurationParser.parseBoolean(configuration, CATCH_UP_ENABLED_KEY, isCatchUpEnabled);
+		catchUpBatchSize=ConfigurationParser.parseInt(configuration, CATCH_UP_BATCH_SIZE_KEY, catchUpBatchSize, 1);
+	}
+
+	/**
+	 * A method to configure the failure detector through which the transaction manager learns of site failures.
+	 * @param configuration - A Properties object, failuredetector.enabled turns on the failure detector and defaults to false, failuredetector.heartbeatInterval
+	 * gives the number of ticks between two heartbeats of a site and defaults to 1, failuredetector.suspicionTimeout the number of ticks without heartbeat after
+	 * which a site is suspected and defaults to 3, failuredetector.maxDelay the maximum number of ticks a heartbeat is delayed by and defaults to 0,
+	 * failuredetector.lossRate the probability of a heartbeat being lost and defaults to 0, and failuredetector.seed the seed of the delays and losses.
+	 * @param placementCatalog - A PlacementCatalog object giving the number of sites.
+	 * @throws IllegalArgumentException if any of the values is invalid.
+	 */
+	public void configureFailureDetector(Properties configuration, PlacementCatalog placementCatalog)
+	{
+		if(configuration==null || !ConfigurationParser.parseBoolean(configuration, FAILURE_DETECTOR_ENABLED_KEY, false))
+		{
+			return;
+		}
+		int heartbeatInterval = ConfigurationParser.parseInt(configuration, FAILURE_DETECTOR_HEARTBEAT_INTERVAL_KEY, 1, 1);
+		int suspicionTimeout = ConfigurationParser.parseInt(configuration, FAILURE_DETECTOR_SUSPICION_TIMEOUT_KEY, 3, 1);
+		int maxDelay = ConfigurationParser.parseInt(configuration, FAILURE_DETECTOR_MAX_DELAY_KEY, 0, 0);
+		//A loss rate of 1 would lose every heartbeat, so it stays below 1
+		double lossRate = ConfigurationParser.parseDouble(configuration, FAILURE_DETECTOR_LOSS_RATE_KEY, 0, 0, Math.nextDown(1.0));
+		long seed = ConfigurationParser.parseLong(configuration, FAILURE_DETECTOR_SEED_KEY, 1, Long.MIN_VALUE);
+		failureDetector=new FailureDetector(placementCatalog.getNumberOfSites(), heartbeatInterval, suspicionTimeout, maxDelay, lossRate, seed);
+	}
+
+	/**
+	 * A method to configure how the transaction manager reaches the sites.
+	 * @param configuration - A Properties object, sites.transport is direct, the default, for the transaction manager to call the data and lock managers directly,
+	 * or tcp for every site to be served over a loopback socket, to which write locks, commits and aborts are pipelined.
+	 * @throws IllegalArgumentException if the transport is unknown.
+	 */
+	public void configureSitesTransport(Properties configuration)
+	{
+		if(configuration==null)
+		{
+			return;
+		}
+		String transport = configuration.getProperty(SITES_TRANSPORT_KEY, DIRECT_SITES_TRANSPORT).trim();
+		if(!DIRECT_SITES_TRANSPORT.equals(transport) && !TCP_SITES_TRANSPORT.equals(transport))
+		{
+			throw new IllegalArgumentException("Invalid value "+transport+" for "+SITES_TRANSPORT_KEY);
+		}
+		areSitesServedOverTcp=TCP_SITES_TRANSPORT.equals(transport);
+	}
+
+	/**
+	 * A method to serve every site over a loopback socket and connect the transaction manager to them, if configured by configureSitesTransport.
+	 * @param transactionManager - A TransactionManager object.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @throws IOException
+	 */
+	public void connectToSites(TransactionManager transactionManager, Map dataAndLockManagersMap)throws IOException
+	{
+		if(areSitesServedOverTcp)
+		{
+			siteRpcClient=new SiteRpcClient(dataAndLockManagersMap, transactionManager.getTrxsMap());
+			transactionManager.setSiteRpcClient(siteRpcClient);
+		}
+	}
+
+	/**
+	 * A method to close the connections to the sites and stop serving them, if they are served over loopback sockets.
+	 * @throws IOException
+	 */
+	public void disconnectFromSites()throws IOException
+	{
+		if(siteRpcClient!=null)
+		{
+			siteRpcClient.close();
+			siteRpcClient=null;
+		}
+	}
+
+	/**
+	 * A method to get the failure detector through which the transaction manager learns of site failures.
+	 * @return FailureDetector - A FailureDetector object, null if every failure is known at once.
+	 */
+	public FailureDetector getFailureDetector()
+	{
+		return failureDetector;
+	}
+
+	/**
+	 * A method to exchange the heartbeats of the sites with the failure detector, the sites trusted again catching up if catching up is enabled. Called at the end of every tick.
+	 * @param transactionManager - A TransactionManager object.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param tick - An integer value, the tick which ended.
+	 * @param out - An OutputSink object to write contents in the output file
+	 * @throws IOException
+	 */
+	public void detectFailures(TransactionManager transactionManager, Map dataAndLockManagersMap, int tick, OutputSink out)throws IOException
+	{
+		if(failureDetector==null || tick<=0)
+		{
+			return;
+		}
+		Iterator itr = (Iterator)transactionManager.detectFailures(tick, out).iterator();
+		while(itr.hasNext())
+		{
+			Integer siteId = (Integer)itr.next();
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(siteId);
+			//The replicated variables of a site trusted again missed the writes routed away from it, unless it has recovered since and is catching up already
+			if(isCatchUpEnabled && !getOrCreateRecoveryCatchUp(transactionManager).isCatchingUp(siteId.intValue()))
+			{
+				getOrCreateRecoveryCatchUp(transactionManager).startCatchingUp(dataAndLockManager, tick, out);
+			}
+		}
+	}
+
+	private RecoveryCatchUp getOrCreateRecoveryCatchUp(TransactionManager transactionManager)
+	{
+		if(recoveryCatchUp==null)
+		{
+			recoveryCatchUp=new RecoveryCatchUp(transactionManager.getPlacementCatalog(), catchUpBatchSize);
+			recoveryCatchUp.setFailureDetector(failureDetector);
+		}
+		return recoveryCatchUp;
+	}
+
+	/**
+	 * A method to get the progress of the recovered sites catching up.
+	 * @return RecoveryCatchUp - A RecoveryCatchUp object, null if catching up isn't enabled or no site has recovered yet.
 	 */
-	public void initializeSite(String arr[],int value[],Map mapOfVariablesAndValues)
+	public RecoveryCatchUp getRecoveryCatchUp()
 	{
-		for(int i=0;i<arr.length;i++)
+		return recoveryCatchUp;
+	}
+
+	/**
+	 * A method to copy the next batch of replicated variables of every recovered site catching up. Called at the end of every tick.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param tick - An integer value, the tick which ended.
+	 * @param out - An OutputSink object to write contents in the output file
+	 * @throws IOException
+	 */
+	public void catchUpRecoveringSites(Map dataAndLockManagersMap, int tick, OutputSink out)throws IOException
+	{
+		if(recoveryCatchUp!=null && tick>0)
 		{
-			VariablesVO variableVO = new VariablesVO(arr[i],value[i]);
-			mapOfVariablesAndValues.put(arr[i],variableVO);
-			//variablesAtSite.add(arr[i]);
+			recoveryCatchUp.catchUp(dataAndLockManagersMap, tick, out);
 		}
 	}
+
+	/**
+	 * A method to restore the values committed at every site from the latest checkpoint, if checkpoints are enabled. To be called before
+	 * openWriteAheadLogs, which replays the commits which followed the checkpoint.
+	 * @param placementCatalog - A PlacementCatalog object describing the sites and variables.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @return int - The tick of the checkpoint, 0 if there is no checkpoint.
+	 * @throws IOException if the checkpoint can't be loaded.
+	 */
+	public int loadCheckpoint(PlacementCatalog placementCatalog, Map dataAndLockManagersMap)throws IOException
+	{
+		if(!isCheckpointEnabled || dataAndLockManagersMap==null)
+		{
+			return 0;
+		}
+		checkpointer = new Checkpointer(new File(getWriteAheadLogDirectory(), "checkpoint"), placementCatalog, checkpointIntervalTicks, checkpointLogLength);
+		return checkpointer.load(dataAndLockManagersMap);
+	}
+
+	/**
+	 * A method to start a checkpoint of the sites in the background if one is due. Called at the end of every tick, once its commits have been synced.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param tick - An integer value, the tick which ended.
+	 * @throws IOException
+	 */
+	public void checkpointIfDue(Map dataAndLockManagersMap, int tick)throws IOException
+	{
+		if(checkpointer!=null && tick>0)
+		{
+			checkpointer.checkpointIfDue(dataAndLockManagersMap, tick);
+		}
+	}
+
+	private File getWriteAheadLogDirectory()throws IOException
+	{
+		File directory = new File(writeAheadLogDirectory);
+		if(!directory.isDirectory() && !directory.mkdirs())
+		{
+			throw new IOException("Unable to create directory "+writeAheadLogDirectory);
+		}
+		return directory;
+	}
+
+	/**
+	 * A method to open the coordinator log and the write-ahead log of every site, if they are enabled, replaying each of them to restore the values
+	 * committed at the site before the process restarted. Only the records of the transactions the coordinator log holds a decision to commit for
+	 * are replayed, the other ones being presumed aborted.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @return int - The number of commits replayed.
+	 * @throws IOException
+	 */
+	public int openWriteAheadLogs(Map dataAndLockManagersMap)throws IOException
+	{
+		int replayed=0;
+		if(!isWriteAheadLogEnabled || dataAndLockManagersMap==null)
+		{
+			return replayed;
+		}
+		File directory = getWriteAheadLogDirectory();
+		coordinatorLog = new CoordinatorLog(new File(directory, "coordinator.wal"));
+		if(checkpointer!=null)
+		{
+			checkpointer.setCoordinatorLog(coordinatorLog);
+		}
+		Iterator itr = (Iterator)dataAndLockManagersMap.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();
+			if(dataAndLockManager!=null)
+			{
+				replayed+=dataAndLockManager.recoverFromWriteAheadLog(new WriteAheadLog(new File(directory, "site"+pairs.getKey()+".wal")), coordinatorLog.getCommittedTrxIds());
+			}
+		}
+		return replayed;
+	}
+
+	public CoordinatorLog getCoordinatorLog()
+	{
+		return coordinatorLog;
+	}
+
+	/**
+	 * A method to make the values committed at every site since the last call durable, which is done once per tick so that the commits of a tick
+	 * share a single write and force of each log. The coordinator log is forced last, so that no decision to commit is durable before the values
+	 * the sites logged for it.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @throws IOException
+	 */
+	public void syncWriteAheadLogs(Map dataAndLockManagersMap)throws IOException
+	{
+		if(!isWriteAheadLogEnabled || dataAndLockManagersMap==null)
+		{
+			return;
+		}
+		Iterator itr = (Iterator)dataAndLockManagersMap.values().iterator();
+		while(itr.hasNext())
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+			if(dataAndLockManager!=null)
+			{
+				dataAndLockManager.syncWriteAheadLog();
+			}
+		}
+		if(coordinatorLog!=null)
+		{
+			coordinatorLog.sync();
+		}
+	}
+
+	/**
+	 * A method to make the values committed at every site during the tick durable, then report the transactions which committed them as committed,
+	 * as a commit isn't acknowledged before it is durable.
+	 * @param transactionManager - An instance of TransactionManager
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param out - An OutputSink object to write contents in the output file
+	 * @throws IOException
+	 */
+	public void makeCommitsOfTickDurable(TransactionManager transactionManager, Map dataAndLockManagersMap, OutputSink out)throws IOException
+	{
+		syncWriteAheadLogs(dataAndLockManagersMap);
+		transactionManager.reportDurableCommits(out);
+	}
+
+	/**
+	 * A method to wait for the checkpoint being written, if any, then sync and close the write-ahead log of every site, then the coordinator log.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @throws IOException
+	 */
+	public void closeWriteAheadLogs(Map dataAndLockManagersMap)throws IOException
+	{
+		if(checkpointer!=null)
+		{
+			checkpointer.awaitCheckpoint();
+		}
+		if(dataAndLockManagersMap==null)
+		{
+			return;
+		}
+		Iterator itr = (Iterator)dataAndLockManagersMap.values().iterator();
+		while(itr.hasNext())
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+			if(dataAndLockManager!=null && dataAndLockManager.getWriteAheadLog()!=null)
+			{
+				dataAndLockManager.getWriteAheadLog().close();
+			}
+		}
+		if(coordinatorLog!=null)
+		{
+			coordinatorLog.close();
+		}
+	}
+
+	/**
+	 * A method to create the OutputSink the operations report to, as configured by configureOutput.
+	 * @param out - A Writer object to write the recorded output to, typically the output file.
+	 * @return OutputSink - The OutputSink, to be closed once all the operations have been executed.
+	 * @throws IOException if the events file can't be created.
+	 */
+	public OutputSink createOutputSink(Writer out)throws IOException
+	{
+		EventLog eventLog = null;
+		if(eventsFile!=null)
+		{
+			if(EventLog.JSON_FORMAT.equals(eventsFormat))
+			{
+				eventLog = new JsonEventLog(new BufferedWriter(new FileWriter(eventsFile), 1<<16));
+			}
+			else
+			{
+				eventLog = new BinaryEventLog(new BufferedOutputStream(new FileOutputStream(eventsFile), 1<<16));
+			}
+		}
+		OutputSink outputSink = new WriterOutputSink(out, isConsoleOutputEnabled?console:null, eventLog);
+		if(isOutputQuiet)
+		{
+			outputSink = new ResultsOnlyOutputSink(outputSink);
+		}
+		if(isOutputAsync)
+		{
+			outputSink = new AsyncOutputSink(outputSink, outputQueueCapacity);
+		}
+		return outputSink;
+	}
+
+	/**
+	 * A method to initialize maps of variables and values of all the sites with the variables placed at them by the placement catalog
+	 * @param placementCatalog - A PlacementCatalog object describing the topology
+	 * @param mapsOfVariablesAndValues - A map whose key is site id and value is the map of variables and values of that site
+	 */
+	public void initializeSites(PlacementCatalog placementCatalog, Map mapsOfVariablesAndValues)
+	{
+		for(int i=1;i<=placementCatalog.getNumberOfSites();i++)
+		{
+			mapsOfVariablesAndValues.put(i, new HashMap());
+		}
+		//We don't want any common or uncommon variable at different sites to share the same address space
+		for(int variableId=1;variableId<=placementCatalog.getNumberOfVariables();variableId++)
+		{
+			String variable = placementCatalog.getVariableName(variableId);
+			int value = placementCatalog.getInitialValue(variableId);
+			boolean replicated = placementCatalog.isVariableReplicated(variableId);
+			int numberOfHomeSites = placementCatalog.getNumberOfHomeSites(variableId);
+			for(int i=0;i<numberOfHomeSites;i++)
+			{
+				Map mapOfVariablesAndValues = (Map)mapsOfVariablesAndValues.get(placementCatalog.getHomeSite(variableId,i));
+				mapOfVariablesAndValues.put(variable,new VariablesVO(variable,value,replicated));
+			}
+		}
+	}
+	/**
+	 * A method to create the storage engines of all the sites with the variables placed at them by the placement catalog
+	 * @param placementCatalog - A PlacementCatalog object describing the topology
+	 * @param storageEngine - A String naming the storage engine, either map or primitive
+	 * @param variableStores - A map whose key is site id and value is the VariableStore of that site
+	 */
+	public void createVariableStores(PlacementCatalog placementCatalog, String storageEngine, Map variableStores)
+	{
+		if(PRIMITIVE_STORAGE_ENGINE.equals(storageEngine))
+		{
+			//First pass counts the variables of every site, second pass interns them in ascending order of their ids
+			int[] numberOfVariablesAtSite = new int[placementCatalog.getNumberOfSites()+1];
+			for(int variableId=1;variableId<=placementCatalog.getNumberOfVariables();variableId++)
+			{
+				for(int i=0;i<placementCatalog.getNumberOfHomeSites(variableId);i++)
+				{
+					numberOfVariablesAtSite[placementCatalog.getHomeSite(variableId,i)]++;
+				}
+			}
+			int[][] variableIdsAtSite = new int[numberOfVariablesAtSite.length][];
+			for(int siteId=1;siteId<numberOfVariablesAtSite.length;siteId++)
+			{
+				variableIdsAtSite[siteId]=new int[numberOfVariablesAtSite[siteId]];
+				numberOfVariablesAtSite[siteId]=0;
+			}
+			for(int variableId=1;variableId<=placementCatalog.getNumberOfVariables();variableId++)
+			{
+				for(int i=0;i<placementCatalog.getNumberOfHomeSites(variableId);i++)
+				{
+					int siteId = placementCatalog.getHomeSite(variableId,i);
+					variableIdsAtSite[siteId][numberOfVariablesAtSite[siteId]++]=variableId;
+				}
+			}
+			for(int siteId=1;siteId<variableIdsAtSite.length;siteId++)
+			{
+				variableStores.put(siteId, new PrimitiveVariableStore(placementCatalog,variableIdsAtSite[siteId]));
+			}
+		}
+		else if(MAP_STORAGE_ENGINE.equals(storageEngine))
+		{
+			Map mapsOfVariablesAndValues = new HashMap();
+			initializeSites(placementCatalog, mapsOfVariablesAndValues);
+			for(int siteId=1;siteId<=placementCatalog.getNumberOfSites();siteId++)
+			{
+				variableStores.put(siteId, new MapVariableStore((Map)mapsOfVariablesAndValues.get(siteId)));
+			}
+		}
+		else
+		{
+			throw new IllegalArgumentException("Invalid value "+storageEngine+" for "+STORAGE_ENGINE_KEY);
+		}
+	}
+	/**
+	 * A method to change the console, System.out by default, the operations and their output are echoed to and on which what goes wrong is reported.
+	 * @param console - A PrintStream object.
+	 */
+	public void setConsole(PrintStream console)
+	{
+		this.console=console;
+		operationParser.setConsole(console);
+	}
+
+	/**
+	 * A method to initialize the sites, their data and lock managers and the transaction manager as described by the configuration, execute all the operations
+	 * of the input file and write their output to the output file. What prevents it is reported on the console.
+	 * @param bufferedReader - A BufferedReader object to read the input file, or null if it couldn't be opened.
+	 * @param configuration - A Properties object with the configuration.
+	 * @param outputFile - A File object, the output file.
+	 */
+	public void run(BufferedReader bufferedReader, Properties configuration, File outputFile)
+	{
+		//Map of data lock managers
+		Map dataAndLockManagersMap = new HashMap();
+		//Map whose key is site id and value is the storage engine holding the variables of that site
+		Map variableStores = new HashMap();
+		List operations = new ArrayList();
+		PlacementCatalog placementCatalog = null;
+		try
+		{
+			placementCatalog = new PlacementCatalog(configuration);
+			configureExecution(configuration);
+			configureOutput(configuration);
+			configureWriteAheadLog(configuration);
+			configureCheckpoints(configuration);
+			checkQuorumReplication(placementCatalog);
+			configureDeadlockPolicy(configuration);
+			configureRecoveryCatchUp(configuration);
+			configureFailureDetector(configuration, placementCatalog);
+			configureSitesTransport(configuration);
+			createVariableStores(placementCatalog, configuration.getProperty(STORAGE_ENGINE_KEY,MAP_STORAGE_ENGINE).trim(), variableStores);
+		}
+		catch(IllegalArgumentException illegalArgumentException)
+		{
+			console.println("Invalid configuration. "+illegalArgumentException.getMessage());
+			return;
+		}
+		//Unless the input file is streamed, parse it completely before executing any operation
+		if(!isInputStreamed && bufferedReader!=null)
+		{
+			try
+			{
+				parseInputFile(bufferedReader, operations);
+			}
+			catch(IOException ioException)
+			{
+				console.println("Unable to read input file.");
+			}
+		}
+		
+		//Instantiating sites. We don't want any common or uncommon variable at different sites to share the same address space
+		for(int i=1;i<=placementCatalog.getNumberOfSites();i++)
+		{
+			//Instantiate data and lock manager for each site
+			Site site = new Site(i,(VariableStore)variableStores.get(i));
+			DataAndLockManager dataAndLockManager = new DataAndLockManager(i,site);
+			dataAndLockManagersMap.put(i, dataAndLockManager);				
+		}
+		//Restore the values committed at the sites before the process restarted, from the latest checkpoint and the commits logged since
+		try
+		{
+			loadCheckpoint(placementCatalog, dataAndLockManagersMap);
+		}
+		catch(IOException ioException)
+		{
+			console.println("Unable to load checkpoint. "+ioException.getMessage());
+			return;
+		}
+		try
+		{
+			openWriteAheadLogs(dataAndLockManagersMap);
+		}
+		catch(IOException ioException)
+		{
+			console.println("Unable to open write-ahead log. "+ioException.getMessage());
+			return;
+		}
+		//Instantiate transaction manager
+		TransactionManager transactionManager = new TransactionManager(dataAndLockManagersMap,placementCatalog);
+		transactionManager.setDeadlockPolicy(deadlockPolicy);
+		transactionManager.setFailureDetector(failureDetector);
+		transactionManager.setCommitsAcknowledgedWhenDurable(isWriteAheadLogEnabled);
+		transactionManager.setCoordinatorLog(coordinatorLog);
+		try
+		{
+			connectToSites(transactionManager, dataAndLockManagersMap);
+		}
+		catch(IOException ioException)
+		{
+			console.println("Unable to serve sites over loopback sockets. "+ioException.getMessage());
+			return;
+		}
+		try
+		{
+			OutputSink out = createOutputSink(new BufferedWriter(new FileWriter(outputFile)));
+			if(isInputStreamed)
+			{
+				executeOperations(transactionManager, dataAndLockManagersMap, streamInputFile(bufferedReader,out),out);
+			}
+			else
+			{
+				executeOperations(transactionManager, dataAndLockManagersMap, operations,out);
+			}
+			closeWriteAheadLogs(dataAndLockManagersMap);
+			disconnectFromSites();
+			out.close();
+		}
+		catch(IOException ioException)
+		{
+			console.println("Unable to create output file.");
+		}
+	}
+
+	/**
+	 * A method to load the configuration file describing the topology of sites and variables
+	 * @param fileName - A String holding full path of the configuration file, or null to use the default topology.
+	 * @return Properties - A Properties object with the configuration.
+	 * @throws IOException
+	 */
+	public Properties loadConfiguration(String fileName)throws IOException
+	{
+		Properties configuration = new Properties();
+		if(fileName!=null)
+		{
+			Reader reader = new FileReader(new File(fileName));
+			try
+			{
+				configuration.load(reader);
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		return configuration;
+	}
 	/**
 	 * A method to parse input file and store operations as list of OperationVO objects
 	 * @author Ashish Walia
@@ -58,534 +862,740 @@ public class RepCRecHelper {
 		    bufferedReader.close();
 		}
 	}
-	
-	public void addOperationToList(String operation,int tick, List operations)
+
+	/**
+	 * A method to parse input file on a separate thread while the operations are being executed.
+	 * The parser thread stays at most input.queueCapacity ticks ahead of the execution, so memory doesn't grow with the length of the input file.
+	 * What the parser reports is held back until the execution reaches the corresponding tick and is then written as console lines to out,
+	 * so the console shows every tick as it is parsed followed by its execution.
+	 * @param bufferedReader - A BufferedReader object to read the input file, closed once the whole file has been parsed.
+	 * @param out - An OutputSink object the parser's report of every tick is written to.
+	 * @return Iterator - An Iterator over the OperationVO objects in input order, blocking until the parser thread has parsed the next tick.
+	 */
+	public Iterator streamInputFile(BufferedReader bufferedReader, OutputSink out)
+	{
+		OperationStream operationStream = new OperationStream(inputQueueCapacity, out);
+		if(bufferedReader==null)
+		{
+			operationStream.end();
+			return operationStream;
+		}
+		OperationParser parser = new OperationParser();
+		parser.setEchoEnabled(operationParser.isEchoEnabled());
+		parser.setConsole(console);
+		Thread parserThread = new Thread(new InputFileParser(bufferedReader, operationStream, parser), "input-parser");
+		parserThread.setDaemon(true);
+		parserThread.start();
+		return operationStream;
+	}
+	
+	/**
+	 * A method to parse a single operation, i.e. one without any ';', and add it to the list
+	 * @param operation - A String holding the operation.
+	 * @param tick - An integer value representing the tick of the operation.
+	 * @param operations - A list of OperationVO objects
+	 */
+	public void addOperationToList(String operation,int tick, List operations)
+	{
+		operationParser.parseOperation(operation, tick, operations);
+	}
+	/**
+	 * A method to parse a line of the input file holding the operations of one tick, separated by ';'
+	 * @param line - A String holding the line.
+	 * @param tick - An integer value representing the tick of the line.
+	 * @param operations - A list of OperationVO objects
+	 */
+	public void parseLineAndConvertToOperation(String line,int tick, List operations)
+	{
+		operationParser.parseLine(line, tick, operations);
+	}
+	
+	/**
+	 * A method to execute all the operations read from the input file
+	 * @author Ashish Walia
+	 * @param transactionManager - An instance of TransactionManager
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param operations - A list of operations that need to be executed.
+	 * @param out - An OutputSink object to write contents in the output file
+	 * @throws IOException
+	 */
+	public void executeOperations(TransactionManager transactionManager,Map dataAndLockManagersMap ,List operations,OutputSink out)throws IOException
+	{
+		if(operations!=null)
+		{
+			executeOperations(transactionManager, dataAndLockManagersMap, operations.iterator(), out);
+		}
+	}
+
+	/**
+	 * A method to execute all the operations read from the input file, in the order in which the Iterator returns them
+	 * @param transactionManager - An instance of TransactionManager
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param itr - An Iterator over the operations that need to be executed, for instance the one returned by streamInputFile.
+	 * @param out - An OutputSink object to write contents in the output file
+	 * @throws IOException
+	 */
+	public void executeOperations(TransactionManager transactionManager,Map dataAndLockManagersMap ,Iterator itr,OutputSink out)throws IOException
+	{
+		if(numberOfExecutionThreads>1)
+		{
+			executeOperationsConcurrently(transactionManager, dataAndLockManagersMap, itr, out);
+			return;
+		}
+		//Iterating operations
+		if(itr!=null && transactionManager!=null && dataAndLockManagersMap!=null)
+		{
+			int previousTick=0;
+			while(itr.hasNext())
+			{
+				OperationVO operationVO = (OperationVO)itr.next();
+				if(operationVO!=null)
+				{				
+					int currentTick = operationVO.getTick();
+					if(previousTick!=currentTick)
+					{
+						//Commits of the previous tick become durable together
+						makeCommitsOfTickDurable(transactionManager, dataAndLockManagersMap, out);
+						checkpointIfDue(dataAndLockManagersMap, previousTick);
+						detectFailures(transactionManager, dataAndLockManagersMap, previousTick, out);
+						catchUpRecoveringSites(dataAndLockManagersMap, previousTick, out);
+						//Execute pending operations
+						transactionManager.executePendingOperations(out,currentTick);
+						previousTick=currentTick;
+					}
+					executeOperation(transactionManager, dataAndLockManagersMap, operationVO, out);
+				}
+			}
+			makeCommitsOfTickDurable(transactionManager, dataAndLockManagersMap, out);
+		}		
+	}
+
+	/**
+	 * A method to execute a single operation read from the input file
+	 * @param transactionManager - An instance of TransactionManager
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param operationVO - An OperationVO object which holds all the information about the operation
+	 * @param out - An OutputSink object to write contents in the output file
+	 * @throws IOException
+	 */
+	public void executeOperation(TransactionManager transactionManager,Map dataAndLockManagersMap ,OperationVO operationVO,OutputSink out)throws IOException
+	{
+		if(operationVO!=null && transactionManager!=null && dataAndLockManagersMap!=null)
+		{
+			int operationToBePerformed = operationVO.getTypeOfOperation();
+			int currentTick = operationVO.getTick();
+			out.newLine();
+			out.write("*************************************");
+			out.newLine();
+			out.write(operationVO.getOperation());
+			out.newLine();
+			out.write("*************************************");
+			out.newLine();
+			switch(operationToBePerformed)
+			{
+			case OperationConstants.BEGIN_TRANSACTION_OPERATION : 
+				if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()))
+				{
+					//transactionManager.beginTransaction(operationVO.getTrxName(), false, operationVO.getTick());
+					transactionManager.beginTransaction(operationVO,out);
+				}
+				break;
+			case OperationConstants.BEGIN_READ_ONLY_TRANSACTION_OPERATION:
+				if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()))
+				{
+					transactionManager.beginTransaction(operationVO,out);
+				}
+				break;
+			case OperationConstants.COMMIT_TRANSACTION_OPERATION:
+				if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()))
+				{
+					if(transactionManager.getBlockedTrxs()!=null && transactionManager.getBlockedTrxs().contains(operationVO.getTrxName()))
+					{
+							out.writeConsoleLine("Transaction "+operationVO.getTrxName()+" is currently blocked and can't be committed.");									
+							if(transactionManager.getTrxsMap()!=null && transactionManager.getTrxsMap().containsKey(operationVO.getTrxName()))
+							{
+								Transaction trx = (Transaction)transactionManager.getTrxsMap().get(operationVO.getTrxName());
+								if(trx!=null)
+								{
+									out.write("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
+									out.newLine();
+									trx.addOperationsToBlockedOperationsQueue(operationVO);
+								}										
+							}
+					}
+					else
+					{
+						transactionManager.endTransaction(operationVO,out);
+					}
+				}
+				break;
+			case OperationConstants.READ_OPERATION:
+				if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()) && operationVO.getVariable()!=null && !"".equals(operationVO.getVariable()))
+				{
+				
+					if(transactionManager.getBlockedTrxs()!=null && transactionManager.getBlockedTrxs().contains(operationVO.getTrxName()))
+					{
+						out.write("Transaction "+operationVO.getTrxName()+" is currently blocked.");
+						out.newLine();
+							if(transactionManager.getTrxsMap()!=null && transactionManager.getTrxsMap().containsKey(operationVO.getTrxName()))
+							{
+								Transaction trx = (Transaction)transactionManager.getTrxsMap().get(operationVO.getTrxName());
+								if(trx!=null)
+								{
+									out.write("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
+									out.newLine();
+									trx.addOperationsToBlockedOperationsQueue(operationVO);
+								}										
+							}
+					}
+					else
+					{
+						transactionManager.readVariable(operationVO,out,currentTick);
+					}
+				}
+				break;
+			case OperationConstants.WRITE_OPERATION:
+				if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()) && operationVO.getVariable()!=null && !"".equals(operationVO.getVariable()))
+				{
+					if(transactionManager.getBlockedTrxs()!=null && transactionManager.getBlockedTrxs().contains(operationVO.getTrxName()))
+					{
+						out.write("Transaction "+operationVO.getTrxName()+" is currently blocked.");
+						out.newLine();
+							if(transactionManager.getTrxsMap()!=null && transactionManager.getTrxsMap().containsKey(operationVO.getTrxName()))
+							{
+								Transaction trx = (Transaction)transactionManager.getTrxsMap().get(operationVO.getTrxName());
+								if(trx!=null)
+								{
+									out.write("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
+									out.newLine();
+									trx.addOperationsToBlockedOperationsQueue(operationVO);
+								}										
+							}
+					}
+					else
+					{
+						transactionManager.writeVariable(operationVO,out,currentTick);
+					}
+				}
+				break;
+			
+			case OperationConstants.DUMP_ALL_OPERATION:
+				if(dataAndLockManagersMap!=null)
+				{
+					Iterator iterator = (Iterator)dataAndLockManagersMap.entrySet().iterator();
+					while(iterator.hasNext())
+					{
+						Map.Entry pairs = (Map.Entry)iterator.next();
+						if(pairs!=null)
+						{
+							DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();									
+							if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
+							{
+								dataAndLockManager.getSiteServicedByDataAndLockMgr().dump(out);
+							}
+						}
+				}
+				}
+				break;
+			case OperationConstants.DUMP_SITE_OPERATION:
+				if(dataAndLockManagersMap!=null)
+				{
+				
+							DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(operationVO.getValue());									
+							if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
+							{
+								dataAndLockManager.getSiteServicedByDataAndLockMgr().dump(out);
+							}
+
+					
+				}
+				break;
+			case OperationConstants.DUMP_VARIABLE_OPERATION:
+				if(dataAndLockManagersMap!=null && operationVO.getVariable()!=null)
+				{
+					Iterator iterator = (Iterator)dataAndLockManagersMap.entrySet().iterator();
+					while(iterator.hasNext())
+					{
+						Map.Entry pairs = (Map.Entry)iterator.next();
+						if(pairs!=null)
+						{
+							DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();									
+							if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
+							{
+								dataAndLockManager.getSiteServicedByDataAndLockMgr().dump(operationVO.getVariable(),out);
+							}
+
+						}
+				}
+				}
+				break;
+			case OperationConstants.FAIL_SITE_OPERATION:
+				if(operationVO.getValue()>transactionManager.getPlacementCatalog().getNumberOfSites() || operationVO.getValue()<0)
+				{
+					out.write("Invalid Site"+operationVO.getValue());
+					out.newLine();
+				}
+				else if(dataAndLockManagersMap!=null)
+				{
+							DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(operationVO.getValue());									
+							if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
+							{
+								dataAndLockManager.failSite(operationVO.getTick(),out);
+							}								
+				}
+				break;
+			case OperationConstants.RECOVER_SITE_OPERATION:
+				if(operationVO.getValue()>transactionManager.getPlacementCatalog().getNumberOfSites() || operationVO.getValue()<0)
+				{
+					out.write("Invalid Site"+operationVO.getValue());
+					out.newLine();
+				}
+				else if(dataAndLockManagersMap!=null)
+				{
+							DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(operationVO.getValue());									
+							if(dataAndLockManager!=null)
+							{
+								boolean isSiteDown = dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && !dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus();
+								dataAndLockManager.recoverSite(operationVO.getTick(),out);
+								if(isSiteDown)
+								{
+									transactionManager.catchUpRecoveredSite(operationVO.getValue(),out);
+									if(isCatchUpEnabled)
+									{
+										getOrCreateRecoveryCatchUp(transactionManager).startCatchingUp(dataAndLockManager,operationVO.getTick(),out);
+									}
+								}
+							}								
+				}
+				break;
+			case OperationConstants.QUERY_STATE_OPERATION:
+				transactionManager.queryState(out);
+				break;
+				default:
+					out.write("Unrecognised operation "+ operationVO.getOperation()+" encountered.");
+	                            out.newLine();						
+				break;
+			
+			}
+		}
+	}
+
+	
+	/**
+	 * A method to execute all the operations read from the input file on a pool of worker threads.
+	 * Operations are executed tick by tick. Reads and writes of a tick run concurrently, grouped so that transactions accessing or holding locks
+	 * on a common variable run on the same worker in input order, while every other operation acts as a barrier and runs alone.
+	 * Output of every operation is buffered and written in input order, so the result is the same as the one of executeOperations.
+	 * @param transactionManager - An instance of TransactionManager
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param operations - A list of operations that need to be executed.
+	 * @param out - An OutputSink object to write contents in the output file
+	 * @throws IOException
+	 */
+	public void executeOperationsConcurrently(TransactionManager transactionManager,Map dataAndLockManagersMap ,List operations,OutputSink out)throws IOException
+	{
+		if(operations!=null)
+		{
+			executeOperationsConcurrently(transactionManager, dataAndLockManagersMap, operations.iterator(), out);
+		}
+	}
+
+	/**
+	 * A method to execute all the operations read from the input file on a pool of worker threads, in the order in which the Iterator returns them.
+	 * @see #executeOperationsConcurrently(TransactionManager, Map, List, OutputSink)
+	 */
+	public void executeOperationsConcurrently(TransactionManager transactionManager,Map dataAndLockManagersMap ,Iterator itr,OutputSink out)throws IOException
 	{
-		if(operation!=null && !"".equals(operation) && operation.endsWith(")"))
+		if(itr!=null && transactionManager!=null && dataAndLockManagersMap!=null)
 		{
-			String trxName="";
-			String variable="";
-			int value=0;
-			String operationString=operation;
-			int bracesStartIndex = operationString.indexOf("(");
-			int bracesEndIndex = operationString.indexOf(")");
-			int indexOfFirstComma = operationString.indexOf(",");
-			int indexOfLastComma= operationString.lastIndexOf(",");
-			int numberOfCommas=countNumberOfInstancesOfCharInString(operationString,',');
-			if(operationString.startsWith("begin("))
+			ExecutorService executor = Executors.newFixedThreadPool(numberOfExecutionThreads);
+			try
 			{
-				
-				if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex > (bracesStartIndex+1)))
+				List segment = new ArrayList();
+				int previousTick=0;
+				while(itr.hasNext())
 				{
-					trxName=operationString.substring(bracesStartIndex+1, bracesEndIndex);
-					OperationVO operationVO = new OperationVO(operationString,OperationConstants.BEGIN_TRANSACTION_OPERATION,tick);
-					operationVO.setTrxName(trxName);
-					if(operations!=null)
+					OperationVO operationVO = (OperationVO)itr.next();
+					if(operationVO!=null)
 					{
-						System.out.println(operationVO.getOperation());
-						operations.add(operationVO);
+						int currentTick = operationVO.getTick();
+						if(previousTick!=currentTick)
+						{
+							executeSegment(transactionManager, dataAndLockManagersMap, segment, out, executor);
+							//Commits of the previous tick become durable together
+							makeCommitsOfTickDurable(transactionManager, dataAndLockManagersMap, out);
+							checkpointIfDue(dataAndLockManagersMap, previousTick);
+							detectFailures(transactionManager, dataAndLockManagersMap, previousTick, out);
+							catchUpRecoveringSites(dataAndLockManagersMap, previousTick, out);
+							//Execute pending operations
+							transactionManager.executePendingOperations(out,currentTick);
+							previousTick=currentTick;
+						}
+						if(operationVO.getTypeOfOperation()==OperationConstants.READ_OPERATION || operationVO.getTypeOfOperation()==OperationConstants.WRITE_OPERATION)
+						{
+							segment.add(operationVO);
+						}
+						else
+						{
+							executeSegment(transactionManager, dataAndLockManagersMap, segment, out, executor);
+							executeOperation(transactionManager, dataAndLockManagersMap, operationVO, out);
+						}
 					}
 				}
-				else
-				{
-					System.out.println("Invalid I/P "+ operationString+" encountered.");
-				}
+				executeSegment(transactionManager, dataAndLockManagersMap, segment, out, executor);
+				makeCommitsOfTickDurable(transactionManager, dataAndLockManagersMap, out);
 			}
-			else if(operationString.startsWith("end("))
+			finally
 			{
-				if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex > (bracesStartIndex+1)))
-				{
-					trxName=operationString.substring(bracesStartIndex+1, bracesEndIndex);
-					OperationVO operationVO = new OperationVO(operationString,OperationConstants.COMMIT_TRANSACTION_OPERATION,tick);
-					operationVO.setTrxName(trxName);
-					if(operations!=null)
+				executor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * A method to execute a run of read and write operations of the same tick concurrently and to clear the run afterwards.
+	 * @param segment - A list of read and write operations in input order.
+	 */
+	private void executeSegment(final TransactionManager transactionManager,final Map dataAndLockManagersMap ,List segment,OutputSink out,ExecutorService executor)throws IOException
+	{
+		if(segment.isEmpty())
+		{
+			return;
+		}
+		final OperationVO[] operations = (OperationVO[])segment.toArray(new OperationVO[segment.size()]);
+		segment.clear();
+		//A deadlock policy which may abort transactions not locking the requested variable leaves no group of operations independent of the others
+		List groups = (transactionManager.getDeadlockPolicy().isDecidedLocally())?groupOperationsOfConflictingTransactions(transactionManager, dataAndLockManagersMap, operations):null;
+		if(groups==null || groups.size()==1)
+		{
+			for(int i=0;i<operations.length;i++)
+			{
+				executeOperation(transactionManager, dataAndLockManagersMap, operations[i], out);
+			}
+			return;
+		}
+		final BufferedOutputSink[] outputs = new BufferedOutputSink[operations.length];
+		//A Map<Key,value>, key is name of a transaction blocked by this segment and value is index of the operation which blocked it
+		final Map newlyBlockedTrxs = Collections.synchronizedMap(new HashMap());
+		List futures = new ArrayList();
+		Iterator itr = (Iterator)groups.iterator();
+		while(itr.hasNext())
+		{
+			//The data and lock managers rely on the operations of a group being executed on one thread, in input order
+			final List group = (List)itr.next();
+			futures.add(executor.submit(new Callable() {
+				public Object call() throws IOException {
+					Iterator iterator = (Iterator)group.iterator();
+					while(iterator.hasNext())
 					{
-						System.out.println(operationVO.getOperation());
-						operations.add(operationVO);
+						int index = ((Integer)iterator.next()).intValue();
+						String trxName = operations[index].getTrxName();
+						boolean wasBlocked = transactionManager.getBlockedTrxs().contains(trxName);
+						outputs[index] = new BufferedOutputSink();
+						executeOperation(transactionManager, dataAndLockManagersMap, operations[index], outputs[index]);
+						if(!wasBlocked && transactionManager.getBlockedTrxs().contains(trxName))
+						{
+							newlyBlockedTrxs.put(trxName, index);
+						}
 					}
+					return null;
 				}
-				else
-				{
-					System.out.println("Invalid I/P "+ operationString+" encountered.");
-				}
-			}
-			else if(operationString.startsWith("beginRO("))
+			}));
+		}
+		waitForAll(futures);
+		for(int i=0;i<operations.length;i++)
+		{
+			outputs[i].replayTo(out);
+		}
+		//Blocked transactions are retried in the order in which they were blocked, restore the order a sequential execution would have produced
+		if(!newlyBlockedTrxs.isEmpty())
+		{
+			BlockedTransactionRegistry blockedTrxs = transactionManager.getBlockedTrxs();
+			synchronized(blockedTrxs)
 			{
-				
-				if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex > (bracesStartIndex+1)))
+				//Transactions aborted by the deadlock policy after being blocked aren't blocked any more
+				Iterator iterator = (Iterator)newlyBlockedTrxs.keySet().iterator();
+				while(iterator.hasNext())
 				{
-					trxName=operationString.substring(bracesStartIndex+1, bracesEndIndex);
-					OperationVO operationVO = new OperationVO(operationString,OperationConstants.BEGIN_READ_ONLY_TRANSACTION_OPERATION,tick);
-					operationVO.setTrxName(trxName);
-					if(operations!=null)
+					if(!blockedTrxs.remove((String)iterator.next()))
 					{
-						System.out.println(operationVO.getOperation());
-						operations.add(operationVO);
+						iterator.remove();
 					}
 				}
-				else
+				for(int i=0;i<operations.length;i++)
 				{
-					System.out.println("Invalid I/P "+ operationString+" encountered.");
+					String trxName = operations[i].getTrxName();
+					Integer index = (Integer)newlyBlockedTrxs.get(trxName);
+					if(index!=null && index.intValue()==i)
+					{
+						transactionManager.addTrxToBlockedTrxsList(trxName,operations[i].getTick());
+					}
 				}
 			}
-			else if(operationString.startsWith("W("))
+		}
+	}
+
+	/**
+	 * A method which partitions a run of read and write operations into groups which can be executed independently of each other.
+	 * Transactions end up in the same group if they access a common variable in the run, or if one of them accesses a variable the other one already holds a lock on.
+	 * Read-only transactions never conflict and each of them forms its own group.
+	 * @param operations - An array of read and write operations in input order.
+	 * @return List - A list of groups, each a list of operation indexes in input order. Groups are ordered by their first operation.
+	 */
+	private List groupOperationsOfConflictingTransactions(TransactionManager transactionManager,Map dataAndLockManagersMap ,OperationVO[] operations)
+	{
+		//Union-find over transaction names and variable names, a variable name is prefixed to keep it apart from a transaction name
+		Map parents = new HashMap();
+		for(int i=0;i<operations.length;i++)
+		{
+			String trxName = operations[i].getTrxName();
+			Transaction trx = (Transaction)transactionManager.getTrxsMap().get(trxName);
+			if(trx!=null && !trx.isTrxReadOnly() && operations[i].getVariable()!=null)
 			{
-				if((bracesEndIndex>0) && (bracesStartIndex>0) && (indexOfFirstComma>0) && (indexOfLastComma>0) && (bracesEndIndex > (bracesStartIndex+1)) && (numberOfCommas==2) && (indexOfFirstComma>((bracesStartIndex+1))) && (indexOfLastComma>(indexOfFirstComma+1)) &&(bracesEndIndex>(indexOfLastComma+1)))
+				String variableKey = "#"+operations[i].getVariable();
+				union(parents, trxName, variableKey);
+				Set lockingTrxs = new HashSet();
+				Iterator itr = (Iterator)dataAndLockManagersMap.values().iterator();
+				while(itr.hasNext())
 				{
-					trxName=operationString.substring(bracesStartIndex+1, indexOfFirstComma);
-					variable=operationString.substring(indexOfFirstComma+1,indexOfLastComma);
-					try
-					{
-						value=Integer.parseInt(operationString.substring(indexOfLastComma+1,bracesEndIndex));
-						OperationVO operationVO = new OperationVO(operationString,OperationConstants.WRITE_OPERATION,tick);
-						operationVO.setTrxName(trxName);
-						operationVO.setVariable(variable);
-						operationVO.setValue(value);
-							if(operations!=null)
-							{
-								System.out.println(operationVO.getOperation());
-								operations.add(operationVO);
-							}
-					}
-					catch(NumberFormatException numberFormatException)
-					{
-						System.out.println("Invalid I/P "+ operationString+" encountered.");
-					}
+					((DataAndLockManager)itr.next()).addTrxsLockingVariable(operations[i].getVariable(), lockingTrxs);
 				}
-				else
+				itr = (Iterator)lockingTrxs.iterator();
+				while(itr.hasNext())
 				{
-					System.out.println("Invalid I/P "+ operationString+" encountered.");
+					union(parents, (String)itr.next(), variableKey);
 				}
 			}
-			else if(operationString.startsWith("R("))
+		}
+		Map groupsByRoot = new LinkedHashMap();
+		for(int i=0;i<operations.length;i++)
+		{
+			Object root = find(parents, operations[i].getTrxName());
+			List group = (List)groupsByRoot.get(root);
+			if(group==null)
+			{
+				group = new ArrayList();
+				groupsByRoot.put(root, group);
+			}
+			group.add(i);
+		}
+		return new ArrayList(groupsByRoot.values());
+	}
+
+	private Object find(Map parents, Object key)
+	{
+		Object parent = parents.get(key);
+		if(parent==null || parent.equals(key))
+		{
+			return key;
+		}
+		Object root = find(parents, parent);
+		parents.put(key, root);
+		return root;
+	}
+
+	private void union(Map parents, Object first, Object second)
+	{
+		Object firstRoot = find(parents, first);
+		Object secondRoot = find(parents, second);
+		if(!firstRoot.equals(secondRoot))
+		{
+			parents.put(firstRoot, secondRoot);
+		}
+	}
+
+	private void waitForAll(List futures)throws IOException
+	{
+		Iterator itr = (Iterator)futures.iterator();
+		while(itr.hasNext())
+		{
+			try
+			{
+				((Future)itr.next()).get();
+			}
+			catch(InterruptedException interruptedException)
 			{
-				if((bracesEndIndex>0) && (bracesStartIndex>0) && (indexOfFirstComma>0) && (bracesEndIndex > (bracesStartIndex+1)) && (numberOfCommas==1) && (indexOfFirstComma>((bracesStartIndex+1))) &&(bracesEndIndex>(indexOfFirstComma+1)))
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while executing operations.");
+			}
+			catch(ExecutionException executionException)
+			{
+				Throwable cause = executionException.getCause();
+				if(cause instanceof IOException)
 				{
-					trxName=operationString.substring(bracesStartIndex+1, indexOfFirstComma);
-					variable=operationString.substring(indexOfFirstComma+1,bracesEndIndex);
-					
-						OperationVO operationVO = new OperationVO(operationString,OperationConstants.READ_OPERATION,tick);
-						operationVO.setTrxName(trxName);
-						operationVO.setVariable(variable);
-							if(operations!=null)
-							{
-								System.out.println(operationVO.getOperation());
-								operations.add(operationVO);
-							}									
+					throw (IOException)cause;
 				}
-				else
+				if(cause instanceof RuntimeException)
 				{
-					System.out.println("Invalid I/P "+ operationString+" encountered.");
+					throw (RuntimeException)cause;
 				}
+				throw new IllegalStateException(cause);
 			}
-			else if(operationString.startsWith("fail("))
+		}
+	}
+
+	/**
+	 * An Iterator over the operations parsed by the parser thread. Every element of the queue holds the operations of one tick and what the parser
+	 * reported while parsing them, the end of the input file is marked by END_OF_INPUT.
+	 */
+	private static class OperationStream implements Iterator {
+		private static final Object[] END_OF_INPUT = new Object[0];
+		private BlockingQueue ticks = null;
+		private Iterator currentTick = null;
+		private boolean isEndReached = false;
+		private OutputSink out = null;
+
+		OperationStream(int capacity, OutputSink out)
+		{
+			ticks = new ArrayBlockingQueue(capacity);
+			this.out=out;
+		}
+		void put(List operations, String report)throws InterruptedException
+		{
+			ticks.put(new Object[]{operations, report});
+		}
+		void end()
+		{
+			//The consumer always drains the queue, so waiting for room never blocks forever
+			boolean interrupted=false;
+			while(true)
 			{
-				if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex > (bracesStartIndex+1)))
+				try
 				{
-					try
-					{
-						value=Integer.parseInt(operationString.substring(bracesStartIndex+1,bracesEndIndex));
-						OperationVO operationVO = new OperationVO(operationString,OperationConstants.FAIL_SITE_OPERATION,tick);										
-						operationVO.setValue(value);
-							if(operations!=null)
-							{
-								System.out.println(operationVO.getOperation());
-								operations.add(operationVO);
-							}
-					}
-					catch(NumberFormatException numberFormatException)
-					{
-						System.out.println("Invalid I/P "+ operationString+" encountered.");
-					}
+					ticks.put(END_OF_INPUT);
+					break;
 				}
-				else
+				catch(InterruptedException interruptedException)
 				{
-					System.out.println("Invalid I/P "+ operationString+" encountered.");
+					interrupted=true;
 				}
 			}
-			else if(operationString.startsWith("recover("))
+			if(interrupted)
 			{
-				if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex > (bracesStartIndex+1)))
+				Thread.currentThread().interrupt();
+			}
+		}
+		public boolean hasNext() {
+			while(!isEndReached && (currentTick==null || !currentTick.hasNext()))
+			{
+				Object[] tick = null;
+				try
 				{
-					try
-					{
-						value=Integer.parseInt(operationString.substring(bracesStartIndex+1,bracesEndIndex));
-						OperationVO operationVO = new OperationVO(operationString,OperationConstants.RECOVER_SITE_OPERATION,tick);										
-						operationVO.setValue(value);
-							if(operations!=null)
-							{
-								System.out.println(operationVO.getOperation());
-								operations.add(operationVO);
-							}
-					}
-					catch(NumberFormatException numberFormatException)
-					{
-						System.out.println("Invalid I/P "+ operationString+" encountered.");
-					}
+					tick = (Object[])ticks.take();
 				}
-				else
+				catch(InterruptedException interruptedException)
 				{
-					System.out.println("Invalid I/P "+ operationString+" encountered.");
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while waiting for the input file to be parsed.");
 				}
-			}
-			else if(operationString.startsWith("dump("))
-			{
-				if((bracesEndIndex>0) && (bracesStartIndex>0))
+				if(tick==END_OF_INPUT)
 				{
-					OperationVO operationVO =null;
-					if(bracesEndIndex==(bracesStartIndex+1))
-					{
-						operationVO = new OperationVO(operationString,OperationConstants.DUMP_ALL_OPERATION,tick);							
-							if(operations!=null)
-							{
-								System.out.println(operationVO.getOperation());
-								operations.add(operationVO);
-							}
-					}
-					else if(bracesEndIndex>(bracesStartIndex+1))
-					{
-						try
-						{
-							//dump(1)
-							value=Integer.parseInt(operationString.substring(bracesStartIndex+1,bracesEndIndex));
-							operationVO = new OperationVO(operationString,OperationConstants.DUMP_SITE_OPERATION,tick);										
-							operationVO.setValue(value);
-								if(operations!=null)
-								{
-									System.out.println(operationVO.getOperation());
-									operations.add(operationVO);
-								}
-						}
-						catch(NumberFormatException numberFormatException)
-						{
-							//dump(x1)
-							variable=operationString.substring(bracesStartIndex+1,bracesEndIndex);
-							operationVO = new OperationVO(operationString,OperationConstants.DUMP_VARIABLE_OPERATION,tick);										
-							operationVO.setVariable(variable);
-								if(operations!=null)
-								{
-									System.out.println(operationVO.getOperation());
-									operations.add(operationVO);
-								}
-						}
-					}
-				}
-			}
-			else if(operationString.startsWith("querystate("))
-			{
-				if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex ==(bracesStartIndex+1)))
-				{										
-						OperationVO operationVO = new OperationVO(operationString,OperationConstants.QUERY_STATE_OPERATION,tick);
-							if(operations!=null)
-							{
-								System.out.println(operationVO.getOperation());
-								operations.add(operationVO);
-							}
+					isEndReached=true;
+					currentTick=null;
 				}
 				else
 				{
-					System.out.println("Invalid I/P "+ operationString+" encountered.");
+					writeReport((String)tick[1]);
+					currentTick=((List)tick[0]).iterator();
 				}
 			}
-			else
+			return !isEndReached;
+		}
+		public Object next() {
+			if(!hasNext())
 			{
-				System.out.println("Invalid I/P "+ operationString+" encountered.");
+				throw new NoSuchElementException();
 			}
+			return currentTick.next();
 		}
-		else
-		{
-			System.out.println("Invalid I/P "+ operation+" encountered.");
+		public void remove() {
+			throw new UnsupportedOperationException();
 		}
-	}
-	public void parseLineAndConvertToOperation(String line,int tick, List operations)
-	{
-		if(line!=null)
+		private void writeReport(String report)
 		{
-			line = removeSpaces(line);
-			if(line.endsWith(";"))
-			{
-				line = line.substring(0,line.length()-1);
-			}
-			else if(line.startsWith(";"))
+			if(report.length()==0 || out==null)
 			{
-				line = line.substring(1,line.length());
+				return;
 			}
-			if(line.contains(";"))
+			try
 			{
-				String operationsArray[]=line.split(";");
-				if(operationsArray!=null && operationsArray.length>0)
+				String[] lines = report.split(System.lineSeparator());
+				for(int i=0;i<lines.length;i++)
 				{
-					for(int i = 0;i<operationsArray.length;i++)
-					{
-						addOperationToList(operationsArray[i], tick, operations);
-					}
+					out.writeConsoleLine(lines[i]);
 				}
 			}
-			//A single non co-temporous operation encountered
-			else
+			catch(IOException ioException)
 			{
-				addOperationToList(line, tick, operations);
+				throw new UncheckedIOException(ioException);
 			}
 		}
 	}
-	public int countNumberOfInstancesOfCharInString(String str,char chr)
-	{
-		int result=0;
-		if(str!=null&& !"".equals(str))
-		{
-			for(int i = 0; i < str.length(); i++)
-	        {
-	            if(str.charAt(i)==chr)
-	            {
-	            	result++;
-	            }
-	        }
-		}
-		return result;
-	}
-	public String removeSpaces(String line)
-    {
-        String returnValue = "";
-        for(int i = 0; i < line.length(); i++)
-        {
-            if(line.charAt(i) != ' ')
-            {
-            	returnValue += line.charAt(i);
-            }
-        }
-        return returnValue;
-    }
-	
+
 	/**
-	 * A method to execute all the operations read from the input file
-	 * @author Ashish Walia
-	 * @param transactionManager - An instance of TransactionManager
-	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
-	 * @param operations - A list of operations that need to be executed.
-	 * @param out - A BufferedWriter object to write contents in the output file
-	 * @throws IOException
+	 * Parses the input file line by line, i.e. tick by tick, into an OperationStream.
 	 */
-	public void executeOperations(TransactionManager transactionManager,Map dataAndLockManagersMap ,List operations,BufferedWriter out)throws IOException
-	{
-		//Iterating List of operations
-		if(operations!=null && transactionManager!=null && dataAndLockManagersMap!=null)
+	private static class InputFileParser implements Runnable {
+		private BufferedReader bufferedReader = null;
+		private OperationStream operationStream = null;
+		private OperationParser parser = null;
+
+		InputFileParser(BufferedReader bufferedReader, OperationStream operationStream, OperationParser parser)
 		{
-						
-			Iterator itr = (Iterator)operations.iterator();
-			int previousTick=0;
-			while(itr.hasNext())
+			this.bufferedReader=bufferedReader;
+			this.operationStream=operationStream;
+			this.parser=parser;
+		}
+		public void run() {
+			ByteArrayOutputStream report = new ByteArrayOutputStream();
+			parser.setConsole(new PrintStream(report, false));
+			try
 			{
-				OperationVO operationVO = (OperationVO)itr.next();
-				if(operationVO!=null)
-				{				
-					int operationToBePerformed = operationVO.getTypeOfOperation();
-					int currentTick = operationVO.getTick();
-					if(previousTick!=currentTick)
+				String line = null;
+				int tick=0;
+				while((line = bufferedReader.readLine())!=null)
+				{
+					tick++;
+					List operations = new ArrayList();
+					parser.parseLine(line,tick,operations);
+					if(!operations.isEmpty() || report.size()>0)
 					{
-						//Execute pending operations
-						transactionManager.executePendingOperations(out,currentTick);
-						previousTick=currentTick;
+						operationStream.put(operations, report.toString());
+						report.reset();
 					}
-					out.newLine();
-					out.write("*************************************");
-					out.newLine();
-					out.write(operationVO.getOperation());
-					out.newLine();
-					out.write("*************************************");
-					out.newLine();
-					System.out.println("");
-					System.out.println("*************************************");
-					System.out.println(operationVO.getOperation());
-					System.out.println("*************************************");
-					switch(operationToBePerformed)
+				}
+			}
+			catch(IOException ioException)
+			{
+				parser.getConsole().println("Unable to read input file.");
+			}
+			catch(InterruptedException interruptedException)
+			{
+				Thread.currentThread().interrupt();
+			}
+			finally
+			{
+				try
+				{
+					bufferedReader.close();
+				}
+				catch(IOException ioException)
+				{
+				}
+				if(report.size()>0)
+				{
+					try
 					{
-					case OperationConstants.BEGIN_TRANSACTION_OPERATION : 
-						if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()))
-						{
-							//transactionManager.beginTransaction(operationVO.getTrxName(), false, operationVO.getTick());
-							transactionManager.beginTransaction(operationVO,out);
-						}
-						break;
-					case OperationConstants.BEGIN_READ_ONLY_TRANSACTION_OPERATION:
-						if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()))
-						{
-							transactionManager.beginTransaction(operationVO,out);
-						}
-						break;
-					case OperationConstants.COMMIT_TRANSACTION_OPERATION:
-						if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()))
-						{
-							if(transactionManager.getBlockedTrxsList()!=null && transactionManager.getBlockedTrxsList().contains(operationVO.getTrxName()))
-							{
-									System.out.println("Transaction "+operationVO.getTrxName()+" is currently blocked and can't be committed.");									
-									if(transactionManager.getTrxsMap()!=null && transactionManager.getTrxsMap().containsKey(operationVO.getTrxName()))
-									{
-										Transaction trx = (Transaction)transactionManager.getTrxsMap().get(operationVO.getTrxName());
-										if(trx!=null)
-										{
-											out.write("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
-											out.newLine();
-											System.out.println("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
-											trx.addOperationsToBlockedOperationsQueue(operationVO);
-										}										
-									}
-							}
-							else
-							{
-								transactionManager.endTransaction(operationVO,out);
-							}
-						}
-						break;
-					case OperationConstants.READ_OPERATION:
-						if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()) && operationVO.getVariable()!=null && !"".equals(operationVO.getVariable()))
-						{
-							
-							if(transactionManager.getBlockedTrxsList()!=null && transactionManager.getBlockedTrxsList().contains(operationVO.getTrxName()))
-							{
-								out.write("Transaction "+operationVO.getTrxName()+" is currently blocked.");
-								out.newLine();
-								System.out.println("Transaction "+operationVO.getTrxName()+" is currently blocked.");									
-									if(transactionManager.getTrxsMap()!=null && transactionManager.getTrxsMap().containsKey(operationVO.getTrxName()))
-									{
-										Transaction trx = (Transaction)transactionManager.getTrxsMap().get(operationVO.getTrxName());
-										if(trx!=null)
-										{
-											out.write("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
-											out.newLine();
-											System.out.println("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
-											trx.addOperationsToBlockedOperationsQueue(operationVO);
-										}										
-									}
-							}
-							else
-							{
-								transactionManager.readVariable(operationVO,out,currentTick);
-							}
-						}
-						break;
-					case OperationConstants.WRITE_OPERATION:
-						if(operationVO.getTrxName()!=null && !"".equals(operationVO.getTrxName()) && operationVO.getVariable()!=null && !"".equals(operationVO.getVariable()))
-						{
-							if(transactionManager.getBlockedTrxsList()!=null && transactionManager.getBlockedTrxsList().contains(operationVO.getTrxName()))
-							{
-								out.write("Transaction "+operationVO.getTrxName()+" is currently blocked.");
-								out.newLine();
-								System.out.println("Transaction "+operationVO.getTrxName()+" is currently blocked.");									
-									if(transactionManager.getTrxsMap()!=null && transactionManager.getTrxsMap().containsKey(operationVO.getTrxName()))
-									{
-										Transaction trx = (Transaction)transactionManager.getTrxsMap().get(operationVO.getTrxName());
-										if(trx!=null)
-										{
-											out.write("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
-											out.newLine();
-											System.out.println("Adding "+operationVO.getOperation()+" to Transaction "+operationVO.getTrxName()+"'s blocked operations' queue.");
-											trx.addOperationsToBlockedOperationsQueue(operationVO);
-										}										
-									}
-							}
-							else
-							{
-								transactionManager.writeVariable(operationVO,out,currentTick);
-							}
-						}
-						break;
-						
-					case OperationConstants.DUMP_ALL_OPERATION:
-						if(dataAndLockManagersMap!=null)
-						{
-							Iterator iterator = (Iterator)dataAndLockManagersMap.entrySet().iterator();
-							while(iterator.hasNext())
-							{
-								Map.Entry pairs = (Map.Entry)iterator.next();
-								if(pairs!=null)
-								{
-									DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();									
-									if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
-									{
-										dataAndLockManager.getSiteServicedByDataAndLockMgr().dump(out);
-									}
-								}
-						}
-						}
-						break;
-					case OperationConstants.DUMP_SITE_OPERATION:
-						if(dataAndLockManagersMap!=null)
-						{
-							
-									DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(operationVO.getValue());									
-									if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
-									{
-										dataAndLockManager.getSiteServicedByDataAndLockMgr().dump(out);
-									}
-
-								
-						}
-						break;
-					case OperationConstants.DUMP_VARIABLE_OPERATION:
-						if(dataAndLockManagersMap!=null && operationVO.getVariable()!=null)
-						{
-							Iterator iterator = (Iterator)dataAndLockManagersMap.entrySet().iterator();
-							while(iterator.hasNext())
-							{
-								Map.Entry pairs = (Map.Entry)iterator.next();
-								if(pairs!=null)
-								{
-									DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();									
-									if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
-									{
-										dataAndLockManager.getSiteServicedByDataAndLockMgr().dump(operationVO.getVariable(),out);
-									}
-
-								}
-						}
-						}
-						break;
-					case OperationConstants.FAIL_SITE_OPERATION:
-						if(operationVO.getValue()>10 || operationVO.getValue()<0)
-						{
-							System.out.println("Invalid Site"+operationVO.getValue());
-							out.write("Invalid Site"+operationVO.getValue());
-							out.newLine();
-						}
-						else if(dataAndLockManagersMap!=null)
-						{
-									DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(operationVO.getValue());									
-									if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
-									{
-										dataAndLockManager.failSite(operationVO.getTick(),out);
-									}								
-						}
-						break;
-					case OperationConstants.RECOVER_SITE_OPERATION:
-						if(operationVO.getValue()>10 || operationVO.getValue()<0)
-						{
-							out.write("Invalid Site"+operationVO.getValue());
-							out.newLine();
-							System.out.println("Invalid Site"+operationVO.getValue());
-						}
-						else if(dataAndLockManagersMap!=null)
-						{
-									DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(operationVO.getValue());									
-									if(dataAndLockManager!=null)
-									{
-										dataAndLockManager.recoverSite(out);
-									}								
-						}
-						break;
-					case OperationConstants.QUERY_STATE_OPERATION:
-						transactionManager.queryState(out);
-						break;
-						default:
-							out.write("Unrecognised operation "+ operationVO.getOperation()+" encountered.");
-                            out.newLine();						
-							System.out.println("Unrecognised operation "+ operationVO.getOperation()+" encountered.");
-						break;
-						
+						operationStream.put(new ArrayList(), report.toString());
+					}
+					catch(InterruptedException interruptedException)
+					{
+						Thread.currentThread().interrupt();
 					}
 				}
+				operationStream.end();
 			}
-		}		
+		}
 	}
 
-	
 }
@@ -0,0 +1,196 @@
+package benchmark;
+
+import java.io.BufferedReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import output.OutputSink;
+import output.WriterOutputSink;
+import site.DataAndLockManager;
+import site.PlacementCatalog;
+import site.Site;
+import site.VariableStore;
+import transaction.TransactionManager;
+
+/**
+ * Sites, data and lock managers and a transaction manager wired the way RepCRec wires them, for a configurable topology.
+ * RepCRecHelper lives in the default package, which can't be imported, so it is driven through reflection.
+ */
+public class BenchmarkCluster {
+	private static final Class<?> HELPER_CLASS;
+	private static final Method CREATE_VARIABLE_STORES;
+	private static final Method CONFIGURE_EXECUTION;
+	private static final Method CONFIGURE_OUTPUT;
+	private static final Method PARSE_INPUT_FILE;
+	private static final Method EXECUTE_OPERATIONS;
+	private static final Method CONFIGURE_SITES_TRANSPORT;
+	private static final Method CONNECT_TO_SITES;
+	private static final Method DISCONNECT_FROM_SITES;
+
+	static
+	{
+		try
+		{
+			HELPER_CLASS = Class.forName("RepCRecHelper");
+			CREATE_VARIABLE_STORES = HELPER_CLASS.getMethod("createVariableStores", PlacementCatalog.class, String.class, Map.class);
+			CONFIGURE_EXECUTION = HELPER_CLASS.getMethod("configureExecution", Properties.class);
+			CONFIGURE_OUTPUT = HELPER_CLASS.getMethod("configureOutput", Properties.class);
+			PARSE_INPUT_FILE = HELPER_CLASS.getMethod("parseInputFile", BufferedReader.class, List.class);
+			EXECUTE_OPERATIONS = HELPER_CLASS.getMethod("executeOperations", TransactionManager.class, Map.class, List.class, OutputSink.class);
+			CONFIGURE_SITES_TRANSPORT = HELPER_CLASS.getMethod("configureSitesTransport", Properties.class);
+			CONNECT_TO_SITES = HELPER_CLASS.getMethod("connectToSites", TransactionManager.class, Map.class);
+			DISCONNECT_FROM_SITES = HELPER_CLASS.getMethod("disconnectFromSites");
+		}
+		catch(ReflectiveOperationException reflectiveOperationException)
+		{
+			throw new ExceptionInInitializerError(reflectiveOperationException);
+		}
+	}
+
+	private final Object helper;
+	private final PlacementCatalog placementCatalog;
+	private final Map<Integer,DataAndLockManager> dataAndLockManagersMap = new HashMap<Integer,DataAndLockManager>();
+	private final TransactionManager transactionManager;
+
+	/**
+	 * @param sites - Number of sites.
+	 * @param variables - Number of variables, even ones are replicated at every site.
+	 * @param storage - Storage engine of the sites, map or primitive.
+	 * @param threads - Number of threads executing operations.
+	 */
+	public BenchmarkCluster(int sites, int variables, String storage, int threads)
+	{
+		this(sites, variables, storage, threads, new Properties());
+	}
+
+	/**
+	 * @param sites - Number of sites.
+	 * @param variables - Number of variables, even ones are replicated at every site.
+	 * @param storage - Storage engine of the sites, map or primitive.
+	 * @param threads - Number of threads executing operations.
+	 * @param extraConfiguration - Further configuration keys, such as quorum.read and quorum.write, or sites.transport, in which case the cluster has to be closed.
+	 */
+	public BenchmarkCluster(int sites, int variables, String storage, int threads, Properties extraConfiguration)
+	{
+		Properties configuration = new Properties();
+		configuration.putAll(extraConfiguration);
+		configuration.setProperty("sites", String.valueOf(sites));
+		configuration.setProperty("variables", String.valueOf(variables));
+		configuration.setProperty("storage", storage);
+		configuration.setProperty("execution.threads", String.valueOf(threads));
+		configuration.setProperty("output.console", "false");
+		placementCatalog = new PlacementCatalog(configuration);
+		Map<Integer,VariableStore> variableStores = new HashMap<Integer,VariableStore>();
+		try
+		{
+			helper = HELPER_CLASS.getConstructor().newInstance();
+			invoke(CONFIGURE_EXECUTION, configuration);
+			invoke(CONFIGURE_OUTPUT, configuration);
+			invoke(CONFIGURE_SITES_TRANSPORT, configuration);
+			invoke(CREATE_VARIABLE_STORES, placementCatalog, storage, variableStores);
+		}
+		catch(ReflectiveOperationException reflectiveOperationException)
+		{
+			throw new IllegalStateException(reflectiveOperationException);
+		}
+		for(int i=1;i<=sites;i++)
+		{
+			dataAndLockManagersMap.put(i, new DataAndLockManager(i, new Site(i, variableStores.get(i))));
+		}
+		transactionManager = new TransactionManager(dataAndLockManagersMap, placementCatalog);
+		invoke(CONNECT_TO_SITES, transactionManager, dataAndLockManagersMap);
+	}
+
+	/**
+	 * Stops serving the sites over loopback sockets, if they are.
+	 */
+	public void close()
+	{
+		invoke(DISCONNECT_FROM_SITES);
+	}
+
+	public PlacementCatalog getPlacementCatalog()
+	{
+		return placementCatalog;
+	}
+
+	public DataAndLockManager getDataAndLockManager(int siteId)
+	{
+		return dataAndLockManagersMap.get(siteId);
+	}
+
+	public TransactionManager getTransactionManager()
+	{
+		return transactionManager;
+	}
+
+	/**
+	 * Parses operations in the input file format, one tick per line.
+	 */
+	public List<Object> parse(String input)
+	{
+		List<Object> operations = new ArrayList<Object>();
+		invoke(PARSE_INPUT_FILE, new BufferedReader(new StringReader(input)), operations);
+		return operations;
+	}
+
+	/**
+	 * Executes parsed operations tick by tick, discarding their output.
+	 */
+	public void execute(List<Object> operations)
+	{
+		execute(operations, discardingSink());
+	}
+
+	/**
+	 * Executes parsed operations tick by tick, writing their output and events to a sink.
+	 */
+	public void execute(List<Object> operations, OutputSink out)
+	{
+		invoke(EXECUTE_OPERATIONS, transactionManager, dataAndLockManagersMap, operations, out);
+	}
+
+	/**
+	 * @return OutputSink - A sink which neither writes to a file nor echoes to the console.
+	 */
+	public static OutputSink discardingSink()
+	{
+		return new WriterOutputSink(Writer.nullWriter(), null);
+	}
+
+	/**
+	 * Silences System.out, which the transaction and data managers print every decision to.
+	 * @return PrintStream - The previous System.out, to be restored after the benchmark.
+	 */
+	public static PrintStream silenceConsole()
+	{
+		PrintStream console = System.out;
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+		return console;
+	}
+
+	private void invoke(Method method, Object... arguments)
+	{
+		try
+		{
+			method.invoke(helper, arguments);
+		}
+		catch(InvocationTargetException invocationTargetException)
+		{
+			throw new IllegalStateException(invocationTargetException.getCause());
+		}
+		catch(IllegalAccessException illegalAccessException)
+		{
+			throw new IllegalStateException(illegalAccessException);
+		}
+	}
+}
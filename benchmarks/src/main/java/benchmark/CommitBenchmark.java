@@ -0,0 +1,94 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import site.DataAndLockManager;
+import site.PlacementCatalog;
+import transaction.Transaction;
+
+/**
+ * commitValuesForVariablesLockedByTransaction at site 1 for a transaction write locking lockedVariables of the variables stored there,
+ * while otherTransactions other transactions hold read locks on other variables of the same site.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommitBenchmark {
+	@Param({"10"})
+	public int sites;
+
+	@Param({"20", "10000"})
+	public int variables;
+
+	@Param({"map", "primitive"})
+	public String storage;
+
+	@Param({"1", "8"})
+	public int lockedVariables;
+
+	@Param({"0", "100"})
+	public int otherTransactions;
+
+	private DataAndLockManager dataAndLockManager;
+	private String[] variablesAtSite;
+	private Transaction committingTrx;
+
+	@Setup(Level.Trial)
+	public void setUpSite()
+	{
+		BenchmarkCluster cluster = new BenchmarkCluster(sites, variables, storage, 1);
+		dataAndLockManager = cluster.getDataAndLockManager(1);
+		PlacementCatalog placementCatalog = cluster.getPlacementCatalog();
+		int count = 0;
+		variablesAtSite = new String[variables];
+		for(int variableId=1;variableId<=variables;variableId++)
+		{
+			if(placementCatalog.isHomeSite(placementCatalog.getVariableName(variableId), 1))
+			{
+				variablesAtSite[count++] = placementCatalog.getVariableName(variableId);
+			}
+		}
+		if(count<lockedVariables || (otherTransactions>0 && count==lockedVariables))
+		{
+			throw new IllegalArgumentException("Site 1 stores only "+count+" variables");
+		}
+		//Other transactions read lock the variables which are not committed, several of them sharing a variable if there are too few
+		for(int i=0;i<otherTransactions;i++)
+		{
+			dataAndLockManager.acquireReadLock(new Transaction("O"+i, false, i+1), variablesAtSite[lockedVariables+i%(count-lockedVariables)]);
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void lockVariables()
+	{
+		committingTrx = new Transaction("C", false, otherTransactions+1);
+		for(int i=0;i<lockedVariables;i++)
+		{
+			dataAndLockManager.acquireWriteLock(committingTrx, variablesAtSite[i]);
+			committingTrx.setLockedVariablesAndValuesMap(variablesAtSite[i], i);
+		}
+	}
+
+	@Benchmark
+	public int commit()
+	{
+		return dataAndLockManager.commitValuesForVariablesLockedByTransaction(committingTrx);
+	}
+}
@@ -0,0 +1,143 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import output.EventLog;
+import output.OutputSink;
+import transaction.DeadlockPolicy;
+import workload.WorkloadGenerator;
+
+/**
+ * The same contended workload from WorkloadGenerator executed under each deadlock policy, on a fresh set of sites for every invocation.
+ * Besides the workloads executed per second, the commits and aborts counters report the committed throughput and the rate at which transactions
+ * are aborted, in transactions per second; their ratio aborts/(commits+aborts) is the share of transactions aborted by the policy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeadlockPolicyBenchmark {
+	@Param({DeadlockPolicy.WAIT_DIE, DeadlockPolicy.WOUND_WAIT, DeadlockPolicy.NO_WAIT, DeadlockPolicy.WAITS_FOR_GRAPH})
+	public String policy;
+
+	@Param({"10"})
+	public int sites;
+
+	@Param({"20"})
+	public int variables;
+
+	@Param({"1.2"})
+	public double skew;
+
+	@Param({"500"})
+	public int transactions;
+
+	@Param({"8"})
+	public int operationsPerTransaction;
+
+	@Param({"8"})
+	public int concurrency;
+
+	@Param({"0.5"})
+	public double writeRatio;
+
+	private List<Object> operations;
+	private BenchmarkCluster cluster;
+	private PrintStream console;
+
+	/**
+	 * Transactions committed and aborted by the measured invocations.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Outcomes {
+		public long commits;
+		public long aborts;
+	}
+
+	@Setup(Level.Trial)
+	public void generateWorkload() throws IOException
+	{
+		console = BenchmarkCluster.silenceConsole();
+		Properties configuration = new Properties();
+		configuration.setProperty("sites", String.valueOf(sites));
+		configuration.setProperty("variables", String.valueOf(variables));
+		configuration.setProperty(WorkloadGenerator.TRANSACTIONS_KEY, String.valueOf(transactions));
+		configuration.setProperty(WorkloadGenerator.OPERATIONS_PER_TRANSACTION_KEY, String.valueOf(operationsPerTransaction));
+		configuration.setProperty(WorkloadGenerator.SKEW_KEY, String.valueOf(skew));
+		configuration.setProperty(WorkloadGenerator.WRITE_RATIO_KEY, String.valueOf(writeRatio));
+		configuration.setProperty(WorkloadGenerator.CONCURRENCY_KEY, String.valueOf(concurrency));
+		StringWriter input = new StringWriter();
+		new WorkloadGenerator(configuration).generate(input);
+		operations = new BenchmarkCluster(sites, variables, "map", 1).parse(input.toString());
+	}
+
+	@Setup(Level.Invocation)
+	public void createSites()
+	{
+		cluster = new BenchmarkCluster(sites, variables, "map", 1);
+		cluster.getTransactionManager().setDeadlockPolicy(DeadlockPolicy.forName(policy));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public BenchmarkCluster executeWorkload(Outcomes outcomes)
+	{
+		OutcomeCountingSink out = new OutcomeCountingSink();
+		cluster.execute(operations, out);
+		outcomes.commits += out.commits;
+		outcomes.aborts += out.aborts;
+		return cluster;
+	}
+
+	/**
+	 * A sink discarding the output and counting the transactions committing and aborting.
+	 */
+	private static class OutcomeCountingSink extends OutputSink {
+		private long commits;
+		private long aborts;
+
+		public void writeLine(String line, int kind)
+		{
+		}
+
+		public void writeEvent(int type, int tick, String trxId, String variable, int siteId, int value)
+		{
+			if(type==EventLog.COMMIT)
+			{
+				commits++;
+			}
+			else if(type==EventLog.ABORT)
+			{
+				aborts++;
+			}
+		}
+	}
+}
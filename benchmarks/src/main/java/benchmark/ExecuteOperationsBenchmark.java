@@ -0,0 +1,99 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import workload.WorkloadGenerator;
+
+/**
+ * End-to-end executeOperations over a workload from WorkloadGenerator, on a fresh set of sites for every invocation.
+ * The skew parameter is the exponent of the Zipfian distribution of the accessed variables: 0 spreads the workload uniformly over all of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecuteOperationsBenchmark {
+	@Param({"10"})
+	public int sites;
+
+	@Param({"20", "1000"})
+	public int variables;
+
+	@Param({"map", "primitive"})
+	public String storage;
+
+	@Param({"0", "1.2"})
+	public double skew;
+
+	@Param({"500"})
+	public int transactions;
+
+	@Param({"8"})
+	public int concurrency;
+
+	@Param({"0.3"})
+	public double writeRatio;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	private List<Object> operations;
+	private BenchmarkCluster cluster;
+	private PrintStream console;
+
+	@Setup(Level.Trial)
+	public void generateWorkload() throws IOException
+	{
+		console = BenchmarkCluster.silenceConsole();
+		Properties configuration = new Properties();
+		configuration.setProperty("sites", String.valueOf(sites));
+		configuration.setProperty("variables", String.valueOf(variables));
+		configuration.setProperty(WorkloadGenerator.TRANSACTIONS_KEY, String.valueOf(transactions));
+		configuration.setProperty(WorkloadGenerator.SKEW_KEY, String.valueOf(skew));
+		configuration.setProperty(WorkloadGenerator.WRITE_RATIO_KEY, String.valueOf(writeRatio));
+		configuration.setProperty(WorkloadGenerator.CONCURRENCY_KEY, String.valueOf(concurrency));
+		StringWriter input = new StringWriter();
+		new WorkloadGenerator(configuration).generate(input);
+		operations = new BenchmarkCluster(sites, variables, storage, threads).parse(input.toString());
+	}
+
+	@Setup(Level.Invocation)
+	public void createSites()
+	{
+		cluster = new BenchmarkCluster(sites, variables, storage, threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public BenchmarkCluster executeOperations()
+	{
+		cluster.execute(operations);
+		return cluster;
+	}
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import site.DataAndLockManager;
+import transaction.Transaction;
+
+/**
+ * canReadLockBeAcquiredOnVariable and canWriteLockBeAcquiredOnVariable on the replicated variable x2 of site 1.
+ * The contention parameter sets up the locks already held on x2:
+ * free - none, shared - read locked by other transactions, owned - read locked by the requester, conflict - write locked by an older transaction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockRequestBenchmark {
+	private static final String VARIABLE = "x2";
+
+	@Param({"10"})
+	public int sites;
+
+	@Param({"20", "10000"})
+	public int variables;
+
+	@Param({"map", "primitive"})
+	public String storage;
+
+	@Param({"free", "shared", "owned", "conflict"})
+	public String contention;
+
+	@Param({"8"})
+	public int holders;
+
+	private DataAndLockManager dataAndLockManager;
+	private Transaction requester;
+
+	@Setup
+	public void setUp()
+	{
+		BenchmarkCluster cluster = new BenchmarkCluster(sites, variables, storage, 1);
+		dataAndLockManager = cluster.getDataAndLockManager(1);
+		//Holders are older than the requester, so a conflict makes the requester die instead of wait
+		requester = new Transaction("R", false, holders+1);
+		if("shared".equals(contention))
+		{
+			for(int i=1;i<=holders;i++)
+			{
+				dataAndLockManager.acquireReadLock(new Transaction("H"+i, false, i), VARIABLE);
+			}
+		}
+		else if("owned".equals(contention))
+		{
+			dataAndLockManager.acquireReadLock(requester, VARIABLE);
+		}
+		else if("conflict".equals(contention))
+		{
+			dataAndLockManager.acquireWriteLock(new Transaction("H1", false, 1), VARIABLE);
+		}
+	}
+
+	@Benchmark
+	public int canReadLockBeAcquired()
+	{
+		return dataAndLockManager.canReadLockBeAcquiredOnVariable(requester, VARIABLE);
+	}
+
+	@Benchmark
+	public int canWriteLockBeAcquired()
+	{
+		return dataAndLockManager.canWriteLockBeAcquiredOnVariable(requester, VARIABLE);
+	}
+}
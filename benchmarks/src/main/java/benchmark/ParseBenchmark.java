@@ -0,0 +1,76 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import operation.OperationParser;
+import workload.WorkloadGenerator;
+
+/**
+ * OperationParser.parseLine over every line of a workload from WorkloadGenerator, with the console echo of the parser discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+	@Param({"10000"})
+	public int transactions;
+
+	@Param({"1", "8"})
+	public int concurrency;
+
+	private String[] lines;
+	private OperationParser operationParser;
+	private PrintStream console;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		console = BenchmarkCluster.silenceConsole();
+		Properties configuration = new Properties();
+		configuration.setProperty(WorkloadGenerator.TRANSACTIONS_KEY, String.valueOf(transactions));
+		configuration.setProperty(WorkloadGenerator.CONCURRENCY_KEY, String.valueOf(concurrency));
+		StringWriter input = new StringWriter();
+		new WorkloadGenerator(configuration).generate(input);
+		lines = input.toString().split(System.lineSeparator());
+		operationParser = new OperationParser();
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public List<Object> parse()
+	{
+		List<Object> operations = new ArrayList<Object>();
+		for(int tick=0;tick<lines.length;tick++)
+		{
+			operationParser.parseLine(lines[tick], tick+1, operations);
+		}
+		return operations;
+	}
+}
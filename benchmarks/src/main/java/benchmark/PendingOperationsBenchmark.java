@@ -0,0 +1,109 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import output.OutputSink;
+import transaction.TransactionManager;
+
+/**
+ * executePendingOperations with blockedTransactions transactions waiting for hotVariables replicated variables write locked by a younger transaction.
+ * The blocked transactions stay blocked and nothing they wait on changes, so after the first invocation none of them is woken up and retried.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PendingOperationsBenchmark {
+	@Param({"10"})
+	public int sites;
+
+	@Param({"20", "1000"})
+	public int variables;
+
+	@Param({"map", "primitive"})
+	public String storage;
+
+	@Param({"10", "1000"})
+	public int blockedTransactions;
+
+	@Param({"1", "8"})
+	public int hotVariables;
+
+	private TransactionManager transactionManager;
+	private OutputSink out;
+	private PrintStream console;
+	private int tick;
+
+	@Setup
+	public void setUp()
+	{
+		console = BenchmarkCluster.silenceConsole();
+		BenchmarkCluster cluster = new BenchmarkCluster(sites, variables, storage, 1);
+		StringBuilder input = new StringBuilder();
+		//Waiting transactions are older than the lock holder, so wait-die blocks them instead of aborting them
+		for(int i=1;i<=blockedTransactions;i++)
+		{
+			input.append("begin(T").append(i).append(")\n");
+		}
+		input.append("begin(H)\n");
+		for(int i=0;i<hotVariables;i++)
+		{
+			input.append("W(H,").append(hotVariable(i)).append(",0)\n");
+		}
+		for(int i=1;i<=blockedTransactions;i++)
+		{
+			String variable = hotVariable(i%hotVariables);
+			if(i%2==0)
+			{
+				input.append("W(T").append(i).append(",").append(variable).append(",").append(i).append(")\n");
+			}
+			else
+			{
+				input.append("R(T").append(i).append(",").append(variable).append(")\n");
+			}
+		}
+		cluster.execute(cluster.parse(input.toString()));
+		transactionManager = cluster.getTransactionManager();
+		if(transactionManager.getBlockedTrxs().size()!=blockedTransactions)
+		{
+			throw new IllegalStateException("Expected "+blockedTransactions+" blocked transactions, found "+transactionManager.getBlockedTrxs().size());
+		}
+		out = BenchmarkCluster.discardingSink();
+		tick = blockedTransactions*2+hotVariables+2;
+	}
+
+	private static String hotVariable(int index)
+	{
+		return "x"+(2*(index+1));
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public TransactionManager executePendingOperations() throws IOException
+	{
+		transactionManager.executePendingOperations(out, tick);
+		return transactionManager;
+	}
+}
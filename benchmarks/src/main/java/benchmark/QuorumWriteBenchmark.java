@@ -0,0 +1,91 @@
+package benchmark;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import site.PlacementCatalog;
+
+/**
+ * Transactions each writing a replicated variable and committing, with the available copies algorithm, which write locks every copy, and with
+ * majority quorums, which write lock a majority of them and read a minority, i.e. quorum.write=sites/2+1 and quorum.read=sites-quorum.write+1.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuorumWriteBenchmark {
+	@Param({"10", "1000"})
+	public int sites;
+
+	@Param({"available-copies", "majority"})
+	public String replication;
+
+	@Param({"20"})
+	public int variables;
+
+	@Param({"100"})
+	public int transactions;
+
+	private List<Object> operations;
+	private BenchmarkCluster cluster;
+	private PrintStream console;
+
+	@Setup(Level.Trial)
+	public void parseWorkload()
+	{
+		console = BenchmarkCluster.silenceConsole();
+		StringBuilder input = new StringBuilder();
+		for(int i=1;i<=transactions;i++)
+		{
+			//Even variables are replicated
+			input.append("begin(T").append(i).append(")\n");
+			input.append("W(T").append(i).append(",x").append(2*(1+i%(variables/2))).append(",").append(i).append(")\n");
+			input.append("end(T").append(i).append(")\n");
+		}
+		operations = new BenchmarkCluster(sites, variables, "primitive", 1).parse(input.toString());
+	}
+
+	@Setup(Level.Invocation)
+	public void createSites()
+	{
+		Properties configuration = new Properties();
+		if("majority".equals(replication))
+		{
+			int writeQuorum = sites/2+1;
+			configuration.setProperty(PlacementCatalog.WRITE_QUORUM_KEY, String.valueOf(writeQuorum));
+			configuration.setProperty(PlacementCatalog.READ_QUORUM_KEY, String.valueOf(sites-writeQuorum+1));
+		}
+		cluster = new BenchmarkCluster(sites, variables, "primitive", 1, configuration);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public BenchmarkCluster writeAndCommit()
+	{
+		cluster.execute(operations);
+		return cluster;
+	}
+}
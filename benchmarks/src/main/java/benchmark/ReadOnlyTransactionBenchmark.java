@@ -0,0 +1,69 @@
+package benchmark;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A read-only transaction beginning, reading a replicated variable and ending, while a transaction commits a write of it in between,
+ * so that the superseded value is kept at every site until the read-only transaction ends.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadOnlyTransactionBenchmark {
+	@Param({"10"})
+	public int sites;
+
+	@Param({"20", "10000"})
+	public int variables;
+
+	@Param({"map", "primitive"})
+	public String storage;
+
+	private BenchmarkCluster cluster;
+	private List<Object> operations;
+	private PrintStream console;
+
+	@Setup
+	public void setUp()
+	{
+		console = BenchmarkCluster.silenceConsole();
+		cluster = new BenchmarkCluster(sites, variables, storage, 1);
+		operations = cluster.parse("beginRO(Q)\nbegin(W)\nW(W,x2,1)\nend(W)\nR(Q,x2)\nend(Q)\n");
+		cluster.execute(operations);
+		if(cluster.getDataAndLockManager(1).getNumberOfOlderVersions()!=0)
+		{
+			throw new IllegalStateException("Versions superseded while Q was active haven't been discarded");
+		}
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		System.setOut(console);
+	}
+
+	@Benchmark
+	public BenchmarkCluster readOnlyTransaction()
+	{
+		cluster.execute(operations);
+		return cluster;
+	}
+}
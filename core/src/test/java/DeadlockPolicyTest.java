@@ -0,0 +1,94 @@
+import java.io.*;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the decisions the wait-die, wound-wait, no-wait and waits-for-graph policies take on conflicting lock requests, run through RepCRecHelper.run.
+ */
+public class DeadlockPolicyTest {
+	//T1 is older than T2, which locks x1 before T1 asks for it
+	private static final String OLDER_REQUESTS = "begin(T1)\nbegin(T2)\nW(T2,x1,5)\nW(T1,x1,6)\nW(T2,x2,7)\nend(T2)\nend(T1)\ndump(x1)\n";
+	//T2 is younger than T1, which locks x1 before T2 asks for it
+	private static final String YOUNGER_REQUESTS = "begin(T1)\nbegin(T2)\nW(T1,x1,5)\nW(T2,x1,6)\nend(T1)\nend(T2)\ndump(x1)\n";
+	@TempDir
+	Path directory;
+
+	@Test
+	public void waitDieBlocksAnOlderRequesterAndAbortsAYoungerOne()throws IOException
+	{
+		String output = run(OLDER_REQUESTS, "wait-die");
+		assertTrue(output.contains("Transaction T1 needs to be blocked."), output);
+		assertTrue(output.contains("Transaction T2 ended successfully."), output);
+		assertTrue(output.contains("Transaction T1 ended successfully."), output);
+		assertTrue(output.endsWith("x1=6\n"), output);
+		output = run(YOUNGER_REQUESTS, "wait-die");
+		assertTrue(output.contains("Transaction T2 needs to be aborted."), output);
+		assertTrue(output.endsWith("x1=5\n"), output);
+	}
+
+	@Test
+	public void woundWaitAbortsTheYoungerHolderOfTheLock()throws IOException
+	{
+		String output = run(OLDER_REQUESTS, "wound-wait");
+		assertTrue(output.contains("Transaction T2 locking variable x1 is wounded by older transaction T1"), output);
+		assertTrue(output.contains("Transaction T2 needs to be aborted."), output);
+		assertTrue(output.contains("Transaction T2 doesn't exist. Writing of variable x2 by Transaction T2 can't proceed."), output);
+		assertTrue(output.contains("Transaction T1 ended successfully."), output);
+		assertTrue(output.endsWith("x1=6\n"), output);
+	}
+
+	@Test
+	public void woundWaitBlocksAYoungerRequester()throws IOException
+	{
+		String output = run(YOUNGER_REQUESTS, "wound-wait");
+		assertTrue(output.contains("Transaction T2 needs to be blocked."), output);
+		assertTrue(output.contains("Transaction T1 ended successfully."), output);
+		assertTrue(output.contains("Transaction T2 ended successfully."), output);
+		assertTrue(output.endsWith("x1=6\n"), output);
+	}
+
+	@Test
+	public void noWaitAbortsEveryConflictingRequester()throws IOException
+	{
+		String output = run(OLDER_REQUESTS, "no-wait");
+		assertTrue(output.contains("Transaction T1 conflicts with T2  transaction(s) locking variable x1"), output);
+		assertTrue(output.contains("Transaction T1 needs to be aborted."), output);
+		assertTrue(output.contains("Transaction T2 ended successfully."), output);
+		assertTrue(output.endsWith("x1=5\n"), output);
+		output = run(YOUNGER_REQUESTS, "no-wait");
+		assertTrue(output.contains("Transaction T2 needs to be aborted."), output);
+		assertTrue(output.endsWith("x1=5\n"), output);
+	}
+
+	@Test
+	public void waitsForGraphAbortsTheVictimOfTheCycleOnly()throws IOException
+	{
+		String input = "begin(T1)\nbegin(T2)\nbegin(T3)\nW(T1,x1,5)\nW(T2,x2,6)\nW(T2,x1,7)\nR(T3,x4)\nW(T1,x2,8)\nend(T1)\nend(T2)\nend(T3)\ndump(x1)\n";
+		String output = run(input, "waits-for-graph");
+		//T2 blocks on the lock of T1 without being aborted, as long as it isn't in a cycle
+		assertTrue(output.contains("Transaction T2 waits for T1  transaction(s) locking variable x1"), output);
+		assertTrue(output.contains("Deadlock detected. Transaction(s) T1  T2  wait for each other."), output);
+		assertTrue(output.contains("Transaction T2 has done the least work of the cycle."), output);
+		assertTrue(output.contains("Transaction T2 needs to be aborted."), output);
+		assertTrue(output.contains("Transaction T1 ended successfully."), output);
+		assertTrue(output.contains("Transaction T3 ended successfully."), output);
+		assertTrue(output.endsWith("x1=5\n"), output);
+	}
+
+	@Test
+	public void unknownPolicyIsRejected()
+	{
+		RepCRecHelper helper = new RepCRecHelper();
+		java.util.Properties configuration = new java.util.Properties();
+		configuration.setProperty(RepCRecHelper.DEADLOCK_POLICY_KEY, "wait-forever");
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> helper.configureDeadlockPolicy(configuration));
+		assertEquals("Invalid value wait-forever for deadlock.policy", exception.getMessage());
+	}
+
+	private String run(String input, String policy)throws IOException
+	{
+		return ScenarioRunner.run(input, RepCRecHelper.DEADLOCK_POLICY_KEY+"="+policy+"\n", directory.toFile());
+	}
+}
@@ -0,0 +1,48 @@
+import java.io.*;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of transactions waiting for a failed site until the failure detector suspects it, run through RepCRecHelper.run.
+ */
+public class FailureDetectionTest {
+	private static final String INPUT = "begin(T1)\nfail(3)\nR(T1,x2)\nW(T1,x4,9)\ndump(x1)\ndump(x1)\ndump(x1)\nend(T1)\ndump(x4)\n";
+	@TempDir
+	Path directory;
+
+	@Test
+	public void writeWaitsForAFailedSiteUntilItIsSuspected()throws IOException
+	{
+		String output = ScenarioRunner.run(INPUT, "failuredetector.enabled=true\nfailuredetector.suspicionTimeout=2\n", directory.toFile());
+		int blocked = output.indexOf("Site 3 doesn't respond. Transaction T1 waits for it to respond or to be suspected by the failure detector.");
+		int suspected = output.indexOf("Site 3 is suspected by the failure detector, no heartbeat received for 3 tick(s).");
+		assertTrue(blocked>0, output);
+		assertTrue(suspected>blocked, output);
+		assertTrue(output.contains("Site 3 failed 2 tick(s) before being suspected."), output);
+		assertTrue(output.indexOf("Write lock acquired by Transaction T1 on variable x4 at Site 1")>suspected, output);
+		assertFalse(output.contains("Write lock acquired by Transaction T1 on variable x4 at Site 3"), output);
+		assertTrue(output.contains("Transaction T1 ended successfully."), output);
+	}
+
+	@Test
+	public void siteFailureIsKnownAtOnceWithoutTheDetector()throws IOException
+	{
+		String output = ScenarioRunner.run(INPUT, "", directory.toFile());
+		assertFalse(output.contains("suspected"), output);
+		assertFalse(output.contains("doesn't respond"), output);
+		assertTrue(output.contains("Transaction T1 ended successfully."), output);
+	}
+
+	@Test
+	public void invalidTimeoutIsRejected()throws IOException
+	{
+		RepCRecHelper helper = new RepCRecHelper();
+		java.util.Properties configuration = new java.util.Properties();
+		configuration.setProperty("failuredetector.enabled", "true");
+		configuration.setProperty("failuredetector.suspicionTimeout", "2.5");
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> helper.configureFailureDetector(configuration, new site.PlacementCatalog()));
+		assertEquals("Invalid value 2.5 for failuredetector.suspicionTimeout", exception.getMessage());
+	}
+}
@@ -0,0 +1,32 @@
+import java.io.*;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the catch-up of a recovered site from the read quorums of its replicated variables, run through RepCRecHelper.run.
+ */
+public class QuorumReplicationTest {
+	private static final String QUORUMS = "quorum.read=5\nquorum.write=6\n";
+	@TempDir
+	Path directory;
+
+	@Test
+	public void recoveryWithNothingMissedLeavesTheOutputAsItIs()throws IOException
+	{
+		String output = ScenarioRunner.run("fail(3)\nrecover(3)\nbegin(T1)\nR(T1,x2)\nend(T1)\n", QUORUMS, directory.toFile());
+		assertTrue(output.contains("Site 3 recovered."), output);
+		assertFalse(output.contains("caught up"), output);
+		assertTrue(output.contains("Transaction T1 ended successfully."), output);
+	}
+
+	@Test
+	public void recoveredSiteCatchesUpTheWritesItMissed()throws IOException
+	{
+		String output = ScenarioRunner.run("fail(3)\nbegin(T1)\nW(T1,x2,5)\nend(T1)\nrecover(3)\nbegin(T2)\nR(T2,x2)\nend(T2)\n", QUORUMS, directory.toFile());
+		assertTrue(output.contains("Site 3 caught up 1 replicated variable(s) with read quorums."), output);
+		assertTrue(output.contains("Value of variable x2 at Site 3 is 5"), output);
+		assertTrue(output.contains("Transaction T2 ended successfully."), output);
+	}
+}
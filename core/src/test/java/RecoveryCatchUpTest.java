@@ -0,0 +1,44 @@
+import java.io.*;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the background catch-up of the replicated variables of recovered sites from up-to-date copies, run through RepCRecHelper.run.
+ */
+public class RecoveryCatchUpTest {
+	//Site 3 misses the write of x2 by T1 while it is down
+	private static final String MISSED_WRITE = "fail(3)\nbegin(T1)\nW(T1,x2,5)\nend(T1)\nrecover(3)\n";
+	@TempDir
+	Path directory;
+
+	@Test
+	public void recoveredSiteCatchesUpABatchPerTick()throws IOException
+	{
+		String output = ScenarioRunner.run(MISSED_WRITE+"fail(1)\nfail(2)\ndump(x4)\nbegin(T2)\nR(T2,x2)\nend(T2)\n", "catchup.enabled=true\ncatchup.batchSize=4\n", directory.toFile());
+		assertTrue(output.contains("Site 3 starts catching up 10 replicated variable(s) from up-to-date copies."), output);
+		assertTrue(output.contains("Site 3 caught up 4 replicated variable(s), 6 left 0 tick(s) after recovering."), output);
+		assertTrue(output.contains("Site 3 caught up 4 replicated variable(s), 2 left 1 tick(s) after recovering."), output);
+		assertTrue(output.contains("Site 3 caught up 2 replicated variable(s) and has caught up with up-to-date copies 2 tick(s) after recovering."), output);
+		//Once caught up, site 3 serves the reads of x2 the other sites can't
+		assertTrue(output.contains("Value of variable x2 at Site 3 is 5"), output);
+		assertTrue(output.contains("Transaction T2 ended successfully."), output);
+	}
+
+	@Test
+	public void siteFailingAgainStopsCatchingUp()throws IOException
+	{
+		String output = ScenarioRunner.run(MISSED_WRITE+"fail(3)\ndump(x2)\n", "catchup.enabled=true\ncatchup.batchSize=1\n", directory.toFile());
+		assertTrue(output.contains("Site 3 caught up 1 replicated variable(s), 9 left 0 tick(s) after recovering."), output);
+		assertTrue(output.contains("Site 3 stops catching up as it is down. 9 replicated variable(s) were left."), output);
+	}
+
+	@Test
+	public void recoveredSiteWaitsForWritesWithoutCatchUp()throws IOException
+	{
+		String output = ScenarioRunner.run(MISSED_WRITE+"fail(1)\nfail(2)\ndump(x4)\nbegin(T2)\nR(T2,x2)\nend(T2)\n", "", directory.toFile());
+		assertFalse(output.contains("catching up"), output);
+		assertFalse(output.contains("Value of variable x2 at Site 3"), output);
+	}
+}
@@ -0,0 +1,42 @@
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Regression test which runs Input.txt and the classic scenarios through RepCRecHelper.run, as RepCRec does, and compares the output with the golden output
+ * recorded for each of them. The storage engines, the concurrent execution of a tick and serving the sites over loopback sockets must not change the output,
+ * so every scenario is run with each of them.
+ */
+public class RepCRecGoldenOutputTest {
+	private static final String[] SCENARIOS = {"Input", "scenario01", "scenario02", "scenario03", "scenario04", "scenario05", "scenario06", "scenario07", "scenario08", "scenario09", "scenario10"};
+	private static final String[] CONFIGURATIONS = {"", "storage=primitive", "execution.threads=4", "storage=primitive\nexecution.threads=4", "sites.transport=tcp", "sites.transport=tcp\nexecution.threads=4"};
+	@TempDir
+	Path directory;
+
+	static Stream<Arguments> scenariosAndConfigurations()
+	{
+		List<Arguments> arguments = new ArrayList<Arguments>();
+		for(int i=0;i<SCENARIOS.length;i++)
+		{
+			for(int j=0;j<CONFIGURATIONS.length;j++)
+			{
+				arguments.add(Arguments.of(SCENARIOS[i], CONFIGURATIONS[j]));
+			}
+		}
+		return arguments.stream();
+	}
+
+	@ParameterizedTest(name = "{0} [{1}]")
+	@MethodSource("scenariosAndConfigurations")
+	public void outputMatchesGoldenOutput(String scenario, String configuration)throws IOException
+	{
+		String input = ScenarioRunner.readResource("/scenarios/"+scenario+".txt");
+		assertEquals(ScenarioRunner.readResource("/scenarios/"+scenario+".out"), ScenarioRunner.run(input, configuration, directory.toFile()));
+	}
+}
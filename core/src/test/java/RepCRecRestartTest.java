@@ -0,0 +1,102 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the values committed before a restart being restored from the checkpoint and the write-ahead logs of the sites, and of commits being reported
+ * only once logged.
+ */
+public class RepCRecRestartTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void committedValuesSurviveARestart()throws IOException
+	{
+		String configuration = "wal.enabled=true\nwal.directory="+directory.resolve("wal").toString().replace('\\','/')+"\n";
+		ScenarioRunner.run("begin(T1)\nW(T1,x1,5)\nW(T1,x2,6)\nend(T1)\nbegin(T2)\nW(T2,x4,7)\n", configuration, directory.toFile());
+
+		String output = ScenarioRunner.run("dump()\n", configuration, directory.toFile());
+		assertTrue(output.contains("x1=5"), output);
+		assertTrue(output.contains("x2=6   x4=40"), output);
+		//Without the log, the sites start again from the initial values
+		output = ScenarioRunner.run("dump()\n", "", directory.toFile());
+		assertTrue(output.contains("x1=10"), output);
+		assertTrue(output.contains("x2=20   x4=40"), output);
+	}
+
+	@Test
+	public void transactionWithoutAForcedDecisionIsPresumedAborted()throws IOException
+	{
+		File walDirectory = directory.resolve("wal").toFile();
+		String configuration = "wal.enabled=true\nwal.directory="+walDirectory.getPath().replace('\\','/')+"\n";
+		ScenarioRunner.run("begin(T1)\nW(T1,x1,5)\nend(T1)\n", configuration, directory.toFile());
+		//The process stops while the decision to commit T1 is being forced, after site 2 logged the value of x1
+		File coordinatorLog = new File(walDirectory, "coordinator.wal");
+		RandomAccessFile randomAccessFile = new RandomAccessFile(coordinatorLog, "rw");
+		try
+		{
+			randomAccessFile.setLength(coordinatorLog.length()-3);
+		}
+		finally
+		{
+			randomAccessFile.close();
+		}
+
+		String output = ScenarioRunner.run("dump(x1)\nbegin(T1)\nW(T1,x2,6)\nend(T1)\n", configuration, directory.toFile());
+		assertTrue(output.contains("x1=10"), output);
+		//The T1 of the previous run isn't taken for the T1 committed by this one
+		output = ScenarioRunner.run("dump(x1)\ndump(x2)\n", configuration, directory.toFile());
+		assertTrue(output.contains("x1=10"), output);
+		assertTrue(output.contains("x2=6"), output);
+	}
+
+	@Test
+	public void checkpointedValuesSurviveARestart()throws IOException
+	{
+		String configuration = "wal.enabled=true\ncheckpoint.enabled=true\ncheckpoint.intervalTicks=2\nwal.directory="+directory.resolve("wal").toString().replace('\\','/')+"\n";
+		ScenarioRunner.run("begin(T1)\nW(T1,x1,5)\nend(T1)\nbegin(T2)\nW(T2,x2,6)\nend(T2)\nbegin(T3)\nW(T3,x1,7)\nend(T3)\n", configuration, directory.toFile());
+		assertTrue(directory.resolve("wal").resolve("checkpoint").toFile().exists());
+
+		String output = ScenarioRunner.run("dump()\n", configuration, directory.toFile());
+		assertTrue(output.contains("x1=7"), output);
+		assertTrue(output.contains("x2=6   x4=40"), output);
+	}
+
+	@Test
+	public void logsStopGrowingOnceARotatedLogLeftBehindIsDeleted()throws IOException
+	{
+		File walDirectory = directory.resolve("wal").toFile();
+		String configuration = "wal.enabled=true\ncheckpoint.enabled=true\ncheckpoint.logLength=1\nwal.directory="+walDirectory.getPath().replace('\\','/')+"\n";
+		String input = "begin(T1)\nW(T1,x2,5)\nend(T1)\ndump(x2)\n";
+		ScenarioRunner.run(input, configuration, directory.toFile());
+		//The previous process stopped once its checkpoint was durable but before the rotated log of site 2 was deleted
+		Files.copy(new File(walDirectory, "site2.wal").toPath(), new File(walDirectory, "site2.wal.old").toPath(), StandardCopyOption.REPLACE_EXISTING);
+		for(int i=0;i<3;i++)
+		{
+			ScenarioRunner.run(input, configuration, directory.toFile());
+		}
+		assertFalse(new File(walDirectory, "site2.wal.old").exists());
+		assertEquals(new File(walDirectory, "site1.wal").length(), new File(walDirectory, "site2.wal").length());
+	}
+
+	@Test
+	public void commitsAreReportedOnceTheTickIsLogged()throws IOException
+	{
+		String input = "begin(T1); begin(T2)\nW(T1,x1,5); W(T2,x2,6)\nend(T1); end(T2); R(T1,x4)\ndump(x1)\n";
+		String output = ScenarioRunner.run(input, "wal.enabled=true\nwal.directory="+directory.resolve("wal").toString().replace('\\','/')+"\n", directory.toFile());
+		int endOfTick = output.indexOf("Transaction T1 doesn't exist.");
+		assertTrue(endOfTick>0, output);
+		assertTrue(output.indexOf("Transaction T1 ended successfully.")>endOfTick, output);
+		assertTrue(output.indexOf("Transaction T2 ended successfully.")>output.indexOf("Transaction T1 ended successfully."), output);
+		assertTrue(output.indexOf("dump(x1)")>output.indexOf("Transaction T2 ended successfully."), output);
+
+		//Without the log a commit is reported at once
+		output = ScenarioRunner.run(input, "", directory.toFile());
+		assertTrue(output.indexOf("Transaction T1 ended successfully.")<output.indexOf("Transaction T1 doesn't exist."), output);
+	}
+}
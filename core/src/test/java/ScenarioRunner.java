@@ -0,0 +1,54 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Runs an input file the way RepCRec does, through RepCRecHelper.run, with the console silenced, and returns what is written to the output file.
+ */
+public class ScenarioRunner {
+
+	/**
+	 * Method which runs an input file.
+	 * @param input - A String holding the input file.
+	 * @param configuration - A String holding the configuration file.
+	 * @param directory - A File object, the directory the output file is written to.
+	 * @return String - The contents of the output file.
+	 */
+	public static String run(String input, String configuration, File directory)throws IOException
+	{
+		Properties properties = new Properties();
+		properties.load(new StringReader(configuration));
+		ByteArrayOutputStream console = new ByteArrayOutputStream();
+		RepCRecHelper helper = new RepCRecHelper();
+		helper.setConsole(new PrintStream(console, true, "UTF-8"));
+		File outputFile = new File(directory, "out.txt");
+		helper.run(new BufferedReader(new StringReader(input)), properties, outputFile);
+		if(!outputFile.exists())
+		{
+			throw new IOException("No output file, console: "+console.toString("UTF-8"));
+		}
+		return new String(Files.readAllBytes(outputFile.toPath()), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Method which reads a scenario, or the golden output of one, from the test resources.
+	 * @param name - A String value, the name of the resource.
+	 */
+	public static String readResource(String name)throws IOException
+	{
+		InputStream in = ScenarioRunner.class.getResourceAsStream(name);
+		if(in==null)
+		{
+			throw new FileNotFoundException(name);
+		}
+		try
+		{
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+}
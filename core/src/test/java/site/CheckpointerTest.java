@@ -0,0 +1,141 @@
+package site;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the checkpoints of the sites, of their loading when the process restarts and of the rotation of the write-ahead logs they go with.
+ */
+public class CheckpointerTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void checkpointRestoresTheValuesOfEverySite()throws IOException
+	{
+		PlacementCatalog placementCatalog = createPlacementCatalog();
+		Map dataAndLockManagersMap = createSites(placementCatalog);
+		getVariableStore(dataAndLockManagersMap, 1).restoreVariableAt(0, 11, true);
+		getVariableStore(dataAndLockManagersMap, 2).restoreVariableAt(1, 22, false);
+		Checkpointer checkpointer = new Checkpointer(directory.resolve("checkpoint").toFile(), placementCatalog, 1, 0);
+		assertTrue(checkpointer.checkpointIfDue(dataAndLockManagersMap, 1));
+		checkpointer.awaitCheckpoint();
+
+		Map restartedDataAndLockManagersMap = createSites(placementCatalog);
+		assertEquals(1, new Checkpointer(checkpointer.getFile(), placementCatalog, 1, 0).load(restartedDataAndLockManagersMap));
+		assertEquals(11, getVariableStore(restartedDataAndLockManagersMap, 1).getValueOfVariable("x1"));
+		assertEquals(20, getVariableStore(restartedDataAndLockManagersMap, 1).getValueOfVariable("x2"));
+		assertEquals(22, getVariableStore(restartedDataAndLockManagersMap, 2).getValueOfVariable("x2"));
+		assertFalse(getVariableStore(restartedDataAndLockManagersMap, 2).isVariableAvailableForReadOperation("x2"));
+	}
+
+	@Test
+	public void checkpointOfOtherSitesIsRejected()throws IOException
+	{
+		PlacementCatalog placementCatalog = createPlacementCatalog();
+		Checkpointer checkpointer = new Checkpointer(directory.resolve("checkpoint").toFile(), placementCatalog, 1, 0);
+		checkpointer.checkpoint(createSites(placementCatalog), 1);
+		checkpointer.awaitCheckpoint();
+		Properties configuration = new Properties();
+		configuration.setProperty(PlacementCatalog.SITES_KEY, "2");
+		configuration.setProperty(PlacementCatalog.VARIABLES_KEY, "3");
+		PlacementCatalog otherPlacementCatalog = new PlacementCatalog(configuration);
+		assertThrows(IOException.class, () -> new Checkpointer(checkpointer.getFile(), otherPlacementCatalog, 1, 0).load(createSites(otherPlacementCatalog)));
+	}
+
+	@Test
+	public void rotatedLogLeftBehindByACrashIsDeletedAtTheNextCheckpoint()throws IOException
+	{
+		PlacementCatalog placementCatalog = createPlacementCatalog();
+		Map dataAndLockManagersMap = createSites(placementCatalog);
+		openWriteAheadLogs(dataAndLockManagersMap);
+		appendToEveryLog(dataAndLockManagersMap, "T1");
+		//The previous process stopped once its checkpoint was durable but before the rotated log of site 2 was deleted
+		File logOfSite2 = directory.resolve("site2.wal").toFile();
+		File rotatedLogOfSite2 = new File(logOfSite2.getPath()+".old");
+		Files.copy(logOfSite2.toPath(), rotatedLogOfSite2.toPath());
+
+		//The log of site 2 can't be rotated at the next checkpoint, but its rotated log is deleted once the checkpoint is durable
+		Checkpointer checkpointer = new Checkpointer(directory.resolve("checkpoint").toFile(), placementCatalog, 0, 1);
+		assertTrue(checkpointer.checkpointIfDue(dataAndLockManagersMap, 1));
+		checkpointer.awaitCheckpoint();
+		assertFalse(rotatedLogOfSite2.exists());
+		assertFalse(new File(directory.resolve("site1.wal").toString()+".old").exists());
+		assertEquals(0, directory.resolve("site1.wal").toFile().length());
+		assertTrue(logOfSite2.length()>0);
+
+		//So the log of site 2 is rotated at the checkpoint after, like the others
+		appendToEveryLog(dataAndLockManagersMap, "T2");
+		assertTrue(checkpointer.checkpointIfDue(dataAndLockManagersMap, 2));
+		checkpointer.awaitCheckpoint();
+		assertFalse(rotatedLogOfSite2.exists());
+		assertEquals(0, logOfSite2.length());
+		closeWriteAheadLogs(dataAndLockManagersMap);
+	}
+
+	private void openWriteAheadLogs(Map dataAndLockManagersMap)throws IOException
+	{
+		Iterator itr = (Iterator)dataAndLockManagersMap.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			((DataAndLockManager)pairs.getValue()).recoverFromWriteAheadLog(new WriteAheadLog(directory.resolve("site"+pairs.getKey()+".wal").toFile()));
+		}
+	}
+
+	private void appendToEveryLog(Map dataAndLockManagersMap, String trxId)throws IOException
+	{
+		Iterator itr = (Iterator)dataAndLockManagersMap.values().iterator();
+		while(itr.hasNext())
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+			dataAndLockManager.getWriteAheadLog().append(trxId, new String[]{"x2"}, new int[]{21}, 1);
+			dataAndLockManager.syncWriteAheadLog();
+		}
+	}
+
+	private void closeWriteAheadLogs(Map dataAndLockManagersMap)throws IOException
+	{
+		Iterator itr = (Iterator)dataAndLockManagersMap.values().iterator();
+		while(itr.hasNext())
+		{
+			((DataAndLockManager)itr.next()).getWriteAheadLog().close();
+		}
+	}
+
+	/**
+	 * Method which builds a topology of 2 sites holding a copy of each of the variables x1 and x2.
+	 */
+	private PlacementCatalog createPlacementCatalog()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(PlacementCatalog.SITES_KEY, "2");
+		configuration.setProperty(PlacementCatalog.VARIABLES_KEY, "2");
+		configuration.setProperty(PlacementCatalog.REPLICATED_KEY, PlacementCatalog.REPLICATE_ALL_VARIABLES);
+		return new PlacementCatalog(configuration);
+	}
+
+	private Map createSites(PlacementCatalog placementCatalog)
+	{
+		Map dataAndLockManagersMap = new HashMap();
+		for(int siteId=1;siteId<=placementCatalog.getNumberOfSites();siteId++)
+		{
+			int[] variableIds = new int[placementCatalog.getNumberOfVariables()];
+			for(int i=0;i<variableIds.length;i++)
+			{
+				variableIds[i]=i+1;
+			}
+			dataAndLockManagersMap.put(siteId, new DataAndLockManager(siteId, new Site(siteId, new PrimitiveVariableStore(placementCatalog, variableIds))));
+		}
+		return dataAndLockManagersMap;
+	}
+
+	private VariableStore getVariableStore(Map dataAndLockManagersMap, int siteId)
+	{
+		return ((DataAndLockManager)dataAndLockManagersMap.get(siteId)).getSiteServicedByDataAndLockMgr().getVariableStore();
+	}
+}
@@ -0,0 +1,63 @@
+package site;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the values of configuration keys the parser accepts, and of the ones it rejects whatever the key.
+ */
+public class ConfigurationParserTest {
+
+	@Test
+	public void missingOrBlankKeysFallBackToTheirDefault()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty("blank", " ");
+		assertEquals(7, ConfigurationParser.parseInt(configuration, "missing", 7, 1));
+		assertEquals(7, ConfigurationParser.parseInt(configuration, "blank", 7, 1));
+		assertTrue(ConfigurationParser.parseBoolean(configuration, "blank", true));
+		assertEquals(0.5, ConfigurationParser.parseDouble(configuration, "missing", 0.5, 0, 1));
+	}
+
+	@Test
+	public void valuesInRangeAreAccepted()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty("int", " 12 ");
+		configuration.setProperty("long", "-5000000000");
+		configuration.setProperty("double", "1");
+		configuration.setProperty("boolean", "false");
+		assertEquals(12, ConfigurationParser.parseInt(configuration, "int", 0, 12, 12));
+		assertEquals(-5000000000L, ConfigurationParser.parseLong(configuration, "long", 0, Long.MIN_VALUE));
+		assertEquals(1.0, ConfigurationParser.parseDouble(configuration, "double", 0, 0, 1));
+		assertFalse(ConfigurationParser.parseBoolean(configuration, "boolean", true));
+	}
+
+	@Test
+	public void integerKeysRejectNonIntegralValues()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty("key", "1.5");
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ConfigurationParser.parseInt(configuration, "key", 0, 1));
+		assertEquals("Invalid value 1.5 for key", exception.getMessage());
+		assertThrows(IllegalArgumentException.class, () -> ConfigurationParser.parseLong(configuration, "key", 0, 1));
+		configuration.setProperty("key", "3000000000");
+		assertThrows(IllegalArgumentException.class, () -> ConfigurationParser.parseInt(configuration, "key", 0, 1));
+	}
+
+	@Test
+	public void valuesOutOfRangeAreRejected()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty("int", "0");
+		configuration.setProperty("double", "1.01");
+		configuration.setProperty("nan", "NaN");
+		configuration.setProperty("boolean", "yes");
+		assertThrows(IllegalArgumentException.class, () -> ConfigurationParser.parseInt(configuration, "int", 5, 1));
+		assertThrows(IllegalArgumentException.class, () -> ConfigurationParser.parseInt(configuration, "int", 5, -3, -1));
+		assertThrows(IllegalArgumentException.class, () -> ConfigurationParser.parseDouble(configuration, "double", 0, 0, 1));
+		assertThrows(IllegalArgumentException.class, () -> ConfigurationParser.parseDouble(configuration, "nan", 0, 0, 1));
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ConfigurationParser.parseBoolean(configuration, "boolean", false));
+		assertEquals("Invalid value yes for boolean", exception.getMessage());
+	}
+}
@@ -0,0 +1,102 @@
+package site;
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import output.OutputSink;
+import output.WriterOutputSink;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the sites the failure detector suspects from the heartbeats it receives, and of the suspicions it reports.
+ */
+public class FailureDetectorTest {
+
+	@Test
+	public void failedSiteIsSuspectedOnceTheTimeoutHasElapsed()throws IOException
+	{
+		Map dataAndLockManagersMap = createSites(2);
+		FailureDetector failureDetector = new FailureDetector(2, 1, 2, 0, 0, 1);
+		StringWriter output = new StringWriter();
+		OutputSink out = new WriterOutputSink(output, null);
+		failureDetector.exchangeHeartbeats(dataAndLockManagersMap, 1, out);
+		getSite(dataAndLockManagersMap, 2).failSite(2);
+		assertTrue(failureDetector.exchangeHeartbeats(dataAndLockManagersMap, 2, out).isEmpty());
+		assertTrue(failureDetector.exchangeHeartbeats(dataAndLockManagersMap, 3, out).isEmpty());
+		assertFalse(failureDetector.isSuspected(2));
+		assertEquals(Arrays.asList(Integer.valueOf(2)), failureDetector.exchangeHeartbeats(dataAndLockManagersMap, 4, out));
+		assertTrue(failureDetector.isSuspected(2));
+		assertFalse(failureDetector.isSuspected(1));
+		assertEquals(4, failureDetector.getTickWhenSiteWasLastSuspected(2));
+		assertEquals(1, failureDetector.getNumberOfSuspicions());
+		assertEquals(0, failureDetector.getNumberOfFalseSuspicions());
+		assertEquals(2.0, failureDetector.getAverageDetectionLatency());
+		out.flush();
+		assertTrue(output.toString().contains("Site 2 is suspected by the failure detector, no heartbeat received for 3 tick(s)."), output.toString());
+		assertTrue(output.toString().contains("Site 2 failed 2 tick(s) before being suspected."), output.toString());
+
+		//The site is trusted again once its heartbeat is received
+		getSite(dataAndLockManagersMap, 2).recoverSite();
+		assertEquals(Arrays.asList(Integer.valueOf(2)), failureDetector.exchangeHeartbeats(dataAndLockManagersMap, 5, out));
+		assertFalse(failureDetector.isSuspected(2));
+		out.flush();
+		assertTrue(output.toString().contains("Site 2 is trusted again by the failure detector."), output.toString());
+	}
+
+	@Test
+	public void lostHeartbeatsLeadToFalseSuspicions()throws IOException
+	{
+		Map dataAndLockManagersMap = createSites(1);
+		FailureDetector failureDetector = new FailureDetector(1, 1, 1, 0, Math.nextDown(1.0), 1);
+		StringWriter output = new StringWriter();
+		OutputSink out = new WriterOutputSink(output, null);
+		for(int tick=1;tick<=2;tick++)
+		{
+			failureDetector.exchangeHeartbeats(dataAndLockManagersMap, tick, out);
+		}
+		assertTrue(failureDetector.isSuspected(1));
+		assertEquals(2, failureDetector.getNumberOfLostHeartbeats());
+		assertEquals(1, failureDetector.getNumberOfFalseSuspicions());
+		out.flush();
+		assertTrue(output.toString().contains("Site 1 is up, the suspicion is false."), output.toString());
+	}
+
+	@Test
+	public void sameSeedSuspectsTheSameSitesAtTheSameTicks()throws IOException
+	{
+		String first = exchangeHeartbeatsWithDelaysAndLosses(7);
+		assertEquals(first, exchangeHeartbeatsWithDelaysAndLosses(7));
+	}
+
+	private String exchangeHeartbeatsWithDelaysAndLosses(long seed)throws IOException
+	{
+		Map dataAndLockManagersMap = createSites(5);
+		FailureDetector failureDetector = new FailureDetector(5, 1, 2, 3, 0.3, seed);
+		StringWriter output = new StringWriter();
+		OutputSink out = new WriterOutputSink(output, null);
+		for(int tick=1;tick<=50;tick++)
+		{
+			failureDetector.exchangeHeartbeats(dataAndLockManagersMap, tick, out);
+		}
+		out.flush();
+		return output.toString();
+	}
+
+	private Map createSites(int numberOfSites)
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(PlacementCatalog.SITES_KEY, String.valueOf(numberOfSites));
+		configuration.setProperty(PlacementCatalog.VARIABLES_KEY, "2");
+		PlacementCatalog placementCatalog = new PlacementCatalog(configuration);
+		Map dataAndLockManagersMap = new HashMap();
+		for(int siteId=1;siteId<=numberOfSites;siteId++)
+		{
+			dataAndLockManagersMap.put(siteId, new DataAndLockManager(siteId, new Site(siteId, new PrimitiveVariableStore(placementCatalog, new int[]{1,2}))));
+		}
+		return dataAndLockManagersMap;
+	}
+
+	private Site getSite(Map dataAndLockManagersMap, int siteId)
+	{
+		return ((DataAndLockManager)dataAndLockManagersMap.get(siteId)).getSiteServicedByDataAndLockMgr();
+	}
+}
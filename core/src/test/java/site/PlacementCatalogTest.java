@@ -0,0 +1,167 @@
+package site;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the topologies the placement catalog builds from the configuration, of the read and write quorums it accepts, which have to overlap for every
+ * replicated variable, and of the configurations it rejects.
+ */
+public class PlacementCatalogTest {
+
+	@Test
+	public void defaultTopologyIsTheClassicOne()
+	{
+		PlacementCatalog placementCatalog = new PlacementCatalog();
+		assertEquals(10, placementCatalog.getNumberOfSites());
+		assertEquals(20, placementCatalog.getNumberOfVariables());
+		//Even variables are at every site, odd variable xi only at site 1+i mod 10
+		assertArrayEquals(new int[]{2}, placementCatalog.getHomeSites("x1"));
+		assertArrayEquals(new int[]{2}, placementCatalog.getHomeSites("x11"));
+		assertArrayEquals(new int[]{10}, placementCatalog.getHomeSites("x19"));
+		assertEquals(10, placementCatalog.getHomeSites("x2").length);
+		assertTrue(placementCatalog.isHomeSite("x2", 7));
+		assertFalse(placementCatalog.isHomeSite("x1", 1));
+		assertTrue(placementCatalog.isVariableReplicated("x4"));
+		assertFalse(placementCatalog.isVariableReplicated("x5"));
+		assertEquals(120, placementCatalog.getInitialValue(12));
+		assertFalse(placementCatalog.isQuorumReplication());
+	}
+
+	@Test
+	public void variableNamesOutsideTheCatalogHaveNoId()
+	{
+		PlacementCatalog placementCatalog = new PlacementCatalog();
+		assertEquals(20, placementCatalog.getVariableId("x20"));
+		assertEquals(0, placementCatalog.getVariableId("x21"));
+		assertEquals(0, placementCatalog.getVariableId("x0"));
+		assertEquals(0, placementCatalog.getVariableId("x01"));
+		assertEquals(0, placementCatalog.getVariableId("y1"));
+		assertEquals(0, placementCatalog.getVariableId("x"));
+		assertEquals(0, placementCatalog.getHomeSites("x21").length);
+	}
+
+	@Test
+	public void configurationDescribesTheTopology()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(PlacementCatalog.SITES_KEY, "5");
+		configuration.setProperty(PlacementCatalog.VARIABLES_KEY, "8");
+		configuration.setProperty(PlacementCatalog.REPLICATED_KEY, PlacementCatalog.REPLICATE_ALL_VARIABLES);
+		configuration.setProperty(PlacementCatalog.REPLICATION_FACTOR_KEY, "3");
+		configuration.setProperty(PlacementCatalog.PLACEMENT_KEY_PREFIX+"x8", "1, 5");
+		configuration.setProperty(PlacementCatalog.VALUE_KEY_PREFIX+"x3", "-7");
+		PlacementCatalog placementCatalog = new PlacementCatalog(configuration);
+		assertEquals(5, placementCatalog.getNumberOfSites());
+		assertEquals(8, placementCatalog.getNumberOfVariables());
+		//The copies of a variable go to consecutive sites, starting after the site of its id
+		assertArrayEquals(new int[]{2,3,4}, placementCatalog.getHomeSites("x1"));
+		assertArrayEquals(new int[]{5,1,2}, placementCatalog.getHomeSites("x4"));
+		assertTrue(placementCatalog.isHomeSite("x4", 1));
+		assertFalse(placementCatalog.isHomeSite("x4", 3));
+		assertArrayEquals(new int[]{1,5}, placementCatalog.getHomeSites("x8"));
+		assertEquals(-7, placementCatalog.getInitialValue(3));
+		assertEquals(40, placementCatalog.getInitialValue(4));
+	}
+
+	@Test
+	public void noVariableIsReplicatedIfAskedSo()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(PlacementCatalog.REPLICATED_KEY, PlacementCatalog.REPLICATE_NO_VARIABLES);
+		PlacementCatalog placementCatalog = new PlacementCatalog(configuration);
+		assertArrayEquals(new int[]{3}, placementCatalog.getHomeSites("x2"));
+		assertFalse(placementCatalog.isVariableReplicated("x2"));
+	}
+
+	@Test
+	public void invalidTopologiesAreRejected()
+	{
+		assertInvalid(PlacementCatalog.SITES_KEY, "0", "Invalid value 0 for sites");
+		assertInvalid(PlacementCatalog.VARIABLES_KEY, "many", "Invalid value many for variables");
+		assertInvalid(PlacementCatalog.REPLICATED_KEY, "odd", "Invalid value odd for replicated");
+		assertInvalid(PlacementCatalog.REPLICATION_FACTOR_KEY, "11", "replicationFactor 11 exceeds the number of sites 10");
+		assertInvalid(PlacementCatalog.PLACEMENT_KEY_PREFIX+"x21", "1", "Variable x21 is not one of x1..x20");
+		assertInvalid(PlacementCatalog.PLACEMENT_KEY_PREFIX+"x1", "1,11", "Invalid site 11 for placement.x1");
+		assertInvalid(PlacementCatalog.VALUE_KEY_PREFIX+"x1", "ten", "Invalid value ten for value.x1");
+	}
+
+	@Test
+	public void overlappingQuorumsAreAccepted()
+	{
+		PlacementCatalog placementCatalog = new PlacementCatalog(quorums(3, 8));
+		assertTrue(placementCatalog.isQuorumReplication());
+		assertEquals(3, placementCatalog.getReadQuorum());
+		assertEquals(8, placementCatalog.getWriteQuorum());
+		new PlacementCatalog(quorums(5, 6));
+		new PlacementCatalog(quorums(1, 10));
+	}
+
+	@Test
+	public void readAndWriteQuorumsHaveToOverlap()
+	{
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new PlacementCatalog(quorums(3, 7)));
+		assertEquals("quorum.read 3 and quorum.write 7 don't overlap for variable x2 which has 10 copies", exception.getMessage());
+	}
+
+	@Test
+	public void twoWriteQuorumsHaveToOverlap()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new PlacementCatalog(quorums(6, 5)));
+	}
+
+	@Test
+	public void quorumsCantExceedTheNumberOfCopies()
+	{
+		assertThrows(IllegalArgumentException.class, () -> new PlacementCatalog(quorums(11, 10)));
+		assertThrows(IllegalArgumentException.class, () -> new PlacementCatalog(quorums(1, 11)));
+	}
+
+	@Test
+	public void quorumsAreCheckedAgainstTheCopiesOfEveryVariable()
+	{
+		//The quorums fit the 10 copies of x2 but not the 3 copies x4 is placed at
+		Properties configuration = quorums(3, 8);
+		configuration.setProperty(PlacementCatalog.PLACEMENT_KEY_PREFIX+"x4", "1,2,3");
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new PlacementCatalog(configuration));
+		assertEquals("quorum.read 3 and quorum.write 8 don't overlap for variable x4 which has 3 copies", exception.getMessage());
+		//With 3 copies of every replicated variable, read and write quorums of 2 overlap but a read quorum of 1 doesn't
+		Properties replicatedOnThreeSites = quorums(2, 2);
+		replicatedOnThreeSites.setProperty(PlacementCatalog.REPLICATION_FACTOR_KEY, "3");
+		new PlacementCatalog(replicatedOnThreeSites);
+		replicatedOnThreeSites.setProperty(PlacementCatalog.READ_QUORUM_KEY, "1");
+		assertThrows(IllegalArgumentException.class, () -> new PlacementCatalog(replicatedOnThreeSites));
+	}
+
+	@Test
+	public void nonReplicatedVariablesDontConstrainTheQuorums()
+	{
+		Properties configuration = quorums(6, 6);
+		configuration.setProperty(PlacementCatalog.REPLICATED_KEY, PlacementCatalog.REPLICATE_EVEN_VARIABLES);
+		assertEquals(1, new PlacementCatalog(configuration).getNumberOfHomeSites(1));
+	}
+
+	@Test
+	public void quorumsHaveToBeConfiguredTogether()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(PlacementCatalog.READ_QUORUM_KEY, "3");
+		assertThrows(IllegalArgumentException.class, () -> new PlacementCatalog(configuration));
+	}
+
+	private Properties quorums(int readQuorum, int writeQuorum)
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(PlacementCatalog.READ_QUORUM_KEY, String.valueOf(readQuorum));
+		configuration.setProperty(PlacementCatalog.WRITE_QUORUM_KEY, String.valueOf(writeQuorum));
+		return configuration;
+	}
+
+	private void assertInvalid(String key, String value, String message)
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(key, value);
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new PlacementCatalog(configuration));
+		assertEquals(message, exception.getMessage());
+	}
+}
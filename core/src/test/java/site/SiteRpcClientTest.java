@@ -0,0 +1,153 @@
+package site;
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import transaction.Transaction;
+import transaction.TransactionConstants;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the write locks, commits and aborts the transaction manager sends to the sites over loopback sockets, and of their pipelining.
+ */
+public class SiteRpcClientTest {
+	private static final int[] ALL_SITES = {1,2,3};
+
+	@Test
+	public void writeLockAndCommitReachEverySiteInOneRoundTripEach()throws IOException
+	{
+		Map dataAndLockManagersMap = createSites();
+		Map trxsMap = new HashMap();
+		Transaction trx = new Transaction("T1", false, 1);
+		trxsMap.put("T1", trx);
+		SiteRpcClient siteRpcClient = new SiteRpcClient(dataAndLockManagersMap, trxsMap);
+		try
+		{
+			siteRpcClient.acquireWriteLock(trx, "x2", ALL_SITES);
+			for(int i=0;i<ALL_SITES.length;i++)
+			{
+				assertEquals(Collections.singleton("T1"), getTrxsLockingVariable(dataAndLockManagersMap, ALL_SITES[i], "x2"));
+			}
+			WriteBatch[] writeBatches = new WriteBatch[ALL_SITES.length];
+			for(int i=0;i<ALL_SITES.length;i++)
+			{
+				writeBatches[i]=new WriteBatch(1);
+				writeBatches[i].add("x2", 7);
+			}
+			siteRpcClient.commit(trx, 1, writeBatches, ALL_SITES);
+			for(int i=0;i<ALL_SITES.length;i++)
+			{
+				assertEquals(7, getSite(dataAndLockManagersMap, ALL_SITES[i]).getValueOfVariableAtSite("x2"));
+				assertTrue(getTrxsLockingVariable(dataAndLockManagersMap, ALL_SITES[i], "x2").isEmpty());
+			}
+			assertEquals(6, siteRpcClient.getNumberOfRequests());
+			assertEquals(2, siteRpcClient.getNumberOfRoundTrips());
+		}
+		finally
+		{
+			siteRpcClient.close();
+		}
+	}
+
+	@Test
+	public void abortReleasesTheLocksWithoutWritingAnything()throws IOException
+	{
+		Map dataAndLockManagersMap = createSites();
+		Map trxsMap = new HashMap();
+		Transaction trx = new Transaction("T1", false, 1);
+		trxsMap.put("T1", trx);
+		SiteRpcClient siteRpcClient = new SiteRpcClient(dataAndLockManagersMap, trxsMap);
+		try
+		{
+			siteRpcClient.acquireWriteLock(trx, "x2", new int[]{1,3});
+			siteRpcClient.abort(trx, new int[]{1,3});
+			assertTrue(getTrxsLockingVariable(dataAndLockManagersMap, 1, "x2").isEmpty());
+			assertTrue(getTrxsLockingVariable(dataAndLockManagersMap, 3, "x2").isEmpty());
+			assertEquals(20, getSite(dataAndLockManagersMap, 1).getValueOfVariableAtSite("x2"));
+		}
+		finally
+		{
+			siteRpcClient.close();
+		}
+	}
+
+	@Test
+	public void prepareLogsTheValuesOfEverySiteBeforeItVotes()throws IOException
+	{
+		Map dataAndLockManagersMap = createSites();
+		WriteAheadLog writeAheadLog = new WriteAheadLog(File.createTempFile("site2", ".wal"));
+		((DataAndLockManager)dataAndLockManagersMap.get(2)).recoverFromWriteAheadLog(writeAheadLog);
+		Map trxsMap = new HashMap();
+		Transaction trx = new Transaction("T1", false, 1);
+		trxsMap.put("T1", trx);
+		SiteRpcClient siteRpcClient = new SiteRpcClient(dataAndLockManagersMap, trxsMap);
+		try
+		{
+			((DataAndLockManager)dataAndLockManagersMap.get(1)).acquireReadLock(trx, "x1");
+			siteRpcClient.acquireWriteLock(trx, "x2", new int[]{2,3});
+			getSite(dataAndLockManagersMap, 3).failSite(2);
+			getSite(dataAndLockManagersMap, 3).recoverSite();
+			WriteBatch writeBatch = new WriteBatch(1);
+			writeBatch.add("x2", 7);
+			int[] votes = siteRpcClient.prepare(trx, new int[]{1,1,1}, "T1#1", new WriteBatch[]{null, writeBatch, writeBatch}, ALL_SITES);
+			//Site 1 only served a read and releases it, site 3 failed since it was accessed
+			assertArrayEquals(new int[]{TransactionConstants.VOTE_READ_ONLY, TransactionConstants.VOTE_COMMIT, TransactionConstants.VOTE_ABORT}, votes);
+			assertTrue(getTrxsLockingVariable(dataAndLockManagersMap, 1, "x1").isEmpty());
+			assertEquals(1, writeAheadLog.getNumberOfRecords());
+			//Nothing is committed before the second phase
+			assertEquals(20, getSite(dataAndLockManagersMap, 2).getValueOfVariableAtSite("x2"));
+		}
+		finally
+		{
+			siteRpcClient.close();
+			writeAheadLog.close();
+			writeAheadLog.getFile().delete();
+		}
+	}
+
+	@Test
+	public void requestOfAnUnknownTransactionIsRefused()throws IOException
+	{
+		Map dataAndLockManagersMap = createSites();
+		SiteRpcClient siteRpcClient = new SiteRpcClient(dataAndLockManagersMap, new HashMap());
+		try
+		{
+			IOException exception = assertThrows(IOException.class, () -> siteRpcClient.acquireWriteLock(new Transaction("T9", false, 1), "x2", new int[]{2}));
+			assertTrue(exception.getMessage().startsWith("Site 2 couldn't serve request"), exception.getMessage());
+			assertThrows(IOException.class, () -> siteRpcClient.abort(new Transaction("T9", false, 1), new int[]{4}));
+		}
+		finally
+		{
+			siteRpcClient.close();
+		}
+	}
+
+	/**
+	 * Method which builds 3 sites holding a copy of each of the variables x1 and x2.
+	 */
+	private Map createSites()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(PlacementCatalog.SITES_KEY, "3");
+		configuration.setProperty(PlacementCatalog.VARIABLES_KEY, "2");
+		configuration.setProperty(PlacementCatalog.REPLICATED_KEY, PlacementCatalog.REPLICATE_ALL_VARIABLES);
+		PlacementCatalog placementCatalog = new PlacementCatalog(configuration);
+		Map dataAndLockManagersMap = new LinkedHashMap();
+		for(int siteId=1;siteId<=placementCatalog.getNumberOfSites();siteId++)
+		{
+			dataAndLockManagersMap.put(siteId, new DataAndLockManager(siteId, new Site(siteId, new PrimitiveVariableStore(placementCatalog, new int[]{1,2}))));
+		}
+		return dataAndLockManagersMap;
+	}
+
+	private Site getSite(Map dataAndLockManagersMap, int siteId)
+	{
+		return ((DataAndLockManager)dataAndLockManagersMap.get(siteId)).getSiteServicedByDataAndLockMgr();
+	}
+
+	private Set getTrxsLockingVariable(Map dataAndLockManagersMap, int siteId, String variable)
+	{
+		Set trxIds = new HashSet();
+		((DataAndLockManager)dataAndLockManagersMap.get(siteId)).addTrxsLockingVariable(variable, trxIds);
+		return trxIds;
+	}
+}
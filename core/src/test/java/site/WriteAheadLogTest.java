@@ -0,0 +1,192 @@
+package site;
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the replay of a write-ahead log, of the truncation of a last record cut short by a crash or not matching its CRC32, and of its rotation.
+ */
+public class WriteAheadLogTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void replayAppliesSyncedRecordsInOrder()throws IOException
+	{
+		File file = directory.resolve("site1.wal").toFile();
+		WriteAheadLog log = new WriteAheadLog(file);
+		//x5 isn't stored at the site and is skipped
+		log.append("T1", new String[]{"x2","x5","x4"}, new int[]{21,51,41}, 3);
+		log.append("T2", new String[]{"x2"}, new int[]{22}, 1);
+		log.sync();
+		log.close();
+
+		MapVariableStore variableStore = createVariableStore();
+		//Like at a recovering site, a replicated copy becomes readable once a committed value is replayed
+		variableStore.makeReplicatedVariablesUnavailableForReadOperation();
+		WriteAheadLog reopenedLog = new WriteAheadLog(file);
+		assertEquals(2, reopenedLog.replay(variableStore));
+		assertEquals(22, variableStore.getValueOfVariable("x2"));
+		assertEquals(41, variableStore.getValueOfVariable("x4"));
+		assertEquals(30, variableStore.getValueOfVariable("x3"));
+		assertTrue(variableStore.isVariableAvailableForReadOperation("x2"));
+		assertFalse(variableStore.isVariableAvailableForReadOperation("x6"));
+		assertEquals(file.length(), reopenedLog.getLength());
+		reopenedLog.close();
+	}
+
+	@Test
+	public void recordsAppendedAfterTheLastSyncAreLost()throws IOException
+	{
+		File file = directory.resolve("site1.wal").toFile();
+		WriteAheadLog log = new WriteAheadLog(file);
+		log.append("T1", new String[]{"x2"}, new int[]{21}, 1);
+		log.sync();
+		log.append("T2", new String[]{"x2"}, new int[]{22}, 1);
+		assertEquals(2, log.getNumberOfRecords());
+
+		//The process crashes before the next sync, nothing else of the log reaches the file
+		MapVariableStore variableStore = createVariableStore();
+		WriteAheadLog reopenedLog = new WriteAheadLog(file);
+		assertEquals(1, reopenedLog.replay(variableStore));
+		assertEquals(21, variableStore.getValueOfVariable("x2"));
+		reopenedLog.close();
+		log.close();
+	}
+
+	@Test
+	public void replayTruncatesATornLastRecord()throws IOException
+	{
+		File file = directory.resolve("site1.wal").toFile();
+		long lengthOfFirstRecord = writeTwoRecords(file);
+		long length = file.length();
+		truncate(file, length-3);
+
+		MapVariableStore variableStore = createVariableStore();
+		WriteAheadLog log = new WriteAheadLog(file);
+		assertEquals(1, log.replay(variableStore));
+		assertEquals(21, variableStore.getValueOfVariable("x2"));
+		assertEquals(lengthOfFirstRecord, file.length());
+
+		//Records appended after the replay follow the last complete record
+		log.append("T3", new String[]{"x2"}, new int[]{23}, 1);
+		log.close();
+		MapVariableStore replayedVariableStore = createVariableStore();
+		WriteAheadLog reopenedLog = new WriteAheadLog(file);
+		assertEquals(2, reopenedLog.replay(replayedVariableStore));
+		assertEquals(23, replayedVariableStore.getValueOfVariable("x2"));
+		reopenedLog.close();
+	}
+
+	@Test
+	public void replayTruncatesALastRecordNotMatchingItsChecksum()throws IOException
+	{
+		File file = directory.resolve("site1.wal").toFile();
+		long lengthOfFirstRecord = writeTwoRecords(file);
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try
+		{
+			//Last byte of the value of x2 in the second record
+			randomAccessFile.seek(file.length()-1);
+			int lastByte = randomAccessFile.read();
+			randomAccessFile.seek(file.length()-1);
+			randomAccessFile.write(lastByte^0xFF);
+		}
+		finally
+		{
+			randomAccessFile.close();
+		}
+
+		MapVariableStore variableStore = createVariableStore();
+		WriteAheadLog log = new WriteAheadLog(file);
+		assertEquals(1, log.replay(variableStore));
+		assertEquals(21, variableStore.getValueOfVariable("x2"));
+		assertEquals(lengthOfFirstRecord, file.length());
+		log.close();
+	}
+
+	@Test
+	public void replayAppliesTheRotatedLogBeforeTheCurrentOne()throws IOException
+	{
+		File file = directory.resolve("site1.wal").toFile();
+		WriteAheadLog log = new WriteAheadLog(file);
+		log.append("T1", new String[]{"x2","x4"}, new int[]{21,41}, 2);
+		assertTrue(log.rotate());
+		log.append("T2", new String[]{"x2"}, new int[]{22}, 1);
+		//The previous rotated log is still there, so the log goes on in the current file
+		assertFalse(log.rotate());
+		log.close();
+
+		MapVariableStore variableStore = createVariableStore();
+		WriteAheadLog reopenedLog = new WriteAheadLog(file);
+		assertEquals(2, reopenedLog.replay(variableStore));
+		assertEquals(22, variableStore.getValueOfVariable("x2"));
+		assertEquals(41, variableStore.getValueOfVariable("x4"));
+		reopenedLog.deleteRotatedLog();
+		assertFalse(new File(file.getPath()+".old").exists());
+		reopenedLog.close();
+	}
+
+	@Test
+	public void replaySkipsTheRecordsOfTransactionsNotDecidedToCommit()throws IOException
+	{
+		File file = directory.resolve("site1.wal").toFile();
+		WriteAheadLog log = new WriteAheadLog(file);
+		log.append("T1#1", new String[]{"x2"}, new int[]{21}, 1);
+		log.append("T2#1", new String[]{"x2","x4"}, new int[]{22,42}, 2);
+		log.append("T3#1", new String[]{"x3"}, new int[]{33}, 1);
+		log.close();
+
+		MapVariableStore variableStore = createVariableStore();
+		WriteAheadLog reopenedLog = new WriteAheadLog(file);
+		assertEquals(2, reopenedLog.replay(variableStore, new HashSet(Arrays.asList("T1#1","T3#1"))));
+		assertEquals(21, variableStore.getValueOfVariable("x2"));
+		assertEquals(40, variableStore.getValueOfVariable("x4"));
+		assertEquals(33, variableStore.getValueOfVariable("x3"));
+		reopenedLog.close();
+	}
+
+	/**
+	 * Method which writes two synced records to a log, the second one updating x2 last.
+	 * @return long - The length of the log holding only the first record.
+	 */
+	private long writeTwoRecords(File file)throws IOException
+	{
+		WriteAheadLog log = new WriteAheadLog(file);
+		log.append("T1", new String[]{"x2"}, new int[]{21}, 1);
+		log.sync();
+		long lengthOfFirstRecord = file.length();
+		log.append("T2", new String[]{"x4","x2"}, new int[]{42,22}, 2);
+		log.close();
+		return lengthOfFirstRecord;
+	}
+
+	private void truncate(File file, long length)throws IOException
+	{
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try
+		{
+			randomAccessFile.setLength(length);
+		}
+		finally
+		{
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Method which creates the variables of a site holding the replicated x2, x4 and x6 and the non-replicated x3, with their initial values.
+	 */
+	private MapVariableStore createVariableStore()
+	{
+		Map mapOfVariablesAndValues = new HashMap();
+		mapOfVariablesAndValues.put("x2", new VariablesVO("x2",20,true));
+		mapOfVariablesAndValues.put("x3", new VariablesVO("x3",30,false));
+		mapOfVariablesAndValues.put("x4", new VariablesVO("x4",40,true));
+		mapOfVariablesAndValues.put("x6", new VariablesVO("x6",60,true));
+		return new MapVariableStore(mapOfVariablesAndValues);
+	}
+}
@@ -0,0 +1,65 @@
+package transaction;
+import java.io.*;
+import java.nio.file.Path;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the decisions to commit the coordinator log reads back when the process restarts, and of the incarnation telling apart the transactions of
+ * different runs.
+ */
+public class CoordinatorLogTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void syncedDecisionsAreReadBackByTheNextIncarnation()throws IOException
+	{
+		File file = directory.resolve("coordinator.wal").toFile();
+		CoordinatorLog log = new CoordinatorLog(file);
+		assertEquals(1, log.getIncarnation());
+		assertTrue(log.getCommittedTrxIds().isEmpty());
+		assertEquals("T1#1", log.getLogId("T1"));
+		log.logCommit("T1");
+		log.sync();
+		//The process stops before the decision to commit T2 is forced
+		log.logCommit("T2");
+		assertEquals(2, log.getNumberOfLoggedCommits());
+
+		CoordinatorLog reopenedLog = new CoordinatorLog(file);
+		assertEquals(2, reopenedLog.getIncarnation());
+		assertEquals(Collections.singleton("T1#1"), reopenedLog.getCommittedTrxIds());
+		//A transaction named alike in the new incarnation isn't taken for the committed one
+		assertEquals("T1#2", reopenedLog.getLogId("T1"));
+		reopenedLog.close();
+		log.close();
+	}
+
+	@Test
+	public void rotatedLogKeepsTheIncarnationAndItsDecisions()throws IOException
+	{
+		File file = directory.resolve("coordinator.wal").toFile();
+		CoordinatorLog log = new CoordinatorLog(file);
+		log.logCommit("T1");
+		assertTrue(log.rotate());
+		log.logCommit("T2");
+		log.close();
+
+		CoordinatorLog reopenedLog = new CoordinatorLog(file);
+		assertEquals(2, reopenedLog.getIncarnation());
+		assertEquals(new HashSet(Arrays.asList("T1#1","T2#1")), reopenedLog.getCommittedTrxIds());
+		reopenedLog.close();
+
+		//Once the checkpoint is durable, the current log alone still holds the incarnation
+		CoordinatorLog rotatedLog = new CoordinatorLog(file);
+		rotatedLog.deleteRotatedLog();
+		assertFalse(new File(file.getPath()+".old").exists());
+		rotatedLog.close();
+		CoordinatorLog lastLog = new CoordinatorLog(file);
+		assertEquals(4, lastLog.getIncarnation());
+		assertEquals(Collections.singleton("T2#1"), lastLog.getCommittedTrxIds());
+		lastLog.close();
+	}
+}
@@ -0,0 +1,86 @@
+package transaction;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the cycles found in the waits-for graph as transactions block, are granted locks, release them and lose them at failed sites.
+ */
+public class WaitsForGraphTest {
+
+	@Test
+	public void noCycleWithoutBlockedTransactions()
+	{
+		WaitsForGraph waitsForGraph = new WaitsForGraph();
+		assertNull(waitsForGraph.findCycle("T1"));
+	}
+
+	@Test
+	public void cycleIsFoundThroughTheTransactionWhichClosesIt()
+	{
+		WaitsForGraph waitsForGraph = new WaitsForGraph();
+		assertNull(waitsForGraph.waitFor("T1", "x1", true, lockingTrxs("T2", 1)));
+		assertNull(waitsForGraph.waitFor("T2", "x2", true, lockingTrxs("T3", 1)));
+		assertEquals(Arrays.asList("T3","T1","T2"), waitsForGraph.waitFor("T3", "x3", false, lockingTrxs("T1", 2)));
+		assertEquals(Arrays.asList("T1","T2","T3"), waitsForGraph.findCycle("T1"));
+		//A transaction which only waits for the cycle isn't part of it
+		assertNull(waitsForGraph.waitFor("T4", "x1", true, lockingTrxs("T2", 1)));
+		assertNull(waitsForGraph.findCycle("T4"));
+	}
+
+	@Test
+	public void removingATransactionBreaksTheCycle()
+	{
+		WaitsForGraph waitsForGraph = new WaitsForGraph();
+		waitsForGraph.waitFor("T1", "x1", true, lockingTrxs("T2", 1));
+		assertNotNull(waitsForGraph.waitFor("T2", "x2", true, lockingTrxs("T1", 1)));
+		waitsForGraph.removeTrx("T2");
+		assertNull(waitsForGraph.findCycle("T1"));
+		assertNull(waitsForGraph.findCycle("T2"));
+	}
+
+	@Test
+	public void edgeRemainsUntilTheLockIsReleasedAtEverySite()
+	{
+		WaitsForGraph waitsForGraph = new WaitsForGraph();
+		Map lockingTrxs = new HashMap();
+		lockingTrxs.put("T2", new HashSet(Arrays.asList(Integer.valueOf(1), Integer.valueOf(2))));
+		waitsForGraph.waitFor("T1", "x2", true, lockingTrxs);
+		waitsForGraph.waitFor("T2", "x4", true, lockingTrxs("T1", 3));
+		waitsForGraph.locksReleased("T2", 1);
+		assertEquals(Arrays.asList("T1","T2"), waitsForGraph.findCycle("T1"));
+		//Losing the lock at a failed site releases it there too
+		waitsForGraph.siteFailed(2);
+		assertNull(waitsForGraph.findCycle("T1"));
+		assertNull(waitsForGraph.findCycle("T2"));
+	}
+
+	@Test
+	public void grantedLockAddsEdgesFromConflictingWaiters()
+	{
+		WaitsForGraph waitsForGraph = new WaitsForGraph();
+		//T1 waits to write x1 and T2 to read it, both behind T4
+		waitsForGraph.waitFor("T1", "x1", true, lockingTrxs("T4", 2));
+		waitsForGraph.waitFor("T2", "x1", false, lockingTrxs("T4", 2));
+		//A read lock only conflicts with the waiting write, a write lock with both
+		waitsForGraph.lockGranted("T3", "x1", false, 2);
+		waitsForGraph.waitFor("T3", "x5", true, lockingTrxs("T2", 2));
+		assertNull(waitsForGraph.findCycle("T3"));
+		waitsForGraph.waitFor("T3", "x5", true, lockingTrxs("T1", 2));
+		assertEquals(Arrays.asList("T3","T1"), waitsForGraph.findCycle("T3"));
+		waitsForGraph.stopWaiting("T3");
+		waitsForGraph.lockGranted("T5", "x1", true, 2);
+		waitsForGraph.waitFor("T5", "x5", true, lockingTrxs("T2", 2));
+		assertEquals(Arrays.asList("T5","T2"), waitsForGraph.findCycle("T5"));
+	}
+
+	/**
+	 * Method which builds the argument of waitFor for a single transaction holding a conflicting lock at a single site.
+	 */
+	private Map lockingTrxs(String trxName, int siteId)
+	{
+		Map lockingTrxs = new HashMap();
+		lockingTrxs.put(trxName, new HashSet(Collections.singleton(Integer.valueOf(siteId))));
+		return lockingTrxs;
+	}
+}
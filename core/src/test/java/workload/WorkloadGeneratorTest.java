@@ -0,0 +1,39 @@
+package workload;
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the workloads the generator writes and of the configurations it rejects.
+ */
+public class WorkloadGeneratorTest {
+
+	@Test
+	public void sameConfigurationWritesTheSameWorkload()throws IOException
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(WorkloadGenerator.TRANSACTIONS_KEY, "20");
+		configuration.setProperty(WorkloadGenerator.FAILURE_RATE_KEY, "0.05");
+		configuration.setProperty(WorkloadGenerator.SKEW_KEY, "1.2");
+		StringWriter first = new StringWriter();
+		int numberOfTicks = new WorkloadGenerator(configuration).generate(first);
+		StringWriter second = new StringWriter();
+		assertEquals(numberOfTicks, new WorkloadGenerator(configuration).generate(second));
+		assertEquals(first.toString(), second.toString());
+		assertTrue(first.toString().contains("begin(T20)"), first.toString());
+		assertFalse(first.toString().contains("begin(T21)"), first.toString());
+	}
+
+	@Test
+	public void integerKeysRejectNonIntegralValues()
+	{
+		Properties configuration = new Properties();
+		configuration.setProperty(WorkloadGenerator.TRANSACTIONS_KEY, "1.5");
+		IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> new WorkloadGenerator(configuration));
+		assertEquals("Invalid value 1.5 for workload.transactions", exception.getMessage());
+		configuration.setProperty(WorkloadGenerator.TRANSACTIONS_KEY, "15");
+		configuration.setProperty(WorkloadGenerator.WRITE_RATIO_KEY, "1.5");
+		assertThrows(IllegalArgumentException.class, () -> new WorkloadGenerator(configuration));
+	}
+}
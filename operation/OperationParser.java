@@ -0,0 +1,365 @@
+package operation;
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * A single pass tokenizer turning lines of the input file into OperationVO objects.
+ * Spaces are dropped while the line is copied into a reusable buffer, and every operation is then decoded from that buffer in one scan, so the only
+ * Strings created are the ones kept by the OperationVO: the operation itself, the transaction name and the variable.
+ * It accepts and rejects exactly the inputs the original indexOf/substring/split based parser did, including its quirks, e.g. anything after the
+ * first ')' of an operation ending with ')' is ignored and a ';' at only one end of a line is dropped.
+ * An instance is not thread-safe, each parsing thread needs its own.
+ */
+public class OperationParser {
+	//Variable names x1..xN are looked up instead of being created for every operation, up to this id
+	private static final int MAX_CACHED_VARIABLE_ID = 1<<16;
+	//Returned by parseInt when the characters are not a valid int
+	private static final long INVALID_INT = Long.MIN_VALUE;
+
+	private char[] buffer = new char[128];
+	private String[] variableNames = new String[64];
+	//Where valid operations are echoed and invalid ones are reported, System.out at the time of the report if null
+	private PrintStream console = null;
+	private boolean isEchoEnabled = true;
+
+	public PrintStream getConsole()
+	{
+		return (console!=null)?console:System.out;
+	}
+	public void setConsole(PrintStream console)
+	{
+		this.console=console;
+	}
+	public boolean isEchoEnabled()
+	{
+		return isEchoEnabled;
+	}
+	/**
+	 * Method which turns the echo of every valid operation on or off, invalid operations are reported regardless.
+	 */
+	public void setEchoEnabled(boolean isEchoEnabled)
+	{
+		this.isEchoEnabled=isEchoEnabled;
+	}
+
+	/**
+	 * Method which parses a line of the input file, which holds the operations of one tick separated by ';'.
+	 * Valid operations are echoed and added to the list, invalid ones are reported on the console.
+	 * @param line - A String holding the line.
+	 * @param tick - An integer value representing the tick of the line.
+	 * @param operations - A list of OperationVO objects.
+	 */
+	public void parseLine(String line, int tick, List operations)
+	{
+		if(line==null)
+		{
+			return;
+		}
+		int length = line.length();
+		if(buffer.length<length)
+		{
+			buffer = new char[Math.max(length, 2*buffer.length)];
+		}
+		int end = 0;
+		boolean hasSemicolon = false;
+		for(int i=0;i<length;i++)
+		{
+			char c = line.charAt(i);
+			if(c!=' ')
+			{
+				buffer[end++]=c;
+				hasSemicolon |= (c==';');
+			}
+		}
+		int start = 0;
+		if(end>0 && buffer[end-1]==';')
+		{
+			end--;
+		}
+		else if(end>0 && buffer[0]==';')
+		{
+			start++;
+		}
+		if(!hasSemicolon || !containsSemicolon(start, end))
+		{
+			parseOperation(buffer, start, end, tick, operations);
+			return;
+		}
+		//Like String.split, empty operations at the end of the line are dropped while the ones before are reported as invalid
+		while(end>start && buffer[end-1]==';')
+		{
+			end--;
+		}
+		int from = start;
+		for(int i=start;i<=end;i++)
+		{
+			if(i==end || buffer[i]==';')
+			{
+				if(i>start || i<end)
+				{
+					parseOperation(buffer, from, i, tick, operations);
+				}
+				from = i+1;
+			}
+		}
+	}
+
+	/**
+	 * Method which parses a single operation, i.e. one without any ';'.
+	 * @param operation - A String holding the operation.
+	 * @param tick - An integer value representing the tick of the operation.
+	 * @param operations - A list of OperationVO objects.
+	 */
+	public void parseOperation(String operation, int tick, List operations)
+	{
+		if(operation==null)
+		{
+			getConsole().println("Invalid I/P "+operation+" encountered.");
+			return;
+		}
+		char[] chars = operation.toCharArray();
+		parseOperation(chars, 0, chars.length, tick, operations);
+	}
+
+	private boolean containsSemicolon(int start, int end)
+	{
+		for(int i=start;i<end;i++)
+		{
+			if(buffer[i]==';')
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void parseOperation(char[] chars, int from, int to, int tick, List operations)
+	{
+		if(to<=from || chars[to-1]!=')')
+		{
+			reportInvalidOperation(chars, from, to);
+			return;
+		}
+		//Positions relative to from of the first '(', the first ')', the first and the last ',', -1 if absent
+		int bracesStartIndex = -1;
+		int bracesEndIndex = -1;
+		int indexOfFirstComma = -1;
+		int indexOfLastComma = -1;
+		int numberOfCommas = 0;
+		for(int i=from;i<to;i++)
+		{
+			char c = chars[i];
+			if(c=='(')
+			{
+				if(bracesStartIndex<0)
+				{
+					bracesStartIndex=i-from;
+				}
+			}
+			else if(c==')')
+			{
+				if(bracesEndIndex<0)
+				{
+					bracesEndIndex=i-from;
+				}
+			}
+			else if(c==',')
+			{
+				if(indexOfFirstComma<0)
+				{
+					indexOfFirstComma=i-from;
+				}
+				indexOfLastComma=i-from;
+				numberOfCommas++;
+			}
+		}
+		OperationVO operationVO = null;
+		if(startsWith(chars, from, to, "begin(") || startsWith(chars, from, to, "end(") || startsWith(chars, from, to, "beginRO("))
+		{
+			if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex > (bracesStartIndex+1)))
+			{
+				int typeOfOperation = (chars[from]=='e')?OperationConstants.COMMIT_TRANSACTION_OPERATION:
+					(chars[from+5]=='R')?OperationConstants.BEGIN_READ_ONLY_TRANSACTION_OPERATION:OperationConstants.BEGIN_TRANSACTION_OPERATION;
+				operationVO = new OperationVO(new String(chars, from, to-from),typeOfOperation,tick);
+				operationVO.setTrxName(new String(chars, from+bracesStartIndex+1, bracesEndIndex-bracesStartIndex-1));
+			}
+		}
+		else if(startsWith(chars, from, to, "W("))
+		{
+			if((bracesEndIndex>0) && (bracesStartIndex>0) && (indexOfFirstComma>0) && (indexOfLastComma>0) && (bracesEndIndex > (bracesStartIndex+1)) && (numberOfCommas==2) && (indexOfFirstComma>((bracesStartIndex+1))) && (indexOfLastComma>(indexOfFirstComma+1)) &&(bracesEndIndex>(indexOfLastComma+1)))
+			{
+				long value = parseInt(chars, from+indexOfLastComma+1, from+bracesEndIndex);
+				if(value!=INVALID_INT)
+				{
+					operationVO = new OperationVO(new String(chars, from, to-from),OperationConstants.WRITE_OPERATION,tick);
+					operationVO.setTrxName(new String(chars, from+bracesStartIndex+1, indexOfFirstComma-bracesStartIndex-1));
+					operationVO.setVariable(getVariable(chars, from+indexOfFirstComma+1, from+indexOfLastComma));
+					operationVO.setValue((int)value);
+				}
+			}
+		}
+		else if(startsWith(chars, from, to, "R("))
+		{
+			if((bracesEndIndex>0) && (bracesStartIndex>0) && (indexOfFirstComma>0) && (bracesEndIndex > (bracesStartIndex+1)) && (numberOfCommas==1) && (indexOfFirstComma>((bracesStartIndex+1))) &&(bracesEndIndex>(indexOfFirstComma+1)))
+			{
+				operationVO = new OperationVO(new String(chars, from, to-from),OperationConstants.READ_OPERATION,tick);
+				operationVO.setTrxName(new String(chars, from+bracesStartIndex+1, indexOfFirstComma-bracesStartIndex-1));
+				operationVO.setVariable(getVariable(chars, from+indexOfFirstComma+1, from+bracesEndIndex));
+			}
+		}
+		else if(startsWith(chars, from, to, "fail(") || startsWith(chars, from, to, "recover("))
+		{
+			if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex > (bracesStartIndex+1)))
+			{
+				long value = parseInt(chars, from+bracesStartIndex+1, from+bracesEndIndex);
+				if(value!=INVALID_INT)
+				{
+					int typeOfOperation = (chars[from]=='f')?OperationConstants.FAIL_SITE_OPERATION:OperationConstants.RECOVER_SITE_OPERATION;
+					operationVO = new OperationVO(new String(chars, from, to-from),typeOfOperation,tick);
+					operationVO.setValue((int)value);
+				}
+			}
+		}
+		else if(startsWith(chars, from, to, "dump("))
+		{
+			//dump( always has a '(' before its first ')', an operation which doesn't fit any of the forms below is silently ignored
+			if((bracesEndIndex>0) && (bracesStartIndex>0))
+			{
+				if(bracesEndIndex==(bracesStartIndex+1))
+				{
+					operationVO = new OperationVO(new String(chars, from, to-from),OperationConstants.DUMP_ALL_OPERATION,tick);
+				}
+				else if(bracesEndIndex>(bracesStartIndex+1))
+				{
+					long value = parseInt(chars, from+bracesStartIndex+1, from+bracesEndIndex);
+					if(value!=INVALID_INT)
+					{
+						//dump(1)
+						operationVO = new OperationVO(new String(chars, from, to-from),OperationConstants.DUMP_SITE_OPERATION,tick);
+						operationVO.setValue((int)value);
+					}
+					else
+					{
+						//dump(x1)
+						operationVO = new OperationVO(new String(chars, from, to-from),OperationConstants.DUMP_VARIABLE_OPERATION,tick);
+						operationVO.setVariable(getVariable(chars, from+bracesStartIndex+1, from+bracesEndIndex));
+					}
+				}
+			}
+			if(operationVO==null)
+			{
+				return;
+			}
+		}
+		else if(startsWith(chars, from, to, "querystate("))
+		{
+			if((bracesEndIndex>0) && (bracesStartIndex>0) && (bracesEndIndex ==(bracesStartIndex+1)))
+			{
+				operationVO = new OperationVO(new String(chars, from, to-from),OperationConstants.QUERY_STATE_OPERATION,tick);
+			}
+		}
+		if(operationVO==null)
+		{
+			reportInvalidOperation(chars, from, to);
+			return;
+		}
+		if(operations!=null)
+		{
+			if(isEchoEnabled)
+			{
+				getConsole().println(operationVO.getOperation());
+			}
+			operations.add(operationVO);
+		}
+	}
+
+	private void reportInvalidOperation(char[] chars, int from, int to)
+	{
+		getConsole().println("Invalid I/P "+new String(chars, from, to-from)+" encountered.");
+	}
+
+	private static boolean startsWith(char[] chars, int from, int to, String prefix)
+	{
+		if(to-from<prefix.length())
+		{
+			return false;
+		}
+		for(int i=0;i<prefix.length();i++)
+		{
+			if(chars[from+i]!=prefix.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Method which decodes an int the way Integer.parseInt does, without creating a String.
+	 * @return long - The value, or INVALID_INT if Integer.parseInt would throw a NumberFormatException.
+	 */
+	private static long parseInt(char[] chars, int from, int to)
+	{
+		if(to<=from)
+		{
+			return INVALID_INT;
+		}
+		boolean negative = false;
+		int i = from;
+		if(chars[i]=='-' || chars[i]=='+')
+		{
+			negative = (chars[i]=='-');
+			i++;
+			if(i==to)
+			{
+				return INVALID_INT;
+			}
+		}
+		long limit = negative?-(long)Integer.MIN_VALUE:Integer.MAX_VALUE;
+		long result = 0;
+		for(;i<to;i++)
+		{
+			int digit = Character.digit(chars[i], 10);
+			if(digit<0)
+			{
+				return INVALID_INT;
+			}
+			result = result*10+digit;
+			if(result>limit)
+			{
+				return INVALID_INT;
+			}
+		}
+		return negative?-result:result;
+	}
+
+	/**
+	 * Method which returns the variable name held by the characters, shared between operations if it is one of x1..xN.
+	 */
+	private String getVariable(char[] chars, int from, int to)
+	{
+		int length = to-from;
+		if(length>=2 && length<=6 && chars[from]=='x' && chars[from+1]>='1' && chars[from+1]<='9')
+		{
+			int variableId = 0;
+			for(int i=from+1;i<to && variableId>=0;i++)
+			{
+				char c = chars[i];
+				variableId = (c>='0' && c<='9')?variableId*10+(c-'0'):-1;
+			}
+			if(variableId>0 && variableId<MAX_CACHED_VARIABLE_ID)
+			{
+				if(variableId>=variableNames.length)
+				{
+					variableNames = Arrays.copyOf(variableNames, Math.max(variableId+1, 2*variableNames.length));
+				}
+				if(variableNames[variableId]==null)
+				{
+					variableNames[variableId] = new String(chars, from, length);
+				}
+				return variableNames[variableId];
+			}
+		}
+		return new String(chars, from, length);
+	}
+}
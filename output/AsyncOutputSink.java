@@ -0,0 +1,211 @@
+package output;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * An OutputSink handing lines and events over to a background thread which writes them to another OutputSink, so that writing the output file,
+ * echoing on the console and recording events doesn't hold up the execution of operations. The background thread writes lines in batches and flushes once per batch.
+ * The queue is bounded, a caller producing lines faster than they can be written waits for room.
+ */
+public class AsyncOutputSink extends OutputSink {
+	private static final int MAX_LINES_PER_BATCH = 4096;
+	private BlockingQueue queue = null;
+	private OutputSink delegate = null;
+	private Thread writer = null;
+	//First exception the background thread ran into, rethrown to the caller at its next call
+	private volatile IOException failure = null;
+	private boolean isClosed = false;
+
+	/**
+	 * Constructor for AsyncOutputSink class which starts the background thread.
+	 * @param delegate - An OutputSink object the lines are finally written to.
+	 * @param capacity - Number of lines which can wait to be written.
+	 */
+	public AsyncOutputSink(OutputSink delegate, int capacity)
+	{
+		this.delegate=delegate;
+		queue = new ArrayBlockingQueue(capacity);
+		writer = new Thread(new Runnable() {
+			public void run() {
+				writeLines();
+			}
+		}, "output-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public void writeLine(String line, int kind)throws IOException
+	{
+		checkFailure();
+		put(new Object[]{line, kind});
+	}
+
+	public void writeEvent(int type, int tick, String trxId, String variable, int siteId, int value)throws IOException
+	{
+		checkFailure();
+		put(new EventVO(type, tick, trxId, variable, siteId, value));
+	}
+
+	/**
+	 * Method which waits until every line and event written so far has been written and flushed by the background thread.
+	 */
+	public void flush()throws IOException
+	{
+		checkFailure();
+		CountDownLatch flushed = new CountDownLatch(1);
+		put(flushed);
+		await(flushed);
+		checkFailure();
+	}
+
+	public void close()throws IOException
+	{
+		if(isClosed)
+		{
+			return;
+		}
+		super.close();
+		isClosed = true;
+		put(this);
+		try
+		{
+			writer.join();
+		}
+		catch(InterruptedException interruptedException)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while closing the output.");
+		}
+		checkFailure();
+	}
+
+	private void writeLines()
+	{
+		List batch = new ArrayList();
+		boolean isCloseRequested = false;
+		while(!isCloseRequested)
+		{
+			try
+			{
+				batch.add(queue.take());
+			}
+			catch(InterruptedException interruptedException)
+			{
+				return;
+			}
+			queue.drainTo(batch, MAX_LINES_PER_BATCH-1);
+			for(int i=0;i<batch.size();i++)
+			{
+				Object element = batch.get(i);
+				if(element==this)
+				{
+					isCloseRequested = true;
+				}
+				else if(element instanceof CountDownLatch)
+				{
+					flushDelegate();
+					((CountDownLatch)element).countDown();
+				}
+				else if(failure==null)
+				{
+					try
+					{
+						if(element instanceof EventVO)
+						{
+							((EventVO)element).writeTo(delegate);
+						}
+						else
+						{
+							Object[] line = (Object[])element;
+							delegate.writeLine((String)line[0], ((Integer)line[1]).intValue());
+						}
+					}
+					catch(IOException ioException)
+					{
+						failure = ioException;
+					}
+				}
+			}
+			batch.clear();
+			if(isCloseRequested)
+			{
+				closeDelegate();
+			}
+			else if(queue.isEmpty())
+			{
+				flushDelegate();
+			}
+		}
+	}
+
+	private void flushDelegate()
+	{
+		try
+		{
+			delegate.flush();
+		}
+		catch(IOException ioException)
+		{
+			if(failure==null)
+			{
+				failure = ioException;
+			}
+		}
+	}
+
+	private void closeDelegate()
+	{
+		try
+		{
+			delegate.close();
+		}
+		catch(IOException ioException)
+		{
+			if(failure==null)
+			{
+				failure = ioException;
+			}
+		}
+	}
+
+	private void put(Object element)throws IOException
+	{
+		if(!writer.isAlive())
+		{
+			throw new IOException("Output is closed.");
+		}
+		try
+		{
+			queue.put(element);
+		}
+		catch(InterruptedException interruptedException)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while writing the output.");
+		}
+	}
+
+	private static void await(CountDownLatch latch)throws IOException
+	{
+		try
+		{
+			latch.await();
+		}
+		catch(InterruptedException interruptedException)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while flushing the output.");
+		}
+	}
+
+	private void checkFailure()throws IOException
+	{
+		if(failure!=null)
+		{
+			throw failure;
+		}
+	}
+}
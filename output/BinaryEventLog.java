@@ -0,0 +1,89 @@
+package output;
+import java.io.*;
+import java.util.*;
+
+/**
+ * An EventLog writing a compact binary stream, read back by EventLogReader.
+ * The stream starts with the bytes RCEV and a version byte. Every record then starts with its type in one byte, type 0 defining a name:
+ * the id of the name and the name itself in modified UTF-8, as written by DataOutputStream.writeUTF. Transactions and variables are written as the id of
+ * their name, the name being defined the first time it is used, and 0 standing for none. An event is written as its tick, transaction, variable and site,
+ * and, for a read, the value read, all of them as variable length integers of 7 bits per byte, the value zigzag encoded.
+ */
+public class BinaryEventLog extends EventLog {
+	public static final int MAGIC=0x52434556;
+	public static final int VERSION=1;
+	public static final int NAME_DEFINITION=0;
+
+	private DataOutputStream out = null;
+	//Id of every name defined so far
+	private Map nameIds = new HashMap();
+
+	/**
+	 * Constructor for BinaryEventLog class which writes the header.
+	 * @param out - An OutputStream object, buffered by the caller.
+	 * @throws IOException
+	 */
+	public BinaryEventLog(OutputStream out)throws IOException
+	{
+		this.out = new DataOutputStream(out);
+		this.out.writeInt(MAGIC);
+		this.out.writeByte(VERSION);
+	}
+
+	public void record(int type, int tick, String trxId, String variable, int siteId, int value)throws IOException
+	{
+		int trxNameId = getNameId(trxId);
+		int variableNameId = getNameId(variable);
+		out.writeByte(type);
+		writeVarInt(tick);
+		writeVarInt(trxNameId);
+		writeVarInt(variableNameId);
+		writeVarInt(siteId);
+		if(type==READ)
+		{
+			writeVarInt((value<<1)^(value>>31));
+		}
+	}
+
+	/**
+	 * Method which returns the id of a name, defining the name first if it is new.
+	 */
+	private int getNameId(String name)throws IOException
+	{
+		if(name==null)
+		{
+			return 0;
+		}
+		Integer nameId = (Integer)nameIds.get(name);
+		if(nameId==null)
+		{
+			nameId = nameIds.size()+1;
+			nameIds.put(name, nameId);
+			out.writeByte(NAME_DEFINITION);
+			writeVarInt(nameId.intValue());
+			out.writeUTF(name);
+		}
+		return nameId.intValue();
+	}
+
+	private void writeVarInt(int value)throws IOException
+	{
+		while((value & ~0x7F)!=0)
+		{
+			out.writeByte((value & 0x7F) | 0x80);
+			value>>>=7;
+		}
+		out.writeByte(value);
+	}
+
+	public void flush()throws IOException
+	{
+		out.flush();
+	}
+
+	public void close()throws IOException
+	{
+		super.close();
+		out.close();
+	}
+}
@@ -0,0 +1,44 @@
+package output;
+import java.io.*;
+import java.util.*;
+
+/**
+ * An OutputSink keeping lines and events in memory until they are replayed to another OutputSink, which lets operations executed concurrently report
+ * in input order.
+ */
+public class BufferedOutputSink extends OutputSink {
+	//Lines, as their text and kind, and events in the order in which they were written
+	private List entries = new ArrayList();
+
+	public void writeLine(String line, int kind)
+	{
+		entries.add(new Object[]{line, kind});
+	}
+
+	public void writeEvent(int type, int tick, String trxId, String variable, int siteId, int value)
+	{
+		entries.add(new EventVO(type, tick, trxId, variable, siteId, value));
+	}
+
+	/**
+	 * Method which writes the lines and events kept so far to another OutputSink, in the order in which they were written, and forgets them.
+	 * @param out - An OutputSink object.
+	 */
+	public void replayTo(OutputSink out)throws IOException
+	{
+		for(int i=0;i<entries.size();i++)
+		{
+			Object entry = entries.get(i);
+			if(entry instanceof EventVO)
+			{
+				((EventVO)entry).writeTo(out);
+			}
+			else
+			{
+				Object[] line = (Object[])entry;
+				out.writeLine((String)line[0], ((Integer)line[1]).intValue());
+			}
+		}
+		entries.clear();
+	}
+}
@@ -0,0 +1,67 @@
+package output;
+import java.io.*;
+
+/**
+ * Destination of the events recorded at the decision points of the transaction manager and the data and lock managers, next to the text output.
+ * Every event has a type and the tick at which it happened, and, depending on its type, a transaction, a variable, a site and a value:
+ * begin and beginRO - the transaction created.
+ * read - the transaction, the variable, the site the value was read from, 0 if it was read from the transaction's own write or, for a read-only
+ * transaction, from the values committed at its birth time, and the value read.
+ * writeLock - the transaction, the variable and the site at which the write lock was granted, one event per site.
+ * block - the transaction and the variable it waits for, and the site holding the conflicting lock if there is one.
+ * abort - the transaction and, for a wait-die abort, the variable and the site holding the conflicting lock if known. An abort without a variable is a
+ * transaction which accessed a site which failed before it ended.
+ * commit - the transaction.
+ * fail and recover - the site.
+ * Absent transactions and variables are null, absent sites are 0.
+ */
+public abstract class EventLog {
+	public static final int BEGIN=1;
+	public static final int BEGIN_READ_ONLY=2;
+	public static final int READ=3;
+	public static final int WRITE_LOCK=4;
+	public static final int BLOCK=5;
+	public static final int ABORT=6;
+	public static final int COMMIT=7;
+	public static final int SITE_FAILURE=8;
+	public static final int SITE_RECOVERY=9;
+	public static final String BINARY_FORMAT="binary";
+	public static final String JSON_FORMAT="json";
+
+	private static final String[] NAMES={null,"begin","beginRO","read","writeLock","block","abort","commit","fail","recover"};
+
+	/**
+	 * Method which returns the name of an event type, as written by JsonEventLog.
+	 * @param type - An integer value, one of the event types.
+	 * @return String - The name, null if the type is unknown.
+	 */
+	public static String getName(int type)
+	{
+		if(type<1 || type>=NAMES.length)
+		{
+			return null;
+		}
+		return NAMES[type];
+	}
+
+	/**
+	 * Method which records an event.
+	 * @param type - An integer value, one of the event types.
+	 * @param tick - An integer value, the tick at which the event happened.
+	 * @param trxId - A String value, the transaction or null.
+	 * @param variable - A String value, the variable or null.
+	 * @param siteId - An integer value, the site or 0.
+	 * @param value - An integer value, the value read, ignored for other events than read.
+	 * @throws IOException
+	 */
+	public abstract void record(int type, int tick, String trxId, String variable, int siteId, int value)throws IOException;
+
+	public void flush()throws IOException
+	{
+	}
+
+	public void close()throws IOException
+	{
+		flush();
+	}
+}
@@ -0,0 +1,200 @@
+package output;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Reads the events written by BinaryEventLog back, one event per call to next, in a single sequential pass.
+ */
+public class EventLogReader {
+	private DataInputStream in = null;
+	//Name of every id defined so far, at index id-1
+	private List names = new ArrayList();
+	private int type=0;
+	private int tick=0;
+	private String trxId=null;
+	private String variable=null;
+	private int siteId=0;
+	private int value=0;
+
+	/**
+	 * Constructor for EventLogReader class which reads the header.
+	 * @param in - An InputStream object, buffered by the caller.
+	 * @throws IOException if the stream is not an event log of a known version.
+	 */
+	public EventLogReader(InputStream in)throws IOException
+	{
+		this.in = new DataInputStream(in);
+		if(this.in.readInt()!=BinaryEventLog.MAGIC)
+		{
+			throw new IOException("Not an event log.");
+		}
+		int version = this.in.readUnsignedByte();
+		if(version!=BinaryEventLog.VERSION)
+		{
+			throw new IOException("Unsupported event log version "+version+".");
+		}
+	}
+
+	/**
+	 * Method which reads the next event.
+	 * @return boolean - false at the end of the log, true if an event has been read, its fields then being returned by the getters.
+	 * @throws IOException if the log is truncated or corrupted.
+	 */
+	public boolean next()throws IOException
+	{
+		while(true)
+		{
+			int recordType = in.read();
+			if(recordType<0)
+			{
+				return false;
+			}
+			if(recordType==BinaryEventLog.NAME_DEFINITION)
+			{
+				int nameId = readVarInt();
+				if(nameId!=names.size()+1)
+				{
+					throw new IOException("Unexpected name id "+nameId+".");
+				}
+				names.add(in.readUTF());
+			}
+			else
+			{
+				if(EventLog.getName(recordType)==null)
+				{
+					throw new IOException("Unknown event type "+recordType+".");
+				}
+				type=recordType;
+				tick=readVarInt();
+				trxId=getName(readVarInt());
+				variable=getName(readVarInt());
+				siteId=readVarInt();
+				value=0;
+				if(type==EventLog.READ)
+				{
+					int zigzag = readVarInt();
+					value=(zigzag>>>1)^-(zigzag&1);
+				}
+				return true;
+			}
+		}
+	}
+
+	public int getType()
+	{
+		return type;
+	}
+
+	public int getTick()
+	{
+		return tick;
+	}
+
+	public String getTrxId()
+	{
+		return trxId;
+	}
+
+	public String getVariable()
+	{
+		return variable;
+	}
+
+	public int getSiteId()
+	{
+		return siteId;
+	}
+
+	public int getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * Method which records every remaining event to another EventLog.
+	 * @param eventLog - An EventLog object.
+	 * @return int - The number of events.
+	 * @throws IOException
+	 */
+	public int replayTo(EventLog eventLog)throws IOException
+	{
+		int count=0;
+		while(next())
+		{
+			eventLog.record(type, tick, trxId, variable, siteId, value);
+			count++;
+		}
+		return count;
+	}
+
+	public void close()throws IOException
+	{
+		in.close();
+	}
+
+	private String getName(int nameId)throws IOException
+	{
+		if(nameId==0)
+		{
+			return null;
+		}
+		if(nameId>names.size())
+		{
+			throw new IOException("Undefined name id "+nameId+".");
+		}
+		return (String)names.get(nameId-1);
+	}
+
+	private int readVarInt()throws IOException
+	{
+		int result=0;
+		for(int shift=0;shift<35;shift+=7)
+		{
+			int b = in.readUnsignedByte();
+			result|=(b & 0x7F)<<shift;
+			if((b & 0x80)==0)
+			{
+				return result;
+			}
+		}
+		throw new IOException("Malformed variable length integer.");
+	}
+
+	/**
+	 * Converts a binary event log to JSON lines.
+	 * @param args - Full path of the binary event log and, optionally, of the file to write the JSON lines to instead of the console.
+	 */
+	public static void main(String[] args)
+	{
+		if(args.length==0)
+		{
+			System.out.println("Please provide event log file and, optionally, output file as command line arguements.");
+			return;
+		}
+		try
+		{
+			EventLogReader reader = new EventLogReader(new BufferedInputStream(new FileInputStream(args[0]), 1<<16));
+			EventLog eventLog = new JsonEventLog(new BufferedWriter(args.length>1?new FileWriter(args[1]):new OutputStreamWriter(System.out), 1<<16));
+			try
+			{
+				reader.replayTo(eventLog);
+			}
+			finally
+			{
+				reader.close();
+				if(args.length>1)
+				{
+					eventLog.close();
+				}
+				else
+				{
+					eventLog.flush();
+				}
+			}
+		}
+		catch(IOException ioException)
+		{
+			System.out.println("Unable to convert event log. "+ioException.getMessage());
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package output;
+import java.io.*;
+
+/**
+ * An event kept by the OutputSinks which hand events over, until it is written to the next OutputSink.
+ */
+class EventVO {
+	private int type=0;
+	private int tick=0;
+	private String trxId=null;
+	private String variable=null;
+	private int siteId=0;
+	private int value=0;
+
+	EventVO(int type, int tick, String trxId, String variable, int siteId, int value)
+	{
+		this.type=type;
+		this.tick=tick;
+		this.trxId=trxId;
+		this.variable=variable;
+		this.siteId=siteId;
+		this.value=value;
+	}
+
+	void writeTo(OutputSink out)throws IOException
+	{
+		out.writeEvent(type, tick, trxId, variable, siteId, value);
+	}
+}
@@ -0,0 +1,77 @@
+package output;
+import java.io.*;
+
+/**
+ * An EventLog writing one JSON object per line, e.g. {"tick":4,"event":"read","trx":"T1","variable":"x2","site":1,"value":20}.
+ * Fields which are absent for an event are left out.
+ */
+public class JsonEventLog extends EventLog {
+	private Writer out = null;
+	private StringBuilder line = new StringBuilder();
+
+	public JsonEventLog(Writer out)
+	{
+		this.out=out;
+	}
+
+	public void record(int type, int tick, String trxId, String variable, int siteId, int value)throws IOException
+	{
+		line.setLength(0);
+		line.append("{\"tick\":").append(tick);
+		line.append(",\"event\":\"").append(getName(type)).append('"');
+		if(trxId!=null)
+		{
+			line.append(",\"trx\":");
+			appendString(trxId);
+		}
+		if(variable!=null)
+		{
+			line.append(",\"variable\":");
+			appendString(variable);
+		}
+		if(siteId!=0)
+		{
+			line.append(",\"site\":").append(siteId);
+		}
+		if(type==READ)
+		{
+			line.append(",\"value\":").append(value);
+		}
+		line.append('}');
+		line.append(System.lineSeparator());
+		out.write(line.toString());
+	}
+
+	private void appendString(String value)
+	{
+		line.append('"');
+		for(int i=0;i<value.length();i++)
+		{
+			char c = value.charAt(i);
+			if(c=='"' || c=='\\')
+			{
+				line.append('\\').append(c);
+			}
+			else if(c<0x20)
+			{
+				line.append(String.format("\\u%04x", (int)c));
+			}
+			else
+			{
+				line.append(c);
+			}
+		}
+		line.append('"');
+	}
+
+	public void flush()throws IOException
+	{
+		out.flush();
+	}
+
+	public void close()throws IOException
+	{
+		super.close();
+		out.close();
+	}
+}
@@ -0,0 +1,95 @@
+package output;
+import java.io.*;
+
+/**
+ * Destination of everything the transaction manager, the data and lock managers and the sites report while operations are executed.
+ * Callers build a line with write and writeResult and end it with newLine, every line then goes to writeLine as a whole, tagged with its kind:
+ * a trace line tells how an operation was executed, a result line tells what it produced, i.e. a value read, a transaction committing or aborting
+ * and the values dumped, and a console line is only meant to be echoed on the console, not recorded.
+ * Implementations decide where lines go, whether they are echoed on the console and which kinds are kept.
+ * Alongside the lines, the decision points of the managers report structured events through writeEvent, which implementations forward to an EventLog.
+ */
+public abstract class OutputSink {
+	public static final int TRACE_LINE=0;
+	public static final int RESULT_LINE=1;
+	public static final int CONSOLE_LINE=2;
+
+	private StringBuilder currentLine = new StringBuilder();
+	private int kindOfCurrentLine = TRACE_LINE;
+
+	/**
+	 * Method which appends text to the current trace line.
+	 * @param text - A String value.
+	 */
+	public void write(String text)throws IOException
+	{
+		currentLine.append(text);
+	}
+
+	/**
+	 * Method which appends text to the current line and makes it a result line.
+	 * @param text - A String value.
+	 */
+	public void writeResult(String text)throws IOException
+	{
+		currentLine.append(text);
+		kindOfCurrentLine = RESULT_LINE;
+	}
+
+	/**
+	 * Method which ends the current line.
+	 */
+	public void newLine()throws IOException
+	{
+		String line = currentLine.toString();
+		int kind = kindOfCurrentLine;
+		currentLine.setLength(0);
+		kindOfCurrentLine = TRACE_LINE;
+		writeLine(line, kind);
+	}
+
+	/**
+	 * Method which writes a line which is only echoed on the console.
+	 * @param line - A String value without line terminator.
+	 */
+	public void writeConsoleLine(String line)throws IOException
+	{
+		writeLine(line, CONSOLE_LINE);
+	}
+
+	/**
+	 * Method which receives every complete line.
+	 * @param line - A String value without line terminator.
+	 * @param kind - TRACE_LINE, RESULT_LINE or CONSOLE_LINE.
+	 */
+	public abstract void writeLine(String line, int kind)throws IOException;
+
+	/**
+	 * Method which receives every event, ignored unless an implementation records events.
+	 * @param type - An integer value, one of the event types of EventLog.
+	 * @param tick - An integer value, the tick at which the event happened.
+	 * @param trxId - A String value, the transaction or null.
+	 * @param variable - A String value, the variable or null.
+	 * @param siteId - An integer value, the site or 0.
+	 * @param value - An integer value, the value read.
+	 */
+	public void writeEvent(int type, int tick, String trxId, String variable, int siteId, int value)throws IOException
+	{
+	}
+
+	public void flush()throws IOException
+	{
+	}
+
+	/**
+	 * Method which writes the line being built, if any, flushes and releases the destination.
+	 */
+	public void close()throws IOException
+	{
+		if(currentLine.length()>0)
+		{
+			newLine();
+		}
+		flush();
+	}
+}
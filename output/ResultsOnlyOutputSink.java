@@ -0,0 +1,38 @@
+package output;
+import java.io.*;
+
+/**
+ * An OutputSink forwarding only result lines, and every event, to another OutputSink, which is the quiet output mode.
+ */
+public class ResultsOnlyOutputSink extends OutputSink {
+	private OutputSink delegate = null;
+
+	public ResultsOnlyOutputSink(OutputSink delegate)
+	{
+		this.delegate=delegate;
+	}
+
+	public void writeLine(String line, int kind)throws IOException
+	{
+		if(kind==RESULT_LINE)
+		{
+			delegate.writeLine(line, kind);
+		}
+	}
+
+	public void writeEvent(int type, int tick, String trxId, String variable, int siteId, int value)throws IOException
+	{
+		delegate.writeEvent(type, tick, trxId, variable, siteId, value);
+	}
+
+	public void flush()throws IOException
+	{
+		delegate.flush();
+	}
+
+	public void close()throws IOException
+	{
+		super.close();
+		delegate.close();
+	}
+}
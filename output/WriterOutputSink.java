@@ -0,0 +1,79 @@
+package output;
+import java.io.*;
+
+/**
+ * An OutputSink writing trace and result lines to a Writer, typically the output file, echoing every line on the console if one is given
+ * and recording events to an EventLog if one is given. Lines and events are written by the calling thread.
+ */
+public class WriterOutputSink extends OutputSink {
+	private Writer out = null;
+	private PrintStream console = null;
+	private EventLog eventLog = null;
+
+	/**
+	 * Constructor for WriterOutputSink class.
+	 * @param out - A Writer object receiving trace and result lines.
+	 * @param console - A PrintStream object echoing every line, or null not to echo anything.
+	 */
+	public WriterOutputSink(Writer out, PrintStream console)
+	{
+		this.out=out;
+		this.console=console;
+	}
+
+	/**
+	 * Constructor for WriterOutputSink class.
+	 * @param out - A Writer object receiving trace and result lines.
+	 * @param console - A PrintStream object echoing every line, or null not to echo anything.
+	 * @param eventLog - An EventLog object recording events, or null not to record them.
+	 */
+	public WriterOutputSink(Writer out, PrintStream console, EventLog eventLog)
+	{
+		this(out, console);
+		this.eventLog=eventLog;
+	}
+
+	public void writeLine(String line, int kind)throws IOException
+	{
+		if(kind!=CONSOLE_LINE)
+		{
+			out.write(line);
+			out.write(System.lineSeparator());
+		}
+		if(console!=null)
+		{
+			console.println(line);
+		}
+	}
+
+	public void writeEvent(int type, int tick, String trxId, String variable, int siteId, int value)throws IOException
+	{
+		if(eventLog!=null)
+		{
+			eventLog.record(type, tick, trxId, variable, siteId, value);
+		}
+	}
+
+	public void flush()throws IOException
+	{
+		out.flush();
+		if(eventLog!=null)
+		{
+			eventLog.flush();
+		}
+		if(console!=null)
+		{
+			console.flush();
+		}
+	}
+
+	public void close()throws IOException
+	{
+		super.close();
+		out.close();
+		if(eventLog!=null)
+		{
+			eventLog.close();
+		}
+	}
+}
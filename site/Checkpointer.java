@@ -0,0 +1,362 @@
+package site;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import transaction.CoordinatorLog;
+
+/**
+ * Takes checkpoints of the committed values and read availability of the variables of every site into a memory-mapped file, and loads the
+ * latest one when the process restarts, so that restarting only replays the write-ahead logs since that checkpoint.
+ * A checkpoint is due every given number of ticks or once the write-ahead logs reach a given length. At the end of a tick, the values of every site
+ * are copied and the write-ahead logs are rotated, then a background thread writes the copy and the tick goes on. The copy is written to a
+ * temporary file which replaces the checkpoint once it has been forced to the disk, after which the rotated logs are deleted. The rotated log of every
+ * site is deleted then, including one left behind by a process which stopped before deleting it and which prevented the log from being rotated,
+ * so that the log is rotated again at the next checkpoint instead of growing for good. The coordinator log of the transaction manager is rotated and
+ * deleted along with them, as the values of the transactions it decided to commit before the checkpoint are in the checkpoint.
+ * The file starts with a header of 6 integers: RCCP, the version, the tick of the checkpoint, the number of sites, the length of the body and its CRC32.
+ * The body holds, for every site, its id and number of variables, then, for every variable in dump order, its catalog id and value as integers
+ * and its read availability as a byte.
+ */
+public class Checkpointer {
+	public static final int MAGIC=0x52434350;
+	public static final int VERSION=1;
+	private static final int HEADER_LENGTH = 24;
+	private static final int VARIABLE_LENGTH = 9;
+	private File file = null;
+	private PlacementCatalog placementCatalog = null;
+	//Number of ticks between two checkpoints, 0 not to take checkpoints every given number of ticks
+	private int intervalTicks=0;
+	//Length the write-ahead logs of all the sites reach before a checkpoint is due, 0 not to take checkpoints by log length
+	private long logLength=0;
+	private int lastCheckpointTick=0;
+	private int numberOfCheckpoints=0;
+	//A Map<Key,value>, key is site id and value is the array of catalog ids of the variables of the site in dump order, which never changes
+	private Map variableIdsOfSites = new HashMap();
+	//Log of the decisions to commit of the transaction manager, rotated along with the logs of the sites, null if there is none
+	private CoordinatorLog coordinatorLog = null;
+	private Thread writer = null;
+	//First exception the background thread ran into, rethrown to the caller at its next call
+	private volatile IOException failure = null;
+
+	/**
+	 * Constructor for Checkpointer class.
+	 * @param file - A File object, the checkpoint file.
+	 * @param placementCatalog - A PlacementCatalog object describing the variables.
+	 * @param intervalTicks - Number of ticks between two checkpoints, 0 not to take checkpoints every given number of ticks.
+	 * @param logLength - Length in bytes the write-ahead logs of all the sites reach before a checkpoint is due, 0 not to take checkpoints by log length.
+	 */
+	public Checkpointer(File file, PlacementCatalog placementCatalog, int intervalTicks, long logLength)
+	{
+		this.file=file;
+		this.placementCatalog=placementCatalog;
+		this.intervalTicks=intervalTicks;
+		this.logLength=logLength;
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	public int getNumberOfCheckpoints()
+	{
+		return numberOfCheckpoints;
+	}
+
+	/**
+	 * Method which makes the checkpoints rotate the coordinator log along with the logs of the sites, as the decisions it holds are only needed to
+	 * replay the records of the rotated logs of the sites until the checkpoint is durable.
+	 * @param coordinatorLog - A CoordinatorLog object, or null.
+	 */
+	public void setCoordinatorLog(CoordinatorLog coordinatorLog)
+	{
+		this.coordinatorLog=coordinatorLog;
+	}
+
+	/**
+	 * Method which restores the values and read availability of the variables of every site from the checkpoint file, if there is one.
+	 * The file is mapped and read in place.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @return int - The tick of the checkpoint, 0 if there is no checkpoint.
+	 * @throws IOException if the checkpoint is corrupted or doesn't match the sites and variables.
+	 */
+	public int load(Map dataAndLockManagersMap)throws IOException
+	{
+		if(!file.exists())
+		{
+			return 0;
+		}
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try
+		{
+			if(channel.size()<HEADER_LENGTH)
+			{
+				throw new IOException("Checkpoint "+file+" is truncated.");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if(buffer.getInt()!=MAGIC || buffer.getInt()!=VERSION)
+			{
+				throw new IOException(file+" is not a checkpoint.");
+			}
+			int tick = buffer.getInt();
+			int numberOfSites = buffer.getInt();
+			int bodyLength = buffer.getInt();
+			int checksum = buffer.getInt();
+			if(bodyLength!=channel.size()-HEADER_LENGTH)
+			{
+				throw new IOException("Checkpoint "+file+" is truncated.");
+			}
+			CRC32 crc = new CRC32();
+			crc.update(buffer.duplicate());
+			if((int)crc.getValue()!=checksum)
+			{
+				throw new IOException("Checkpoint "+file+" is corrupted.");
+			}
+			for(int i=0;i<numberOfSites;i++)
+			{
+				int siteId = buffer.getInt();
+				int numberOfVariables = buffer.getInt();
+				DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(siteId);
+				VariableStore variableStore = (dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)?dataAndLockManager.getSiteServicedByDataAndLockMgr().getVariableStore():null;
+				if(variableStore==null || variableStore.getNumberOfVariables()!=numberOfVariables)
+				{
+					throw new IOException("Checkpoint "+file+" doesn't match the sites and variables.");
+				}
+				for(int index=0;index<numberOfVariables;index++)
+				{
+					int variableId = buffer.getInt();
+					int value = buffer.getInt();
+					boolean isAvailableForReadOperation = buffer.get()!=0;
+					if(!placementCatalog.getVariableName(variableId).equals(variableStore.getVariableAt(index)))
+					{
+						throw new IOException("Checkpoint "+file+" doesn't match the sites and variables.");
+					}
+					variableStore.restoreVariableAt(index, value, isAvailableForReadOperation);
+				}
+			}
+			return tick;
+		}
+		catch(RuntimeException runtimeException)
+		{
+			throw new IOException("Checkpoint "+file+" is corrupted.", runtimeException);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	 * Method which takes a checkpoint if one is due and the previous one has been written. To be called at the end of a tick, once the commits
+	 * of the tick have been synced to the write-ahead logs.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param tick - An integer value, the tick which ended.
+	 * @return boolean - true if a checkpoint has been started.
+	 * @throws IOException if the previous checkpoint or the rotation of the logs failed.
+	 */
+	public boolean checkpointIfDue(Map dataAndLockManagersMap, int tick)throws IOException
+	{
+		checkFailure();
+		if(writer!=null && writer.isAlive())
+		{
+			return false;
+		}
+		boolean isDue = intervalTicks>0 && tick-lastCheckpointTick>=intervalTicks;
+		if(!isDue && logLength>0)
+		{
+			long length=0;
+			Iterator itr = (Iterator)dataAndLockManagersMap.values().iterator();
+			while(itr.hasNext())
+			{
+				DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+				if(dataAndLockManager!=null && dataAndLockManager.getWriteAheadLog()!=null)
+				{
+					length+=dataAndLockManager.getWriteAheadLog().getLength();
+				}
+			}
+			isDue = length>=logLength;
+		}
+		if(!isDue)
+		{
+			return false;
+		}
+		checkpoint(dataAndLockManagersMap, tick);
+		return true;
+	}
+
+	/**
+	 * Method which copies the values of every site, rotates the write-ahead logs and starts the background thread writing the copy.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param tick - An integer value, the tick which ended.
+	 * @throws IOException
+	 */
+	public void checkpoint(Map dataAndLockManagersMap, int tick)throws IOException
+	{
+		awaitCheckpoint();
+		final int checkpointTick = tick;
+		final List sites = new ArrayList();
+		final List writeAheadLogs = new ArrayList();
+		Iterator itr = (Iterator)new TreeMap(dataAndLockManagersMap).entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();
+			if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getVariableStore()!=null)
+			{
+				sites.add(new SiteSnapshot(((Integer)pairs.getKey()).intValue(), dataAndLockManager.getSiteServicedByDataAndLockMgr().getVariableStore()));
+				if(dataAndLockManager.getWriteAheadLog()!=null)
+				{
+					dataAndLockManager.getWriteAheadLog().rotate();
+					writeAheadLogs.add(dataAndLockManager.getWriteAheadLog());
+				}
+			}
+		}
+		final CoordinatorLog rotatedCoordinatorLog = coordinatorLog;
+		if(rotatedCoordinatorLog!=null)
+		{
+			rotatedCoordinatorLog.rotate();
+		}
+		lastCheckpointTick=tick;
+		writer = new Thread(new Runnable() {
+			public void run() {
+				try
+				{
+					write(sites, checkpointTick);
+					//The records of the rotated logs, whether rotated now or left behind by a previous checkpoint, are all in the checkpoint
+					for(int i=0;i<writeAheadLogs.size();i++)
+					{
+						((WriteAheadLog)writeAheadLogs.get(i)).deleteRotatedLog();
+					}
+					if(rotatedCoordinatorLog!=null)
+					{
+						rotatedCoordinatorLog.deleteRotatedLog();
+					}
+				}
+				catch(IOException ioException)
+				{
+					failure = ioException;
+				}
+			}
+		}, "checkpoint-writer");
+		writer.setDaemon(true);
+		writer.start();
+		numberOfCheckpoints++;
+	}
+
+	private void write(List sites, int tick)throws IOException
+	{
+		long length=HEADER_LENGTH;
+		for(int i=0;i<sites.size();i++)
+		{
+			length+=8+(long)VARIABLE_LENGTH*((SiteSnapshot)sites.get(i)).variableIds.length;
+		}
+		if(length>Integer.MAX_VALUE)
+		{
+			throw new IOException("Checkpoint is too large to be mapped.");
+		}
+		File temporaryFile = new File(file.getPath()+".tmp");
+		FileChannel channel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try
+		{
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+			buffer.position(HEADER_LENGTH);
+			for(int i=0;i<sites.size();i++)
+			{
+				SiteSnapshot site = (SiteSnapshot)sites.get(i);
+				buffer.putInt(site.siteId);
+				buffer.putInt(site.variableIds.length);
+				for(int index=0;index<site.variableIds.length;index++)
+				{
+					buffer.putInt(site.variableIds[index]);
+					buffer.putInt(site.values[index]);
+					buffer.put((byte)(site.isAvailableForReadOperation[index]?1:0));
+				}
+			}
+			ByteBuffer body = buffer.duplicate();
+			body.position(HEADER_LENGTH);
+			CRC32 crc = new CRC32();
+			crc.update(body);
+			buffer.position(0);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(tick);
+			buffer.putInt(sites.size());
+			buffer.putInt((int)length-HEADER_LENGTH);
+			buffer.putInt((int)crc.getValue());
+			buffer.force();
+		}
+		finally
+		{
+			channel.close();
+		}
+		Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Method which waits until the checkpoint being written, if any, has been written.
+	 * @throws IOException if it couldn't be written.
+	 */
+	public void awaitCheckpoint()throws IOException
+	{
+		if(writer!=null)
+		{
+			try
+			{
+				writer.join();
+			}
+			catch(InterruptedException interruptedException)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while writing a checkpoint.");
+			}
+		}
+		checkFailure();
+	}
+
+	private void checkFailure()throws IOException
+	{
+		if(failure!=null)
+		{
+			throw failure;
+		}
+	}
+
+	/**
+	 * Copy of the catalog ids, values and read availability of the variables of a site, in dump order.
+	 */
+	private class SiteSnapshot {
+		private int siteId;
+		private int[] variableIds;
+		private int[] values;
+		private boolean[] isAvailableForReadOperation;
+
+		SiteSnapshot(int siteId, VariableStore variableStore)
+		{
+			this.siteId=siteId;
+			int numberOfVariables = variableStore.getNumberOfVariables();
+			variableIds = (int[])variableIdsOfSites.get(siteId);
+			if(variableIds==null)
+			{
+				variableIds = new int[numberOfVariables];
+				for(int index=0;index<numberOfVariables;index++)
+				{
+					variableIds[index]=placementCatalog.getVariableId(variableStore.getVariableAt(index));
+				}
+				variableIdsOfSites.put(siteId, variableIds);
+			}
+			values = new int[numberOfVariables];
+			isAvailableForReadOperation = new boolean[numberOfVariables];
+			for(int index=0;index<numberOfVariables;index++)
+			{
+				values[index]=variableStore.getValueAt(index);
+				isAvailableForReadOperation[index]=variableStore.isVariableAvailableForReadOperationAt(index);
+			}
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package site;
+import java.util.*;
+
+/**
+ * Parses the values of the configuration keys read by PlacementCatalog, RepCRecHelper and WorkloadGenerator. A missing or blank key falls back to its
+ * default value, and any other value which isn't of the type of the key or lies outside its range is rejected with the same message, whatever the key.
+ */
+public class ConfigurationParser {
+
+	private ConfigurationParser()
+	{
+	}
+
+	/**
+	 * Method which parses a key which is either true or false.
+	 * @param configuration - A Properties object holding the key.
+	 * @param key - A String object, the key.
+	 * @param defaultValue - A boolean value returned if the key is missing.
+	 * @return boolean - The value of the key.
+	 * @throws IllegalArgumentException if the value is neither true nor false.
+	 */
+	public static boolean parseBoolean(Properties configuration, String key, boolean defaultValue)
+	{
+		String value = configuration.getProperty(key);
+		if(value==null || "".equals(value.trim()))
+		{
+			return defaultValue;
+		}
+		if(!"true".equals(value.trim()) && !"false".equals(value.trim()))
+		{
+			throw new IllegalArgumentException("Invalid value "+value+" for "+key);
+		}
+		return "true".equals(value.trim());
+	}
+
+	/**
+	 * Method which parses an integer key of at least minimumValue.
+	 * @throws IllegalArgumentException if the value isn't an integer or is below minimumValue.
+	 */
+	public static int parseInt(Properties configuration, String key, int defaultValue, int minimumValue)
+	{
+		return parseInt(configuration, key, defaultValue, minimumValue, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Method which parses an integer key lying in [minimumValue, maximumValue]. Values such as 1.5 are rejected rather than truncated.
+	 * @param configuration - A Properties object holding the key.
+	 * @param key - A String object, the key.
+	 * @param defaultValue - An int value returned if the key is missing.
+	 * @param minimumValue - An int value, the smallest value accepted.
+	 * @param maximumValue - An int value, the largest value accepted.
+	 * @return int - The value of the key.
+	 * @throws IllegalArgumentException if the value isn't an integer or lies outside the range.
+	 */
+	public static int parseInt(Properties configuration, String key, int defaultValue, int minimumValue, int maximumValue)
+	{
+		return (int)parseLong(configuration, key, defaultValue, minimumValue, maximumValue);
+	}
+
+	/**
+	 * Method which parses a long key of at least minimumValue.
+	 * @throws IllegalArgumentException if the value isn't an integer or is below minimumValue.
+	 */
+	public static long parseLong(Properties configuration, String key, long defaultValue, long minimumValue)
+	{
+		return parseLong(configuration, key, defaultValue, minimumValue, Long.MAX_VALUE);
+	}
+
+	private static long parseLong(Properties configuration, String key, long defaultValue, long minimumValue, long maximumValue)
+	{
+		String value = configuration.getProperty(key);
+		if(value==null || "".equals(value.trim()))
+		{
+			return defaultValue;
+		}
+		long parsedValue;
+		try
+		{
+			parsedValue=Long.parseLong(value.trim());
+		}
+		catch(NumberFormatException numberFormatException)
+		{
+			throw new IllegalArgumentException("Invalid value "+value+" for "+key);
+		}
+		if(parsedValue<minimumValue || parsedValue>maximumValue)
+		{
+			throw new IllegalArgumentException("Invalid value "+value+" for "+key);
+		}
+		return parsedValue;
+	}
+
+	/**
+	 * Method which parses a decimal key lying in [minimumValue, maximumValue].
+	 * @param configuration - A Properties object holding the key.
+	 * @param key - A String object, the key.
+	 * @param defaultValue - A double value returned if the key is missing.
+	 * @param minimumValue - A double value, the smallest value accepted.
+	 * @param maximumValue - A double value, the largest value accepted.
+	 * @return double - The value of the key.
+	 * @throws IllegalArgumentException if the value isn't a number or lies outside the range.
+	 */
+	public static double parseDouble(Properties configuration, String key, double defaultValue, double minimumValue, double maximumValue)
+	{
+		String value = configuration.getProperty(key);
+		if(value==null || "".equals(value.trim()))
+		{
+			return defaultValue;
+		}
+		double parsedValue;
+		try
+		{
+			parsedValue=Double.parseDouble(value.trim());
+		}
+		catch(NumberFormatException numberFormatException)
+		{
+			throw new IllegalArgumentException("Invalid value "+value+" for "+key);
+		}
+		//Written so that NaN is rejected as well
+		if(!(parsedValue>=minimumValue && parsedValue<=maximumValue))
+		{
+			throw new IllegalArgumentException("Invalid value "+value+" for "+key);
+		}
+		return parsedValue;
+	}
+}
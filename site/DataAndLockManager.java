@@ -1,11 +1,23 @@
 package site;
 import java.util.*;
 import java.io.*;
+import output.EventLog;
+import output.OutputSink;
+import java.util.concurrent.ConcurrentHashMap;
+import transaction.DeadlockPolicy;
 import transaction.Transaction;
 import transaction.TransactionConstants;
+import transaction.WaitDiePolicy;
+import transaction.WaitsForGraph;
 /**
  * Keeps track of data items at a site and handles read, commit, abort and lock acquisition requests for variables available at the site 
  * serviced by the data and lock manager.
+ * When the operations of a tick are executed by several threads, RepCRecHelper.executeSegment runs on one thread every operation of transactions which
+ * access a common variable or a variable one of them holds a lock on. A transaction therefore acquires and releases its locks on one thread at a time,
+ * and no two threads request locks on the same variable concurrently. The fast paths deciding lock requests from the lock word of a variable, and the
+ * checks of the locks held by a transaction outside the monitor of the variable, rely on this grouping. The maps and lists shared by all the transactions
+ * of the site are safe to update from several threads on their own.
+ * Failures, recoveries and ends of transactions are executed by the thread driving the ticks, while no operation is being executed.
  * @author Ashish Walia
  *
  */
@@ -13,6 +25,28 @@ public class DataAndLockManager {
 	private int dataAndLockManagerId =0;
 	//Site serviced by this data and lock manager
 	private Site site =null;
+	//A Map<Key,value>, key is Transaction and value is the synchronized set of VariablesVO read or write locked by the transaction at this site.
+	private Map variablesLockedByTrxs = null;
+	//Monitors serializing lock requests on the same variable when transactions are executed by several threads
+	private LockStripes variableLocks = null;
+	//Returned by the lock word fast paths when the lock request has to be decided while holding the monitor of the variable
+	private static final int DECIDED_UNDER_VARIABLE_LOCK = -1;
+	//Policy deciding the lock requests which conflict with the locks held on a variable
+	private DeadlockPolicy deadlockPolicy = new WaitDiePolicy();
+	//Log the values committed at the site are appended to, null if they are not logged
+	private WriteAheadLog writeAheadLog = null;
+	//Registry numbering the changes to the committed state of the site, null if the values they supersede are not kept for read-only transactions
+	private SnapshotRegistry snapshotRegistry = null;
+	//A Map<Key,value>, key is a variable and value is the newest of its versions superseded while a snapshot was active
+	private Map olderVersions = null;
+	//Versions of the failures and recoveries of the site which took place while a snapshot was active, oldest first
+	private List siteStatusChanges = null;
+	//Queues of the transactions waiting on variables, null if blocked transactions are not woken up by the data and lock manager
+	private LockWaitQueues lockWaitQueues = null;
+	//Waits-for graph kept up to date with the locks granted and released at this site, null unless the deadlock policy detects deadlocks
+	private WaitsForGraph waitsForGraph = null;
+	//True if replicated variables are read and written through quorums, in which case their copies carry version numbers and stay readable across recoveries
+	private boolean isQuorumReplication = false;
 	
 	/**
 	 * Constructor for DataAndLockManager class.
@@ -23,6 +57,10 @@ public class DataAndLockManager {
 	{
 		this.dataAndLockManagerId=dataAndLockManagerId;
 		this.site=site;
+		variablesLockedByTrxs=new ConcurrentHashMap();
+		variableLocks=new LockStripes(LockStripes.DEFAULT_NUMBER_OF_STRIPES);
+		olderVersions=new ConcurrentHashMap();
+		siteStatusChanges=Collections.synchronizedList(new ArrayList());
 	}
 	
 	
@@ -63,142 +101,101 @@ public class DataAndLockManager {
 	 */
 	public void acquireReadLock(Transaction trx, String variable)
 	{
-		if(trx!=null && getVariableVOFromMapOfVariablesVO(variable)!=null)
+		synchronized(variableLocks.getLock(variable))
 		{
-			VariablesVO variableVO = (VariablesVO)getVariableVOFromMapOfVariablesVO(variable);
-			if(variableVO!=null)
+			if(trx!=null && getVariableVOFromMapOfVariablesVO(variable)!=null)
 			{
-				//Data and lock manager will handle lock information of variables only.
-				variableVO.addReadLockOnVariable(trx);
+				VariablesVO variableVO = (VariablesVO)getVariableVOFromMapOfVariablesVO(variable);
+				if(variableVO!=null)
+				{
+					//Data and lock manager will handle lock information of variables only.
+					variableVO.addReadLockOnVariable(trx);
+					addVariableToVariablesLockedByTrx(trx,variableVO);
+					if(waitsForGraph!=null)
+					{
+						waitsForGraph.lockGranted(trx.getTrxId(), variable, false, dataAndLockManagerId);
+					}
+					wakeWaitersOn(variable);
+				}
 			}
 		}
 	}
 	/**
-	 * Method which displays the reason why a transaction needs to be aborted.
+	 * Method which displays the reason why a transaction needs to be aborted, as given by the deadlock policy.
 	 * @author Ashish Walia
 	 * @param trx - A Transaction object which holds every information about any given transaction.
 	 * @param variable - A String variable which needs to be read or write locked.
-	 * @param out - A BufferedWriter object which write contents to the output file.
+	 * @param isWriteLockRequested - A boolean value, true if the variable needs to be write locked.
+	 * @param out - An OutputSink object which write contents to the output file.
 	 * @throws IOException
 	 */
-	public void displayReasonWhyTrxNeedsToBeAborted(Transaction trx,String variable,BufferedWriter out)throws IOException
+	public void displayReasonWhyTrxNeedsToBeAborted(Transaction trx,String variable,boolean isWriteLockRequested,OutputSink out)throws IOException
 	{
-		if(site!=null && site.getSiteStatus() && trx!=null && variable!=null && !"".equals(variable) && out!=null)
+		synchronized(variableLocks.getLock(variable))
 		{
-			VariablesVO variableVO = (VariablesVO)getVariableVOFromMapOfVariablesVO(variable);
-			Set olderTrxs = new HashSet();
-			if(variableVO!=null && variableVO.getTrxsReadLockingVariable()!=null && !variableVO.getTrxsReadLockingVariable().isEmpty())
-			{				
-				Iterator itr = (Iterator)variableVO.getTrxsReadLockingVariable().iterator();				
-				while(itr.hasNext())
-				{
-					Transaction readLockingTrx = (Transaction)itr.next();
-					if(readLockingTrx!=null && (trx.getTrxTimeStamp()> readLockingTrx.getTrxTimeStamp()))
-					{
-						olderTrxs.add(readLockingTrx.getTrxId());						
-					}
-				}
-				
-			}
-			if(variableVO!=null && variableVO.getTrxWriteLockingVariable()!=null && !variableVO.getTrxWriteLockingVariable().isEmpty())
-			{				
-				Iterator itr = (Iterator)variableVO.getTrxWriteLockingVariable().iterator();				
-				while(itr.hasNext())
-				{
-					Transaction writeLockingTrx = (Transaction)itr.next();
-					if(writeLockingTrx!=null && (trx.getTrxTimeStamp()> writeLockingTrx.getTrxTimeStamp()))
-					{
-						olderTrxs.add(writeLockingTrx.getTrxId());					
-					}
-				}
-			}
-			if(olderTrxs!=null && !olderTrxs.isEmpty())
+			if(site!=null && site.getSiteStatus() && trx!=null && variable!=null && !"".equals(variable) && out!=null)
 			{
-
-				System.out.print("Transaction "+trx.getTrxId()+" is younger than ");
-				out.write("Transaction "+trx.getTrxId()+" is younger than ");
-				Iterator itr =(Iterator)olderTrxs.iterator();
-				while(itr.hasNext())
+				VariablesVO variableVO = (VariablesVO)getVariableVOFromMapOfVariablesVO(variable);
+				if(variableVO!=null)
 				{
-					String trxName=(String)itr.next();
-					System.out.print(trxName+"  ");
-					out.write(trxName+"  ");
+					deadlockPolicy.displayReasonWhyTrxNeedsToBeAborted(trx,variable,variableVO.getTrxsReadLockingVariable(),variableVO.getTrxWriteLockingVariable(),isWriteLockRequested,out);
+					site.getVariableStore().releaseVariableVO(variableVO);
 				}
-				
-				System.out.println("transaction(s) locking variable "+variable);
-				out.write("transaction(s) locking variable "+variable);
-				out.newLine();
 			}
 		}
 	}
 
 	/**
-	 * Method which displays the reason why a transaction needs to be blocked.
+	 * Method which displays the reason why a transaction needs to be blocked, as given by the deadlock policy.
 	 * @author Ashish Walia
 	 * @param trx - A Transaction object which holds every information about any given transaction.
 	 * @param variable - A String variable which needs to be read or write locked.
-	 * @param out - A BufferedWriter object which write contents to the output file.
+	 * @param isWriteLockRequested - A boolean value, true if the variable needs to be write locked.
+	 * @param out - An OutputSink object which write contents to the output file.
 	 * @throws IOException
 	 */
-	public void displayReasonWhyTrxNeedsToBeBlocked(Transaction trx,String variable,BufferedWriter out)throws IOException
+	public void displayReasonWhyTrxNeedsToBeBlocked(Transaction trx,String variable,boolean isWriteLockRequested,OutputSink out)throws IOException
 	{
-		if(site!=null && site.getSiteStatus() && trx!=null && variable!=null && !"".equals(variable) && out!=null)
+		synchronized(variableLocks.getLock(variable))
 		{
-			VariablesVO variableVO = (VariablesVO)getVariableVOFromMapOfVariablesVO(variable);
-			Set youngerTrxs = new HashSet();
-			if(variableVO!=null && variableVO.getTrxsReadLockingVariable()!=null && !variableVO.getTrxsReadLockingVariable().isEmpty())
-			{				
-				Iterator itr = (Iterator)variableVO.getTrxsReadLockingVariable().iterator();				
-				while(itr.hasNext())
-				{
-					Transaction readLockingTrx = (Transaction)itr.next();
-					if(readLockingTrx!=null && (trx.getTrxTimeStamp()< readLockingTrx.getTrxTimeStamp()))
-					{
-						youngerTrxs.add(readLockingTrx.getTrxId());						
-					}
-				}				
-			}
-			if(variableVO!=null && variableVO.getTrxWriteLockingVariable()!=null && !variableVO.getTrxWriteLockingVariable().isEmpty())
-			{				
-				Iterator itr = (Iterator)variableVO.getTrxWriteLockingVariable().iterator();				
-				while(itr.hasNext())
-				{
-					Transaction writeLockingTrx = (Transaction)itr.next();
-					if(writeLockingTrx!=null && (trx.getTrxTimeStamp()< writeLockingTrx.getTrxTimeStamp()))
-					{
-						youngerTrxs.add(writeLockingTrx.getTrxId());					
-					}
-				}
-			}
-			if(youngerTrxs!=null && !youngerTrxs.isEmpty())
+			if(site!=null && site.getSiteStatus() && trx!=null && variable!=null && !"".equals(variable) && out!=null)
 			{
-
-				System.out.print("Transaction "+trx.getTrxId()+" is older than ");
-				out.write("Transaction "+trx.getTrxId()+" is older than ");
-				Iterator itr =(Iterator)youngerTrxs.iterator();
-				while(itr.hasNext())
+				VariablesVO variableVO = (VariablesVO)getVariableVOFromMapOfVariablesVO(variable);
+				if(variableVO!=null)
 				{
-					String trxName=(String)itr.next();
-					System.out.print(trxName+"  ");
-					out.write(trxName+"  ");
+					deadlockPolicy.displayReasonWhyTrxNeedsToBeBlocked(trx,variable,variableVO.getTrxsReadLockingVariable(),variableVO.getTrxWriteLockingVariable(),isWriteLockRequested,out);
+					site.getVariableStore().releaseVariableVO(variableVO);
 				}
-				
-				System.out.println("transaction(s) locking variable "+variable);
-				out.write("transaction(s) locking variable "+variable);
-				out.newLine();
 			}
-			
 		}
 	}
 
 	/**
 	 * Method which checks if read-lock can be acquired by a transaction on variable.
-	 * Wait-die algorithm has been implemented here to prevent deadlock situation.
+	 * Lock requests which conflict with the locks held on the variable are decided by the deadlock policy.
 	 * @author Ashish Walia
 	 * @param trx - A Transaction object which holds every information about any given transaction.
 	 * @param variable - A String variable which needs to be read or write locked.
 	 */
 	public int canReadLockBeAcquiredOnVariable(Transaction trx, String variable)
+	{
+		int response = canReadLockBeAcquiredOnVariableFromLockWord(trx,variable);
+		if(response!=DECIDED_UNDER_VARIABLE_LOCK)
+		{
+			return response;
+		}
+		synchronized(variableLocks.getLock(variable))
+		{
+			response = canReadLockBeAcquiredOnVariableUnderVariableLock(trx,variable);
+			releaseVariableVOIfUnlocked(variable);
+			return response;
+		}
+	}
+
+	/**
+	 * Body of canReadLockBeAcquiredOnVariable, called while holding the monitor of the variable.
+	 */
+	private int canReadLockBeAcquiredOnVariableUnderVariableLock(Transaction trx, String variable)
 	{
 		//Check whether site is up or not
 		if(site!=null && !site.getSiteStatus())
@@ -206,7 +203,7 @@ public class DataAndLockManager {
 			return TransactionConstants.SITE_IS_DOWN;
 		}
 		//Check if the variable to be read is available on this site or not
-		else if(variable!=null &&!"".equals(variable) && site!=null && site.getSiteStatus()&& site.getMapOfVariablesAndValuesAtSite()!=null && !site.getMapOfVariablesAndValuesAtSite().containsKey(variable))
+		else if(variable!=null &&!"".equals(variable) && site!=null && site.getSiteStatus() && site.getVariableStore()!=null && !site.getVariableStore().containsVariable(variable))
 		{
 			return TransactionConstants.VARIABLE_NOT_FOUND_AT_SITE;
 		}	
@@ -243,32 +240,19 @@ public class DataAndLockManager {
 			
 			//If we have reached at this step, it means that the Transaction T doesn't have read and write locks on the variable x		
 			/*
-			 **************************************************************************************
-			 * Apply WAIT-DIE ALGORITHM. Determine if Transaction T needs to be blocked or aborted. 
-			 **************************************************************************************
-			 */			 
+			 ***************************************************************************
+			 * Apply DEADLOCK POLICY. Determine if Transaction T needs to be blocked or aborted.
+			 ***************************************************************************
+			 */
 			else
 			{
-				//If age of Transaction T is less than age of any one of the transactions read/write locking variable x, then the transaction T must be aborted else it should be blocked
-				
-				//Check age of Transaction T with the age of transaction which has write lock on variable x
-				if (trx!=null && variableVO!=null && variableVO.getTrxWriteLockingVariable()!=null && isTrxYoungerThanTrxsWriteOrReadLockingVariable(variableVO.getTrxWriteLockingVariable(),trx))
-				{
-					return TransactionConstants.ABORT_TRANSACTION;				
-					
-				}
-				//Check age of Transaction T with the age of transactions which have read lock on variable x
-				else if(trx!=null && variableVO!=null && variableVO.getTrxsReadLockingVariable()!=null && !variableVO.getTrxsReadLockingVariable().isEmpty() && isTrxYoungerThanTrxsWriteOrReadLockingVariable(variableVO.getTrxsReadLockingVariable(),trx))
-				{					
-							return TransactionConstants.ABORT_TRANSACTION;						
-				}
-				//If age of Transaction T is greater than all the transaction read/write locking variable x, then block the transaction T
-				else
+				int response = resolveConflictFromLockWord(trx,variableVO);
+				if(response!=DeadlockPolicy.UNDECIDED)
 				{
-					return TransactionConstants.BLOCK_TRANSACTION;
+					return response;
 				}
-				
-		}
+				return deadlockPolicy.resolveConflict(trx,variableVO.getTrxsReadLockingVariable(),variableVO.getTrxWriteLockingVariable(),false);
+			}
 			
 		}
 		
@@ -276,6 +260,113 @@ public class DataAndLockManager {
 		
 	}
 	
+	/**
+	 * Fast path of canReadLockBeAcquiredOnVariable which grants compatible read locks from the lock word of the variable, without taking its monitor.
+	 * This is a single-writer optimization: the lock is only acquired later by acquireReadLock, and the decision holds until then because, under the
+	 * grouping described on the class, no other thread changes the locks on the variable in between. Taking the monitor here wouldn't close that window,
+	 * as it is released before the lock is acquired.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @param variable - A String variable which needs to be read locked.
+	 * @return int - READ_LOCK_REQUEST_CAN_BE_GRANTED, or DECIDED_UNDER_VARIABLE_LOCK if the full path has to decide.
+	 */
+	private int canReadLockBeAcquiredOnVariableFromLockWord(Transaction trx, String variable)
+	{
+		if(trx!=null && site!=null && site.getSiteStatus() && site.getVariableStore()!=null && isVariableAvailableToBeReadFromSite(variable))
+		{
+			//The VariablesVO object isn't created here, as a variable without one holds no lock
+			VariablesVO variableVO = site.getVariableStore().getVariableVOHoldingLockInformation(variable);
+			long word = (variableVO!=null)?variableVO.getLockWord():0;
+			if(!VariablesVO.isLockWordOverflowed(word))
+			{
+				int writerSerial = VariablesVO.getWriterSerial(word);
+				//Not write locked, and Transaction T isn't one of the readers
+				if(writerSerial==0 && (VariablesVO.getReaderCount(word)==0 || !isVariableLockedByTrx(trx,variableVO)))
+				{
+					return TransactionConstants.READ_LOCK_REQUEST_CAN_BE_GRANTED;
+				}
+				//Write locked by Transaction T only
+				else if(writerSerial==trx.getSerialNumber() && VariablesVO.getReaderCount(word)==0)
+				{
+					return TransactionConstants.READ_LOCK_REQUEST_CAN_BE_GRANTED;
+				}
+			}
+		}
+		return DECIDED_UNDER_VARIABLE_LOCK;
+	}
+
+	/**
+	 * Fast path of canWriteLockBeAcquiredOnVariable which grants uncontended write locks from the lock word of the variable, without taking its monitor.
+	 * Like canReadLockBeAcquiredOnVariableFromLockWord, it relies on the grouping described on the class for its decision to hold until the lock is acquired.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @param variable - A String variable which needs to be write locked.
+	 * @return int - WRITE_LOCK_REQUEST_CAN_BE_GRANTED, WRITE_LOCK_ALREADY_ACQUIRED, or DECIDED_UNDER_VARIABLE_LOCK if the full path has to decide.
+	 */
+	private int canWriteLockBeAcquiredOnVariableFromLockWord(Transaction trx, String variable)
+	{
+		if(trx!=null && variable!=null && site!=null && site.getSiteStatus() && site.getVariableStore()!=null && site.getVariableStore().containsVariable(variable))
+		{
+			//The VariablesVO object isn't created here, as a variable without one holds no lock
+			VariablesVO variableVO = site.getVariableStore().getVariableVOHoldingLockInformation(variable);
+			long word = (variableVO!=null)?variableVO.getLockWord():0;
+			if(!VariablesVO.isLockWordOverflowed(word))
+			{
+				int writerSerial = VariablesVO.getWriterSerial(word);
+				if(writerSerial!=0 && writerSerial==trx.getSerialNumber())
+				{
+					return TransactionConstants.WRITE_LOCK_ALREADY_ACQUIRED;
+				}
+				//Not locked at all, or read locked by Transaction T only
+				else if(writerSerial==0 && (VariablesVO.getReaderCount(word)==0 || (VariablesVO.getReaderCount(word)==1 && isVariableLockedByTrx(trx,variableVO))))
+				{
+					return TransactionConstants.WRITE_LOCK_REQUEST_CAN_BE_GRANTED;
+				}
+			}
+		}
+		return DECIDED_UNDER_VARIABLE_LOCK;
+	}
+
+	/**
+	 * Method which checks if the transaction holds a read or write lock on the variable at this site.
+	 * Called on behalf of the transaction, whose locks aren't changed by any other thread under the grouping described on the class.
+	 */
+	private boolean isVariableLockedByTrx(Transaction trx, VariablesVO variableVO)
+	{
+		Set lockedVariables = (Set)variablesLockedByTrxs.get(trx);
+		return lockedVariables!=null && lockedVariables.contains(variableVO);
+	}
+
+	/**
+	 * Method which lets the storage engine drop the VariablesVO object of the variable if it holds no lock, once a lock request has been decided.
+	 * Called while holding the monitor of the variable.
+	 * @param variable - A String variable.
+	 */
+	private void releaseVariableVOIfUnlocked(String variable)
+	{
+		if(site!=null && site.getVariableStore()!=null)
+		{
+			VariablesVO variableVO = site.getVariableStore().getVariableVOHoldingLockInformation(variable);
+			if(variableVO!=null)
+			{
+				site.getVariableStore().releaseVariableVO(variableVO);
+			}
+		}
+	}
+
+	/**
+	 * Method which decides a conflicting lock request with the deadlock policy from the oldest locking transaction recorded in the lock word.
+	 * Called while holding the monitor of the variable, so the word agrees with the sets of locking transactions.
+	 * @return int - The response of the deadlock policy, or DeadlockPolicy.UNDECIDED if the lock word can't tell.
+	 */
+	private int resolveConflictFromLockWord(Transaction trx, VariablesVO variableVO)
+	{
+		long word = variableVO.getLockWord();
+		if(word==0 || VariablesVO.isLockWordOverflowed(word))
+		{
+			return DeadlockPolicy.UNDECIDED;
+		}
+		return deadlockPolicy.resolveConflictFromLockWord(trx,VariablesVO.getOldestHolderTimeStamp(word));
+	}
+
 	/**
 	 * Method which checks if transaction exists in a set of transactions read or write locking variable.
 	 * @author Ashish Walia
@@ -327,12 +418,30 @@ public class DataAndLockManager {
 	
 	/**
 	 * Method which checks if write-lock can be acquired by a transaction on variable.
-	 * Wait-die algorithm has been implemented here to prevent deadlock situation.
+	 * Lock requests which conflict with the locks held on the variable are decided by the deadlock policy.
 	 * @author Ashish Walia
 	 * @param trx - A Transaction object which holds every information about any given transaction.
 	 * @param variable - A String variable which needs to be read or write locked.
 	 */
 	public int canWriteLockBeAcquiredOnVariable(Transaction trx, String variable)
+	{
+		int response = canWriteLockBeAcquiredOnVariableFromLockWord(trx,variable);
+		if(response!=DECIDED_UNDER_VARIABLE_LOCK)
+		{
+			return response;
+		}
+		synchronized(variableLocks.getLock(variable))
+		{
+			response = canWriteLockBeAcquiredOnVariableUnderVariableLock(trx,variable);
+			releaseVariableVOIfUnlocked(variable);
+			return response;
+		}
+	}
+
+	/**
+	 * Body of canWriteLockBeAcquiredOnVariable, called while holding the monitor of the variable.
+	 */
+	private int canWriteLockBeAcquiredOnVariableUnderVariableLock(Transaction trx, String variable)
 	{
 		//Check whether site is up or not
 		if(site!=null && site.getSiteStatus()==false)
@@ -343,7 +452,7 @@ public class DataAndLockManager {
 			return TransactionConstants.SITE_IS_DOWN;
 		}
 		//Check if the variable to be written is available on this site or not
-		else if(variable!=null &&!"".equals(variable) && site!=null && site.getSiteStatus() && site.getMapOfVariablesAndValuesAtSite()!=null && !site.getMapOfVariablesAndValuesAtSite().containsKey(variable))
+		else if(variable!=null &&!"".equals(variable) && site!=null && site.getSiteStatus() && site.getVariableStore()!=null && !site.getVariableStore().containsVariable(variable))
 		{
 			//System.out.println("Variable "+variable+ "not found at site "+site.getSiteId());
 			//return 0;	
@@ -374,29 +483,18 @@ public class DataAndLockManager {
 						return TransactionConstants.WRITE_LOCK_REQUEST_CAN_BE_GRANTED;
 			}
 			/*
-			 ************************************************************************************
-			 * Apply WAIT-DIE ALGORITHM. Determine if Transaction T needs to be blocked or aborted. 
-			 ************************************************************************************
-			 */			 
-			else 
+			 ***************************************************************************
+			 * Apply DEADLOCK POLICY. Determine if Transaction T needs to be blocked or aborted.
+			 ***************************************************************************
+			 */
+			else
 			{
-				//If age of Transaction T is less than age of any one of the transactions read/write locking variable x, then the transaction T must be aborted else it should be blocked
-				
-				//Check age of Transaction T with the age of transaction which has write lock on variable x
-				if (trx!=null && variableVO!=null && variableVO.getTrxWriteLockingVariable()!=null && isTrxYoungerThanTrxsWriteOrReadLockingVariable(variableVO.getTrxWriteLockingVariable(),trx))
-				{
-								return TransactionConstants.ABORT_TRANSACTION;
-				}
-				//Check age of Transaction T with the age of transactions which have read lock on variable x
-				else if(trx!=null && variableVO!=null && variableVO.getTrxsReadLockingVariable()!=null && !variableVO.getTrxsReadLockingVariable().isEmpty() && isTrxYoungerThanTrxsWriteOrReadLockingVariable(variableVO.getTrxsReadLockingVariable(),trx))
+				int response = resolveConflictFromLockWord(trx,variableVO);
+				if(response!=DeadlockPolicy.UNDECIDED)
 				{
-								return TransactionConstants.ABORT_TRANSACTION;
+					return response;
 				}
-				//If age of Transaction T is greater than all the transaction read/write locking variable x, then block the transaction T
-				else
-				{
-					return TransactionConstants.BLOCK_TRANSACTION;
-				}				
+				return deadlockPolicy.resolveConflict(trx,variableVO.getTrxsReadLockingVariable(),variableVO.getTrxWriteLockingVariable(),true);
 			}	
 		}		
 			//return 0;
@@ -411,13 +509,22 @@ public class DataAndLockManager {
 	 */
 	public void acquireWriteLock(Transaction trx, String variable)
 	{
-		if(trx!=null && getVariableVOFromMapOfVariablesVO(variable)!=null)
+		synchronized(variableLocks.getLock(variable))
 		{
-			VariablesVO variableVO = (VariablesVO)getVariableVOFromMapOfVariablesVO(variable);
-			if(variableVO!=null)
+			if(trx!=null && getVariableVOFromMapOfVariablesVO(variable)!=null)
 			{
-				//Data and lock manager will handle lock information of variables only.
-				variableVO.addWriteLockOnVariable(trx);				
+				VariablesVO variableVO = (VariablesVO)getVariableVOFromMapOfVariablesVO(variable);
+				if(variableVO!=null)
+				{
+					//Data and lock manager will handle lock information of variables only.
+					variableVO.addWriteLockOnVariable(trx);
+					addVariableToVariablesLockedByTrx(trx,variableVO);
+					if(waitsForGraph!=null)
+					{
+						waitsForGraph.lockGranted(trx.getTrxId(), variable, true, dataAndLockManagerId);
+					}
+					wakeWaitersOn(variable);
+				}
 			}
 		}
 	}
@@ -429,48 +536,91 @@ public class DataAndLockManager {
 	 * @param variable - A String variable which needs to be read or write locked.
 	 */
 	public int commitValuesForVariablesLockedByTransaction(Transaction trx)
+	{
+		return commitValuesForVariablesLockedByTransaction(trx, 0);
+	}
+	/**
+	 * Method which facilitates transaction to commit value of variable at the site service by the data and lock manager, numbering the committed values.
+	 * When replicated variables are written through quorums, only the copies write locked by the transaction at this site are committed.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @param versionNumber - A long value, the commit number of the transaction, which becomes the version number of the values it commits.
+	 */
+	public int commitValuesForVariablesLockedByTransaction(Transaction trx, long versionNumber)
+	{
+		if(site!=null && site.getSiteStatus() && trx.getLockedVariablesAndValuesMap()!=null)
+		{
+			WriteBatch writeBatch = new WriteBatch(trx.getLockedVariablesAndValuesMap().size());
+			Iterator itr = (Iterator)trx.getLockedVariablesAndValuesMap().entrySet().iterator();
+			while(itr.hasNext())
+			{
+				Map.Entry pairs = (Map.Entry)itr.next();
+				if(pairs!=null)
+				{
+					writeBatch.add((String)pairs.getKey(), ((Integer)pairs.getValue()).intValue());
+				}
+			}
+			return commitValuesForVariablesLockedByTransaction(trx, versionNumber, writeBatch);
+		}
+		return 0;
+	}
+	/**
+	 * Method which facilitates transaction to commit the values it wrote to the variables placed at the site serviced by the data and lock manager, grouped
+	 * by the transaction manager, numbering the committed values.
+	 * When replicated variables are written through quorums, only the copies write locked by the transaction at this site are committed.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @param versionNumber - A long value, the commit number of the transaction, which becomes the version number of the values it commits.
+	 * @param writeBatch - A WriteBatch object, the values written by the transaction to the variables placed at this site.
+	 */
+	public int commitValuesForVariablesLockedByTransaction(Transaction trx, long versionNumber, WriteBatch writeBatch)
 	{
 		
 		if(site!=null && !site.getSiteStatus())
 		{
 			return 0;
 		}
-		else if(getMapOfVariablesVO()!=null && trx.getLockedVariablesAndValuesMap()!=null)
+		else if(site!=null && writeBatch!=null)
 		{
 			boolean commited = false;
-			//Match all the variables write locked by Transaction trx with the map of VariablesVO and update VariablesVO at this site
-			Iterator itr = (Iterator)trx.getLockedVariablesAndValuesMap().entrySet().iterator();
-			while(itr.hasNext())
+			//Version of the commit, if the values it supersedes have to be kept
+			long version = nextVersionIfSnapshotsAreActive();
+			//Look up the VariablesVO of every variable of the batch directly in the site's map of variables and update it at this site
+			for(int i=0;i<writeBatch.size();i++)
 			{
-				Map.Entry pairs = (Map.Entry)itr.next();
-				if(pairs!=null)
+				String variable = writeBatch.getVariable(i);
+				int value = writeBatch.getValue(i);
+				synchronized(variableLocks.getLock(variable))
 				{
-					String variable = (String)pairs.getKey();
-					int value = ((Integer)pairs.getValue()).intValue();
-					Iterator iterator = (Iterator)getMapOfVariablesVO().entrySet().iterator();
-					while(iterator.hasNext())
+					VariablesVO variableVO = getVariableVOFromMapOfVariablesVO(variable);
+					//A copy outside the write quorum of the transaction keeps its older version
+					if(variableVO!=null && isQuorumReplication && variableVO.isVariableReplicated() && !isTrxIdSameInReadOrWriteLockingTrxsSet(variableVO.getTrxWriteLockingVariable(),trx))
 					{
-						Map.Entry variableVOPairs = (Map.Entry)iterator.next();
-						if(variableVOPairs!=null)
+						site.getVariableStore().releaseVariableVO(variableVO);
+						variableVO=null;
+					}
+					if(variableVO!=null)
+					{
+						if(version>0)
+						{
+							keepOlderVersion(variable, variableVO.getValue(), variableVO.isVariableAvailableForReadOperation(), variableVO.getVersionNumber(), version);
+						}
+						//Commit the value at site
+						variableVO.setValue(value);
+						if(isQuorumReplication)
 						{
-							VariablesVO variableVO = (VariablesVO)variableVOPairs.getValue();
-							if(variableVO!=null && variableVO.getVariable()!=null && variable!=null && variable.equals(variableVO.getVariable()))
-							{
-								//Commit the value at site
-								variableVO.setValue(value);
-								//A private hack to handle the case of recovery, where read operation on replicated variables are not allowed until a committed write takes place								
-								if(variableVO.isVariableReplicated())
-								{
-									variableVO.makeVariableAvailableForReadOperation();
-								}
-								commited=true;
-							}
+							variableVO.setVersionNumber(versionNumber);
 						}
+						//A private hack to handle the case of recovery, where read operation on replicated variables are not allowed until a committed write takes place
+						if(variableVO.isVariableReplicated())
+						{
+							variableVO.makeVariableAvailableForReadOperation();
+						}
+						commited=true;
+						wakeWaitersOn(variable);
+						//A copy the transaction holds no lock on, e.g. at a site which recovered since it was written, mustn't leave its VariablesVO object behind
+						site.getVariableStore().releaseVariableVO(variableVO);
 					}
-					
 				}
-			}	
-			
+			}
 			//Release all the data locks held by this transaction on this site.
 			releaseTransactionFromReadAndWriteLocksSet(trx);
 			if(commited)
@@ -487,6 +637,103 @@ public class DataAndLockManager {
 			return 0;
 		}
 	}
+	/**
+	 * Method which makes the data and lock manager log the values committed at its site, after replaying the log to restore the values committed
+	 * before the process restarted.
+	 * @param writeAheadLog - A WriteAheadLog object.
+	 * @return int - The number of commits replayed.
+	 * @throws IOException
+	 */
+	public int recoverFromWriteAheadLog(WriteAheadLog writeAheadLog)throws IOException
+	{
+		return recoverFromWriteAheadLog(writeAheadLog, null);
+	}
+
+	/**
+	 * Method which makes the data and lock manager log the values committed at its site, after replaying the records of the transactions the
+	 * coordinator log holds a decision to commit for, the other transactions being presumed aborted.
+	 * @param writeAheadLog - A WriteAheadLog object.
+	 * @param committedTrxIds - A Set of the log ids of the transactions decided to commit, or null to replay every record.
+	 * @return int - The number of commits replayed.
+	 * @throws IOException
+	 */
+	public int recoverFromWriteAheadLog(WriteAheadLog writeAheadLog, Set committedTrxIds)throws IOException
+	{
+		int replayed = writeAheadLog.replay((site!=null)?site.getVariableStore():null, committedTrxIds);
+		this.writeAheadLog=writeAheadLog;
+		return replayed;
+	}
+
+	public WriteAheadLog getWriteAheadLog()
+	{
+		return writeAheadLog;
+	}
+
+	/**
+	 * Method which makes the values committed since the last call durable, nothing being done if they are not logged.
+	 * @throws IOException
+	 */
+	public void syncWriteAheadLog()throws IOException
+	{
+		if(writeAheadLog!=null)
+		{
+			writeAheadLog.sync();
+		}
+	}
+
+	/**
+	 * Method which makes the site vote on the commit of a transaction, the first phase of the two-phase commit.
+	 * A site which has failed since the transaction first accessed it votes abort. A site receiving values written by the transaction logs them before
+	 * voting to commit, so that they can be replayed once the decision to commit is durable. A site at which the transaction holds no write lock and
+	 * which receives no value votes read-only and releases the read locks of the transaction at once, as it takes no part in the second phase.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @param siteAccessedAtTick - An integer value, the tick at which the transaction first accessed the site, Integer.MAX_VALUE if it didn't.
+	 * @param logId - A String variable, the id the write-ahead log knows the transaction by.
+	 * @param writeBatch - A WriteBatch object, the values written by the transaction to the variables placed at this site, or null.
+	 * @return int - TransactionConstants.VOTE_COMMIT, VOTE_READ_ONLY or VOTE_ABORT.
+	 */
+	public int prepareTransaction(Transaction trx, int siteAccessedAtTick, String logId, WriteBatch writeBatch)
+	{
+		if(site==null || !site.getSiteStatus() || site.getTickWhenSiteFailed()>siteAccessedAtTick)
+		{
+			return TransactionConstants.VOTE_ABORT;
+		}
+		if(writeBatch!=null && writeBatch.size()>0)
+		{
+			//The values are logged while the variables are still write locked, so that the log holds the commits of a variable in the order in which they take place
+			if(writeAheadLog!=null)
+			{
+				String[] variables = new String[writeBatch.size()];
+				int[] values = new int[variables.length];
+				for(int i=0;i<variables.length;i++)
+				{
+					variables[i]=writeBatch.getVariable(i);
+					values[i]=writeBatch.getValue(i);
+				}
+				writeAheadLog.append(logId, variables, values, variables.length);
+			}
+			return TransactionConstants.VOTE_COMMIT;
+		}
+		Set lockedVariables = (Set)variablesLockedByTrxs.get(trx);
+		if(lockedVariables!=null)
+		{
+			Iterator itr = (Iterator)new ArrayList(lockedVariables).iterator();
+			while(itr.hasNext())
+			{
+				VariablesVO variableVO = (VariablesVO)itr.next();
+				synchronized(variableLocks.getLock(variableVO.getVariable()))
+				{
+					if(isTrxIdSameInReadOrWriteLockingTrxsSet(variableVO.getTrxWriteLockingVariable(),trx))
+					{
+						return TransactionConstants.VOTE_COMMIT;
+					}
+				}
+			}
+		}
+		releaseTransactionFromReadAndWriteLocksSet(trx);
+		return TransactionConstants.VOTE_READ_ONLY;
+	}
+
 	/**
 	 * Method which facilitates data and lock manager to release transaction from read locking and write locking transaction set maintained for each variable, in case the transaction is aborting.
 	 * @author Ashish Walia
@@ -505,27 +752,131 @@ public class DataAndLockManager {
 	 */
 	public void releaseTransactionFromReadAndWriteLocksSet(Transaction trx)
 	{
-	 //Data Lock Manager will remove the Transaction T from read lock and write lock sets of all the variables available at this site
-		if(getMapOfVariablesVO()!=null && !getMapOfVariablesVO().isEmpty())
+	 //Data Lock Manager will remove the Transaction T from read lock and write lock sets of the variables it has locked at this site
+		Set lockedVariables = (trx!=null && variablesLockedByTrxs!=null)?(Set)variablesLockedByTrxs.remove(trx):null;
+		if(lockedVariables!=null)
 		{
-			Iterator iterator = (Iterator)getMapOfVariablesVO().entrySet().iterator();
+			if(waitsForGraph!=null)
+			{
+				waitsForGraph.locksReleased(trx.getTrxId(), dataAndLockManagerId);
+			}
+			Iterator iterator = (Iterator)lockedVariables.iterator();
 			while(iterator.hasNext())
 			{
-				Map.Entry pairs = (Map.Entry)iterator.next();
-				if(pairs!=null)
+				VariablesVO variable = (VariablesVO)iterator.next();
+				if(variable!=null)
 				{
-					VariablesVO variable = (VariablesVO)pairs.getValue();
-					if(variable!=null && variable.getTrxsReadLockingVariable()!=null)
+					synchronized(variableLocks.getLock(variable.getVariable()))
 					{
-						variable.getTrxsReadLockingVariable().remove(trx);						
+						variable.removeLocksOfTrx(trx);
+						if(site!=null && site.getVariableStore()!=null)
+						{
+							site.getVariableStore().releaseVariableVO(variable);
+						}
+						wakeWaitersOn(variable.getVariable());
 					}
-					if(variable!=null && variable.getTrxWriteLockingVariable()!=null)
+				}
+			}
+		}
+	}
+	/**
+	 * Method which adds ids of all the transactions read or write locking the variable at this site to the collection.
+	 * @param variable - A String variable.
+	 * @param trxIds - A Collection to which ids of the locking transactions are added.
+	 */
+	public void addTrxsLockingVariable(String variable, Collection trxIds)
+	{
+		synchronized(variableLocks.getLock(variable))
+		{
+			VariablesVO variableVO = getVariableVOFromMapOfVariablesVO(variable);
+			if(variableVO!=null && trxIds!=null)
+			{
+				if(variableVO.getTrxsReadLockingVariable()!=null)
+				{
+					Iterator itr = (Iterator)variableVO.getTrxsReadLockingVariable().iterator();
+					while(itr.hasNext())
 					{
-						variable.getTrxWriteLockingVariable().remove(trx);
+						trxIds.add(((Transaction)itr.next()).getTrxId());
 					}
 				}
+				if(variableVO.getTrxWriteLockingVariable()!=null)
+				{
+					Iterator itr = (Iterator)variableVO.getTrxWriteLockingVariable().iterator();
+					while(itr.hasNext())
+					{
+						trxIds.add(((Transaction)itr.next()).getTrxId());
+					}
+				}
+				//Looking up the variable must not leave a VariablesVO object behind in storage engines which create them on demand
+				site.getVariableStore().releaseVariableVO(variableVO);
 			}
-		}		
+		}
+	}
+	/**
+	 * Method which adds ids of the transactions whose locks on the variable at this site conflict with a lock request of a transaction to the collection.
+	 * @param trx - A Transaction object, the transaction requesting the lock.
+	 * @param variable - A String variable.
+	 * @param isWriteLockRequested - A boolean value, true if a write lock is requested.
+	 * @param trxIds - A Collection to which ids of the conflicting transactions are added.
+	 */
+	public void addTrxsConflictingWithLockRequest(Transaction trx, String variable, boolean isWriteLockRequested, Collection trxIds)
+	{
+		synchronized(variableLocks.getLock(variable))
+		{
+			VariablesVO variableVO = getVariableVOFromMapOfVariablesVO(variable);
+			if(variableVO!=null && trxIds!=null)
+			{
+				Iterator itr = (Iterator)DeadlockPolicy.getConflictingTrxs(trx,variableVO.getTrxsReadLockingVariable(),variableVO.getTrxWriteLockingVariable(),isWriteLockRequested).iterator();
+				while(itr.hasNext())
+				{
+					trxIds.add(((Transaction)itr.next()).getTrxId());
+				}
+				site.getVariableStore().releaseVariableVO(variableVO);
+			}
+		}
+	}
+	/**
+	 * Method which returns the transactions locking the variable at this site which the deadlock policy aborts so that a transaction can lock it.
+	 * @param trx - A Transaction object, the transaction requesting the lock.
+	 * @param variable - A String variable.
+	 * @param isWriteLockRequested - A boolean value, true if a write lock is requested.
+	 * @return List - A List of Transaction objects, empty if the site is down.
+	 */
+	public List getTrxsToBeAbortedForLockRequest(Transaction trx, String variable, boolean isWriteLockRequested)
+	{
+		synchronized(variableLocks.getLock(variable))
+		{
+			List trxsToBeAborted = new ArrayList();
+			if(site!=null && site.getSiteStatus())
+			{
+				VariablesVO variableVO = getVariableVOFromMapOfVariablesVO(variable);
+				if(variableVO!=null)
+				{
+					trxsToBeAborted.addAll(deadlockPolicy.getTrxsToBeAborted(trx,variableVO.getTrxsReadLockingVariable(),variableVO.getTrxWriteLockingVariable(),isWriteLockRequested));
+					site.getVariableStore().releaseVariableVO(variableVO);
+				}
+			}
+			return trxsToBeAborted;
+		}
+	}
+	/**
+	 * Method which records that the transaction holds a read or write lock on the variable at this site, so that its locks can be released without scanning the whole site.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @param variableVO - A VariablesVO object which has been read or write locked by the transaction.
+	 */
+	private void addVariableToVariablesLockedByTrx(Transaction trx, VariablesVO variableVO)
+	{
+		Set lockedVariables = (Set)variablesLockedByTrxs.get(trx);
+		if(lockedVariables==null)
+		{
+			lockedVariables = Collections.synchronizedSet(new HashSet());
+			Set existingLockedVariables = (Set)variablesLockedByTrxs.putIfAbsent(trx, lockedVariables);
+			if(existingLockedVariables!=null)
+			{
+				lockedVariables = existingLockedVariables;
+			}
+		}
+		lockedVariables.add(variableVO);
 	}
 	/**
 	 * Method which facilitates data and lock manager  to remove variable from Set of read locked and write locked variable, maintained for each transaction. This method comes in handy when a site fails.
@@ -555,22 +906,6 @@ public class DataAndLockManager {
 		}
 		
 	}
-	/**
-	 * Method which returns map containing variables and values available at the site serviced by data and lock manager
-	 * @author Ashish Walia
-	 * @return Map - A map containing variables and values available at the site serviced by data and lock manager
-	 */
-	public Map getMapOfVariablesVO()
-	{
-		if(site!=null && site.getSiteStatus())
-		{
-			return site.getMapOfVariablesAndValuesAtSite();
-		}
-		else
-		{
-			return null;
-		}
-	}
 	/**
 	 * Method which returns VariableVO object.
 	 * @author Ashish Walia
@@ -579,9 +914,9 @@ public class DataAndLockManager {
 	 */
 	public VariablesVO getVariableVOFromMapOfVariablesVO(String variable)
 	{
-		if(variable!=null && !"".equals(variable) && site!=null && site.getSiteStatus() && site.getMapOfVariablesAndValuesAtSite()!=null && site.getMapOfVariablesAndValuesAtSite().containsKey(variable))
+		if(variable!=null && !"".equals(variable) && site!=null && site.getSiteStatus() && site.getVariableStore()!=null)
 		{
-			return (VariablesVO)site.getMapOfVariablesAndValuesAtSite().get(variable);
+			return site.getVariableStore().getVariableVO(variable);
 		}
 		else
 		{
@@ -595,17 +930,9 @@ public class DataAndLockManager {
 	 */
 	public boolean isVariableAvailableToBeReadFromSite(String variable)
 	{
-		if(variable!=null &&!"".equals(variable) && site!=null && site.getSiteStatus()&& site.getMapOfVariablesAndValuesAtSite()!=null && site.getMapOfVariablesAndValuesAtSite().containsKey(variable))
+		if(site!=null)
 		{
-			VariablesVO variableVO = (VariablesVO)site.getMapOfVariablesAndValuesAtSite().get(variable);
-			if(variableVO!=null && variableVO.isVariableAvailableForReadOperation())
-			{
-				return true;
-			}
-			else
-			{
-				return false;
-			}
+			return site.isVariableAvailableToBeReadFromSite(variable);
 		}
 		else
 		{
@@ -620,12 +947,13 @@ public class DataAndLockManager {
 	 */
 	public void setValueOfVariableAtCommitTime(String variable, int value)
 	{
-		if(variable!=null && !"".equals(variable) && site!=null && site.getSiteStatus()==true && site.getMapOfVariablesAndValuesAtSite()!=null && site.getMapOfVariablesAndValuesAtSite().containsKey(variable)==true)
+		if(variable!=null && !"".equals(variable) && site!=null && site.getSiteStatus()==true && site.getVariableStore()!=null && site.getVariableStore().containsVariable(variable)==true)
 		{
-			VariablesVO variableVO = (VariablesVO)site.getMapOfVariablesAndValuesAtSite().get(variable);
+			VariablesVO variableVO = site.getVariableStore().getVariableVO(variable);
 			if(variableVO!=null)
 			{
 				variableVO.setValue(value);
+				site.getVariableStore().releaseVariableVO(variableVO);
 			}
 		}
 	}
@@ -635,82 +963,420 @@ public class DataAndLockManager {
 	 * @param out - A BuffereWriter object to write contents in the output file.
 	 * @param tick - An integer value which updates the time stamp at which site failed.
 	 */
-	public void failSite(int tick, BufferedWriter out)throws IOException
+	public void failSite(int tick, OutputSink out)throws IOException
 	{
 		if(site!=null && site.getSiteStatus()==false)
 		{
 			out.write("Site "+site.getSiteId()+" is already down.");
 			out.newLine();
-			System.out.println("Site "+site.getSiteId()+" is already down.");
 		}
 		else if(site!=null && site.getSiteStatus())
 		{			
 			//If a site fails, data and lock manager should forget about lock information
-			if(getMapOfVariablesVO()!=null)
+			if(site.getVariableStore()!=null)
 			{
-				Iterator iterator = (Iterator)getMapOfVariablesVO().entrySet().iterator();
+				Iterator iterator = (Iterator)new ArrayList(site.getVariableStore().getVariableVOsHoldingLockInformation()).iterator();
 				while(iterator.hasNext())
 				{
-					Map.Entry pairs = (Map.Entry)iterator.next();
-					if(pairs!=null)
+					VariablesVO variable = (VariablesVO)iterator.next();
+					if(variable!=null && variable.getTrxsReadLockingVariable()!=null && !variable.getTrxsReadLockingVariable().isEmpty())
 					{
-						VariablesVO variable = (VariablesVO)pairs.getValue();
-						if(variable!=null && variable.getTrxsReadLockingVariable()!=null && !variable.getTrxsReadLockingVariable().isEmpty())
-						{
-							releaseVariableFromTransactionReadAndWriteLocksSet(variable.getTrxsReadLockingVariable(),variable.getVariable(),variable.isVariableReplicated());
-							variable.getTrxsReadLockingVariable().clear();
-						}
-						if(variable!=null && variable.getTrxWriteLockingVariable()!=null && !variable.getTrxWriteLockingVariable().isEmpty())
-						{
-							releaseVariableFromTransactionReadAndWriteLocksSet(variable.getTrxWriteLockingVariable(),variable.getVariable(),variable.isVariableReplicated());
-							variable.getTrxWriteLockingVariable().clear();
-						}
+						releaseVariableFromTransactionReadAndWriteLocksSet(variable.getTrxsReadLockingVariable(),variable.getVariable(),variable.isVariableReplicated());
 					}
+					if(variable!=null && variable.getTrxWriteLockingVariable()!=null && !variable.getTrxWriteLockingVariable().isEmpty())
+					{
+						releaseVariableFromTransactionReadAndWriteLocksSet(variable.getTrxWriteLockingVariable(),variable.getVariable(),variable.isVariableReplicated());
+					}
+					if(variable!=null)
+					{
+						variable.removeAllLocks();
+						site.getVariableStore().releaseVariableVO(variable);
+					}
+				}
+				//Lock information of every variable has been dropped above
+				variablesLockedByTrxs.clear();
+				if(waitsForGraph!=null)
+				{
+					waitsForGraph.siteFailed(dataAndLockManagerId);
+				}
+				long version = nextVersionIfSnapshotsAreActive();
+				if(version>0)
+				{
+					siteStatusChanges.add(Long.valueOf(version));
 				}
 				site.failSite(tick);
+				if(lockWaitQueues!=null)
+				{
+					lockWaitQueues.wakeWaitersOnVariablesOf(site.getVariableStore());
+				}
 				out.write("Site "+site.getSiteId()+" failed.");
 				out.newLine();
-				System.out.println("Site "+site.getSiteId()+" failed.");
+				out.writeEvent(EventLog.SITE_FAILURE, tick, null, null, site.getSiteId(), 0);
 			}
 		}
 	}
 	/**
-	 * Method which recovers site and make non-replicated variables available for read and write operations. Replicated variables are rendered unavailable for read operation.
+	 * Method which recovers site and make non-replicated variables available for read and write operations. Replicated variables are rendered unavailable for read operation,
+	 * unless they are read and written through quorums.
 	 * @author Ashish Walia
 	 * @param out - A BuffereWriter object to write contents in the output file.
-	 * @param tick - An integer value which updates the time stamp at which site failed.
+	 * @param tick - An integer value, the time stamp at which site recovered.
 	 */
-	public void recoverSite(BufferedWriter out)throws IOException
+	public void recoverSite(int tick, OutputSink out)throws IOException
 	{
 		if(site!=null && site.getSiteStatus())
 		{
 			out.write("Site "+site.getSiteId()+" is already up.");
 			out.newLine();
-			System.out.println("Site "+site.getSiteId()+" is already up.");
 		}
 		else if(site!=null && site.getSiteStatus()==false)
 		{
+			long version = nextVersionIfSnapshotsAreActive();
+			if(version>0)
+			{
+				siteStatusChanges.add(Long.valueOf(version));
+				if(!isQuorumReplication)
+				{
+					keepReplicatedVariablesAvailableForReadOperation(version);
+				}
+			}
 			site.recoverSite();
-			//If a site recovers, Data and Lock Manager should make replicated variables unavailable for read operations
-			if(getMapOfVariablesVO()!=null)
+			//If a site recovers, Data and Lock Manager should make replicated variables unavailable for read operations, unless they are read from quorums
+			//which always hold a copy of the latest committed value
+			if(site.getVariableStore()!=null && !isQuorumReplication)
 			{
-				Iterator iterator = (Iterator)getMapOfVariablesVO().entrySet().iterator();
-				while(iterator.hasNext())
+				site.getVariableStore().makeReplicatedVariablesUnavailableForReadOperation();
+			}
+			if(lockWaitQueues!=null)
+			{
+				lockWaitQueues.wakeWaitersOnVariablesOf(site.getVariableStore());
+			}
+			out.write("Site "+site.getSiteId()+" recovered.");
+			out.newLine();
+			out.writeEvent(EventLog.SITE_RECOVERY, tick, null, null, site.getSiteId(), 0);
+		}
+	}
+
+	/**
+	 * Method which renders the replicated variables of the site unavailable for read operation when the failure detector suspects it, as the writes committed
+	 * while it is suspected don't reach it. They become available again once written, as after a recovery, unless they are read and written through quorums.
+	 */
+	public void makeReplicatedVariablesUnavailableWhileSuspected()
+	{
+		if(site!=null && site.getVariableStore()!=null && !isQuorumReplication)
+		{
+			long version = nextVersionIfSnapshotsAreActive();
+			if(version>0)
+			{
+				keepReplicatedVariablesAvailableForReadOperation(version);
+			}
+			site.getVariableStore().makeReplicatedVariablesUnavailableForReadOperation();
+		}
+	}
+
+	/**
+	 * Method which sets the policy deciding the lock requests which conflict with the locks held on a variable, wait-die by default.
+	 * @param deadlockPolicy - A DeadlockPolicy object shared by the transaction manager and all the data and lock managers.
+	 */
+	public void setDeadlockPolicy(DeadlockPolicy deadlockPolicy)
+	{
+		this.deadlockPolicy=deadlockPolicy;
+	}
+
+	public DeadlockPolicy getDeadlockPolicy()
+	{
+		return deadlockPolicy;
+	}
+
+	/**
+	 * Method which makes the data and lock manager wake up the transactions waiting on a variable whenever its locks or read availability change at its site.
+	 * @param lockWaitQueues - A LockWaitQueues object shared by all the data and lock managers.
+	 */
+	public void setLockWaitQueues(LockWaitQueues lockWaitQueues)
+	{
+		this.lockWaitQueues=lockWaitQueues;
+	}
+
+	/**
+	 * Method which makes the data and lock manager keep a waits-for graph up to date with the locks granted and released at its site.
+	 * @param waitsForGraph - A WaitsForGraph object shared by the transaction manager and all the data and lock managers, or null.
+	 */
+	public void setWaitsForGraph(WaitsForGraph waitsForGraph)
+	{
+		this.waitsForGraph=waitsForGraph;
+	}
+
+	/**
+	 * Method which makes the data and lock manager keep version numbers of the copies of replicated variables, which are read and written through quorums,
+	 * and leave them readable when its site recovers.
+	 * @param isQuorumReplication - A boolean value, true if replicated variables are read and written through quorums.
+	 */
+	public void setQuorumReplication(boolean isQuorumReplication)
+	{
+		this.isQuorumReplication=isQuorumReplication;
+	}
+
+	/**
+	 * Method which returns the version number of the committed value of a variable at the site, 0 if the site is down or doesn't hold the variable.
+	 * @param variable - A String variable.
+	 */
+	public long getVersionNumberOfVariable(String variable)
+	{
+		if(variable!=null && site!=null && site.getSiteStatus() && site.getVariableStore()!=null)
+		{
+			return site.getVariableStore().getVersionNumberOfVariable(variable);
+		}
+		return 0;
+	}
+
+	/**
+	 * Method which makes a replicated variable, unavailable for read operation since its site recovered, available again with the committed value of an up-to-date
+	 * copy at another site, which is the case when a recovered site catches up in the background.
+	 * @param variable - A String variable.
+	 * @param value - An integer value, the committed value of the up-to-date copy.
+	 * @return boolean - true if the variable was unavailable for read operation and has been caught up.
+	 */
+	public boolean catchUpUnavailableVariable(String variable, int value)
+	{
+		synchronized(variableLocks.getLock(variable))
+		{
+			VariablesVO variableVO = getVariableVOFromMapOfVariablesVO(variable);
+			if(variableVO==null)
+			{
+				return false;
+			}
+			boolean isUnavailable = !variableVO.isVariableAvailableForReadOperation();
+			if(isUnavailable)
+			{
+				long version = nextVersionIfSnapshotsAreActive();
+				if(version>0)
+				{
+					keepOlderVersion(variable, variableVO.getValue(), false, variableVO.getVersionNumber(), version);
+				}
+				variableVO.setValue(value);
+				variableVO.makeVariableAvailableForReadOperation();
+			}
+			site.getVariableStore().releaseVariableVO(variableVO);
+			if(isUnavailable)
+			{
+				wakeWaitersOn(variable);
+			}
+			return isUnavailable;
+		}
+	}
+
+	/**
+	 * Method which brings the copy of a variable at the site up to date with a newer committed value read from other sites, which is the case when
+	 * a recovered site catches up with a quorum.
+	 * @param variable - A String variable.
+	 * @param value - An integer value, the newer committed value.
+	 * @param versionNumber - A long value, the version number of the newer committed value.
+	 * @return boolean - true if the copy was older and has been updated.
+	 */
+	public boolean catchUpVariable(String variable, int value, long versionNumber)
+	{
+		synchronized(variableLocks.getLock(variable))
+		{
+			VariablesVO variableVO = getVariableVOFromMapOfVariablesVO(variable);
+			if(variableVO==null)
+			{
+				return false;
+			}
+			boolean isOlder = variableVO.getVersionNumber()<versionNumber;
+			if(isOlder)
+			{
+				long version = nextVersionIfSnapshotsAreActive();
+				if(version>0)
 				{
-					Map.Entry pairs = (Map.Entry)iterator.next();
-					if(pairs!=null)
+					keepOlderVersion(variable, variableVO.getValue(), variableVO.isVariableAvailableForReadOperation(), variableVO.getVersionNumber(), version);
+				}
+				variableVO.setValue(value);
+				variableVO.setVersionNumber(versionNumber);
+			}
+			site.getVariableStore().releaseVariableVO(variableVO);
+			return isOlder;
+		}
+	}
+
+	private void wakeWaitersOn(String variable)
+	{
+		if(lockWaitQueues!=null)
+		{
+			lockWaitQueues.wakeWaitersOn(variable);
+		}
+	}
+
+	/**
+	 * Method which makes the data and lock manager keep the values superseded by the changes to the committed state of its site for as long as
+	 * a read-only transaction may read them.
+	 * @param snapshotRegistry - A SnapshotRegistry object shared by all the data and lock managers.
+	 */
+	public void setSnapshotRegistry(SnapshotRegistry snapshotRegistry)
+	{
+		this.snapshotRegistry=snapshotRegistry;
+	}
+
+	private long nextVersionIfSnapshotsAreActive()
+	{
+		if(snapshotRegistry==null)
+		{
+			return 0;
+		}
+		return snapshotRegistry.nextVersionIfSnapshotsAreActive();
+	}
+
+	private void keepOlderVersion(String variable, int value, boolean isAvailableForReadOperation, long versionNumber, long version)
+	{
+		olderVersions.put(variable, new VariableVersion(value, isAvailableForReadOperation, versionNumber, version, (VariableVersion)olderVersions.get(variable)));
+	}
+
+	/**
+	 * Method which keeps the replicated variables available for read operation as they are before a recovery renders them unavailable.
+	 */
+	private void keepReplicatedVariablesAvailableForReadOperation(long version)
+	{
+		VariableStore variableStore = site.getVariableStore();
+		if(variableStore!=null)
+		{
+			for(int i=0;i<variableStore.getNumberOfVariables();i++)
+			{
+				if(variableStore.isVariableAvailableForReadOperationAt(i))
+				{
+					VariablesVO variableVO = variableStore.getVariableVO(variableStore.getVariableAt(i));
+					if(variableVO.isVariableReplicated())
 					{
-						VariablesVO variable = (VariablesVO)pairs.getValue();
-						if(variable!=null && variable.isVariableReplicated())
-						{
-							variable.makeVariableUnavailableForReadOperation();
-						}						
+						keepOlderVersion(variableVO.getVariable(), variableVO.getValue(), true, variableVO.getVersionNumber(), version);
 					}
+					variableStore.releaseVariableVO(variableVO);
 				}
 			}
-			out.write("Site "+site.getSiteId()+" recovered.");
-			out.newLine();
-			System.out.println("Site "+site.getSiteId()+" recovered.");
 		}
 	}
+
+	/**
+	 * Method which returns the version of a variable a snapshot reads, i.e. the one superseded by the first change numbered above the snapshot.
+	 * @return VariableVersion - A VariableVersion object, or null if the snapshot reads the current committed value.
+	 */
+	private VariableVersion getVersionAtSnapshot(String variable, long snapshot)
+	{
+		VariableVersion versionAtSnapshot = null;
+		VariableVersion version = (VariableVersion)olderVersions.get(variable);
+		while(version!=null && version.getSupersededAt()>snapshot)
+		{
+			versionAtSnapshot=version;
+			version=version.getOlderVersion();
+		}
+		return versionAtSnapshot;
+	}
+
+	private boolean wasSiteUpAtSnapshot(long snapshot)
+	{
+		boolean isSiteUp = site.getSiteStatus();
+		synchronized(siteStatusChanges)
+		{
+			//Every failure or recovery after the snapshot flipped the status of the site
+			for(int i=siteStatusChanges.size()-1;i>=0 && ((Long)siteStatusChanges.get(i)).longValue()>snapshot;i--)
+			{
+				isSiteUp=!isSiteUp;
+			}
+		}
+		return isSiteUp;
+	}
+
+	/**
+	 * Method which checks if the variable could be read from the site at a snapshot, i.e. if the site was up and the variable was available for read operation.
+	 * @param variable - A String variable.
+	 * @param snapshot - A long value returned by SnapshotRegistry.openSnapshot.
+	 */
+	public boolean isVariableAvailableToBeReadFromSiteAtSnapshot(String variable, long snapshot)
+	{
+		if(variable==null || "".equals(variable) || site==null || site.getVariableStore()==null || !site.getVariableStore().containsVariable(variable) || !wasSiteUpAtSnapshot(snapshot))
+		{
+			return false;
+		}
+		VariableVersion version = getVersionAtSnapshot(variable, snapshot);
+		if(version!=null)
+		{
+			return version.isAvailableForReadOperation();
+		}
+		return site.getVariableStore().isVariableAvailableForReadOperation(variable);
+	}
+
+	/**
+	 * Method which returns the committed value of a variable stored at the site at a snapshot.
+	 * @param variable - A String variable.
+	 * @param snapshot - A long value returned by SnapshotRegistry.openSnapshot.
+	 */
+	public int getValueOfVariableAtSnapshot(String variable, long snapshot)
+	{
+		VariableVersion version = getVersionAtSnapshot(variable, snapshot);
+		if(version!=null)
+		{
+			return version.getValue();
+		}
+		return site.getVariableStore().getValueOfVariable(variable);
+	}
+
+	/**
+	 * Method which returns the version number of the committed value of a variable stored at the site at a snapshot.
+	 * @param variable - A String variable.
+	 * @param snapshot - A long value returned by SnapshotRegistry.openSnapshot.
+	 */
+	public long getVersionNumberOfVariableAtSnapshot(String variable, long snapshot)
+	{
+		VariableVersion version = getVersionAtSnapshot(variable, snapshot);
+		if(version!=null)
+		{
+			return version.getVersionNumber();
+		}
+		return site.getVariableStore().getVersionNumberOfVariable(variable);
+	}
+
+	/**
+	 * Method which discards the versions no active read-only transaction can read any longer, i.e. the ones superseded at or below the oldest active snapshot.
+	 * @param oldestActiveSnapshot - A long value returned by SnapshotRegistry.getOldestActiveSnapshot.
+	 */
+	public void discardOlderVersions(long oldestActiveSnapshot)
+	{
+		synchronized(siteStatusChanges)
+		{
+			while(!siteStatusChanges.isEmpty() && ((Long)siteStatusChanges.get(0)).longValue()<=oldestActiveSnapshot)
+			{
+				siteStatusChanges.remove(0);
+			}
+		}
+		Iterator itr = (Iterator)olderVersions.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			VariableVersion version = (VariableVersion)pairs.getValue();
+			if(version.getSupersededAt()<=oldestActiveSnapshot)
+			{
+				itr.remove();
+				continue;
+			}
+			while(version.getOlderVersion()!=null && version.getOlderVersion().getSupersededAt()>oldestActiveSnapshot)
+			{
+				version=version.getOlderVersion();
+			}
+			version.setOlderVersion(null);
+		}
+	}
+
+	/**
+	 * Method which returns the number of versions kept for read-only transactions.
+	 */
+	public int getNumberOfOlderVersions()
+	{
+		int numberOfVersions=0;
+		Iterator itr = (Iterator)olderVersions.values().iterator();
+		while(itr.hasNext())
+		{
+			for(VariableVersion version=(VariableVersion)itr.next();version!=null;version=version.getOlderVersion())
+			{
+				numberOfVersions++;
+			}
+		}
+		return numberOfVersions;
+	}
 }
@@ -0,0 +1,184 @@
+package site;
+import java.io.*;
+import java.util.*;
+import output.OutputSink;
+
+/**
+ * Failure detector simulating the heartbeats every site which is up sends to the transaction manager, instead of the transaction manager knowing at once
+ * that a site has failed. At the end of every heartbeat interval, every site which is up sends a heartbeat, which may be lost or delayed by a few ticks, and
+ * a site is suspected once no heartbeat has been received from it for longer than the suspicion timeout, until one is received again.
+ * Heartbeats are exchanged at tick boundaries and the losses and delays are drawn from a seeded random number generator, so that the same input always
+ * suspects the same sites at the same ticks whatever the number of execution threads.
+ */
+public class FailureDetector {
+	//Number of ticks between two heartbeats of a site
+	private int heartbeatInterval=1;
+	//Number of ticks without heartbeat after which a site is suspected
+	private int suspicionTimeout=3;
+	//Maximum number of ticks a heartbeat is delayed by
+	private int maxDelay=0;
+	//Probability of a heartbeat being lost
+	private double lossRate=0;
+	private Random random=null;
+	//Tick at which the last heartbeat of every site has been received, indexed by site id
+	private int[] lastHeartbeatReceivedAt=null;
+	//Tick at which every site has last been suspected, indexed by site id, -1 if it never was
+	private int[] lastSuspectedAt=null;
+	private boolean[] isSuspected=null;
+	//Heartbeats sent but not received yet, in the order in which they were sent
+	private List heartbeatsInFlight = new ArrayList();
+	private int numberOfLostHeartbeats=0;
+	private int numberOfSuspicions=0;
+	private int numberOfFalseSuspicions=0;
+	//Sum of the number of ticks between the failure of a site and its suspicion, over the failures detected
+	private long totalDetectionLatency=0;
+
+	/**
+	 * Constructor for FailureDetector class.
+	 * @param numberOfSites - An integer value, the number of sites, numbered from 1.
+	 * @param heartbeatInterval - An integer value, the number of ticks between two heartbeats of a site.
+	 * @param suspicionTimeout - An integer value, the number of ticks without heartbeat after which a site is suspected.
+	 * @param maxDelay - An integer value, the maximum number of ticks a heartbeat is delayed by.
+	 * @param lossRate - A double value, the probability of a heartbeat being lost.
+	 * @param seed - A long value, the seed of the losses and delays.
+	 */
+	public FailureDetector(int numberOfSites, int heartbeatInterval, int suspicionTimeout, int maxDelay, double lossRate, long seed)
+	{
+		this.heartbeatInterval=heartbeatInterval;
+		this.suspicionTimeout=suspicionTimeout;
+		this.maxDelay=maxDelay;
+		this.lossRate=lossRate;
+		random=new Random(seed);
+		lastHeartbeatReceivedAt=new int[numberOfSites+1];
+		lastSuspectedAt=new int[numberOfSites+1];
+		Arrays.fill(lastSuspectedAt, -1);
+		isSuspected=new boolean[numberOfSites+1];
+	}
+
+	/**
+	 * Method which makes the sites which are up send their heartbeats, receives the heartbeats arriving at this tick and updates the suspected sites.
+	 * Called at the end of every tick.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param tick - An integer value, the tick which ended.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @return List - The ids of the sites which have been suspected, or trusted again, at this tick.
+	 * @throws IOException
+	 */
+	public List exchangeHeartbeats(Map dataAndLockManagersMap, int tick, OutputSink out)throws IOException
+	{
+		if(tick%heartbeatInterval==0)
+		{
+			Iterator itr = (Iterator)dataAndLockManagersMap.entrySet().iterator();
+			while(itr.hasNext())
+			{
+				Map.Entry pairs = (Map.Entry)itr.next();
+				DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();
+				if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus())
+				{
+					if(lossRate>0 && random.nextDouble()<lossRate)
+					{
+						numberOfLostHeartbeats++;
+					}
+					else
+					{
+						heartbeatsInFlight.add(new int[]{((Integer)pairs.getKey()).intValue(), tick+((maxDelay>0)?random.nextInt(maxDelay+1):0)});
+					}
+				}
+			}
+		}
+		Iterator iterator = (Iterator)heartbeatsInFlight.iterator();
+		while(iterator.hasNext())
+		{
+			//Heartbeat holds the id of the site which sent it and the tick at which it arrives
+			int[] heartbeat = (int[])iterator.next();
+			if(heartbeat[1]<=tick)
+			{
+				lastHeartbeatReceivedAt[heartbeat[0]]=Math.max(lastHeartbeatReceivedAt[heartbeat[0]], heartbeat[1]);
+				iterator.remove();
+			}
+		}
+		List sitesWhoseSuspicionChanged = new ArrayList();
+		Iterator itr = (Iterator)dataAndLockManagersMap.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			int siteId = ((Integer)pairs.getKey()).intValue();
+			boolean isSiteSuspected = tick-lastHeartbeatReceivedAt[siteId]>suspicionTimeout;
+			if(isSiteSuspected==isSuspected[siteId])
+			{
+				continue;
+			}
+			isSuspected[siteId]=isSiteSuspected;
+			sitesWhoseSuspicionChanged.add(Integer.valueOf(siteId));
+			if(isSiteSuspected)
+			{
+				lastSuspectedAt[siteId]=tick;
+				numberOfSuspicions++;
+				out.write("Site "+siteId+" is suspected by the failure detector, no heartbeat received for "+(tick-lastHeartbeatReceivedAt[siteId])+" tick(s).");
+				out.newLine();
+				Site site = ((DataAndLockManager)pairs.getValue()).getSiteServicedByDataAndLockMgr();
+				if(site!=null && !site.getSiteStatus())
+				{
+					totalDetectionLatency+=tick-site.getTickWhenSiteFailed();
+					out.write("Site "+siteId+" failed "+(tick-site.getTickWhenSiteFailed())+" tick(s) before being suspected.");
+				}
+				else
+				{
+					numberOfFalseSuspicions++;
+					out.write("Site "+siteId+" is up, the suspicion is false.");
+				}
+				out.newLine();
+			}
+			else
+			{
+				out.write("Site "+siteId+" is trusted again by the failure detector.");
+				out.newLine();
+			}
+		}
+		return sitesWhoseSuspicionChanged;
+	}
+
+	/**
+	 * Method which checks if a site is suspected at the moment.
+	 * @param siteId - An integer value, the id of the site.
+	 */
+	public boolean isSuspected(int siteId)
+	{
+		return siteId>0 && siteId<isSuspected.length && isSuspected[siteId];
+	}
+
+	/**
+	 * Method which returns the tick at which a site has last been suspected.
+	 * @param siteId - An integer value, the id of the site.
+	 * @return int - The tick, or -1 if the site has never been suspected.
+	 */
+	public int getTickWhenSiteWasLastSuspected(int siteId)
+	{
+		return (siteId>0 && siteId<lastSuspectedAt.length)?lastSuspectedAt[siteId]:-1;
+	}
+
+	public int getNumberOfLostHeartbeats()
+	{
+		return numberOfLostHeartbeats;
+	}
+
+	public int getNumberOfSuspicions()
+	{
+		return numberOfSuspicions;
+	}
+
+	public int getNumberOfFalseSuspicions()
+	{
+		return numberOfFalseSuspicions;
+	}
+
+	/**
+	 * Method which returns the average number of ticks between the failure of a site and its suspicion, i.e. the failover latency.
+	 * @return double - The average over the failures detected so far, 0 if none has been.
+	 */
+	public double getAverageDetectionLatency()
+	{
+		int numberOfDetectedFailures = numberOfSuspicions-numberOfFalseSuspicions;
+		return (numberOfDetectedFailures>0)?(double)totalDetectionLatency/numberOfDetectedFailures:0;
+	}
+}
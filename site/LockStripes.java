@@ -0,0 +1,43 @@
+package site;
+
+/**
+ * A fixed set of monitors which variables are hashed onto, so that lock requests on different variables can be serviced by different threads
+ * while requests on the same variable are serialized.
+ */
+public class LockStripes {
+	public static final int DEFAULT_NUMBER_OF_STRIPES=64;
+	private Object[] stripes = null;
+	private int mask = 0;
+
+	/**
+	 * Constructor for LockStripes class.
+	 * @param numberOfStripes - An integer value which is rounded up to the next power of two.
+	 */
+	public LockStripes(int numberOfStripes)
+	{
+		int size = 1;
+		while(size<numberOfStripes)
+		{
+			size<<=1;
+		}
+		stripes = new Object[size];
+		for(int i=0;i<size;i++)
+		{
+			stripes[i]=new Object();
+		}
+		mask = size-1;
+	}
+
+	/**
+	 * Method which returns the monitor guarding the variable.
+	 * @param variable - A String variable.
+	 * @return Object - The monitor to synchronize on.
+	 */
+	public Object getLock(String variable)
+	{
+		int hash = (variable!=null)?variable.hashCode():0;
+		//Spread the higher bits, names like x1..x20 only differ in their last characters
+		hash ^= (hash>>>16);
+		return stripes[hash & mask];
+	}
+}
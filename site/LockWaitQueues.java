@@ -0,0 +1,141 @@
+package site;
+import java.util.*;
+
+/**
+ * FIFO queues of the blocked transactions waiting on each variable, shared by the transaction manager and all the data and lock managers.
+ * A blocked transaction waits on the variable of the operation it is blocked on. The data and lock managers wake up the waiters on a variable
+ * whenever its locks or its read availability change at a site, and the transaction manager only retries the operations of the transactions
+ * woken up since its last run, instead of retrying every blocked transaction at every tick.
+ * A woken up transaction leaves the queue, it is queued again if its operation is still blocked when it is retried.
+ */
+public class LockWaitQueues {
+	//A Map<Key,value>, key is a variable and value is the set of transactions waiting on it, in the order in which they started waiting
+	private Map waitersByVariable = new HashMap();
+	//A Map<Key,value>, key is a waiting transaction and value is the variable it waits on
+	private Map variablesByWaiter = new HashMap();
+	//Transactions woken up since the last call to takeWokenWaiters, in the order in which they were woken up
+	private Set wokenWaiters = new LinkedHashSet();
+	//Number of waiting transactions, read without holding the monitor so that lock requests don't contend on it while no transaction waits
+	private volatile int numberOfWaiters=0;
+
+	/**
+	 * Method which queues a transaction on a variable, removing it from the queue it was waiting in.
+	 * @param trxName - A String value, the blocked transaction.
+	 * @param variable - A String variable the transaction waits on.
+	 */
+	public synchronized void waitOn(String trxName, String variable)
+	{
+		remove(trxName);
+		Set waiters = (Set)waitersByVariable.get(variable);
+		if(waiters==null)
+		{
+			waiters = new LinkedHashSet();
+			waitersByVariable.put(variable, waiters);
+		}
+		waiters.add(trxName);
+		variablesByWaiter.put(trxName, variable);
+		numberOfWaiters=variablesByWaiter.size();
+	}
+
+	/**
+	 * Method which removes a transaction from the queue it waits in and from the woken up transactions.
+	 * @param trxName - A String value, the transaction.
+	 */
+	public synchronized void remove(String trxName)
+	{
+		wokenWaiters.remove(trxName);
+		String variable = (String)variablesByWaiter.remove(trxName);
+		if(variable!=null)
+		{
+			Set waiters = (Set)waitersByVariable.get(variable);
+			waiters.remove(trxName);
+			if(waiters.isEmpty())
+			{
+				waitersByVariable.remove(variable);
+			}
+			numberOfWaiters=variablesByWaiter.size();
+		}
+	}
+
+	/**
+	 * Method which wakes up a transaction whatever it waits on, which is the case when it has just been blocked.
+	 * @param trxName - A String value, the transaction.
+	 */
+	public synchronized void wake(String trxName)
+	{
+		remove(trxName);
+		wokenWaiters.add(trxName);
+	}
+
+	/**
+	 * Method which wakes up, in FIFO order, all the transactions waiting on a variable.
+	 * @param variable - A String variable whose locks or read availability have changed.
+	 */
+	public void wakeWaitersOn(String variable)
+	{
+		if(numberOfWaiters==0)
+		{
+			return;
+		}
+		synchronized(this)
+		{
+			wakeWaitersOnUnderLock(variable);
+		}
+	}
+
+	private void wakeWaitersOnUnderLock(String variable)
+	{
+		Set waiters = (Set)waitersByVariable.remove(variable);
+		if(waiters!=null)
+		{
+			Iterator itr = (Iterator)waiters.iterator();
+			while(itr.hasNext())
+			{
+				String trxName = (String)itr.next();
+				variablesByWaiter.remove(trxName);
+				wokenWaiters.add(trxName);
+			}
+			numberOfWaiters=variablesByWaiter.size();
+		}
+	}
+
+	/**
+	 * Method which wakes up all the transactions waiting on a variable stored at a site, which is the case when the site fails or recovers.
+	 * @param variableStore - A VariableStore object holding the variables of the site.
+	 */
+	public void wakeWaitersOnVariablesOf(VariableStore variableStore)
+	{
+		if(numberOfWaiters==0 || variableStore==null)
+		{
+			return;
+		}
+		synchronized(this)
+		{
+			Iterator itr = (Iterator)new ArrayList(waitersByVariable.keySet()).iterator();
+			while(itr.hasNext())
+			{
+				String variable = (String)itr.next();
+				if(variableStore.containsVariable(variable))
+				{
+					wakeWaitersOnUnderLock(variable);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method which returns the transactions woken up since the last call, and forgets about them.
+	 * @return List - A List of transaction names, in the order in which they were woken up.
+	 */
+	public synchronized List takeWokenWaiters()
+	{
+		List woken = new ArrayList(wokenWaiters);
+		wokenWaiters.clear();
+		return woken;
+	}
+
+	public int getNumberOfWaiters()
+	{
+		return numberOfWaiters;
+	}
+}
@@ -0,0 +1,125 @@
+package site;
+import java.util.*;
+
+/**
+ * Storage engine which keeps one VariablesVO object per variable in a map keyed by variable name.
+ */
+public class MapVariableStore implements VariableStore {
+	private Map mapOfVariablesAndValues = null;
+	//VariablesVO objects sorted by their initial values, i.e. in the order in which they are dumped
+	private VariablesVO[] sortedVariables = null;
+
+	/**
+	 * Constructor for MapVariableStore class.
+	 * @param mapOfVariablesAndValues - A map whose key is variable name and value is the corresponding VariablesVO object.
+	 */
+	public MapVariableStore(Map mapOfVariablesAndValues)
+	{
+		//Deep cloning not required
+		this.mapOfVariablesAndValues = (mapOfVariablesAndValues!=null)?mapOfVariablesAndValues:new HashMap();
+		List <VariablesVO>list = new ArrayList<VariablesVO>();
+		Iterator itr =(Iterator)this.mapOfVariablesAndValues.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			if(pairs!=null && pairs.getValue()!=null)
+			{
+				list.add((VariablesVO)pairs.getValue());
+			}
+		}
+		Collections.sort(list);
+		sortedVariables = list.toArray(new VariablesVO[list.size()]);
+	}
+
+	public Map getMapOfVariablesAndValues()
+	{
+		return mapOfVariablesAndValues;
+	}
+
+	public boolean containsVariable(String variable)
+	{
+		return variable!=null && mapOfVariablesAndValues.containsKey(variable);
+	}
+
+	public VariablesVO getVariableVO(String variable)
+	{
+		return (variable!=null)?(VariablesVO)mapOfVariablesAndValues.get(variable):null;
+	}
+
+	public VariablesVO getVariableVOHoldingLockInformation(String variable)
+	{
+		return getVariableVO(variable);
+	}
+
+	public void releaseVariableVO(VariablesVO variableVO)
+	{
+		//Every variable keeps its VariablesVO object
+	}
+
+	public Collection getVariableVOsHoldingLockInformation()
+	{
+		return mapOfVariablesAndValues.values();
+	}
+
+	public int getValueOfVariable(String variable)
+	{
+		VariablesVO variableVO = getVariableVO(variable);
+		return (variableVO!=null)?variableVO.getValue():0;
+	}
+
+	public long getVersionNumberOfVariable(String variable)
+	{
+		VariablesVO variableVO = getVariableVO(variable);
+		return (variableVO!=null)?variableVO.getVersionNumber():0;
+	}
+
+	public boolean isVariableAvailableForReadOperation(String variable)
+	{
+		VariablesVO variableVO = getVariableVO(variable);
+		return variableVO!=null && variableVO.isVariableAvailableForReadOperation();
+	}
+
+	public void makeReplicatedVariablesUnavailableForReadOperation()
+	{
+		for(int i=0;i<sortedVariables.length;i++)
+		{
+			if(sortedVariables[i].isVariableReplicated())
+			{
+				sortedVariables[i].makeVariableUnavailableForReadOperation();
+			}
+		}
+	}
+
+	public int getNumberOfVariables()
+	{
+		return sortedVariables.length;
+	}
+
+	public String getVariableAt(int index)
+	{
+		return sortedVariables[index].getVariable();
+	}
+
+	public int getValueAt(int index)
+	{
+		return sortedVariables[index].getValue();
+	}
+
+	public boolean isVariableAvailableForReadOperationAt(int index)
+	{
+		return sortedVariables[index].isVariableAvailableForReadOperation();
+	}
+
+	public void restoreVariableAt(int index, int value, boolean isAvailableForReadOperation)
+	{
+		sortedVariables[index].setValue(value);
+		if(isAvailableForReadOperation)
+		{
+			sortedVariables[index].makeVariableAvailableForReadOperation();
+		}
+		else
+		{
+			sortedVariables[index].makeVariableUnavailableForReadOperation();
+		}
+	}
+}
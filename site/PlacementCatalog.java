@@ -0,0 +1,307 @@
+package site;
+import java.util.*;
+
+/**
+ * A catalog describing the topology of the database, i.e. the number of sites, the variables x1..xM, the sites at which each variable is placed
+ * and its initial value. By default variable xi has the initial value 10*i, odd variables are placed at site 1+(i mod N) and even variables are
+ * replicated at replicationFactor sites starting from site 1+(i mod N), which is every site by default.
+ * Explicit placements and values can be given per variable and override these rules.
+ * Replicated variables are read from one available copy and written to all of them unless read and write quorums are configured, in which case a read
+ * has to lock quorum.read of the copies and a write quorum.write of them, and the quorums of every replicated variable must overlap.
+ */
+public class PlacementCatalog {
+	public static final String SITES_KEY="sites";
+	public static final String VARIABLES_KEY="variables";
+	public static final String REPLICATED_KEY="replicated";
+	public static final String REPLICATION_FACTOR_KEY="replicationFactor";
+	public static final String PLACEMENT_KEY_PREFIX="placement.";
+	public static final String VALUE_KEY_PREFIX="value.";
+	public static final String READ_QUORUM_KEY="quorum.read";
+	public static final String WRITE_QUORUM_KEY="quorum.write";
+	public static final String REPLICATE_EVEN_VARIABLES="even";
+	public static final String REPLICATE_ALL_VARIABLES="all";
+	public static final String REPLICATE_NO_VARIABLES="none";
+
+	private int numberOfSites=10;
+	private int numberOfVariables=20;
+	private int replicationFactor=10;
+	private String replicated=REPLICATE_EVEN_VARIABLES;
+	//A Map<Key,value>, key is variable id and value is an array of ids of the sites explicitly hosting the variable
+	private Map<Integer,int[]> explicitPlacements=null;
+	//A Map<Key,value>, key is variable id and value is the explicitly configured initial value of the variable
+	private Map<Integer,Integer> explicitValues=null;
+	//Number of copies of a replicated variable a read, and a write, has to lock, 0 if replicated variables are read and written with the available copies algorithm
+	private int readQuorum=0;
+	private int writeQuorum=0;
+
+	/**
+	 * Constructor which builds the default topology of 10 sites and 20 variables.
+	 */
+	public PlacementCatalog()
+	{
+		this(new Properties());
+	}
+
+	/**
+	 * Constructor which builds the topology described by the configuration. Missing keys fall back to the default topology.
+	 * @param configuration - A Properties object holding the topology configuration.
+	 * @throws IllegalArgumentException if the configuration describes an invalid topology.
+	 */
+	public PlacementCatalog(Properties configuration)
+	{
+		explicitPlacements=new HashMap<Integer,int[]>();
+		explicitValues=new HashMap<Integer,Integer>();
+		if(configuration!=null)
+		{
+			numberOfSites=ConfigurationParser.parseInt(configuration,SITES_KEY,numberOfSites,1);
+			numberOfVariables=ConfigurationParser.parseInt(configuration,VARIABLES_KEY,numberOfVariables,1);
+			replicationFactor=ConfigurationParser.parseInt(configuration,REPLICATION_FACTOR_KEY,numberOfSites,1);
+			replicated=configuration.getProperty(REPLICATED_KEY,REPLICATE_EVEN_VARIABLES).trim();
+			if(!REPLICATE_EVEN_VARIABLES.equals(replicated) && !REPLICATE_ALL_VARIABLES.equals(replicated) && !REPLICATE_NO_VARIABLES.equals(replicated))
+			{
+				throw new IllegalArgumentException("Invalid value "+replicated+" for "+REPLICATED_KEY);
+			}
+			if(replicationFactor>numberOfSites)
+			{
+				throw new IllegalArgumentException(REPLICATION_FACTOR_KEY+" "+replicationFactor+" exceeds the number of sites "+numberOfSites);
+			}
+			Iterator itr = configuration.stringPropertyNames().iterator();
+			while(itr.hasNext())
+			{
+				String key = (String)itr.next();
+				if(key.startsWith(PLACEMENT_KEY_PREFIX))
+				{
+					int variableId = getVariableIdOrFail(key.substring(PLACEMENT_KEY_PREFIX.length()));
+					explicitPlacements.put(variableId, parseSiteIds(key,configuration.getProperty(key)));
+				}
+				else if(key.startsWith(VALUE_KEY_PREFIX))
+				{
+					int variableId = getVariableIdOrFail(key.substring(VALUE_KEY_PREFIX.length()));
+					try
+					{
+						explicitValues.put(variableId, Integer.parseInt(configuration.getProperty(key).trim()));
+					}
+					catch(NumberFormatException numberFormatException)
+					{
+						throw new IllegalArgumentException("Invalid value "+configuration.getProperty(key)+" for "+key);
+					}
+				}
+			}
+			readQuorum=ConfigurationParser.parseInt(configuration,READ_QUORUM_KEY,0,1);
+			writeQuorum=ConfigurationParser.parseInt(configuration,WRITE_QUORUM_KEY,0,1);
+			if((readQuorum==0)!=(writeQuorum==0))
+			{
+				throw new IllegalArgumentException(READ_QUORUM_KEY+" and "+WRITE_QUORUM_KEY+" have to be configured together");
+			}
+			if(readQuorum>0)
+			{
+				checkQuorums();
+			}
+		}
+	}
+
+	/**
+	 * Method which checks that the read and write quorums of every replicated variable overlap, i.e. that a read quorum and a write quorum share a copy
+	 * and two write quorums do too, so that a read always locks a copy holding the latest committed value and two writes never both get their quorum.
+	 * @throws IllegalArgumentException if they don't for some replicated variable.
+	 */
+	private void checkQuorums()
+	{
+		for(int variableId=1;variableId<=numberOfVariables;variableId++)
+		{
+			int numberOfCopies = getNumberOfHomeSites(variableId);
+			if(numberOfCopies>1 && (readQuorum>numberOfCopies || writeQuorum>numberOfCopies || readQuorum+writeQuorum<=numberOfCopies || 2*writeQuorum<=numberOfCopies))
+			{
+				throw new IllegalArgumentException(READ_QUORUM_KEY+" "+readQuorum+" and "+WRITE_QUORUM_KEY+" "+writeQuorum+" don't overlap for variable "+getVariableName(variableId)+" which has "+numberOfCopies+" copies");
+			}
+		}
+	}
+
+	public int getNumberOfSites()
+	{
+		return numberOfSites;
+	}
+	public int getNumberOfVariables()
+	{
+		return numberOfVariables;
+	}
+
+	/**
+	 * Method which checks if replicated variables are read and written through quorums rather than with the available copies algorithm.
+	 */
+	public boolean isQuorumReplication()
+	{
+		return readQuorum>0;
+	}
+	public int getReadQuorum()
+	{
+		return readQuorum;
+	}
+	public int getWriteQuorum()
+	{
+		return writeQuorum;
+	}
+
+	/**
+	 * Method which maps a variable name such as x12 to its id 12 without any lookup table.
+	 * @param variable - A String variable.
+	 * @return int - The id of the variable, or 0 if the variable is not part of the catalog.
+	 */
+	public int getVariableId(String variable)
+	{
+		if(variable==null || variable.length()<2 || variable.length()>11 || variable.charAt(0)!='x')
+		{
+			return 0;
+		}
+		long id=0;
+		for(int i=1;i<variable.length();i++)
+		{
+			char c = variable.charAt(i);
+			if(c<'0' || c>'9' || (i==1 && c=='0'))
+			{
+				return 0;
+			}
+			id=id*10+(c-'0');
+		}
+		return (id>numberOfVariables)?0:(int)id;
+	}
+
+	public String getVariableName(int variableId)
+	{
+		return "x"+variableId;
+	}
+
+	public int getInitialValue(int variableId)
+	{
+		Integer value = explicitValues.isEmpty()?null:explicitValues.get(variableId);
+		return (value!=null)?value.intValue():10*variableId;
+	}
+
+	/**
+	 * Method which returns the number of sites hosting a copy of the variable.
+	 * @param variableId - An integer value representing id of the variable.
+	 */
+	public int getNumberOfHomeSites(int variableId)
+	{
+		if(variableId<1 || variableId>numberOfVariables)
+		{
+			return 0;
+		}
+		int[] sites = explicitPlacements.isEmpty()?null:explicitPlacements.get(variableId);
+		if(sites!=null)
+		{
+			return sites.length;
+		}
+		if(REPLICATE_ALL_VARIABLES.equals(replicated) || (REPLICATE_EVEN_VARIABLES.equals(replicated) && variableId%2==0))
+		{
+			return replicationFactor;
+		}
+		return 1;
+	}
+
+	/**
+	 * Method which returns the index-th site (0 based) hosting a copy of the variable.
+	 * @param variableId - An integer value representing id of the variable.
+	 * @param index - An integer value between 0 and getNumberOfHomeSites(variableId)-1.
+	 */
+	public int getHomeSite(int variableId, int index)
+	{
+		int[] sites = explicitPlacements.isEmpty()?null:explicitPlacements.get(variableId);
+		if(sites!=null)
+		{
+			return sites[index];
+		}
+		return 1+((variableId+index)%numberOfSites);
+	}
+
+	/**
+	 * Method which returns ids of all the sites hosting a copy of the variable.
+	 * @param variable - A String variable.
+	 * @return int[] - An array of site ids, empty if the variable is not part of the catalog.
+	 */
+	public int[] getHomeSites(String variable)
+	{
+		int variableId = getVariableId(variable);
+		int[] sites = new int[getNumberOfHomeSites(variableId)];
+		for(int i=0;i<sites.length;i++)
+		{
+			sites[i]=getHomeSite(variableId,i);
+		}
+		return sites;
+	}
+
+	/**
+	 * Method which checks if the variable is placed at the site.
+	 * @param variable - A String variable.
+	 * @param siteId - An integer value representing id of the site.
+	 */
+	public boolean isHomeSite(String variable, int siteId)
+	{
+		int variableId = getVariableId(variable);
+		int[] sites = explicitPlacements.isEmpty()?null:explicitPlacements.get(variableId);
+		if(sites!=null)
+		{
+			for(int i=0;i<sites.length;i++)
+			{
+				if(sites[i]==siteId)
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+		int count = getNumberOfHomeSites(variableId);
+		if(count==0 || siteId<1 || siteId>numberOfSites)
+		{
+			return false;
+		}
+		int offset = ((siteId-1)-(variableId%numberOfSites)+numberOfSites)%numberOfSites;
+		return offset<count;
+	}
+
+	/**
+	 * Method which checks if the variable has copies at more than one site.
+	 * @param variable - A String variable.
+	 */
+	public boolean isVariableReplicated(String variable)
+	{
+		return getNumberOfHomeSites(getVariableId(variable))>1;
+	}
+
+	public boolean isVariableReplicated(int variableId)
+	{
+		return getNumberOfHomeSites(variableId)>1;
+	}
+
+	private int getVariableIdOrFail(String variable)
+	{
+		int variableId = getVariableId(variable.trim());
+		if(variableId==0)
+		{
+			throw new IllegalArgumentException("Variable "+variable+" is not one of x1..x"+numberOfVariables);
+		}
+		return variableId;
+	}
+
+	private int[] parseSiteIds(String key, String value)
+	{
+		String[] tokens = value.split(",");
+		int[] sites = new int[tokens.length];
+		for(int i=0;i<tokens.length;i++)
+		{
+			try
+			{
+				sites[i]=Integer.parseInt(tokens[i].trim());
+			}
+			catch(NumberFormatException numberFormatException)
+			{
+				throw new IllegalArgumentException("Invalid site "+tokens[i]+" for "+key);
+			}
+			if(sites[i]<1 || sites[i]>numberOfSites)
+			{
+				throw new IllegalArgumentException("Invalid site "+sites[i]+" for "+key);
+			}
+		}
+		return sites;
+	}
+}
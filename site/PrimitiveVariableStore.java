@@ -0,0 +1,246 @@
+package site;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Storage engine which interns the variables of a site to dense int ids and keeps their committed values in an int[] and their
+ * replication and read availability flags in bitsets. A VariablesVO object is only created for a variable while it is being
+ * locked, and it reads and writes the value and availability of the variable through the arrays of this store.
+ */
+public class PrimitiveVariableStore implements VariableStore {
+	private PlacementCatalog placementCatalog = null;
+	//Catalog ids of the variables stored at this site, in ascending order. The position of a variable in this array is its dense id.
+	private int[] variableIds = null;
+	private int[] values = null;
+	private BitSet replicated = null;
+	private BitSet unavailableForReadOperation = null;
+	//Version numbers of the committed values, only allocated once a value is committed with a version number
+	private volatile long[] versionNumbers = null;
+	//Dense ids sorted by initial value, or null if that is the order of the dense ids themselves
+	private int[] dumpOrder = null;
+	//A Map<Key,value>, key is dense id and value is the VariablesVO object created for the variable while it is locked.
+	//Lock requests look it up without holding any monitor.
+	private Map<Integer,VariablesVO> variableVOs = null;
+
+	/**
+	 * Constructor for PrimitiveVariableStore class.
+	 * @param placementCatalog - A PlacementCatalog object describing the variables.
+	 * @param variableIds - An array holding catalog ids of the variables stored at the site, in ascending order.
+	 */
+	public PrimitiveVariableStore(PlacementCatalog placementCatalog, int[] variableIds)
+	{
+		this.placementCatalog=placementCatalog;
+		this.variableIds=variableIds;
+		values=new int[variableIds.length];
+		replicated=new BitSet(variableIds.length);
+		unavailableForReadOperation=new BitSet(variableIds.length);
+		variableVOs=new ConcurrentHashMap<Integer,VariablesVO>();
+		boolean sortedByInitialValue=true;
+		for(int i=0;i<variableIds.length;i++)
+		{
+			values[i]=placementCatalog.getInitialValue(variableIds[i]);
+			if(placementCatalog.isVariableReplicated(variableIds[i]))
+			{
+				replicated.set(i);
+			}
+			if(i>0 && placementCatalog.getInitialValue(variableIds[i-1])>values[i])
+			{
+				sortedByInitialValue=false;
+			}
+		}
+		if(!sortedByInitialValue)
+		{
+			Integer[] order = new Integer[variableIds.length];
+			for(int i=0;i<order.length;i++)
+			{
+				order[i]=i;
+			}
+			final PlacementCatalog catalog = placementCatalog;
+			final int[] ids = variableIds;
+			Arrays.sort(order, new Comparator<Integer>() {
+				public int compare(Integer first, Integer second) {
+					return catalog.getInitialValue(ids[first]) - catalog.getInitialValue(ids[second]);
+				}
+			});
+			dumpOrder=new int[order.length];
+			for(int i=0;i<order.length;i++)
+			{
+				dumpOrder[i]=order[i];
+			}
+		}
+	}
+
+	/**
+	 * Method which maps a variable name to its dense id at this site.
+	 * @param variable - A String variable.
+	 * @return int - The dense id of the variable, or -1 if the variable is not stored at this site.
+	 */
+	public int getDenseId(String variable)
+	{
+		int variableId = placementCatalog.getVariableId(variable);
+		if(variableId==0 || variableIds.length==0)
+		{
+			return -1;
+		}
+		//Sites which store a contiguous range of variables don't need a search
+		if(variableIds[variableIds.length-1]-variableIds[0]==variableIds.length-1)
+		{
+			int denseId = variableId-variableIds[0];
+			return (denseId>=0 && denseId<variableIds.length)?denseId:-1;
+		}
+		int denseId = Arrays.binarySearch(variableIds, variableId);
+		return (denseId>=0)?denseId:-1;
+	}
+
+	public boolean containsVariable(String variable)
+	{
+		return getDenseId(variable)>=0;
+	}
+
+	public VariablesVO getVariableVO(String variable)
+	{
+		int denseId = getDenseId(variable);
+		if(denseId<0)
+		{
+			return null;
+		}
+		VariablesVO variableVO = variableVOs.get(denseId);
+		if(variableVO==null)
+		{
+			variableVO = new DenseVariablesVO(this,denseId,placementCatalog.getVariableName(variableIds[denseId]),placementCatalog.getInitialValue(variableIds[denseId]),replicated.get(denseId));
+			VariablesVO existingVariableVO = variableVOs.putIfAbsent(denseId, variableVO);
+			if(existingVariableVO!=null)
+			{
+				variableVO = existingVariableVO;
+			}
+		}
+		return variableVO;
+	}
+
+	public VariablesVO getVariableVOHoldingLockInformation(String variable)
+	{
+		int denseId = getDenseId(variable);
+		return (denseId>=0)?variableVOs.get(denseId):null;
+	}
+
+	public void releaseVariableVO(VariablesVO variableVO)
+	{
+		if(variableVO instanceof DenseVariablesVO && (variableVO.getTrxsReadLockingVariable()==null || variableVO.getTrxsReadLockingVariable().isEmpty()) && (variableVO.getTrxWriteLockingVariable()==null || variableVO.getTrxWriteLockingVariable().isEmpty()))
+		{
+			variableVOs.remove(((DenseVariablesVO)variableVO).denseId);
+		}
+	}
+
+	public Collection getVariableVOsHoldingLockInformation()
+	{
+		return variableVOs.values();
+	}
+
+	public int getValueOfVariable(String variable)
+	{
+		int denseId = getDenseId(variable);
+		return (denseId>=0)?values[denseId]:0;
+	}
+
+	public long getVersionNumberOfVariable(String variable)
+	{
+		int denseId = getDenseId(variable);
+		long[] versions = versionNumbers;
+		return (denseId>=0 && versions!=null)?versions[denseId]:0;
+	}
+
+	public boolean isVariableAvailableForReadOperation(String variable)
+	{
+		int denseId = getDenseId(variable);
+		return denseId>=0 && !unavailableForReadOperation.get(denseId);
+	}
+
+	public void makeReplicatedVariablesUnavailableForReadOperation()
+	{
+		unavailableForReadOperation.or(replicated);
+	}
+
+	public int getNumberOfVariables()
+	{
+		return variableIds.length;
+	}
+
+	public String getVariableAt(int index)
+	{
+		return placementCatalog.getVariableName(variableIds[getDenseIdAt(index)]);
+	}
+
+	public int getValueAt(int index)
+	{
+		return values[getDenseIdAt(index)];
+	}
+
+	public boolean isVariableAvailableForReadOperationAt(int index)
+	{
+		return !unavailableForReadOperation.get(getDenseIdAt(index));
+	}
+
+	public void restoreVariableAt(int index, int value, boolean isAvailableForReadOperation)
+	{
+		int denseId = getDenseIdAt(index);
+		values[denseId]=value;
+		unavailableForReadOperation.set(denseId, !isAvailableForReadOperation);
+	}
+
+	private synchronized long[] getOrCreateVersionNumbers()
+	{
+		if(versionNumbers==null)
+		{
+			versionNumbers = new long[variableIds.length];
+		}
+		return versionNumbers;
+	}
+
+	private int getDenseIdAt(int index)
+	{
+		return (dumpOrder!=null)?dumpOrder[index]:index;
+	}
+
+	/**
+	 * A VariablesVO whose value and read availability live in the arrays of a PrimitiveVariableStore.
+	 */
+	private static class DenseVariablesVO extends VariablesVO {
+		private PrimitiveVariableStore store = null;
+		private int denseId = 0;
+
+		DenseVariablesVO(PrimitiveVariableStore store, int denseId, String variable, int initialValue, boolean isVariableReplicated)
+		{
+			super(variable, initialValue, isVariableReplicated);
+			this.store=store;
+			this.denseId=denseId;
+		}
+		public int getValue() {
+			return store.values[denseId];
+		}
+		public void setValue(int value) {
+			store.values[denseId]=value;
+		}
+		public long getVersionNumber() {
+			long[] versions = store.versionNumbers;
+			return (versions!=null)?versions[denseId]:0;
+		}
+		public void setVersionNumber(long versionNumber) {
+			if(versionNumber!=0 || store.versionNumbers!=null)
+			{
+				store.getOrCreateVersionNumbers()[denseId]=versionNumber;
+			}
+		}
+		public boolean isVariableAvailableForReadOperation()
+		{
+			return !store.unavailableForReadOperation.get(denseId);
+		}
+		public void makeVariableUnavailableForReadOperation()
+		{
+			store.unavailableForReadOperation.set(denseId);
+		}
+		public void makeVariableAvailableForReadOperation()
+		{
+			store.unavailableForReadOperation.clear(denseId);
+		}
+	}
+}
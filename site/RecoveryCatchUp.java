@@ -0,0 +1,234 @@
+package site;
+import java.io.*;
+import java.util.*;
+import output.OutputSink;
+
+/**
+ * Catches up the replicated variables of recovered sites, which are unavailable for read operation until a committed write reaches them, in the background
+ * of the execution: at the end of every tick, a batch of them is copied from up-to-date copies, i.e. copies available for read operation at other sites
+ * which are up, and each of them becomes available for read operation as it arrives. A variable with no up-to-date copy at the moment is retried once
+ * the other variables of its site have been visited. A site has caught up once all its replicated variables are available again, and stops catching up if it fails.
+ */
+public class RecoveryCatchUp {
+	private PlacementCatalog placementCatalog = null;
+	//Number of variables visited at every recovering site per tick
+	private int batchSize=0;
+	//A Map<Key,value>, key is id of a recovering site and value is its SiteCatchUp, in the order in which the sites recovered
+	private Map recoveringSites = new LinkedHashMap();
+	//Failure detector whose suspected sites don't catch up until they are trusted again, as the writes are routed away from them, null if there is none
+	private FailureDetector failureDetector = null;
+
+	/**
+	 * Constructor for RecoveryCatchUp class.
+	 * @param placementCatalog - A PlacementCatalog object describing at which sites each variable is placed.
+	 * @param batchSize - Number of variables visited at every recovering site per tick.
+	 */
+	public RecoveryCatchUp(PlacementCatalog placementCatalog, int batchSize)
+	{
+		this.placementCatalog=placementCatalog;
+		this.batchSize=batchSize;
+	}
+
+	public void setFailureDetector(FailureDetector failureDetector)
+	{
+		this.failureDetector=failureDetector;
+	}
+
+	/**
+	 * Method which starts catching up the replicated variables a site which has just recovered can't read.
+	 * @param dataAndLockManager - A DataAndLockManager object, the data and lock manager of the recovered site.
+	 * @param tick - An integer value, the tick at which the site recovered.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @throws IOException
+	 */
+	public void startCatchingUp(DataAndLockManager dataAndLockManager, int tick, OutputSink out)throws IOException
+	{
+		Site site = dataAndLockManager.getSiteServicedByDataAndLockMgr();
+		VariableStore variableStore = (site!=null)?site.getVariableStore():null;
+		if(variableStore==null || !site.getSiteStatus())
+		{
+			return;
+		}
+		int[] pendingIndexes = new int[variableStore.getNumberOfVariables()];
+		int numberOfPendingIndexes = 0;
+		for(int i=0;i<variableStore.getNumberOfVariables();i++)
+		{
+			if(!variableStore.isVariableAvailableForReadOperationAt(i))
+			{
+				pendingIndexes[numberOfPendingIndexes++]=i;
+			}
+		}
+		recoveringSites.remove(site.getSiteId());
+		if(numberOfPendingIndexes>0)
+		{
+			recoveringSites.put(site.getSiteId(), new SiteCatchUp(tick, Arrays.copyOf(pendingIndexes, numberOfPendingIndexes)));
+			out.write("Site "+site.getSiteId()+" starts catching up "+numberOfPendingIndexes+" replicated variable(s) from up-to-date copies.");
+			out.newLine();
+		}
+	}
+
+	/**
+	 * Method which visits the next batch of variables of every recovering site, copying the ones which are still unavailable for read operation from
+	 * up-to-date copies. Called at the end of every tick.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param tick - An integer value, the tick which ended.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @throws IOException
+	 */
+	public void catchUp(Map dataAndLockManagersMap, int tick, OutputSink out)throws IOException
+	{
+		Iterator itr = (Iterator)recoveringSites.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			int siteId = ((Integer)pairs.getKey()).intValue();
+			SiteCatchUp siteCatchUp = (SiteCatchUp)pairs.getValue();
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataAndLockManagersMap.get(siteId);
+			Site site = dataAndLockManager.getSiteServicedByDataAndLockMgr();
+			if(!site.getSiteStatus())
+			{
+				itr.remove();
+				out.write("Site "+siteId+" stops catching up as it is down. "+siteCatchUp.getNumberOfVariablesLeft()+" replicated variable(s) were left.");
+				out.newLine();
+				continue;
+			}
+			if(failureDetector!=null && failureDetector.isSuspected(siteId))
+			{
+				continue;
+			}
+			VariableStore variableStore = site.getVariableStore();
+			int numberOfCaughtUpVariables = 0;
+			//A variable is visited at most once per tick
+			int numberOfVariablesToVisit = Math.min(batchSize, siteCatchUp.getNumberOfVariablesLeft());
+			for(int i=0;i<numberOfVariablesToVisit;i++)
+			{
+				int index = siteCatchUp.nextIndex();
+				if(variableStore.isVariableAvailableForReadOperationAt(index))
+				{
+					//A committed write has reached it
+					continue;
+				}
+				String variable = variableStore.getVariableAt(index);
+				DataAndLockManager upToDateCopy = getUpToDateCopy(variable, siteId, dataAndLockManagersMap);
+				if(upToDateCopy!=null && dataAndLockManager.catchUpUnavailableVariable(variable, upToDateCopy.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable)))
+				{
+					numberOfCaughtUpVariables++;
+				}
+				else if(upToDateCopy==null)
+				{
+					siteCatchUp.retry(index);
+				}
+			}
+			if(siteCatchUp.getNumberOfVariablesLeft()==0)
+			{
+				itr.remove();
+				out.write("Site "+siteId+" caught up "+numberOfCaughtUpVariables+" replicated variable(s) and has caught up with up-to-date copies "+(tick-siteCatchUp.getRecoveryTick())+" tick(s) after recovering.");
+				out.newLine();
+			}
+			else if(numberOfCaughtUpVariables>0)
+			{
+				out.write("Site "+siteId+" caught up "+numberOfCaughtUpVariables+" replicated variable(s), "+siteCatchUp.getNumberOfVariablesLeft()+" left "+(tick-siteCatchUp.getRecoveryTick())+" tick(s) after recovering.");
+				out.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Method which checks if a site is catching up.
+	 * @param siteId - An integer value, the id of the site.
+	 */
+	public boolean isCatchingUp(int siteId)
+	{
+		return recoveringSites.containsKey(siteId);
+	}
+
+	/**
+	 * Method which returns the number of replicated variables a recovering site has yet to visit, some of which may have been reached by committed writes meanwhile.
+	 * @param siteId - An integer value, the id of the site.
+	 * @return int - The number of variables, 0 if the site isn't catching up.
+	 */
+	public int getNumberOfVariablesLeft(int siteId)
+	{
+		SiteCatchUp siteCatchUp = (SiteCatchUp)recoveringSites.get(siteId);
+		return (siteCatchUp!=null)?siteCatchUp.getNumberOfVariablesLeft():0;
+	}
+
+	/**
+	 * Method which returns the number of ticks a recovering site has been catching up for.
+	 * @param siteId - An integer value, the id of the site.
+	 * @param tick - An integer value, the current tick.
+	 * @return int - The number of ticks since the site recovered, 0 if the site isn't catching up.
+	 */
+	public int getLagTicks(int siteId, int tick)
+	{
+		SiteCatchUp siteCatchUp = (SiteCatchUp)recoveringSites.get(siteId);
+		return (siteCatchUp!=null)?tick-siteCatchUp.getRecoveryTick():0;
+	}
+
+	/**
+	 * Method which returns the data and lock manager of the first site other than the recovering one, in the order of the home sites of a variable,
+	 * which is up and can read the variable, and thus holds its latest committed value.
+	 * @return DataAndLockManager - A DataAndLockManager object, or null if there is no such site.
+	 */
+	private DataAndLockManager getUpToDateCopy(String variable, int recoveringSiteId, Map dataAndLockManagersMap)
+	{
+		int variableId = placementCatalog.getVariableId(variable);
+		for(int i=0;i<placementCatalog.getNumberOfHomeSites(variableId);i++)
+		{
+			int siteId = placementCatalog.getHomeSite(variableId,i);
+			DataAndLockManager dataAndLockManager = (siteId!=recoveringSiteId)?(DataAndLockManager)dataAndLockManagersMap.get(siteId):null;
+			if(dataAndLockManager!=null && dataAndLockManager.isVariableAvailableToBeReadFromSite(variable))
+			{
+				return dataAndLockManager;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The variables of a recovering site left to visit: the ones unavailable for read operation when it recovered, and the ones which had no up-to-date copy when visited.
+	 */
+	private static class SiteCatchUp {
+		private int recoveryTick=0;
+		private int[] pendingIndexes=null;
+		private int position=0;
+		private int[] retriedIndexes=null;
+		private int numberOfRetriedIndexes=0;
+
+		SiteCatchUp(int recoveryTick, int[] pendingIndexes)
+		{
+			this.recoveryTick=recoveryTick;
+			this.pendingIndexes=pendingIndexes;
+			this.retriedIndexes=new int[pendingIndexes.length];
+		}
+
+		int getRecoveryTick()
+		{
+			return recoveryTick;
+		}
+
+		int getNumberOfVariablesLeft()
+		{
+			return pendingIndexes.length-position+numberOfRetriedIndexes;
+		}
+
+		int nextIndex()
+		{
+			if(position==pendingIndexes.length)
+			{
+				//Every pending variable has been visited, the retried ones are visited again
+				int[] visitedIndexes = pendingIndexes;
+				pendingIndexes=Arrays.copyOf(retriedIndexes, numberOfRetriedIndexes);
+				retriedIndexes=visitedIndexes;
+				numberOfRetriedIndexes=0;
+				position=0;
+			}
+			return pendingIndexes[position++];
+		}
+
+		void retry(int index)
+		{
+			retriedIndexes[numberOfRetriedIndexes++]=index;
+		}
+	}
+}
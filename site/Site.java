@@ -1,5 +1,6 @@
 package site;
 import java.io.*;
+import output.OutputSink;
 import java.util.*;
 
 /**
@@ -11,14 +12,17 @@ public class Site {
 	private boolean isSiteUp;
 	private int siteId;
 	private int siteFailedAtTick;
-	private Map mapOfVariablesAndValues = null;
+	//Storage engine holding the variables available at this site
+	private VariableStore variableStore = null;
 	public Site(int siteId, Map mapOfVariablesAndValues)
 	{	
+		this(siteId,new MapVariableStore(mapOfVariablesAndValues));
+	}
+	public Site(int siteId, VariableStore variableStore)
+	{
 		isSiteUp = true;
 		this.siteId=siteId;
-		this.mapOfVariablesAndValues = new HashMap();
-		//Deep cloning not required
-		this.mapOfVariablesAndValues = mapOfVariablesAndValues;
+		this.variableStore=variableStore;
 	}
 		
 	/**
@@ -51,9 +55,9 @@ public class Site {
 	{
 		return siteId;
 	}
-	public Map getMapOfVariablesAndValuesAtSite()
+	public VariableStore getVariableStore()
 	{
-		return mapOfVariablesAndValues;
+		return variableStore;
 	}
 	/**
 	 * @param variable
@@ -61,7 +65,7 @@ public class Site {
 	 */
 	public boolean isVariableAvailableOnSite(String variable)
 	{
-		if(variable!=null && !"".equals(variable) && isSiteUp && mapOfVariablesAndValues!=null && mapOfVariablesAndValues.containsKey(variable))
+		if(variable!=null && !"".equals(variable) && isSiteUp && variableStore!=null && variableStore.containsVariable(variable))
 		{
 			return true;
 		}else
@@ -75,17 +79,9 @@ public class Site {
 	 */
 	public int getValueOfVariableAtSite(String variable)
 	{
-		if(variable!=null && !"".equals(variable) && isSiteUp && mapOfVariablesAndValues!=null && mapOfVariablesAndValues.containsKey(variable))
+		if(variable!=null && !"".equals(variable) && isSiteUp && variableStore!=null && variableStore.containsVariable(variable))
 		{
-			VariablesVO variableVO = (VariablesVO)mapOfVariablesAndValues.get(variable);
-			if(variableVO!=null)
-			{
-				return variableVO.getValue();
-			}
-			else
-			{
-				return 0;
-			}
+			return variableStore.getValueOfVariable(variable);
 		}else
 		{
 			return 0;
@@ -94,26 +90,22 @@ public class Site {
 	/**
 	 * Method which dumps committed values of the variable available at this site to console and output  file.
 	 * @author - Ashish Walia
-	 * @param out - A BufferedWriter object to write contents in the output file
+	 * @param out - An OutputSink object to write contents in the output file
 	 * @param variable - A string variable whose committed value needs to be dumped on the console and the output file
 	 * @throws IOException
 	 */
-	public void dump(String variable, BufferedWriter out)throws IOException
+	public void dump(String variable, OutputSink out)throws IOException
 	{
 		if(isVariableAvailableOnSite(variable))
 		{
-			out.write("----------");
+			out.writeResult("----------");
 			out.newLine();
-			out.write("Site "+ siteId);
+			out.writeResult("Site "+ siteId);
 			out.newLine();
-			out.write("----------");
+			out.writeResult("----------");
 			out.newLine();
-			out.write(variable+"="+getValueOfVariableAtSite(variable));
+			out.writeResult(variable+"="+getValueOfVariableAtSite(variable));
 			out.newLine();
-			System.out.println("----------");
-			System.out.println("Site "+ siteId);
-			System.out.println("----------");			
-			System.out.println(variable+"="+getValueOfVariableAtSite(variable));	
 		}
 	}
 	/**
@@ -124,10 +116,9 @@ public class Site {
 	 */
 	public boolean isVariableAvailableToBeReadFromSite(String variable)
 	{
-		if(variable!=null &&!"".equals(variable) && getSiteStatus()&& getMapOfVariablesAndValuesAtSite()!=null && getMapOfVariablesAndValuesAtSite().containsKey(variable))
+		if(variable!=null &&!"".equals(variable) && getSiteStatus()&& variableStore!=null && variableStore.containsVariable(variable))
 		{
-			VariablesVO variableVO = (VariablesVO)getMapOfVariablesAndValuesAtSite().get(variable);
-			if(variableVO!=null && variableVO.isVariableAvailableForReadOperation())
+			if(variableStore.isVariableAvailableForReadOperation(variable))
 			{
 				return true;
 			}
@@ -144,49 +135,29 @@ public class Site {
 	/**
 	 * Method which dumps committed values of all the variables available at this site to console and output  file
 	 * @author - Ashish Walia
-	 * @param out - A BufferedWriter object to write contents in the output file
+	 * @param out - An OutputSink object to write contents in the output file
 	 * @throws IOException
 	 */
-	public void dump(BufferedWriter out) throws IOException
+	public void dump(OutputSink out) throws IOException
 	{
-		if(isSiteUp && mapOfVariablesAndValues!=null)
+		if(isSiteUp && variableStore!=null)
 		{
-			out.write("----------");
+			out.writeResult("----------");
 			out.newLine();
-			out.write("Site "+ siteId);
+			out.writeResult("Site "+ siteId);
 			out.newLine();
-			out.write("----------");
+			out.writeResult("----------");
 			out.newLine();
-			System.out.println("----------");
-			System.out.println("Site "+ siteId);
-			System.out.println("----------");
-			List <VariablesVO>list = new ArrayList<VariablesVO>();
-			Iterator itr =(Iterator)mapOfVariablesAndValues.entrySet().iterator();
-			while(itr.hasNext())
-			{
-				Map.Entry pairs = (Map.Entry)itr.next();
-				if(pairs!=null)
-				{
-					VariablesVO variableVO=(VariablesVO)pairs.getValue();
-					if(variableVO!=null)
-					{
-						list.add(variableVO);
-					}
-				}
-			}
-			Collections.sort(list);
-			Iterator listIterator = (Iterator)list.iterator();
-			while(listIterator.hasNext())
+			//Variables are kept sorted by the storage engine
+			for(int i=0;i<variableStore.getNumberOfVariables();i++)
 			{
-				VariablesVO variableVO=(VariablesVO)listIterator.next();
-				if(variableVO!=null && variableVO.getVariable()!=null && !"".equals(variableVO.getVariable()))
+				String variable = variableStore.getVariableAt(i);
+				if(variable!=null && !"".equals(variable))
 				{
-					out.write(variableVO.getVariable()+"="+variableVO.getValue() + "   ");
-					System.out.print(variableVO.getVariable()+"="+variableVO.getValue() + "   ");
+					out.writeResult(variable+"="+variableStore.getValueAt(i) + "   ");
 				}
 			}
 			out.newLine();
-			System.out.println("");	
 			
 		}
 	}
@@ -0,0 +1,233 @@
+package site;
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import transaction.Transaction;
+
+/**
+ * Sends the requests the transaction manager fans out to many sites, write locks of replicated variables, prepares, commits and aborts, to the SiteRpcServer of
+ * every site over loopback TCP. The requests of a fan-out are pipelined: they are sent to all the sites before any reply is waited for, so that a fan-out
+ * costs one round trip rather than one per site.
+ * Every thread has its own connection to every site, as the replies of a connection come back in the order of its requests.
+ */
+public class SiteRpcClient {
+	//A Map<Key,value>, key is id of a site and value is its SiteRpcServer
+	private Map servers = new LinkedHashMap();
+	//Connections of the thread, a Map<Key,value>, key is id of a site and value is the Connection to it
+	private ThreadLocal connectionsOfThread = new ThreadLocal();
+	//Connections of all the threads, closed along with the client
+	private List connections = Collections.synchronizedList(new ArrayList());
+	private AtomicLong numberOfRequests = new AtomicLong();
+	private AtomicLong numberOfRoundTrips = new AtomicLong();
+
+	/**
+	 * Constructor for SiteRpcClient class, which starts a server for the data and lock manager of every site.
+	 * @param dataAndLockManagersMap - A map containing all the instances of data and lock managers
+	 * @param trxsMap - A Map<Key,value>, key is id of a transaction and value is its Transaction object, the transactions map of the transaction manager.
+	 * @throws IOException
+	 */
+	public SiteRpcClient(Map dataAndLockManagersMap, Map trxsMap)throws IOException
+	{
+		Iterator itr = (Iterator)dataAndLockManagersMap.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			SiteRpcServer server = new SiteRpcServer((DataAndLockManager)pairs.getValue(), trxsMap);
+			servers.put(pairs.getKey(), server);
+			server.start();
+		}
+	}
+
+	/**
+	 * Method which write locks a variable for a transaction at several sites.
+	 * @param trx - A Transaction object, the transaction.
+	 * @param variable - A String variable.
+	 * @param siteIds - An int array, the ids of the sites.
+	 * @throws IOException
+	 */
+	public void acquireWriteLock(Transaction trx, String variable, int[] siteIds)throws IOException
+	{
+		call(SiteRpcServer.ACQUIRE_WRITE_LOCK, trx, variable, 0, null, null, siteIds);
+	}
+
+	/**
+	 * Method which makes several sites vote on the commit of a transaction, every site logging the values of its own copies before voting to commit.
+	 * @param trx - A Transaction object, the transaction.
+	 * @param sitesAccessedAtTicks - An int array, the tick at which the transaction first accessed every site.
+	 * @param logId - A String variable, the id the write-ahead logs know the transaction by.
+	 * @param writeBatches - A WriteBatch array, the values written to the variables placed at every site, null for a site receiving none.
+	 * @param siteIds - An int array, the ids of the sites.
+	 * @return int[] - The vote of every site, as returned by prepareTransaction.
+	 * @throws IOException
+	 */
+	public int[] prepare(Transaction trx, int[] sitesAccessedAtTicks, String logId, WriteBatch[] writeBatches, int[] siteIds)throws IOException
+	{
+		return call(SiteRpcServer.PREPARE, trx, logId, 0, sitesAccessedAtTicks, writeBatches, siteIds);
+	}
+
+	/**
+	 * Method which commits the values written by a transaction at several sites, every site receiving the values of its own copies.
+	 * @param trx - A Transaction object, the transaction.
+	 * @param commitNumber - A long value, the version number of the values.
+	 * @param writeBatches - A WriteBatch array, the values written to the variables placed at every site.
+	 * @param siteIds - An int array, the ids of the sites.
+	 * @return int[] - The result of commitValuesForVariablesLockedByTransaction at every site.
+	 * @throws IOException
+	 */
+	public int[] commit(Transaction trx, long commitNumber, WriteBatch[] writeBatches, int[] siteIds)throws IOException
+	{
+		return call(SiteRpcServer.COMMIT, trx, null, commitNumber, null, writeBatches, siteIds);
+	}
+
+	/**
+	 * Method which aborts a transaction at several sites, releasing its locks.
+	 * @param trx - A Transaction object, the transaction.
+	 * @param siteIds - An int array, the ids of the sites.
+	 * @return int[] - The result of abortTransaction at every site.
+	 * @throws IOException
+	 */
+	public int[] abort(Transaction trx, int[] siteIds)throws IOException
+	{
+		return call(SiteRpcServer.ABORT, trx, null, 0, null, null, siteIds);
+	}
+
+	/**
+	 * Method which sends a request to several sites, then reads their replies.
+	 * @param argument - A String variable, the variable of a write lock, the log id of a prepare, or null.
+	 * @param ticks - An int array, the tick at which the transaction first accessed every site for a prepare, or null.
+	 * @param writeBatches - A WriteBatch array, the values of every site for a prepare or a commit, or null.
+	 */
+	private int[] call(byte opcode, Transaction trx, String argument, long commitNumber, int[] ticks, WriteBatch[] writeBatches, int[] siteIds)throws IOException
+	{
+		Connection[] connectionsToSites = new Connection[siteIds.length];
+		for(int i=0;i<siteIds.length;i++)
+		{
+			connectionsToSites[i]=getConnection(siteIds[i]);
+			DataOutputStream out = connectionsToSites[i].out;
+			out.writeByte(opcode);
+			out.writeUTF(trx.getTrxId());
+			if(opcode==SiteRpcServer.ACQUIRE_WRITE_LOCK)
+			{
+				out.writeUTF(argument);
+			}
+			else if(opcode==SiteRpcServer.COMMIT)
+			{
+				out.writeLong(commitNumber);
+				writeBatch(out, writeBatches[i]);
+			}
+			else if(opcode==SiteRpcServer.PREPARE)
+			{
+				out.writeInt(ticks[i]);
+				out.writeUTF(argument);
+				writeBatch(out, writeBatches[i]);
+			}
+			out.flush();
+		}
+		int[] results = new int[siteIds.length];
+		for(int i=0;i<siteIds.length;i++)
+		{
+			int status = connectionsToSites[i].in.readByte();
+			results[i] = connectionsToSites[i].in.readInt();
+			if(status!=SiteRpcServer.OK)
+			{
+				throw new IOException("Site "+siteIds[i]+" couldn't serve request "+opcode+" of transaction "+trx.getTrxId()+", status "+status);
+			}
+		}
+		numberOfRequests.addAndGet(siteIds.length);
+		if(siteIds.length>0)
+		{
+			numberOfRoundTrips.incrementAndGet();
+		}
+		return results;
+	}
+
+	private void writeBatch(DataOutputStream out, WriteBatch writeBatch)throws IOException
+	{
+		int size = (writeBatch!=null)?writeBatch.size():0;
+		out.writeInt(size);
+		for(int j=0;j<size;j++)
+		{
+			out.writeUTF(writeBatch.getVariable(j));
+			out.writeInt(writeBatch.getValue(j));
+		}
+	}
+
+	private Connection getConnection(int siteId)throws IOException
+	{
+		Map connectionsToSites = (Map)connectionsOfThread.get();
+		if(connectionsToSites==null)
+		{
+			connectionsToSites = new HashMap();
+			connectionsOfThread.set(connectionsToSites);
+		}
+		Connection connection = (Connection)connectionsToSites.get(siteId);
+		if(connection==null)
+		{
+			SiteRpcServer server = (SiteRpcServer)servers.get(siteId);
+			if(server==null)
+			{
+				throw new IOException("Site "+siteId+" isn't served.");
+			}
+			connection = new Connection(server.getPort());
+			connectionsToSites.put(siteId, connection);
+			connections.add(connection);
+		}
+		return connection;
+	}
+
+	/**
+	 * Method which returns the number of requests sent to the sites so far.
+	 */
+	public long getNumberOfRequests()
+	{
+		return numberOfRequests.get();
+	}
+
+	/**
+	 * Method which returns the number of fan-outs so far, each costing one round trip however many sites it reaches.
+	 */
+	public long getNumberOfRoundTrips()
+	{
+		return numberOfRoundTrips.get();
+	}
+
+	/**
+	 * Method which closes the connections to the sites and their servers.
+	 * @throws IOException
+	 */
+	public void close()throws IOException
+	{
+		synchronized(connections)
+		{
+			Iterator itr = (Iterator)connections.iterator();
+			while(itr.hasNext())
+			{
+				((Connection)itr.next()).socket.close();
+			}
+			connections.clear();
+		}
+		Iterator itr = (Iterator)servers.values().iterator();
+		while(itr.hasNext())
+		{
+			((SiteRpcServer)itr.next()).close();
+		}
+	}
+
+	/**
+	 * A connection to the server of a site.
+	 */
+	private static class Connection {
+		private Socket socket=null;
+		private DataInputStream in=null;
+		private DataOutputStream out=null;
+
+		private Connection(int port)throws IOException
+		{
+			socket=new Socket(InetAddress.getLoopbackAddress(), port);
+			socket.setTcpNoDelay(true);
+			in=new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out=new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+	}
+}
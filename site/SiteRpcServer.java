@@ -0,0 +1,192 @@
+package site;
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import transaction.Transaction;
+
+/**
+ * Serves the data and lock manager of a site over a loopback TCP socket, so that the transaction manager reaches the site through the network stack as it
+ * would on another host. Every connection is served by its own thread, which replies to the requests in the order in which they arrive, so that a client can
+ * send requests to many sites before waiting for any reply.
+ * A request is an opcode byte, the id of the transaction as a UTF string and the argument of the operation: a variable as a UTF string for a write lock,
+ * a commit number as a long followed by the number of values of the batch of the site and every variable as a UTF string and its value as an int for a
+ * commit, and the tick at which the transaction first accessed the site as an int, the id the write-ahead log knows the transaction by as a UTF string and
+ * the batch of the site, as for a commit, for a prepare. A reply is a status byte followed by the integer result of the operation.
+ * Transactions are looked up by id in the transactions map of the transaction manager, so the server runs in the process of the transaction manager.
+ */
+public class SiteRpcServer implements Runnable {
+	public static final byte ACQUIRE_WRITE_LOCK=1;
+	public static final byte COMMIT=2;
+	public static final byte ABORT=3;
+	public static final byte PREPARE=4;
+	public static final byte OK=0;
+	public static final byte UNKNOWN_TRANSACTION=1;
+	public static final byte UNKNOWN_OPERATION=2;
+
+	private DataAndLockManager dataAndLockManager=null;
+	//A Map<Key,value>, key is id of a transaction and value is its Transaction object
+	private Map trxsMap=null;
+	private ServerSocket serverSocket=null;
+	//Sockets of the connections accepted so far, closed along with the server
+	private List sockets = Collections.synchronizedList(new ArrayList());
+
+	/**
+	 * Constructor for SiteRpcServer class, which binds the server to a free port of the loopback address.
+	 * @param dataAndLockManager - A DataAndLockManager object, the data and lock manager of the site.
+	 * @param trxsMap - A Map<Key,value>, key is id of a transaction and value is its Transaction object.
+	 * @throws IOException
+	 */
+	public SiteRpcServer(DataAndLockManager dataAndLockManager, Map trxsMap)throws IOException
+	{
+		this.dataAndLockManager=dataAndLockManager;
+		this.trxsMap=trxsMap;
+		serverSocket=new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+	}
+
+	public int getPort()
+	{
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Method which starts accepting connections on a daemon thread.
+	 */
+	public void start()
+	{
+		Thread thread = new Thread(this, "site-"+dataAndLockManager.getDataAndLockManagerId()+"-rpc");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void run()
+	{
+		while(!serverSocket.isClosed())
+		{
+			try
+			{
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+				sockets.add(socket);
+				Thread thread = new Thread(new Connection(socket), "site-"+dataAndLockManager.getDataAndLockManagerId()+"-rpc-connection");
+				thread.setDaemon(true);
+				thread.start();
+			}
+			catch(IOException ioException)
+			{
+				//The server has been closed
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Method which stops accepting connections and closes the ones accepted so far.
+	 * @throws IOException
+	 */
+	public void close()throws IOException
+	{
+		serverSocket.close();
+		synchronized(sockets)
+		{
+			Iterator itr = (Iterator)sockets.iterator();
+			while(itr.hasNext())
+			{
+				((Socket)itr.next()).close();
+			}
+		}
+	}
+
+	/**
+	 * Method which executes a request on the data and lock manager of the site.
+	 * @return long - The status of the reply in the upper half and the result of the operation in the lower half.
+	 */
+	private long serve(int opcode, String trxId, String variable, long argument, WriteBatch writeBatch)
+	{
+		Transaction trx = (Transaction)trxsMap.get(trxId);
+		if(trx==null)
+		{
+			return ((long)UNKNOWN_TRANSACTION)<<32;
+		}
+		int result = 0;
+		switch(opcode)
+		{
+			case ACQUIRE_WRITE_LOCK:
+				dataAndLockManager.acquireWriteLock(trx, variable);
+				break;
+			case COMMIT:
+				result = dataAndLockManager.commitValuesForVariablesLockedByTransaction(trx, argument, writeBatch);
+				break;
+			case ABORT:
+				result = dataAndLockManager.abortTransaction(trx);
+				break;
+			case PREPARE:
+				//The variable of a prepare is the log id of the transaction
+				result = dataAndLockManager.prepareTransaction(trx, (int)argument, variable, writeBatch);
+				break;
+			default:
+				return ((long)UNKNOWN_OPERATION)<<32;
+		}
+		return result&0xFFFFFFFFL;
+	}
+
+	/**
+	 * Serves the requests of a connection until it is closed.
+	 */
+	private class Connection implements Runnable {
+		private Socket socket=null;
+
+		private Connection(Socket socket)
+		{
+			this.socket=socket;
+		}
+
+		public void run()
+		{
+			try
+			{
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				int opcode;
+				while((opcode=in.read())>=0)
+				{
+					String trxId = in.readUTF();
+					long argument = (opcode==COMMIT)?in.readLong():(opcode==PREPARE)?in.readInt():0;
+					String variable = (opcode==ACQUIRE_WRITE_LOCK || opcode==PREPARE)?in.readUTF():null;
+					WriteBatch writeBatch = null;
+					if(opcode==COMMIT || opcode==PREPARE)
+					{
+						int size = in.readInt();
+						writeBatch = new WriteBatch(size);
+						for(int i=0;i<size;i++)
+						{
+							writeBatch.add(in.readUTF(), in.readInt());
+						}
+					}
+					long reply = serve(opcode, trxId, variable, argument, writeBatch);
+					out.writeByte((int)(reply>>>32));
+					out.writeInt((int)reply);
+					//Replies to pipelined requests which have already arrived are sent together
+					if(in.available()==0)
+					{
+						out.flush();
+					}
+				}
+			}
+			catch(IOException ioException)
+			{
+				//The connection has been closed
+			}
+			finally
+			{
+				sockets.remove(socket);
+				try
+				{
+					socket.close();
+				}
+				catch(IOException ioException)
+				{
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package site;
+import java.util.*;
+
+/**
+ * Numbers the changes to the committed state of the sites, i.e. commits, site failures and site recoveries, and keeps track of the snapshots read by
+ * the active read-only transactions. A snapshot is the version of the last change which took place before the read-only transaction began, so a
+ * read-only transaction reads, at every site, the state the site was in before the first change numbered above its snapshot.
+ * Versions are numbered in the order in which the changes take place rather than by tick, as several operations may be executed at the same tick.
+ */
+public class SnapshotRegistry {
+	//Version of the last change
+	private long currentVersion=0;
+	//A TreeMap<Key,value>, key is a snapshot and value is the number of active read-only transactions reading it
+	private TreeMap activeSnapshots = new TreeMap();
+
+	/**
+	 * Method which registers a snapshot of the current state of the sites for a read-only transaction.
+	 * @return long - The snapshot, to be passed to closeSnapshot once the read-only transaction ends.
+	 */
+	public synchronized long openSnapshot()
+	{
+		Long snapshot = Long.valueOf(currentVersion);
+		Integer count = (Integer)activeSnapshots.get(snapshot);
+		activeSnapshots.put(snapshot, (count==null)?1:count.intValue()+1);
+		return currentVersion;
+	}
+
+	/**
+	 * Method which unregisters a snapshot opened by openSnapshot.
+	 * @param snapshot - A long value returned by openSnapshot.
+	 */
+	public synchronized void closeSnapshot(long snapshot)
+	{
+		Long key = Long.valueOf(snapshot);
+		Integer count = (Integer)activeSnapshots.get(key);
+		if(count!=null && count.intValue()>1)
+		{
+			activeSnapshots.put(key, count.intValue()-1);
+		}
+		else
+		{
+			activeSnapshots.remove(key);
+		}
+	}
+
+	public synchronized boolean hasActiveSnapshots()
+	{
+		return !activeSnapshots.isEmpty();
+	}
+
+	/**
+	 * Method which returns the oldest active snapshot, values superseded at or below it can't be read by any active read-only transaction.
+	 * @return long - The oldest active snapshot, or Long.MAX_VALUE if there is none.
+	 */
+	public synchronized long getOldestActiveSnapshot()
+	{
+		if(activeSnapshots.isEmpty())
+		{
+			return Long.MAX_VALUE;
+		}
+		return ((Long)activeSnapshots.firstKey()).longValue();
+	}
+
+	/**
+	 * Method which numbers a change to the committed state of a site if an active snapshot predates it.
+	 * @return long - The version of the change, or 0 if there is no active snapshot, in which case the state before the change needn't be kept.
+	 */
+	public synchronized long nextVersionIfSnapshotsAreActive()
+	{
+		currentVersion++;
+		if(activeSnapshots.isEmpty())
+		{
+			return 0;
+		}
+		return currentVersion;
+	}
+}
@@ -0,0 +1,73 @@
+package site;
+import java.util.*;
+
+/**
+ * Storage engine holding the variables, their committed values, read availability and lock information at a site.
+ * Variables are also addressable by index, in the order in which they are dumped, i.e. sorted by their initial values.
+ */
+public interface VariableStore {
+
+	/**
+	 * Method which checks if the variable is stored at the site.
+	 * @param variable - A String variable.
+	 */
+	public boolean containsVariable(String variable);
+
+	/**
+	 * Method which returns the VariablesVO object holding lock information of the variable.
+	 * @param variable - A String variable.
+	 * @return VariablesVO - A VariablesVO object, or null if the variable is not stored at the site.
+	 */
+	public VariablesVO getVariableVO(String variable);
+
+	/**
+	 * Method which returns the VariablesVO object of the variable only if the storage engine already keeps one, without creating it.
+	 * @param variable - A String variable.
+	 * @return VariablesVO - A VariablesVO object, or null if the variable is not stored at the site or holds no lock information.
+	 */
+	public VariablesVO getVariableVOHoldingLockInformation(String variable);
+
+	/**
+	 * Method which lets the storage engine drop the VariablesVO object of the variable once it no longer holds any lock information.
+	 * @param variableVO - A VariablesVO object returned by getVariableVO.
+	 */
+	public void releaseVariableVO(VariablesVO variableVO);
+
+	/**
+	 * Method which returns all the VariablesVO objects that may hold lock information.
+	 * @return Collection - A Collection of VariablesVO objects.
+	 */
+	public Collection getVariableVOsHoldingLockInformation();
+
+	public int getValueOfVariable(String variable);
+
+	public boolean isVariableAvailableForReadOperation(String variable);
+
+	/**
+	 * Method which returns the version number of the committed value of the variable, i.e. the commit number of the transaction which wrote it.
+	 * @param variable - A String variable.
+	 * @return long - The version number, 0 for the initial value or if the variable is not stored at the site.
+	 */
+	public long getVersionNumberOfVariable(String variable);
+
+	/**
+	 * Method which makes all the replicated variables at the site unavailable for read operation, which is the case when a site recovers.
+	 */
+	public void makeReplicatedVariablesUnavailableForReadOperation();
+
+	public int getNumberOfVariables();
+
+	public String getVariableAt(int index);
+
+	public int getValueAt(int index);
+
+	public boolean isVariableAvailableForReadOperationAt(int index);
+
+	/**
+	 * Method which restores the committed value and read availability of the variable at an index, which is the case when a checkpoint is loaded.
+	 * @param index - An integer value, the index of the variable.
+	 * @param value - An integer value, the committed value.
+	 * @param isAvailableForReadOperation - A boolean value, whether the variable is available for read operation.
+	 */
+	public void restoreVariableAt(int index, int value, boolean isAvailableForReadOperation);
+}
@@ -0,0 +1,92 @@
+package site;
+import java.util.*;
+
+/**
+ * A small report which compares the heap retained by the map and primitive storage engines for the topology described by a configuration file.
+ * Usage: java site.VariableStoreFootprintReport [configuration file]
+ */
+public class VariableStoreFootprintReport {
+	//Keeps the stores being measured reachable while memory is measured
+	private static VariableStore[] retainedStores = null;
+
+	public static void main(String[] args) throws Exception
+	{
+		Properties configuration = new Properties();
+		if(args.length>0)
+		{
+			java.io.FileReader reader = new java.io.FileReader(args[0]);
+			configuration.load(reader);
+			reader.close();
+		}
+		PlacementCatalog placementCatalog = new PlacementCatalog(configuration);
+		System.out.println("Sites: "+placementCatalog.getNumberOfSites()+", variables: "+placementCatalog.getNumberOfVariables());
+		//The first round only warms up the JIT, objects it leaves behind would otherwise be counted against the first engine measured
+		long mapBytes=0;
+		long primitiveBytes=0;
+		for(int round=0;round<2;round++)
+		{
+			mapBytes=measure(placementCatalog,false);
+			primitiveBytes=measure(placementCatalog,true);
+		}
+		System.out.println("map: "+mapBytes+" bytes");
+		System.out.println("primitive: "+primitiveBytes+" bytes");
+	}
+
+	/**
+	 * Method which builds the storage engines of all the sites and returns the heap retained by them.
+	 * @param placementCatalog - A PlacementCatalog object describing the topology.
+	 * @param primitive - true to build PrimitiveVariableStore objects, false to build MapVariableStore objects.
+	 * @return long - The number of bytes retained, as observed through Runtime after garbage collection.
+	 */
+	private static long measure(PlacementCatalog placementCatalog, boolean primitive)
+	{
+		retainedStores = null;
+		long before = usedMemory();
+		VariableStore[] stores = new VariableStore[placementCatalog.getNumberOfSites()+1];
+		retainedStores = stores;
+		for(int siteId=1;siteId<=placementCatalog.getNumberOfSites();siteId++)
+		{
+			List<Integer> ids = new ArrayList<Integer>();
+			for(int variableId=1;variableId<=placementCatalog.getNumberOfVariables();variableId++)
+			{
+				if(placementCatalog.isHomeSite(placementCatalog.getVariableName(variableId),siteId))
+				{
+					ids.add(variableId);
+				}
+			}
+			if(primitive)
+			{
+				int[] variableIds = new int[ids.size()];
+				for(int i=0;i<variableIds.length;i++)
+				{
+					variableIds[i]=ids.get(i);
+				}
+				stores[siteId]=new PrimitiveVariableStore(placementCatalog,variableIds);
+			}
+			else
+			{
+				Map map = new HashMap();
+				for(int i=0;i<ids.size();i++)
+				{
+					int variableId = ids.get(i);
+					String variable = placementCatalog.getVariableName(variableId);
+					map.put(variable, new VariablesVO(variable,placementCatalog.getInitialValue(variableId),placementCatalog.isVariableReplicated(variableId)));
+				}
+				stores[siteId]=new MapVariableStore(map);
+			}
+		}
+		long after = usedMemory();
+		retainedStores = null;
+		return after-before;
+	}
+
+	private static long usedMemory()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for(int i=0;i<3;i++)
+		{
+			System.gc();
+		}
+		return runtime.totalMemory()-runtime.freeMemory();
+	}
+}
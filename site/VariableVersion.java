@@ -0,0 +1,54 @@
+package site;
+
+/**
+ * A committed value of a variable at a site and its read availability, as they were until a change superseded them, linked to the older ones.
+ * The versions of a variable form a chain ordered from the newest to the oldest.
+ */
+class VariableVersion {
+	private int value=0;
+	private boolean isAvailableForReadOperation=false;
+	//Commit number of the transaction which wrote the value, only kept when replicated variables are written through quorums
+	private long versionNumber=0;
+	//Version of the change which superseded this one
+	private long supersededAt=0;
+	private VariableVersion olderVersion=null;
+
+	VariableVersion(int value, boolean isAvailableForReadOperation, long versionNumber, long supersededAt, VariableVersion olderVersion)
+	{
+		this.value=value;
+		this.isAvailableForReadOperation=isAvailableForReadOperation;
+		this.versionNumber=versionNumber;
+		this.supersededAt=supersededAt;
+		this.olderVersion=olderVersion;
+	}
+
+	int getValue()
+	{
+		return value;
+	}
+
+	boolean isAvailableForReadOperation()
+	{
+		return isAvailableForReadOperation;
+	}
+
+	long getVersionNumber()
+	{
+		return versionNumber;
+	}
+
+	long getSupersededAt()
+	{
+		return supersededAt;
+	}
+
+	VariableVersion getOlderVersion()
+	{
+		return olderVersion;
+	}
+
+	void setOlderVersion(VariableVersion olderVersion)
+	{
+		this.olderVersion=olderVersion;
+	}
+}
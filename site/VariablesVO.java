@@ -12,20 +12,31 @@ public class VariablesVO implements Comparable<VariablesVO>{
 	private boolean isVariableReplicated = false;
 	private boolean isVariableAvailableForReadOperation = true;
 	private int value =0;
+	//Commit number of the transaction which wrote the value, 0 for the initial value, only kept when replicated variables are written through quorums
+	private long versionNumber=0;
 	//private Transaction writeLockedByTrx = null;
 	private Set readLockedByTrxs = null;
 	//Although, there will be only one transaction having write locked variable, we need a data structure that
 	//can add or remove Transaction object without nullifying the original Transaction object.
 	private Set writeLockedByTrx = null;
-	public VariablesVO(String var,int value)
+	//A compact summary of the two sets above: the number of read locking transactions (bits 0-11), the serial number of the write locking transaction
+	//or 0 (bits 12-39), the timestamp of the oldest locking transaction (bits 40-62) and an overflow flag (bit 63) which is set whenever the sets can't
+	//be summarized this way, in which case the sets have to be consulted. The sets stay the record of the locks, the word only spares lock requests a
+	//walk of them. It is only written while holding the monitor of the variable, and is volatile so that it can be read without it.
+	private volatile long lockWord = 0;
+	private static final long READER_COUNT_MASK = 0xFFFL;
+	private static final int WRITER_SERIAL_SHIFT = 12;
+	private static final long WRITER_SERIAL_MASK = 0xFFFFFFFL;
+	private static final int OLDEST_HOLDER_SHIFT = 40;
+	private static final long OLDEST_HOLDER_MASK = 0x7FFFFFL;
+	private static final long OVERFLOW_FLAG = 1L<<63;
+	public VariablesVO(String var,int value,boolean isVariableReplicated)
 	{
 		if(var!=null)
 		{
 			variable=var;
-			if("x2".equals(var)|| "x4".equals(var) || "x6".equals(var) || "x8".equals(var) || "x10".equals(var)|| "x12".equals(var) || "x14".equals(var)|| "x16".equals(var)|| "x18".equals(var)|| "x20".equals(var))
-			{
-				isVariableReplicated=true;
-			}
+			//Replication information comes from the PlacementCatalog
+			this.isVariableReplicated=isVariableReplicated;
 			this.value = value;
 			this.initialValue=value;
 		}
@@ -37,9 +48,12 @@ public class VariablesVO implements Comparable<VariablesVO>{
 			readLockedByTrxs=new HashSet();
 			
 		}
-		if(trx!=null)
+		if(trx!=null && readLockedByTrxs.add(trx))
 		{
-			readLockedByTrxs.add(trx);
+			long word = lockWord;
+			long readers = getReaderCount(word)+1;
+			long newWord = (readers>READER_COUNT_MASK)?(word|OVERFLOW_FLAG):(word & ~READER_COUNT_MASK)|readers;
+			lockWord = withHolderTimeStamp(newWord, word, trx);
 		}
 	}
 	public void addWriteLockOnVariable(Transaction trx) {
@@ -47,10 +61,139 @@ public class VariablesVO implements Comparable<VariablesVO>{
 		{
 			writeLockedByTrx = new HashSet();
 		}
-		if(trx!=null)
+		if(trx!=null && writeLockedByTrx.add(trx))
+		{
+			long word = lockWord;
+			long serial = trx.getSerialNumber();
+			//There should be a single write locking transaction, anything else can only be described by the sets
+			long newWord = (getWriterSerial(word)!=0 || serial<=0 || serial>WRITER_SERIAL_MASK)?(word|OVERFLOW_FLAG):word|(serial<<WRITER_SERIAL_SHIFT);
+			lockWord = withHolderTimeStamp(newWord, word, trx);
+		}
+	}
+
+	/**
+	 * Method which removes the read and write locks held by the transaction on the variable.
+	 * @param trx - A Transaction object.
+	 */
+	public void removeLocksOfTrx(Transaction trx)
+	{
+		if(readLockedByTrxs!=null)
+		{
+			readLockedByTrxs.remove(trx);
+		}
+		if(writeLockedByTrx!=null)
+		{
+			writeLockedByTrx.remove(trx);
+		}
+		recomputeLockWord();
+	}
+
+	/**
+	 * Method which removes all the read and write locks on the variable, which is the case when its site fails.
+	 */
+	public void removeAllLocks()
+	{
+		if(readLockedByTrxs!=null)
+		{
+			readLockedByTrxs.clear();
+		}
+		if(writeLockedByTrx!=null)
 		{
-			writeLockedByTrx.add(trx);
+			writeLockedByTrx.clear();
 		}
+		recomputeLockWord();
+	}
+
+	/**
+	 * Method which returns the lock word summarizing the transactions locking the variable. Use the static accessors to decode it.
+	 * @return long - The lock word, 0 if the variable is not locked at all.
+	 */
+	public long getLockWord()
+	{
+		return lockWord;
+	}
+	/**
+	 * Method which returns a lock word telling that the sets of locking transactions have to be consulted.
+	 */
+	public static long getOverflowedLockWord()
+	{
+		return OVERFLOW_FLAG;
+	}
+	public static boolean isLockWordOverflowed(long word)
+	{
+		return (word & OVERFLOW_FLAG)!=0;
+	}
+	public static int getReaderCount(long word)
+	{
+		return (int)(word & READER_COUNT_MASK);
+	}
+	public static int getWriterSerial(long word)
+	{
+		return (int)((word>>>WRITER_SERIAL_SHIFT) & WRITER_SERIAL_MASK);
+	}
+	public static long getOldestHolderTimeStamp(long word)
+	{
+		return (word>>>OLDEST_HOLDER_SHIFT) & OLDEST_HOLDER_MASK;
+	}
+
+	/**
+	 * Method which rebuilds the lock word from the sets of locking transactions after transactions have been removed from them.
+	 */
+	private void recomputeLockWord()
+	{
+		long newWord = 0;
+		long oldestHolderTimeStamp = Long.MAX_VALUE;
+		if(readLockedByTrxs!=null && !readLockedByTrxs.isEmpty())
+		{
+			newWord = (readLockedByTrxs.size()>READER_COUNT_MASK)?OVERFLOW_FLAG:readLockedByTrxs.size();
+			Iterator itr = readLockedByTrxs.iterator();
+			while(itr.hasNext())
+			{
+				oldestHolderTimeStamp = Math.min(oldestHolderTimeStamp, ((Transaction)itr.next()).getTrxTimeStamp());
+			}
+		}
+		if(writeLockedByTrx!=null && !writeLockedByTrx.isEmpty())
+		{
+			Iterator itr = writeLockedByTrx.iterator();
+			Transaction writer = (Transaction)itr.next();
+			long serial = writer.getSerialNumber();
+			newWord = (writeLockedByTrx.size()>1 || serial<=0 || serial>WRITER_SERIAL_MASK)?(newWord|OVERFLOW_FLAG):newWord|(serial<<WRITER_SERIAL_SHIFT);
+			oldestHolderTimeStamp = Math.min(oldestHolderTimeStamp, writer.getTrxTimeStamp());
+			while(itr.hasNext())
+			{
+				oldestHolderTimeStamp = Math.min(oldestHolderTimeStamp, ((Transaction)itr.next()).getTrxTimeStamp());
+			}
+		}
+		if(newWord!=0)
+		{
+			newWord = withOldestHolderTimeStamp(newWord, oldestHolderTimeStamp);
+		}
+		lockWord = newWord;
+	}
+
+	/**
+	 * Method which records the timestamp of a new locking transaction in a lock word, if it is older than every transaction already locking the variable.
+	 * @param newWord - The lock word being built.
+	 * @param word - The lock word before the transaction locked the variable.
+	 * @param trx - The new locking transaction.
+	 */
+	private static long withHolderTimeStamp(long newWord, long word, Transaction trx)
+	{
+		boolean hadHolder = (getReaderCount(word)!=0 || getWriterSerial(word)!=0);
+		if(hadHolder && getOldestHolderTimeStamp(word)<=trx.getTrxTimeStamp())
+		{
+			return newWord;
+		}
+		return withOldestHolderTimeStamp(newWord, trx.getTrxTimeStamp());
+	}
+
+	private static long withOldestHolderTimeStamp(long newWord, long timeStamp)
+	{
+		if(timeStamp<0 || timeStamp>OLDEST_HOLDER_MASK)
+		{
+			return newWord|OVERFLOW_FLAG;
+		}
+		return (newWord & ~(OLDEST_HOLDER_MASK<<OLDEST_HOLDER_SHIFT))|(timeStamp<<OLDEST_HOLDER_SHIFT);
 	}
 	
 	public Set getTrxsReadLockingVariable() {
@@ -116,6 +259,19 @@ public class VariablesVO implements Comparable<VariablesVO>{
 		this.value = value;
 	}
 	
+	/**
+	 * @return the commit number of the transaction which wrote the value
+	 */
+	public long getVersionNumber() {
+		return versionNumber;
+	}
+	/**
+	 * @param versionNumber the commit number of the transaction which wrote the value
+	 */
+	public void setVersionNumber(long versionNumber) {
+		this.versionNumber = versionNumber;
+	}
+	
 	public boolean isVariableReplicated()	
 	{
 		return isVariableReplicated;
@@ -0,0 +1,312 @@
+package site;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Log of the values committed at a site, which lets a restarted process resume with the committed state of the site.
+ * Commits are appended to an in-memory batch, which sync writes to the log file and forces to the disk at once, so that all the commits of a tick
+ * share a single force instead of paying one each.
+ * Every record holds the values committed by one transaction: the length of the payload and its CRC32, both as 4 byte integers, then the payload,
+ * made of the transaction id, the number of variables and every variable and its value, as written by DataOutputStream.
+ * A record cut short by a crash, or not matching its CRC32, ends the log and is truncated when the log is replayed. When the transaction manager
+ * keeps a coordinator log, a site logs the values of a transaction when it votes to commit it, and replaying the log skips the records of the
+ * transactions the coordinator log holds no decision to commit for.
+ * When a checkpoint is taken the log is rotated: the log file is renamed with the .old suffix and a new one is started, and the old one is deleted
+ * once the checkpoint is durable. Replaying the old log, then the new one, over the checkpoint is harmless, as the records hold the values committed
+ * and not their changes.
+ */
+public class WriteAheadLog {
+	private static final int RECORD_HEADER_LENGTH = 8;
+	private static final String ROTATED_LOG_SUFFIX = ".old";
+	private File file = null;
+	private FileChannel channel = null;
+	//Records appended since the last sync
+	private ByteArrayOutputStream batch = new ByteArrayOutputStream();
+	private ByteArrayOutputStream payload = new ByteArrayOutputStream();
+	private DataOutputStream payloadOut = new DataOutputStream(payload);
+	private CRC32 crc = new CRC32();
+	private int numberOfRecords=0;
+	//Records applied by the replays, which skip the records of transactions presumed aborted
+	private int numberOfReplayedRecords=0;
+
+	/**
+	 * Constructor for WriteAheadLog class which opens the log file, creating it if it doesn't exist.
+	 * @param file - A File object, the log file.
+	 * @throws IOException
+	 */
+	public WriteAheadLog(File file)throws IOException
+	{
+		this.file=file;
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Method which returns the length of the log file, including the current batch.
+	 */
+	public synchronized long getLength()throws IOException
+	{
+		return channel.position()+batch.size();
+	}
+
+	/**
+	 * Method which returns the number of records read from the log by the replays and appended to it so far.
+	 */
+	public synchronized int getNumberOfRecords()
+	{
+		return numberOfRecords;
+	}
+
+	/**
+	 * Method which applies every record of the log, preceded by the records of the rotated log if it is still there, to the variables of a site,
+	 * in the order in which they were appended, truncates an incomplete last record and positions the log for appending.
+	 * @param variableStore - A VariableStore object holding the variables of the site, variables it doesn't store are skipped.
+	 * @return int - The number of records replayed.
+	 * @throws IOException
+	 */
+	public synchronized int replay(VariableStore variableStore)throws IOException
+	{
+		return replay(variableStore, null, null);
+	}
+
+	/**
+	 * Method which applies the records of the transactions decided to commit, preceded by the ones of the rotated log if it is still there, to the
+	 * variables of a site, in the order in which they were appended, truncates an incomplete last record and positions the log for appending.
+	 * @param variableStore - A VariableStore object holding the variables of the site, variables it doesn't store are skipped.
+	 * @param committedTrxIds - A Set of the ids of the transactions decided to commit, the records of the other transactions being skipped.
+	 * @return int - The number of records replayed.
+	 * @throws IOException
+	 */
+	public synchronized int replay(VariableStore variableStore, Set committedTrxIds)throws IOException
+	{
+		return replay(variableStore, committedTrxIds, null);
+	}
+
+	/**
+	 * Method which reads the transaction id of every record, preceded by the ones of the rotated log if it is still there, in the order in which
+	 * they were appended, truncates an incomplete last record and positions the log for appending.
+	 * @param trxIds - A List to which the transaction ids are added.
+	 * @return int - The number of records read.
+	 * @throws IOException
+	 */
+	public synchronized int replay(List trxIds)throws IOException
+	{
+		return replay(null, null, trxIds);
+	}
+
+	private int replay(VariableStore variableStore, Set committedTrxIds, List trxIds)throws IOException
+	{
+		int numberOfRecordsBeforeReplay=numberOfReplayedRecords;
+		File rotatedFile = getRotatedFile();
+		if(rotatedFile.exists())
+		{
+			FileChannel rotatedChannel = FileChannel.open(rotatedFile.toPath(), StandardOpenOption.READ);
+			try
+			{
+				replay(rotatedChannel, variableStore, committedTrxIds, trxIds);
+			}
+			finally
+			{
+				rotatedChannel.close();
+			}
+		}
+		long validLength=replay(channel, variableStore, committedTrxIds, trxIds);
+		if(validLength<channel.size())
+		{
+			channel.truncate(validLength);
+		}
+		channel.position(validLength);
+		return numberOfReplayedRecords-numberOfRecordsBeforeReplay;
+	}
+
+	/**
+	 * Method which applies the records read from a channel, up to the first incomplete or corrupted one.
+	 * @return long - The length of the complete records.
+	 */
+	private long replay(FileChannel channel, VariableStore variableStore, Set committedTrxIds, List trxIds)throws IOException
+	{
+		channel.position(0);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1<<16));
+		long validLength=0;
+		byte[] record = new byte[256];
+		while(true)
+		{
+			int length;
+			int checksum;
+			try
+			{
+				length = in.readInt();
+				checksum = in.readInt();
+				if(length<0 || length>channel.size()-validLength-RECORD_HEADER_LENGTH)
+				{
+					break;
+				}
+				if(record.length<length)
+				{
+					record = new byte[length];
+				}
+				in.readFully(record, 0, length);
+			}
+			catch(EOFException eofException)
+			{
+				break;
+			}
+			crc.reset();
+			crc.update(record, 0, length);
+			if((int)crc.getValue()!=checksum)
+			{
+				break;
+			}
+			DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(record, 0, length));
+			String trxId = recordIn.readUTF();
+			if(trxIds!=null)
+			{
+				trxIds.add(trxId);
+			}
+			//A transaction without a decision to commit is presumed aborted
+			if(committedTrxIds==null || committedTrxIds.contains(trxId))
+			{
+				applyRecord(recordIn, variableStore);
+				numberOfReplayedRecords++;
+			}
+			validLength+=RECORD_HEADER_LENGTH+length;
+			numberOfRecords++;
+		}
+		return validLength;
+	}
+
+	private void applyRecord(DataInputStream in, VariableStore variableStore)throws IOException
+	{
+		int count = in.readInt();
+		for(int i=0;i<count;i++)
+		{
+			String variable = in.readUTF();
+			int value = in.readInt();
+			if(variableStore!=null && variableStore.containsVariable(variable))
+			{
+				VariablesVO variableVO = variableStore.getVariableVO(variable);
+				variableVO.setValue(value);
+				if(variableVO.isVariableReplicated())
+				{
+					variableVO.makeVariableAvailableForReadOperation();
+				}
+				variableStore.releaseVariableVO(variableVO);
+			}
+		}
+	}
+
+	/**
+	 * Method which appends the values committed by a transaction to the current batch. They are durable once sync returns.
+	 * @param trxId - A String value, the committing transaction.
+	 * @param variables - An array of the variables committed.
+	 * @param values - An array of the values committed, in the order of variables.
+	 * @param count - An integer value, the number of variables committed.
+	 */
+	public synchronized void append(String trxId, String[] variables, int[] values, int count)
+	{
+		try
+		{
+			payload.reset();
+			payloadOut.writeUTF(trxId);
+			payloadOut.writeInt(count);
+			for(int i=0;i<count;i++)
+			{
+				payloadOut.writeUTF(variables[i]);
+				payloadOut.writeInt(values[i]);
+			}
+			payloadOut.flush();
+			crc.reset();
+			crc.update(payload.toByteArray());
+			DataOutputStream batchOut = new DataOutputStream(batch);
+			batchOut.writeInt(payload.size());
+			batchOut.writeInt((int)crc.getValue());
+			payload.writeTo(batchOut);
+			batchOut.flush();
+			numberOfRecords++;
+		}
+		catch(IOException ioException)
+		{
+			//Writing to a ByteArrayOutputStream doesn't fail
+			throw new UncheckedIOException(ioException);
+		}
+	}
+
+	/**
+	 * Method which writes the current batch to the log file and forces it to the disk, nothing being done if the batch is empty.
+	 * @throws IOException
+	 */
+	public synchronized void sync()throws IOException
+	{
+		if(batch.size()==0)
+		{
+			return;
+		}
+		batch.writeTo(Channels.newOutputStream(channel));
+		batch.reset();
+		channel.force(false);
+	}
+
+	/**
+	 * Method which syncs the current batch and starts a new log file, the current one being kept with the .old suffix until deleteRotatedLog is called.
+	 * The log isn't rotated if the previous rotated log is still there, as it may still be needed, in which case the log goes on in the current file.
+	 * @return boolean - true if the log has been rotated.
+	 * @throws IOException
+	 */
+	public synchronized boolean rotate()throws IOException
+	{
+		sync();
+		File rotatedFile = getRotatedFile();
+		if(rotatedFile.exists())
+		{
+			return false;
+		}
+		channel.close();
+		if(!file.renameTo(rotatedFile))
+		{
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			channel.position(channel.size());
+			throw new IOException("Unable to rotate "+file);
+		}
+		channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		return true;
+	}
+
+	/**
+	 * Method which deletes the rotated log, once a checkpoint holding all its records is durable.
+	 * @throws IOException
+	 */
+	public synchronized void deleteRotatedLog()throws IOException
+	{
+		File rotatedFile = getRotatedFile();
+		if(rotatedFile.exists() && !rotatedFile.delete())
+		{
+			throw new IOException("Unable to delete "+rotatedFile);
+		}
+	}
+
+	private File getRotatedFile()
+	{
+		return new File(file.getPath()+ROTATED_LOG_SUFFIX);
+	}
+
+	/**
+	 * Method which syncs the current batch and closes the log file.
+	 * @throws IOException
+	 */
+	public synchronized void close()throws IOException
+	{
+		if(channel.isOpen())
+		{
+			sync();
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package site;
+
+/**
+ * The values written by a committing transaction to the variables placed at one site, grouped once by the transaction manager so that every site of the
+ * commit receives only the updates of its own copies instead of looking up every variable the transaction wrote.
+ * Variables are kept in the order in which they were added.
+ */
+public class WriteBatch {
+	private String[] variables=null;
+	private int[] values=null;
+	private int size=0;
+
+	/**
+	 * Constructor for WriteBatch class.
+	 * @param capacity - An integer value, the number of updates expected.
+	 */
+	public WriteBatch(int capacity)
+	{
+		variables=new String[Math.max(capacity,1)];
+		values=new int[variables.length];
+	}
+
+	/**
+	 * Method which adds the value written to a variable to the batch.
+	 * @param variable - A String variable.
+	 * @param value - An integer value, the value written.
+	 */
+	public void add(String variable, int value)
+	{
+		if(size==variables.length)
+		{
+			String[] newVariables = new String[size*2];
+			int[] newValues = new int[size*2];
+			System.arraycopy(variables, 0, newVariables, 0, size);
+			System.arraycopy(values, 0, newValues, 0, size);
+			variables=newVariables;
+			values=newValues;
+		}
+		variables[size]=variable;
+		values[size]=value;
+		size++;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public String getVariable(int index)
+	{
+		return variables[index];
+	}
+
+	public int getValue(int index)
+	{
+		return values[index];
+	}
+}
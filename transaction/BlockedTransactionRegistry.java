@@ -0,0 +1,123 @@
+package transaction;
+import java.util.*;
+
+/**
+ * The transactions which are currently blocked, in the order in which they were blocked, with constant time membership checks, additions and removals.
+ * Every blocked transaction is numbered by a sequence number which increases in that order, and the tick at which it was blocked is kept to report
+ * how long transactions have been blocked. Transactions are only ever added at the current tick, so the ticks never decrease in that order either.
+ */
+public class BlockedTransactionRegistry {
+	//A LinkedHashMap<Key,value>, key is a blocked transaction and value is a long array holding its sequence number and the tick at which it was blocked
+	private LinkedHashMap blockedTrxs = new LinkedHashMap();
+	//Sequence number of the last blocked transaction
+	private long lastSequence=0;
+
+	/**
+	 * Method which adds a transaction at the end of the order of blocked transactions, nothing being done if it is already blocked.
+	 * @param trxName - A String value, the transaction.
+	 * @param tick - An integer value, the tick at which the transaction is blocked.
+	 * @return boolean - true if the transaction has been added.
+	 */
+	public synchronized boolean add(String trxName, int tick)
+	{
+		if(trxName==null || "".equals(trxName) || blockedTrxs.containsKey(trxName))
+		{
+			return false;
+		}
+		lastSequence++;
+		blockedTrxs.put(trxName, new long[]{lastSequence, tick});
+		return true;
+	}
+
+	public synchronized boolean remove(String trxName)
+	{
+		return blockedTrxs.remove(trxName)!=null;
+	}
+
+	public synchronized boolean contains(String trxName)
+	{
+		return blockedTrxs.containsKey(trxName);
+	}
+
+	public synchronized boolean isEmpty()
+	{
+		return blockedTrxs.isEmpty();
+	}
+
+	/**
+	 * Method which returns the number of blocked transactions.
+	 */
+	public synchronized int size()
+	{
+		return blockedTrxs.size();
+	}
+
+	/**
+	 * Method which returns the sequence number of a blocked transaction.
+	 * @param trxName - A String value, the transaction.
+	 * @return long - The sequence number, or 0 if the transaction is not blocked.
+	 */
+	public synchronized long getSequence(String trxName)
+	{
+		long[] entry = (long[])blockedTrxs.get(trxName);
+		return (entry!=null)?entry[0]:0;
+	}
+
+	/**
+	 * Method which returns the sequence number of the last transaction blocked so far, whether or not it is still blocked.
+	 */
+	public synchronized long getLastSequence()
+	{
+		return lastSequence;
+	}
+
+	/**
+	 * Method which returns the tick at which a transaction was blocked.
+	 * @param trxName - A String value, the transaction.
+	 * @return int - The tick, or -1 if the transaction is not blocked.
+	 */
+	public synchronized int getBlockedSinceTick(String trxName)
+	{
+		long[] entry = (long[])blockedTrxs.get(trxName);
+		return (entry!=null)?(int)entry[1]:-1;
+	}
+
+	/**
+	 * Method which returns the number of ticks the longest blocked transaction has been blocked for.
+	 * @param tick - An integer value, the current tick.
+	 * @return int - The number of ticks, or 0 if no transaction is blocked.
+	 */
+	public synchronized int getAgeOfOldestBlockedTrx(int tick)
+	{
+		if(blockedTrxs.isEmpty())
+		{
+			return 0;
+		}
+		return tick-(int)((long[])blockedTrxs.values().iterator().next())[1];
+	}
+
+	/**
+	 * Method which returns the number of blocked transactions which have been blocked for at least a number of ticks.
+	 * @param tick - An integer value, the current tick.
+	 * @param ticks - An integer value, the number of ticks.
+	 */
+	public synchronized int getNumberOfTrxsBlockedFor(int tick, int ticks)
+	{
+		int count = 0;
+		Iterator itr = (Iterator)blockedTrxs.values().iterator();
+		while(itr.hasNext() && tick-(int)((long[])itr.next())[1]>=ticks)
+		{
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Method which returns the blocked transactions in the order in which they were blocked.
+	 * @return List - A copy of the names of the blocked transactions.
+	 */
+	public synchronized List getBlockedTrxs()
+	{
+		return new ArrayList(blockedTrxs.keySet());
+	}
+}
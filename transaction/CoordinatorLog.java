@@ -0,0 +1,149 @@
+package transaction;
+import java.io.*;
+import java.util.*;
+import site.WriteAheadLog;
+
+/**
+ * Log of the transaction manager coordinating the two-phase commit of the transactions with the sites, kept when the sites log the values committed
+ * at them. In the first phase every site logs the values a transaction wrote to its copies before voting to commit it, and in the second phase the
+ * decision to commit is logged before the values reach the sites. At the end of every tick the log is forced after the logs of the sites, so that a
+ * decision is never durable before the values it commits.
+ * Under presumed abort only the decisions to commit are logged: when the process restarts, the sites replay only the records of the transactions the log
+ * holds a decision to commit for. The records of a transaction which aborted after the first phase, or whose decision wasn't forced before the process
+ * stopped, are skipped at every site, so that a transaction is restored at all the sites it committed at or at none.
+ * The logs know a transaction by its id followed by '#' and the incarnation of the log, i.e. the number of times the process started, so that the
+ * transactions of different runs named alike are told apart. The log is a WriteAheadLog whose records hold no variable: every incarnation starts by
+ * logging '#' followed by its number, which is logged again at the start of the new log whenever the log is rotated.
+ */
+public class CoordinatorLog {
+	private static final char INCARNATION_SEPARATOR='#';
+	private WriteAheadLog writeAheadLog=null;
+	private int incarnation=0;
+	//Log ids of the transactions decided to commit before the process restarted
+	private Set committedTrxIds=new HashSet();
+	private long numberOfLoggedCommits=0;
+
+	/**
+	 * Constructor for CoordinatorLog class which opens the log file, creating it if it doesn't exist, reads the decisions to commit it holds and
+	 * starts a new incarnation.
+	 * @param file - A File object, the log file.
+	 * @throws IOException
+	 */
+	public CoordinatorLog(File file)throws IOException
+	{
+		writeAheadLog=new WriteAheadLog(file);
+		List trxIds = new ArrayList();
+		writeAheadLog.replay(trxIds);
+		for(int i=0;i<trxIds.size();i++)
+		{
+			String trxId = (String)trxIds.get(i);
+			if(trxId.length()>0 && trxId.charAt(0)==INCARNATION_SEPARATOR)
+			{
+				try
+				{
+					incarnation=Math.max(incarnation, Integer.parseInt(trxId.substring(1)));
+				}
+				catch(NumberFormatException numberFormatException)
+				{
+					throw new IOException("Invalid record "+trxId+" in "+file);
+				}
+			}
+			else
+			{
+				committedTrxIds.add(trxId);
+			}
+		}
+		incarnation++;
+		logIncarnation();
+	}
+
+	private void logIncarnation()throws IOException
+	{
+		writeAheadLog.append(INCARNATION_SEPARATOR+String.valueOf(incarnation), null, null, 0);
+		writeAheadLog.sync();
+	}
+
+	public int getIncarnation()
+	{
+		return incarnation;
+	}
+
+	/**
+	 * Method which returns the log ids of the transactions decided to commit before the process restarted, which the sites replay the records of.
+	 */
+	public Set getCommittedTrxIds()
+	{
+		return committedTrxIds;
+	}
+
+	/**
+	 * Method which returns the id the logs know a transaction of this incarnation by.
+	 * @param trxId - A String variable, the id of the transaction.
+	 */
+	public String getLogId(String trxId)
+	{
+		return trxId+INCARNATION_SEPARATOR+incarnation;
+	}
+
+	/**
+	 * Method which logs the decision to commit a transaction, before its second phase starts. It is durable once sync returns.
+	 * @param trxId - A String variable, the id of the transaction.
+	 */
+	public synchronized void logCommit(String trxId)
+	{
+		writeAheadLog.append(getLogId(trxId), null, null, 0);
+		numberOfLoggedCommits++;
+	}
+
+	public synchronized long getNumberOfLoggedCommits()
+	{
+		return numberOfLoggedCommits;
+	}
+
+	/**
+	 * Method which forces the decisions logged since the last call to the disk. To be called once the logs of the sites have been synced.
+	 * @throws IOException
+	 */
+	public void sync()throws IOException
+	{
+		writeAheadLog.sync();
+	}
+
+	/**
+	 * Method which rotates the log along with the logs of the sites when a checkpoint is taken, the new log starting with the incarnation.
+	 * @return boolean - true if the log has been rotated.
+	 * @throws IOException
+	 */
+	public boolean rotate()throws IOException
+	{
+		if(!writeAheadLog.rotate())
+		{
+			return false;
+		}
+		logIncarnation();
+		return true;
+	}
+
+	/**
+	 * Method which deletes the rotated log, once a checkpoint holding the values of all its transactions is durable.
+	 * @throws IOException
+	 */
+	public void deleteRotatedLog()throws IOException
+	{
+		writeAheadLog.deleteRotatedLog();
+	}
+
+	public File getFile()
+	{
+		return writeAheadLog.getFile();
+	}
+
+	/**
+	 * Method which syncs the decisions logged since the last sync and closes the log file.
+	 * @throws IOException
+	 */
+	public void close()throws IOException
+	{
+		writeAheadLog.close();
+	}
+}
@@ -0,0 +1,204 @@
+package transaction;
+import java.io.IOException;
+import java.util.*;
+import output.OutputSink;
+
+/**
+ * Strategy deciding what happens to a transaction whose lock request conflicts with the locks other transactions hold on a variable, so that
+ * transactions never wait for each other forever. The data and lock managers ask it to decide every conflicting lock request and to explain the decision,
+ * the transaction manager aborts the transactions it designates.
+ * A policy either prevents deadlocks, by aborting a transaction before it could wait in a cycle, or lets transactions wait and detects the cycles they form.
+ * The policy is chosen once at startup and shared by the transaction manager and all the data and lock managers.
+ */
+public abstract class DeadlockPolicy {
+	public static final String WAIT_DIE="wait-die";
+	public static final String WOUND_WAIT="wound-wait";
+	public static final String NO_WAIT="no-wait";
+	public static final String WAITS_FOR_GRAPH="waits-for-graph";
+	//Response of resolveConflictFromLockWord when the lock word doesn't tell enough to decide
+	public static final int UNDECIDED=-1;
+
+	/**
+	 * Method which creates the policy of a given name.
+	 * @param name - A String value, wait-die, wound-wait, no-wait or waits-for-graph.
+	 * @return DeadlockPolicy - A new policy.
+	 * @throws IllegalArgumentException if there is no policy of that name.
+	 */
+	public static DeadlockPolicy forName(String name)
+	{
+		if(WAIT_DIE.equals(name))
+		{
+			return new WaitDiePolicy();
+		}
+		else if(WOUND_WAIT.equals(name))
+		{
+			return new WoundWaitPolicy();
+		}
+		else if(NO_WAIT.equals(name))
+		{
+			return new NoWaitPolicy();
+		}
+		else if(WAITS_FOR_GRAPH.equals(name))
+		{
+			return new WaitsForGraphPolicy();
+		}
+		throw new IllegalArgumentException("Unknown deadlock policy "+name);
+	}
+
+	public abstract String getName();
+
+	/**
+	 * Method which decides a lock request of a transaction which conflicts with the locks held on the variable at a site.
+	 * @param trx - A Transaction object, the transaction requesting the lock.
+	 * @param trxsReadLockingVariable - A Set of the transactions read locking the variable, or null.
+	 * @param trxsWriteLockingVariable - A Set of the transactions write locking the variable, or null.
+	 * @param isWriteLockRequested - A boolean value, true if a write lock is requested and false if a read lock is requested.
+	 * @return int - ABORT_TRANSACTION, BLOCK_TRANSACTION, or ABORT_LOCKING_TRANSACTIONS if the transactions returned by getTrxsToBeAborted have to be aborted first.
+	 */
+	public abstract int resolveConflict(Transaction trx, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested);
+
+	/**
+	 * Method which decides a conflicting lock request from the time stamp of the oldest transaction locking the variable, without looking at the locking transactions.
+	 * @param trx - A Transaction object, the transaction requesting the lock.
+	 * @param oldestHolderTimeStamp - A long value, the time stamp of the oldest transaction locking the variable.
+	 * @return int - The response of resolveConflict, or UNDECIDED if resolveConflict has to decide.
+	 */
+	public int resolveConflictFromLockWord(Transaction trx, long oldestHolderTimeStamp)
+	{
+		return UNDECIDED;
+	}
+
+	/**
+	 * Method which returns the transactions to be aborted so that a transaction can get the lock it requests, when resolveConflict returns ABORT_LOCKING_TRANSACTIONS.
+	 * @return List - A List of Transaction objects, empty unless the policy aborts locking transactions.
+	 */
+	public List getTrxsToBeAborted(Transaction trx, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested)
+	{
+		return new ArrayList();
+	}
+
+	/**
+	 * Method which tells whether transactions blocked by this policy may wait in a cycle, which the transaction manager then has to detect and break.
+	 */
+	public boolean detectsDeadlocks()
+	{
+		return false;
+	}
+
+	/**
+	 * Method which tells whether the policy only ever aborts the requesting transaction or transactions locking the requested variable,
+	 * so that lock requests on unrelated variables can be decided concurrently.
+	 */
+	public boolean isDecidedLocally()
+	{
+		return true;
+	}
+
+	/**
+	 * Method which displays the reason why a transaction needs to be aborted.
+	 * @param trx - A Transaction object, the transaction requesting the lock.
+	 * @param variable - A String variable which needs to be read or write locked.
+	 * @param trxsReadLockingVariable - A Set of the transactions read locking the variable, or null.
+	 * @param trxsWriteLockingVariable - A Set of the transactions write locking the variable, or null.
+	 * @param isWriteLockRequested - A boolean value, true if a write lock is requested.
+	 * @param out - An OutputSink object which write contents to the output file.
+	 * @throws IOException
+	 */
+	public void displayReasonWhyTrxNeedsToBeAborted(Transaction trx, String variable, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested, OutputSink out)throws IOException
+	{
+		displayTrxsLockingVariable("Transaction "+trx.getTrxId()+" conflicts with ", getTrxIds(getConflictingTrxs(trx,trxsReadLockingVariable,trxsWriteLockingVariable,isWriteLockRequested)), variable, out);
+	}
+
+	/**
+	 * Method which displays the reason why a transaction needs to be blocked.
+	 * @see #displayReasonWhyTrxNeedsToBeAborted(Transaction, String, Set, Set, boolean, OutputSink)
+	 */
+	public void displayReasonWhyTrxNeedsToBeBlocked(Transaction trx, String variable, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested, OutputSink out)throws IOException
+	{
+		displayTrxsLockingVariable("Transaction "+trx.getTrxId()+" waits for ", getTrxIds(getConflictingTrxs(trx,trxsReadLockingVariable,trxsWriteLockingVariable,isWriteLockRequested)), variable, out);
+	}
+
+	/**
+	 * Method which displays the reason why a transaction locking a variable needs to be aborted so that another transaction can lock it.
+	 * @param lockingTrx - A Transaction object, the transaction to be aborted.
+	 * @param trx - A Transaction object, the transaction requesting the lock.
+	 * @param variable - A String variable which needs to be read or write locked.
+	 * @param out - An OutputSink object which write contents to the output file.
+	 * @throws IOException
+	 */
+	public void displayReasonWhyLockingTrxNeedsToBeAborted(Transaction lockingTrx, Transaction trx, String variable, OutputSink out)throws IOException
+	{
+		out.write("Transaction "+lockingTrx.getTrxId()+" locking variable "+variable+" stands in the way of transaction "+trx.getTrxId());
+		out.newLine();
+	}
+
+	/**
+	 * Method which returns the transactions whose locks on a variable conflict with a lock request: the transactions write locking the variable,
+	 * and the ones read locking it if a write lock is requested, the requesting transaction excluded.
+	 * @return List - A List of Transaction objects, read locking ones first.
+	 */
+	public static List getConflictingTrxs(Transaction trx, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested)
+	{
+		Set conflictingTrxs = new LinkedHashSet();
+		if(isWriteLockRequested && trxsReadLockingVariable!=null)
+		{
+			conflictingTrxs.addAll(trxsReadLockingVariable);
+		}
+		if(trxsWriteLockingVariable!=null)
+		{
+			conflictingTrxs.addAll(trxsWriteLockingVariable);
+		}
+		conflictingTrxs.remove(trx);
+		return new ArrayList(conflictingTrxs);
+	}
+
+	/**
+	 * Method which checks if a transaction is younger than another one. Transactions which began at the same tick are ordered by the order in which they began,
+	 * so that no two transactions are of the same age.
+	 */
+	protected static boolean isTrxYoungerThan(Transaction trx, Transaction otherTrx)
+	{
+		if(trx.getTrxTimeStamp()!=otherTrx.getTrxTimeStamp())
+		{
+			return trx.getTrxTimeStamp()>otherTrx.getTrxTimeStamp();
+		}
+		return trx.getSerialNumber()>otherTrx.getSerialNumber();
+	}
+
+	/**
+	 * Method which returns the ids of transactions, in the order in which they are given.
+	 */
+	protected static List getTrxIds(Collection trxs)
+	{
+		List trxIds = new ArrayList();
+		Iterator itr = (Iterator)trxs.iterator();
+		while(itr.hasNext())
+		{
+			Transaction lockingTrx = (Transaction)itr.next();
+			if(lockingTrx!=null && !trxIds.contains(lockingTrx.getTrxId()))
+			{
+				trxIds.add(lockingTrx.getTrxId());
+			}
+		}
+		return trxIds;
+	}
+
+	/**
+	 * Method which writes a line starting with a text and naming transactions locking a variable, nothing being written if there is no such transaction.
+	 */
+	protected static void displayTrxsLockingVariable(String text, Collection trxIds, String variable, OutputSink out)throws IOException
+	{
+		if(trxIds!=null && !trxIds.isEmpty())
+		{
+			out.write(text);
+			Iterator itr =(Iterator)trxIds.iterator();
+			while(itr.hasNext())
+			{
+				String trxName=(String)itr.next();
+				out.write(trxName+"  ");
+			}
+			out.write("transaction(s) locking variable "+variable);
+			out.newLine();
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package transaction;
+import java.util.*;
+
+/**
+ * No-wait: a transaction requesting a conflicting lock is aborted right away, so transactions never wait for each other's locks.
+ */
+public class NoWaitPolicy extends DeadlockPolicy {
+
+	public String getName()
+	{
+		return NO_WAIT;
+	}
+
+	public int resolveConflict(Transaction trx, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested)
+	{
+		return TransactionConstants.ABORT_TRANSACTION;
+	}
+
+	public int resolveConflictFromLockWord(Transaction trx, long oldestHolderTimeStamp)
+	{
+		return TransactionConstants.ABORT_TRANSACTION;
+	}
+}
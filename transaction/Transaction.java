@@ -1,5 +1,6 @@
 package transaction;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import operation.OperationVO;
 
 /**
@@ -15,9 +16,13 @@ public class Transaction {
 	private String transactionId=null;
 	//A unique timestamp for each transaction.
 	private long timeStamp=0;
+	//A number distinguishing this Transaction object from every other one created, used to identify lock holders in lock words.
+	private int serialNumber=0;
+	private static final AtomicInteger serialNumbers = new AtomicInteger();
 	//A boolean variable whose value reflects if the transaction is read-only transaction or not
 	private boolean isReadOnly = false;
-	private Map variablesAndValuesMapForROTrx = null;
+	//Snapshot of the committed values read by a read-only transaction, as returned by SnapshotRegistry.openSnapshot
+	private long snapshot = 0;
 	// A Map<Key,value>, key is Site Id and value is tick at which the site was accessed.
 	private Map sitesAccessedSoFar = null;
 	//A Map of containing values of all the variables that have been write-locked //by transaction
@@ -35,14 +40,11 @@ public class Transaction {
 		this.isReadOnly=isReadOnly;
 		transactionStatus="ACTIVE";
 		this.timeStamp= timeStamp;
+		serialNumber=serialNumbers.incrementAndGet();
 		readLockedVariables=new HashSet();
 		writeLockedVariables=new HashSet();
 		lockedVariablesAndValuesMap=new HashMap();
 		sitesAccessedSoFar=new HashMap();
-		if(isReadOnly)
-		{
-			variablesAndValuesMapForROTrx=new HashMap();
-		}
 	}
 	//A method to get Queue of blocked operations
 	public Queue<OperationVO> getBlockedOperationsQueue()
@@ -90,17 +92,13 @@ public class Transaction {
 			return false;
 		}		
 	}
-	public Map getVariablesAndValuesMapForROTrx()
+	public long getSnapshot()
 	{
-		return variablesAndValuesMapForROTrx;
+		return snapshot;
 	}
-	public void setVariablesAndValuesMapForROTrx(String variable, int value)
+	public void setSnapshot(long snapshot)
 	{
-		if(variablesAndValuesMapForROTrx==null)
-		{
-			variablesAndValuesMapForROTrx=new HashMap();
-		}
-		variablesAndValuesMapForROTrx.put(variable, value);
+		this.snapshot=snapshot;
 	}
 	
 	public String getTransactionStatus()
@@ -122,6 +120,10 @@ public class Transaction {
 	{
 		return timeStamp;
 	}
+	public int getSerialNumber()
+	{
+		return serialNumber;
+	}
 	public String getTrxId()
 	{
 		return transactionId;
@@ -23,6 +23,10 @@ public static final int WRITE_LOCK_ACQUIRED=1;
 public static final int READ_LOCK_ACQUIRED=1;
 public static final int ABORT_TRANSACTION=500;
 public static final int BLOCK_TRANSACTION=501;
+public static final int ABORT_LOCKING_TRANSACTIONS=502;
 public static final int READ_OPERATION_SUCCESSFUL_FOR_READ_ONLY_TRANSACTION=600;
 public static final int READ_OPERATION_UNSUCCESSFUL_FOR_READ_ONLY_TRANSACTION=601;
+public static final int VOTE_COMMIT=700;
+public static final int VOTE_READ_ONLY=701;
+public static final int VOTE_ABORT=702;
 }
@@ -3,8 +3,19 @@ import java.util.*;
 import operation.OperationConstants;
 import operation.OperationVO;
 import site.DataAndLockManager;
+import site.FailureDetector;
+import site.LockStripes;
+import site.LockWaitQueues;
+import site.PlacementCatalog;
+import site.SiteRpcClient;
+import site.SnapshotRegistry;
+import site.VariableStore;
 import site.VariablesVO;
+import site.WriteBatch;
 import java.io.*;
+import java.util.concurrent.atomic.AtomicLong;
+import output.EventLog;
+import output.OutputSink;
 
 /**
  * Manages active and blocked transactions and services read, write, commit, block and abort requests.
@@ -15,22 +26,78 @@ public class TransactionManager {
 	private Map dataLockManagersMap = null;	
 	//A map of all the transactions
 	private Map trxsMap = null;
-	//Lis of blocked transactions
-	private List blockedTrxsList=null;
+	//Registry of blocked transactions
+	private BlockedTransactionRegistry blockedTrxs=null;
 	//Set of variables that have already been read by read-on transaction
 	private Set variablesReadByReadOnlyTrx=null;
-	//A hack to prevent sending lock acquisition requests to sites in case the lock needs to be acquired on non-replicated variables
-	private String[] nonReplicatedVariables={"x1","x3","x5","x7","x9","x11","x13","x15","x17","x19"};
-	private int[] siteIdForNonReplicatedVariables={2,4,6,8,10,2,4,6,8,10};
+	//Catalog used to prevent sending lock acquisition requests to sites in case the lock needs to be acquired on non-replicated variables
+	private PlacementCatalog placementCatalog=null;
+	//Monitors making the lock checks and lock acquisitions of a read or write on a variable atomic across all the sites
+	private LockStripes variableLocks=null;
+	//Registry of the snapshots read by read-only transactions, shared with all the data and lock managers
+	private SnapshotRegistry snapshotRegistry=null;
+	//Queues of the blocked transactions waiting on each variable, shared with all the data and lock managers
+	private LockWaitQueues lockWaitQueues=null;
+	//Policy deciding the lock requests which conflict with the locks held on a variable, shared with all the data and lock managers
+	private DeadlockPolicy deadlockPolicy=null;
+	//Waits-for graph of the transactions blocked on lock conflicts, shared with all the data and lock managers, null unless the deadlock policy detects deadlocks
+	private WaitsForGraph waitsForGraph=null;
+	//Commit number of the last transaction which committed, which numbers the versions of the values it committed
+	private AtomicLong lastCommitNumber=null;
+	//Failure detector through which the sites are known to have failed, null if every failure is known at once
+	private FailureDetector failureDetector=null;
+	//Client through which write locks, commits and aborts are pipelined to the sites over loopback sockets, null if the sites are called directly
+	private SiteRpcClient siteRpcClient=null;
+	//A List<Object[]>, the id and the tick of every transaction which committed since the write-ahead logs were last forced, null if commits are acknowledged at once
+	private List commitsAwaitingDurability=null;
+	//Log of the decisions to commit the transactions, null unless the sites log the values committed at them
+	private CoordinatorLog coordinatorLog=null;
 	/**
 	 * A constructor for TransactionManager class
 	 * @param dataLockManagersMap - A map containing all the data and lock managers' instances
 	 * @author Ashish Walia
 	 */
 	public TransactionManager(Map dataLockManagersMap)
+	{
+		this(dataLockManagersMap,new PlacementCatalog());
+	}
+	/**
+	 * A constructor for TransactionManager class
+	 * @param dataLockManagersMap - A map containing all the data and lock managers' instances
+	 * @param placementCatalog - A PlacementCatalog object describing at which sites each variable is placed
+	 */
+	public TransactionManager(Map dataLockManagersMap, PlacementCatalog placementCatalog)
 	{
 		this.dataLockManagersMap=dataLockManagersMap;
-		trxsMap=new HashMap();
+		this.placementCatalog=placementCatalog;
+		//Transactions operating on different variables may be executed by different threads
+		trxsMap=Collections.synchronizedMap(new HashMap());
+		blockedTrxs=new BlockedTransactionRegistry();
+		variablesReadByReadOnlyTrx=Collections.synchronizedSet(new HashSet());
+		variableLocks=new LockStripes(LockStripes.DEFAULT_NUMBER_OF_STRIPES);
+		snapshotRegistry=new SnapshotRegistry();
+		lockWaitQueues=new LockWaitQueues();
+		deadlockPolicy=new WaitDiePolicy();
+		lastCommitNumber=new AtomicLong();
+		if(dataLockManagersMap!=null)
+		{
+			Iterator itr = (Iterator)dataLockManagersMap.values().iterator();
+			while(itr.hasNext())
+			{
+				DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+				dataAndLockManager.setSnapshotRegistry(snapshotRegistry);
+				dataAndLockManager.setLockWaitQueues(lockWaitQueues);
+				dataAndLockManager.setQuorumReplication(placementCatalog.isQuorumReplication());
+			}
+		}
+	}
+	/**
+	 * A method to get the catalog describing at which sites each variable is placed.
+	 * @return PlacementCatalog - The catalog used by Transaction Manager.
+	 */
+	public PlacementCatalog getPlacementCatalog()
+	{
+		return placementCatalog;
 	}
 	/**
 	 * Method to get a Set of variables read by read-only transaction.
@@ -68,29 +135,222 @@ public class TransactionManager {
 	}
 	
 	/**
-	 * A method to get list of currently blocked transactions.
+	 * A method to get the registry of currently blocked transactions.
 	 * @author Ashish Walia
-	 * @return List - A list of currently blocked transactions.
+	 * @return BlockedTransactionRegistry - The currently blocked transactions, in the order in which they were blocked.
+	 */
+	public BlockedTransactionRegistry getBlockedTrxs()
+	{
+		return blockedTrxs;
+	}
+
+	/**
+	 * A method to set the policy deciding the lock requests which conflict with the locks held on a variable, at the transaction manager and all the data and lock managers.
+	 * @param deadlockPolicy - A DeadlockPolicy object, wait-die by default.
+	 */
+	public void setDeadlockPolicy(DeadlockPolicy deadlockPolicy)
+	{
+		this.deadlockPolicy=deadlockPolicy;
+		waitsForGraph=deadlockPolicy.detectsDeadlocks()?new WaitsForGraph():null;
+		if(dataLockManagersMap!=null)
+		{
+			Iterator itr = (Iterator)dataLockManagersMap.values().iterator();
+			while(itr.hasNext())
+			{
+				DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+				dataAndLockManager.setDeadlockPolicy(deadlockPolicy);
+				dataAndLockManager.setWaitsForGraph(waitsForGraph);
+			}
+		}
+	}
+
+	public DeadlockPolicy getDeadlockPolicy()
+	{
+		return deadlockPolicy;
+	}
+
+	/**
+	 * Method which makes the transaction manager learn of site failures through a failure detector instead of at once. Reads and writes are routed away
+	 * from the sites it suspects, and wait for a site which has failed but isn't suspected yet to respond.
+	 * @param failureDetector - A FailureDetector object, or null.
+	 */
+	public void setFailureDetector(FailureDetector failureDetector)
+	{
+		this.failureDetector=failureDetector;
+	}
+
+	public FailureDetector getFailureDetector()
+	{
+		return failureDetector;
+	}
+
+	/**
+	 * Method which makes the transaction manager send the write locks of replicated variables, the commits and the aborts to the sites through a client
+	 * which pipelines them over loopback sockets, instead of calling their data and lock managers directly.
+	 * @param siteRpcClient - A SiteRpcClient object, or null.
+	 */
+	public void setSiteRpcClient(SiteRpcClient siteRpcClient)
+	{
+		this.siteRpcClient=siteRpcClient;
+	}
+
+	public SiteRpcClient getSiteRpcClient()
+	{
+		return siteRpcClient;
+	}
+
+	/**
+	 * Method which makes the transaction manager log its decisions to commit the transactions, which the sites replay the values of when the process restarts.
+	 * @param coordinatorLog - A CoordinatorLog object, or null.
+	 */
+	public void setCoordinatorLog(CoordinatorLog coordinatorLog)
+	{
+		this.coordinatorLog=coordinatorLog;
+	}
+
+	public CoordinatorLog getCoordinatorLog()
+	{
+		return coordinatorLog;
+	}
+
+	/**
+	 * Method which makes the transaction manager hold the success result and the commit event of a transaction which committed until the write-ahead logs
+	 * of the sites have been forced at the end of the tick, so that no commit is acknowledged before it is durable.
+	 * @param commitsAcknowledgedWhenDurable - A boolean value, true if the sites log their commits.
+	 */
+	public void setCommitsAcknowledgedWhenDurable(boolean commitsAcknowledgedWhenDurable)
+	{
+		commitsAwaitingDurability=commitsAcknowledgedWhenDurable?new ArrayList():null;
+	}
+
+	/**
+	 * Method which writes the success result and the commit event of every transaction held since the write-ahead logs were last forced, in the order in
+	 * which they committed. It must be called only once the logs holding their commits have been forced.
+	 * @param out - An OutputSink object to write contents in the output file
+	 * @throws IOException
+	 */
+	public void reportDurableCommits(OutputSink out)throws IOException
+	{
+		if(commitsAwaitingDurability==null)
+		{
+			return;
+		}
+		synchronized(commitsAwaitingDurability)
+		{
+			for(int i=0;i<commitsAwaitingDurability.size();i++)
+			{
+				Object[] commit = (Object[])commitsAwaitingDurability.get(i);
+				out.writeResult("Transaction "+commit[0]+" ended successfully.");
+				out.newLine();
+				out.writeEvent(EventLog.COMMIT, ((Integer)commit[1]).intValue(), (String)commit[0], null, 0, 0);
+			}
+			commitsAwaitingDurability.clear();
+		}
+	}
+
+	/**
+	 * Method which returns the ids of a list of data and lock managers.
+	 */
+	private static int[] getDataAndLockManagerIds(List dataAndLockManagers)
+	{
+		int[] ids = new int[dataAndLockManagers.size()];
+		for(int i=0;i<ids.length;i++)
+		{
+			ids[i]=((DataAndLockManager)dataAndLockManagers.get(i)).getDataAndLockManagerId();
+		}
+		return ids;
+	}
+
+	/**
+	 * Method which exchanges the heartbeats of the sites with the failure detector. The replicated variables of a site which becomes suspected are rendered
+	 * unavailable for read operation, as the writes are routed away from it, and the transactions waiting on the variables of a site whose suspicion changed
+	 * are woken up. Called at the end of every tick.
+	 * @param tick - An integer value, the tick which ended.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @return List - The ids of the sites which are trusted again, empty if there is no failure detector.
+	 * @throws IOException
+	 */
+	public List detectFailures(int tick, OutputSink out)throws IOException
+	{
+		List sitesTrustedAgain = new ArrayList();
+		if(failureDetector!=null && dataLockManagersMap!=null)
+		{
+			Iterator itr = (Iterator)failureDetector.exchangeHeartbeats(dataLockManagersMap, tick, out).iterator();
+			while(itr.hasNext())
+			{
+				Integer siteId = (Integer)itr.next();
+				DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(siteId);
+				if(failureDetector.isSuspected(siteId.intValue()))
+				{
+					dataAndLockManager.makeReplicatedVariablesUnavailableWhileSuspected();
+				}
+				else
+				{
+					sitesTrustedAgain.add(siteId);
+				}
+				if(dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
+				{
+					lockWaitQueues.wakeWaitersOnVariablesOf(dataAndLockManager.getSiteServicedByDataAndLockMgr().getVariableStore());
+				}
+			}
+		}
+		return sitesTrustedAgain;
+	}
+
+	/**
+	 * Method which checks if the failure detector suspects a site.
+	 * @param siteId - An integer value, the id of the site.
+	 */
+	private boolean isSiteSuspected(int siteId)
+	{
+		return failureDetector!=null && failureDetector.isSuspected(siteId);
+	}
+
+	/**
+	 * Method which checks if a site hosting a variable has failed without being suspected by the failure detector yet, so that a request sent to it gets no response.
+	 * @param dataAndLockManager - A DataAndLockManager object, the data and lock manager of the site.
+	 * @param variable - A String variable.
+	 */
+	private boolean isSiteUnresponsive(DataAndLockManager dataAndLockManager, String variable)
+	{
+		return failureDetector!=null && dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null
+				&& placementCatalog.isHomeSite(variable, dataAndLockManager.getDataAndLockManagerId()) && !failureDetector.isSuspected(dataAndLockManager.getDataAndLockManagerId())
+				&& !dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus();
+	}
+
+	/**
+	 * Method which returns the first site hosting a variable which doesn't respond, as a write has to reach every site hosting it which isn't suspected.
+	 * @param variable - A String variable.
+	 * @return int - The id of the site, or 0 if every site hosting the variable responds or there is no failure detector.
 	 */
-	public List getBlockedTrxsList()
+	private int getUnresponsiveHomeSite(String variable)
 	{
-		return blockedTrxsList;
+		if(failureDetector!=null)
+		{
+			int[] homeSites = placementCatalog.getHomeSites(variable);
+			for(int i=0;i<homeSites.length;i++)
+			{
+				if(isSiteUnresponsive((DataAndLockManager)dataLockManagersMap.get(homeSites[i]), variable))
+				{
+					return homeSites[i];
+				}
+			}
+		}
+		return 0;
 	}
 	
 	/**
 	 * A method to add transaction to list of currently blocked transactions
 	 * @author Ashish Walia
 	 * @param trxName - A string variable which holds name of transaction that needs to be added to the list of currently blocked transactions.
+	 * @param tick - An integer value, the tick at which the transaction is blocked.
 	 */
-	public void addTrxToBlockedTrxsList(String trxName)
+	public void addTrxToBlockedTrxsList(String trxName, int tick)
 	{
-		if(blockedTrxsList==null)
-		{
-			blockedTrxsList=new ArrayList();
-		}
-		if(trxName!=null && !"".equals(trxName) && !blockedTrxsList.contains(trxName))
+		if(blockedTrxs.add(trxName, tick))
 		{
-			blockedTrxsList.add(trxName);
+			//A newly blocked transaction is retried at the next run of executePendingOperations, whatever it is blocked on
+			lockWaitQueues.wake(trxName);
 		}
 	}
 
@@ -99,11 +359,11 @@ public class TransactionManager {
 	 * Method which creates a new transaction if it doesn't exist already.
 	 * @author - Ashish Walia
 	 * @param operationVO - An OperationVO object which holds all the information about any given operation.
-	 * @param out - A BufferedWriter object to write contents to output file.
+	 * @param out - An OutputSink object to write contents to output file.
 	 * @throws IOException
 	 */
 	
-	public void beginTransaction(OperationVO operationVO,BufferedWriter out)throws IOException
+	public void beginTransaction(OperationVO operationVO,OutputSink out)throws IOException
 	{
 		if(operationVO!=null)
 		{
@@ -122,68 +382,88 @@ public class TransactionManager {
 					//We need to create new transaction
 					Transaction trx = new Transaction(trxName,readOnly,tick);
 					trxsMap.put(trxName, trx);
+					out.writeEvent(readOnly?EventLog.BEGIN_READ_ONLY:EventLog.BEGIN, tick, trxName, null, 0, 0);
 					if(readOnly)
 					{
-						//Save the values of all variables committed at sites at this tick
-						readAndSaveCommittedValuesFromSite(trx);
+						//Make the sites keep the values committed at this tick for as long as the transaction is active
+						openSnapshotForReadOnlyTrx(trx);
 						out.write("Read-only transaction "+trxName+" created.");
 						out.newLine();
-						System.out.println("Read-only transaction "+trxName+" created.");
 
 					}
 					else
 					{
 						out.write("Transaction "+trxName+" created.");
 						out.newLine();
-						System.out.println("Transaction "+trxName+" created.");
 					}
 				}
 				else if(trxsMap!=null && trxsMap.containsKey(trxName))
 				{
 					out.write("Transaction "+trxName+" already exists.");
 					out.newLine();
-					System.out.println("Transaction "+trxName+" already exists.");
 				}
 			}
 		}
 	}
 	
 	/**
-	 * Method which reads and saves committed values of variables when a read-only transaction is created.
-	 * @author - Ashish Walia
+	 * Method which makes a read-only transaction read the values committed at its birth time, the sites keeping the values committed afterwards
+	 * alongside them until the transaction ends.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 */
+	public void openSnapshotForReadOnlyTrx(Transaction trx)
+	{
+		if(trx!=null)
+		{
+			trx.setSnapshot(snapshotRegistry.openSnapshot());
+		}
+	}
+
+	/**
+	 * Method which lets the sites discard the values which only an ending read-only transaction could read.
 	 * @param trx - A Transaction object which holds every information about any given transaction.
 	 */
-	public void readAndSaveCommittedValuesFromSite(Transaction trx)
+	public void closeSnapshotOfReadOnlyTrx(Transaction trx)
 	{
 		if(trx!=null && dataLockManagersMap!=null)
 		{
-			Iterator itr =(Iterator)dataLockManagersMap.entrySet().iterator();
+			snapshotRegistry.closeSnapshot(trx.getSnapshot());
+			long oldestActiveSnapshot = snapshotRegistry.getOldestActiveSnapshot();
+			Iterator itr = (Iterator)dataLockManagersMap.values().iterator();
 			while(itr.hasNext())
 			{
-				Map.Entry pairs = (Map.Entry)itr.next();
-				if(pairs!=null)
+				((DataAndLockManager)itr.next()).discardOlderVersions(oldestActiveSnapshot);
+			}
+		}
+	}
+
+	/**
+	 * Method which finds the value of a variable committed at a read-only transaction's birth time at the first site it could be read from at that time.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @param variable - A String variable which the read-only transaction wants to read.
+	 * @return Integer - The committed value, or null if the variable couldn't be read from any site at the transaction's birth time.
+	 */
+	public Integer getCommittedValueAtReadOnlyTrxBirthTime(Transaction trx, String variable)
+	{
+		//Any copy may be stale when replicated variables are written through quorums, the latest one of a read quorum is not
+		if(trx!=null && dataLockManagersMap!=null && isVariableReplicatedWithQuorums(variable))
+		{
+			return getCommittedValueAtReadOnlyTrxBirthTimeFromReadQuorum(trx, variable);
+		}
+		if(trx!=null && dataLockManagersMap!=null)
+		{
+			Iterator itr = (Iterator)dataLockManagersMap.values().iterator();
+			while(itr.hasNext())
+			{
+				DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+				if(dataAndLockManager!=null && dataAndLockManager.isVariableAvailableToBeReadFromSiteAtSnapshot(variable, trx.getSnapshot()))
 				{
-					DataAndLockManager dataAndLockManager=(DataAndLockManager)pairs.getValue();
-					if(dataAndLockManager!=null && dataAndLockManager.getMapOfVariablesVO()!=null)
-					{
-						Iterator iterator =(Iterator)dataAndLockManager.getMapOfVariablesVO().entrySet().iterator();
-						while(iterator.hasNext())
-						{
-							Map.Entry variableVOPairs = (Map.Entry)iterator.next();
-							if(variableVOPairs!=null)
-							{
-								VariablesVO variableVO = (VariablesVO)variableVOPairs.getValue();
-								if(variableVO!=null && variableVO.getVariable()!=null && variableVO.isVariableAvailableForReadOperation())
-								{
-									trx.setVariablesAndValuesMapForROTrx(variableVO.getVariable(),variableVO.getValue());
-								}
-							}
-						}
-					}
+					return dataAndLockManager.getValueOfVariableAtSnapshot(variable, trx.getSnapshot());
 				}
 			}
 		}
-	}	
+		return null;
+	}
 	
 	/**
 	 * Method which checks if a blocked transaction is in a good standing to read the variable on which it is blocked.
@@ -194,6 +474,10 @@ public class TransactionManager {
 	 */	
 	public int shouldBlockedTrxTryAgainToReadVariable(Transaction trx, String variable)
 	{
+		if(trx!=null && dataLockManagersMap!=null && isVariableReplicatedWithQuorums(variable))
+		{
+			return canQuorumBeLocked(trx, variable, false);
+		}
 		if(trx!=null && variable!=null && !"".equals(variable) && dataLockManagersMap!=null)
 		{
 			Iterator itr = (Iterator)dataLockManagersMap.entrySet().iterator();
@@ -203,6 +487,15 @@ public class TransactionManager {
 				if(pairs!=null)
 				{
 				DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();
+				//A read isn't routed to a suspected site, and waits for the first site it is routed to which doesn't respond
+				if(dataAndLockManager!=null && isSiteSuspected(dataAndLockManager.getDataAndLockManagerId()))
+				{
+					continue;
+				}
+				else if(isSiteUnresponsive(dataAndLockManager, variable))
+				{
+					return TransactionConstants.READ_LOCK_REQUEST_CANNOT_BE_GRANTED;
+				}
 				if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus())
 				{
 					int response=dataAndLockManager.canReadLockBeAcquiredOnVariable(trx, variable);
@@ -210,9 +503,9 @@ public class TransactionManager {
 					{
 						return TransactionConstants.READ_LOCK_REQUEST_CAN_BE_GRANTED;
 					}
-					else if(response==TransactionConstants.ABORT_TRANSACTION)
+					else if(response==TransactionConstants.ABORT_TRANSACTION || response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
 					{
-						return TransactionConstants.ABORT_TRANSACTION;
+						return response;
 					}
 				}
 				}
@@ -254,12 +547,23 @@ public class TransactionManager {
 	 * Read-only transactions use multi-version read consistency algorithm to read any variable
 	 * @author Ashish Walia
 	 * @param operationVO - An OperationVO object which holds all the information about any given operation
-	 * @param out - A BufferedWriter object to write contents to output file.
+	 * @param out - An OutputSink object to write contents to output file.
 	 * @param tick - An integer value used to correctly maintain the time stamp at which site is accessed 
 	 * @return int - An integer value representing outcome of the readVariable method's execution
 	 * @throws IOException
 	 */
-	public int readVariable(OperationVO operationVO, BufferedWriter out,int tick)throws IOException
+	public int readVariable(OperationVO operationVO, OutputSink out,int tick)throws IOException
+	{
+		synchronized(variableLocks.getLock((operationVO!=null)?operationVO.getVariable():null))
+		{
+			return readVariableUnderVariableLock(operationVO,out,tick);
+		}
+	}
+
+	/**
+	 * Body of readVariable, called while holding the monitor of the variable.
+	 */
+	private int readVariableUnderVariableLock(OperationVO operationVO, OutputSink out,int tick)throws IOException
 	{
 		if(operationVO!=null)
 		{
@@ -273,7 +577,6 @@ public class TransactionManager {
 			{
 				out.write("Transaction " + trxName +" doesn't exist. Reading of variable "+variable+" can't proceed.");
 				out.newLine();
-				System.out.println("Transaction " + trxName +" doesn't exist. Reading of variable "+variable+" can't proceed.");
 				return TransactionConstants.READ_LOCK_REQUEST_CANNOT_BE_GRANTED;
 			}
 			//Try to read the value of variable from lockedVariablesAndValuesMap
@@ -283,13 +586,14 @@ public class TransactionManager {
 				//If transaction is a read-only transaction, read out the committed value of variable at the transaction's birth time
 				if(trx!=null && variable!=null && !"".equals(variable) && trx.isTrxReadOnly())
 				{
-					if(trx.getVariablesAndValuesMapForROTrx()!=null && trx.getVariablesAndValuesMapForROTrx().containsKey(variable))
+					Integer committedValue = getCommittedValueAtReadOnlyTrxBirthTime(trx, variable);
+					if(committedValue!=null)
 					{
 						if(getVariablesReadByReadOnlyTrx()!=null && getVariablesReadByReadOnlyTrx().contains(variable))
 						{
-							out.write("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+trx.getVariablesAndValuesMapForROTrx().get(variable));
+							out.writeResult("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+committedValue);
 							out.newLine();
-							System.out.println("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+trx.getVariablesAndValuesMapForROTrx().get(variable));
+							out.writeEvent(EventLog.READ, tick, trxName, variable, 0, committedValue.intValue());
 							return TransactionConstants.READ_OPERATION_SUCCESSFUL_FOR_READ_ONLY_TRANSACTION;
 						}
 						else
@@ -298,9 +602,9 @@ public class TransactionManager {
 							if(isVariableAvailableToBeReadFromAnySite(variable))
 							{
 								addVariableToVariablesReadByReadOnlyTrx(variable);
-								out.write("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+trx.getVariablesAndValuesMapForROTrx().get(variable));
+								out.writeResult("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+committedValue);
 								out.newLine();
-								System.out.println("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+trx.getVariablesAndValuesMapForROTrx().get(variable));
+								out.writeEvent(EventLog.READ, tick, trxName, variable, 0, committedValue.intValue());
 								return TransactionConstants.READ_OPERATION_SUCCESSFUL_FOR_READ_ONLY_TRANSACTION;
 							}
 							//Block the transaction
@@ -312,15 +616,13 @@ public class TransactionManager {
 								out.newLine();
 								out.write("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
 								out.newLine();
-								System.out.println("Either the site(s) at which variable is present is/are down or the variable is not available for read operation at this time.");
-							    System.out.println("Transaction "+ trx.getTrxId()+" needs to be blocked.");
-							    System.out.println("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
+								out.writeEvent(EventLog.BLOCK, tick, trx.getTrxId(), variable, 0, 0);
 								trx.setTransactionStatus(TransactionConstants.BLOCKED_TRANSACTION_STATUS);
 								if(!trx.isOperationInBlockedOperationsQueue(operationVO))
 								{
 									trx.addOperationsToBlockedOperationsQueue(operationVO);
 								}
-								addTrxToBlockedTrxsList(trxName);												
+								addTrxToBlockedTrxsList(trxName,tick);												
 								return TransactionConstants.BLOCK_TRANSACTION;
 							}
 						}
@@ -329,15 +631,14 @@ public class TransactionManager {
 					{
 						out.write("Committed value of variable "+variable+" for read-only transaction "+trxName+" could not be found at its birth time.");
 						out.newLine();
-						System.out.println("Committed value of variable "+variable+" for read-only transaction "+trxName+" could not be found at its birth time.");
 					}
 					return TransactionConstants.READ_OPERATION_UNSUCCESSFUL_FOR_READ_ONLY_TRANSACTION;
 				}
 				else if(variable!=null && !"".equals(variable)&& trx!=null && trx.getLockedVariablesAndValuesMap()!=null && trx.getLockedVariablesAndValuesMap().containsKey(variable))
 				{
-					out.write("Value of variable "+variable+ " is "+trx.getLockedVariablesAndValuesMap().get(variable));
+					out.writeResult("Value of variable "+variable+ " is "+trx.getLockedVariablesAndValuesMap().get(variable));
 					out.newLine();
-					System.out.println("Value of variable "+variable+ " is "+trx.getLockedVariablesAndValuesMap().get(variable));
+					out.writeEvent(EventLog.READ, tick, trxName, variable, 0, ((Integer)trx.getLockedVariablesAndValuesMap().get(variable)).intValue());
 					return 0;
 				}
 				else
@@ -348,6 +649,11 @@ public class TransactionManager {
 					 * 
 					 */
 
+					//A replicated variable read through quorums is read from the latest copy of a read quorum instead
+					if(dataLockManagersMap!=null && trx!=null && isVariableReplicatedWithQuorums(variable))
+					{
+						return readVariableFromReadQuorum(trx,operationVO,out,tick);
+					}
 					//Step 1: Read the variable from first available site which hosts that variable
 					//Iterate over dataLockManagersMap
 					if(dataLockManagersMap!=null && trx!=null)
@@ -363,33 +669,46 @@ public class TransactionManager {
 								//if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus() && dataAndLockManager.isVariableAvailableToBeReadFromSite(variable))
 								if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
 								{
+									if(isSiteSuspected(dataAndLockManager.getDataAndLockManagerId()) && placementCatalog.isHomeSite(variable, dataAndLockManager.getDataAndLockManagerId()))
+									{
+										out.write("Site "+pairs.getKey()+" is suspected by the failure detector. Variable "+variable+" isn't read from it.");
+										out.newLine();
+										continue;
+									}
+									else if(isSiteUnresponsive(dataAndLockManager, variable))
+									{
+										out.write("Site "+pairs.getKey()+" doesn't respond. Transaction "+trx.getTrxId()+" waits for it to respond or to be suspected by the failure detector.");
+										out.newLine();
+										return blockTrx(trx,operationVO,false,dataAndLockManager.getDataAndLockManagerId(),out,tick);
+									}
 									int response = dataAndLockManager.canReadLockBeAcquiredOnVariable(trx, variable);
+									if(response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
+									{
+										abortTrxsLockingVariable(trx,variable,false,out,tick);
+										response = dataAndLockManager.canReadLockBeAcquiredOnVariable(trx, variable);
+									}
 									if(response==TransactionConstants.SITE_IS_DOWN)
 									{
 										out.write("Can't read variable "+variable +" from site "+ pairs.getKey()+" . Site "+pairs.getKey()+" is down.");
 										out.newLine();
-										System.out.println("Can't read variable "+variable +" from site "+ pairs.getKey()+" . Site "+pairs.getKey()+" is down.");
 									}
 									else if(response==TransactionConstants.VARIABLE_NOT_FOUND_AT_SITE)
 									{
 										out.write("Variable "+variable +" not found at site "+ pairs.getKey());
 										out.newLine();
-										System.out.println("Variable "+variable +" not found at site "+ pairs.getKey());
 									}
 									else if(response==TransactionConstants.VARIABLE_NOT_AVAILABLE_FOR_READ_OPERATION)
 									{
 										out.write("Variable "+variable+ "is not available for read operation at site "+pairs.getKey());
 										out.newLine();
-										System.out.println("Variable "+variable+ "is not available for read operation at site "+pairs.getKey());
 									}
 									else if(response==TransactionConstants.READ_LOCK_ALREADY_ACQUIRED)
 									{
 										out.write("Read lock already acquired by transaction "+trx.getTrxId()+" on variable "+variable);
 										out.newLine();
-										out.write("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
+										out.writeResult("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
 										out.newLine();
-										System.out.println("Read lock already acquired by transaction "+trx.getTrxId()+" on variable "+variable);
-										System.out.println("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
+										out.writeEvent(EventLog.READ, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
 										return TransactionConstants.READ_LOCK_ACQUIRED;
 									}
 									else if(response==TransactionConstants.READ_LOCK_REQUEST_CAN_BE_GRANTED)
@@ -398,14 +717,12 @@ public class TransactionManager {
 										out.newLine();										
 										out.write("Read Lock request can be granted. Proceeding to lock acquisition stage.");
 										out.newLine();
-										System.out.println("Variable "+variable +" found at site "+ pairs.getKey());
-										System.out.println("Read Lock request can be granted. Proceeding to lock acquisition stage.");										
 										//Read lock needs to be applied only at the first available site
 										trx.addSiteAccessedInfoToSitesAccessedSoFarMap(dataAndLockManager.getDataAndLockManagerId(),tick);
 										dataAndLockManager.acquireReadLock(trx,variable);
-										out.write("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
+										out.writeResult("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
 										out.newLine();
-										System.out.println("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
+										out.writeEvent(EventLog.READ, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
 										trx.addReadLockedVariables(variable);
 										return TransactionConstants.READ_LOCK_ACQUIRED;
 									}
@@ -413,11 +730,10 @@ public class TransactionManager {
 									{
 										out.write("Variable "+variable +" found at site "+ pairs.getKey());
 										out.newLine();	
-										System.out.println("Variable "+variable +" found at site "+ pairs.getKey());
-										dataAndLockManager.displayReasonWhyTrxNeedsToBeAborted(trx,variable,out);
-										out.write("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
+										dataAndLockManager.displayReasonWhyTrxNeedsToBeAborted(trx,variable,false,out);
+										out.writeResult("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
 										out.newLine();										
-										System.out.println("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
+										out.writeEvent(EventLog.ABORT, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), 0);
 										informAllTheSitesThatTrxIsAborting(trx);
 										return TransactionConstants.ABORT_TRANSACTION;
 									}
@@ -425,27 +741,28 @@ public class TransactionManager {
 									{
 										out.write("Variable "+variable +" found at site "+ pairs.getKey());
 										out.newLine();	
-										System.out.println("Variable "+variable +" found at site "+ pairs.getKey());										
-										dataAndLockManager.displayReasonWhyTrxNeedsToBeBlocked(trx,variable,out);	
+										dataAndLockManager.displayReasonWhyTrxNeedsToBeBlocked(trx,variable,false,out);
 										out.write("Transaction "+ trx.getTrxId()+" needs to be blocked.");
 										out.newLine();
 										out.write("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
 										out.newLine();																			
-										System.out.println("Transaction "+ trx.getTrxId()+" needs to be blocked.");
-										System.out.println("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
+										out.writeEvent(EventLog.BLOCK, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), 0);
 										trx.setTransactionStatus(TransactionConstants.BLOCKED_TRANSACTION_STATUS);
 										if(!trx.isOperationInBlockedOperationsQueue(operationVO))
 										{
 											trx.addOperationsToBlockedOperationsQueue(operationVO);
 										}										
-										addTrxToBlockedTrxsList(trxName);										
+										addTrxToBlockedTrxsList(trxName,tick);
+										if(deadlockPolicy.detectsDeadlocks() && isTrxAbortedToBreakDeadlock(trx,variable,false,out,tick))
+										{
+											return TransactionConstants.ABORT_TRANSACTION;
+										}
 										return TransactionConstants.BLOCK_TRANSACTION;
 									}
 									else if(response==TransactionConstants.READ_LOCK_REQUEST_CANNOT_BE_GRANTED)
 									{
 										out.write("Write lock request can't be granted to transaction "+trx.getTrxId()+" on variable "+variable);
 										out.newLine();
-										System.out.println("Write lock request can't be granted to transaction "+trx.getTrxId()+" on variable "+variable);
 										return TransactionConstants.READ_LOCK_REQUEST_CANNOT_BE_GRANTED;
 									}
 								}
@@ -457,14 +774,18 @@ public class TransactionManager {
 						out.newLine();
 						out.write("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
 						out.newLine();
-						System.out.println("Transaction "+ trx.getTrxId()+" needs to be blocked.");
-						System.out.println("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
+						out.writeEvent(EventLog.BLOCK, tick, trx.getTrxId(), variable, 0, 0);
 						trx.setTransactionStatus(TransactionConstants.BLOCKED_TRANSACTION_STATUS);
 						if(!trx.isOperationInBlockedOperationsQueue(operationVO))
 						{
 							trx.addOperationsToBlockedOperationsQueue(operationVO);
 						}						
-						addTrxToBlockedTrxsList(trxName);						
+						addTrxToBlockedTrxsList(trxName,tick);						
+						//Transactions locking the variable once it becomes available have to be known to wait for it
+						if(deadlockPolicy.detectsDeadlocks() && isTrxAbortedToBreakDeadlock(trx,variable,false,out,tick))
+						{
+							return TransactionConstants.ABORT_TRANSACTION;
+						}
 						return TransactionConstants.BLOCK_TRANSACTION;							
 						//End
 					}
@@ -475,7 +796,7 @@ public class TransactionManager {
 	return TransactionConstants.READ_LOCK_REQUEST_CANNOT_BE_GRANTED;
 }
 	/**
-	 * A method which informs all the available sites that transaction is aborting. 
+	 * A method which informs all the available sites accessed by the transaction that it is aborting. 
 	 * Data and lock manager will release all the read and write locks held by the transaction on the variables at that site.
 	 * At the end, transaction is removed from the map of transactions maintained by Transaction Manager
 	 * @author Ashish Walia
@@ -483,21 +804,38 @@ public class TransactionManager {
 	 */
 	public void informAllTheSitesThatTrxIsAborting(Transaction trx)
 	{
-		if(dataLockManagersMap!=null)
+		if(dataLockManagersMap!=null && trx.getSitesAccessedSoFar()!=null)
 		{
-			Iterator itr =(Iterator)dataLockManagersMap.entrySet().iterator();
+			List dataAndLockManagers = new ArrayList();
+			//Locks of the transaction are only held at the sites it accessed, which are informed in the order of their ids
+			Iterator itr =(Iterator)new TreeSet(trx.getSitesAccessedSoFar().keySet()).iterator();
 			while(itr.hasNext())
 			{
-				Map.Entry pairs = (Map.Entry)itr.next();
-				if(pairs!=null)
+				DataAndLockManager dataAndLockManager=(DataAndLockManager)dataLockManagersMap.get(itr.next());
+				if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus())
 				{
-					DataAndLockManager dataAndLockManager=(DataAndLockManager)pairs.getValue();
-					if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus())
+					if(siteRpcClient!=null)
+					{
+						dataAndLockManagers.add(dataAndLockManager);
+					}
+					else
 					{
 						dataAndLockManager.abortTransaction(trx);
 					}
 				}
 			}
+			if(siteRpcClient!=null)
+			{
+				try
+				{
+					siteRpcClient.abort(trx, getDataAndLockManagerIds(dataAndLockManagers));
+				}
+				catch(IOException ioException)
+				{
+					//Callers can't recover from a site which can't be reached over the loopback interface
+					throw new UncheckedIOException(ioException);
+				}
+			}
 		}
 		//Now, it's time to clear the sitesAccessedSoFar Set
 		trx.clearSitesAccessedSoFar();
@@ -513,9 +851,14 @@ public class TransactionManager {
 		trx.clearBlockedOperationsQueue();
 		
 		//Remove transaction from list of blocked transactions' list
-		if(getBlockedTrxsList()!=null && trx.getTrxId()!=null)
+		if(getBlockedTrxs()!=null && trx.getTrxId()!=null)
+		{
+			getBlockedTrxs().remove(trx.getTrxId());
+		}
+		lockWaitQueues.remove(trx.getTrxId());
+		if(waitsForGraph!=null)
 		{
-			getBlockedTrxsList().remove(trx.getTrxId());
+			waitsForGraph.removeTrx(trx.getTrxId());
 		}
 		//Now, it's time to remove Transaction trx from the Transaction Manager trxsMap
 		if(trxsMap!=null)
@@ -523,6 +866,126 @@ public class TransactionManager {
 			trxsMap.remove(trx.getTrxId());
 		}		
 	}
+	/**
+	 * Method which aborts a transaction and reports it.
+	 * @param trx - A Transaction object, the transaction to be aborted.
+	 * @param variable - A String variable the transaction is aborted over, or null.
+	 * @param siteId - An integer value, the site at which it is aborted over the variable, or 0.
+	 */
+	private void abortTrx(Transaction trx, String variable, int siteId, OutputSink out, int tick)throws IOException
+	{
+		out.writeResult("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
+		out.newLine();
+		out.writeEvent(EventLog.ABORT, tick, trx.getTrxId(), variable, siteId, 0);
+		informAllTheSitesThatTrxIsAborting(trx);
+	}
+
+	/**
+	 * Method which aborts the transactions locking a variable at the sites which are up which the deadlock policy designates, so that a transaction can lock it.
+	 * @param trx - A Transaction object, the transaction requesting the lock.
+	 * @param variable - A String variable which needs to be read or write locked.
+	 * @param isWriteLockRequested - A boolean value, true if a write lock is requested.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @param tick - An integer value, the current tick.
+	 * @throws IOException
+	 */
+	private void abortTrxsLockingVariable(Transaction trx, String variable, boolean isWriteLockRequested, OutputSink out, int tick)throws IOException
+	{
+		//A Map<Key,value>, key is a transaction to be aborted and value is the first site at which it locks the variable
+		Map trxsToBeAborted = new LinkedHashMap();
+		Iterator itr = (Iterator)dataLockManagersMap.values().iterator();
+		while(itr.hasNext())
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+			Iterator iterator = (Iterator)dataAndLockManager.getTrxsToBeAbortedForLockRequest(trx,variable,isWriteLockRequested).iterator();
+			while(iterator.hasNext())
+			{
+				Transaction lockingTrx = (Transaction)iterator.next();
+				if(!trxsToBeAborted.containsKey(lockingTrx))
+				{
+					trxsToBeAborted.put(lockingTrx, dataAndLockManager.getDataAndLockManagerId());
+				}
+			}
+		}
+		itr = (Iterator)trxsToBeAborted.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			Transaction lockingTrx = (Transaction)pairs.getKey();
+			if(trxsMap.containsKey(lockingTrx.getTrxId()))
+			{
+				deadlockPolicy.displayReasonWhyLockingTrxNeedsToBeAborted(lockingTrx,trx,variable,out);
+				abortTrx(lockingTrx,variable,((Integer)pairs.getValue()).intValue(),out,tick);
+			}
+		}
+	}
+
+	/**
+	 * Method which records in the waits-for graph the transactions a transaction which has just been blocked on a variable waits for, looks for a cycle of
+	 * transactions waiting for each other through it, and aborts the transaction the deadlock policy chooses to break it, until there is no such cycle left.
+	 * @param trx - A Transaction object, the blocked transaction.
+	 * @param variable - A String variable the transaction is blocked on.
+	 * @param isWriteLockRequested - A boolean value, true if the transaction is blocked on a write lock request.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @param tick - An integer value, the current tick.
+	 * @return boolean - true if the blocked transaction itself has been aborted.
+	 * @throws IOException
+	 */
+	private boolean isTrxAbortedToBreakDeadlock(Transaction trx, String variable, boolean isWriteLockRequested, OutputSink out, int tick)throws IOException
+	{
+		WaitsForGraphPolicy waitsForGraphPolicy = (WaitsForGraphPolicy)deadlockPolicy;
+		List cycle = waitsForGraph.waitFor(trx.getTrxId(), variable, isWriteLockRequested, getTrxsConflictingWithLockRequest(trx,variable,isWriteLockRequested));
+		while(cycle!=null)
+		{
+			String victim = waitsForGraphPolicy.chooseVictim(cycle, trxsMap);
+			Transaction victimTrx = (victim!=null)?(Transaction)trxsMap.get(victim):null;
+			if(victimTrx==null)
+			{
+				break;
+			}
+			waitsForGraphPolicy.displayReasonWhyTrxIsChosenAsVictim(victim, cycle, out);
+			abortTrx(victimTrx,(victimTrx==trx)?variable:null,0,out,tick);
+			if(victimTrx==trx)
+			{
+				return true;
+			}
+			cycle = waitsForGraph.findCycle(trx.getTrxId());
+		}
+		return false;
+	}
+
+	/**
+	 * Method which returns the transactions holding locks which conflict with a lock request of a transaction at the sites which are up.
+	 * @return Map - A Map<Key,value>, key is a conflicting transaction and value is the Set of sites at which it holds a conflicting lock.
+	 */
+	private Map getTrxsConflictingWithLockRequest(Transaction trx, String variable, boolean isWriteLockRequested)
+	{
+		Map conflictingTrxs = new LinkedHashMap();
+		Iterator itr = (Iterator)dataLockManagersMap.values().iterator();
+		while(itr.hasNext())
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)itr.next();
+			if(dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus())
+			{
+				List trxIds = new ArrayList();
+				dataAndLockManager.addTrxsConflictingWithLockRequest(trx,variable,isWriteLockRequested,trxIds);
+				Iterator iterator = (Iterator)trxIds.iterator();
+				while(iterator.hasNext())
+				{
+					String trxName = (String)iterator.next();
+					Set sites = (Set)conflictingTrxs.get(trxName);
+					if(sites==null)
+					{
+						sites = new HashSet();
+						conflictingTrxs.put(trxName, sites);
+					}
+					sites.add(Integer.valueOf(dataAndLockManager.getDataAndLockManagerId()));
+				}
+			}
+		}
+		return conflictingTrxs;
+	}
+
 	/**
 	 * Method which checks if a blocked transaction is in a good standing to write the variable on which it is blocked.
 	 * @author Ashish Walia
@@ -532,6 +995,14 @@ public class TransactionManager {
 	 */	
 	public int shouldBlockedTrxTryAgainToWriteVariable(Transaction trx, String variable)
 	{
+		if(trx!=null && dataLockManagersMap!=null && isVariableReplicatedWithQuorums(variable))
+		{
+			return canQuorumBeLocked(trx, variable, true);
+		}
+		if(getUnresponsiveHomeSite(variable)>0)
+		{
+			return TransactionConstants.WRITE_LOCK_REQUEST_CANNOT_BE_GRANTED;
+		}
 		if(trx!=null && variable!=null && !"".equals(variable) && dataLockManagersMap!=null)
 		{
 			Iterator itr = (Iterator)dataLockManagersMap.entrySet().iterator();
@@ -541,16 +1012,17 @@ public class TransactionManager {
 				if(pairs!=null)
 				{
 				DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();
-				if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus())
+				if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus()
+						&& !isSiteSuspected(dataAndLockManager.getDataAndLockManagerId()))
 				{
 					int response=dataAndLockManager.canWriteLockBeAcquiredOnVariable(trx, variable);
 					if(response==TransactionConstants.WRITE_LOCK_REQUEST_CAN_BE_GRANTED)
 					{
 						return TransactionConstants.WRITE_LOCK_REQUEST_CAN_BE_GRANTED;
 					}
-					else if(response==TransactionConstants.ABORT_TRANSACTION)
+					else if(response==TransactionConstants.ABORT_TRANSACTION || response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
 					{
-						return TransactionConstants.ABORT_TRANSACTION;
+						return response;
 					}
 				}
 			}
@@ -561,191 +1033,183 @@ public class TransactionManager {
 
 	/**
 	 * Method which executes queued up pending operations of blocked transactions.
+	 * Only the blocked transactions woken up since the last run are retried, in the order in which they were blocked. A transaction woken up during the run
+	 * is retried in this run if it was blocked after the transaction being retried, and in the next run otherwise, just as if every blocked transaction was
+	 * retried in turn. A transaction which is still blocked afterwards waits on the variable of its blocked operation until that variable changes.
 	 * @author Ashish Walia
-	 * @param out - A BufferedWriter object to write contents to output file.
+	 * @param out - An OutputSink object to write contents to output file.
 	 * @param tick - An integer value used in updating site accessed information which is maintained for each transaction.
 	 * @throws IOException
 	 */
-	public void executePendingOperations(BufferedWriter out, int tick)throws IOException
+	public void executePendingOperations(OutputSink out, int tick)throws IOException
 	{
-		if(getTrxsMap()!=null && !getTrxsMap().isEmpty() && getBlockedTrxsList()!=null && !getBlockedTrxsList().isEmpty())
+		if(getTrxsMap()!=null && !getTrxsMap().isEmpty() && getBlockedTrxs()!=null && !getBlockedTrxs().isEmpty())
 		{
-			Iterator iterator = (Iterator)getBlockedTrxsList().iterator();
+			//A TreeMap<Key,value>, key is the sequence number at which a transaction was blocked and value is the transaction to retry in this run
+			TreeMap trxsToRetry = new TreeMap();
+			List trxsToRetryInNextRun = new ArrayList();
+			//Transactions blocked during this run are retried in the next one
+			long lastBlockedSequence = blockedTrxs.getLastSequence();
+			long lastRetriedSequence = 0;
+			addWokenUpTrxsToRetry(trxsToRetry, trxsToRetryInNextRun, lastRetriedSequence, lastBlockedSequence);
+			while(!trxsToRetry.isEmpty())
+			{
+				Map.Entry entry = trxsToRetry.pollFirstEntry();
+				lastRetriedSequence = ((Long)entry.getKey()).longValue();
+				String trxName = (String)entry.getValue();
+				Transaction trx = (Transaction)getTrxsMap().get(trxName);
+				if(trx==null || trx.getBlockedOperationsQueue()==null)
+				{
+					continue;
+				}
+				OperationVO retriedOperationVO = (OperationVO)trx.getBlockedOperationsQueue().peek();
+				executePendingOperationsOfTrx(trxName, out, tick);
+				if(waitsForGraph!=null && !TransactionConstants.BLOCKED_TRANSACTION_STATUS.equals(trx.getTransactionStatus()))
+				{
+					waitsForGraph.stopWaiting(trxName);
+				}
+				if(trx.getBlockedOperationsQueue()!=null && !trx.getBlockedOperationsQueue().isEmpty() && getTrxsMap().containsKey(trxName))
+				{
+					OperationVO operationVO = (OperationVO)trx.getBlockedOperationsQueue().peek();
+					//An operation blocked for the first time may be granted when retried, even though nothing it waits on changes, so it is retried once in the next run
+					if(operationVO==retriedOperationVO && operationVO.getVariable()!=null)
+					{
+						lockWaitQueues.waitOn(trxName, operationVO.getVariable());
+					}
+					else
+					{
+						trxsToRetryInNextRun.add(trxName);
+					}
+				}
+				addWokenUpTrxsToRetry(trxsToRetry, trxsToRetryInNextRun, lastRetriedSequence, lastBlockedSequence);
+			}
+			Iterator iterator = (Iterator)trxsToRetryInNextRun.iterator();
 			while(iterator.hasNext())
 			{
-				String trxName=(String)iterator.next();				
-				if(trxName!=null && !"".equals(trxName) && getTrxsMap().containsKey(trxName))
+				lockWaitQueues.wake((String)iterator.next());
+			}
+		}
+	}
+
+	/**
+	 * Method which sorts the transactions woken up since the last call into the ones to retry in this run and the ones to retry in the next one.
+	 */
+	private void addWokenUpTrxsToRetry(TreeMap trxsToRetry, List trxsToRetryInNextRun, long lastRetriedSequence, long lastBlockedSequence)
+	{
+		Iterator iterator = (Iterator)lockWaitQueues.takeWokenWaiters().iterator();
+		while(iterator.hasNext())
+		{
+			String trxName = (String)iterator.next();
+			Transaction trx = (Transaction)getTrxsMap().get(trxName);
+			//Transactions which are no longer blocked are forgotten
+			long sequence = blockedTrxs.getSequence(trxName);
+			if(trx!=null && sequence>0 && trx.getBlockedOperationsQueue()!=null && !trx.getBlockedOperationsQueue().isEmpty())
+			{
+				if(sequence>lastRetriedSequence && sequence<=lastBlockedSequence)
+				{
+					trxsToRetry.put(sequence, trxName);
+				}
+				else
 				{
-					Transaction trx = (Transaction)getTrxsMap().get(trxName);
-					if(trx!=null && trx.getBlockedOperationsQueue()!=null && !trx.getBlockedOperationsQueue().isEmpty())
+					trxsToRetryInNextRun.add(trxName);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method which executes the queued up pending operations of a blocked transaction until one of them is blocked again.
+	 */
+	private void executePendingOperationsOfTrx(String trxName, OutputSink out, int tick)throws IOException
+	{
+		if(trxName!=null && !"".equals(trxName) && getTrxsMap().containsKey(trxName))
+		{
+			Transaction trx = (Transaction)getTrxsMap().get(trxName);
+			if(trx!=null && trx.getBlockedOperationsQueue()!=null && !trx.getBlockedOperationsQueue().isEmpty())
+			{
+				Iterator itr = (Iterator)trx.getBlockedOperationsQueue().iterator();
+				while(trx.getBlockedOperationsQueue().peek()!=null)
+				{							
+					boolean stopPeeking=false;
+					OperationVO operationVO = (OperationVO)trx.getBlockedOperationsQueue().peek();
+					if(operationVO!=null)
 					{
-						Iterator itr = (Iterator)trx.getBlockedOperationsQueue().iterator();
-						while(trx.getBlockedOperationsQueue().peek()!=null)
-						{							
-							boolean stopPeeking=false;
-							OperationVO operationVO = (OperationVO)trx.getBlockedOperationsQueue().peek();
-							if(operationVO!=null)
+						int operationToBePerformed = operationVO.getTypeOfOperation();
+						switch(operationToBePerformed)
+						{
+						case OperationConstants.COMMIT_TRANSACTION_OPERATION:	
+								
+							    out.write("*************************************");
+								out.newLine();
+								out.write(operationVO.getOperation());
+								out.newLine();
+								out.write("*************************************");
+								out.newLine();
+								//Either the transaction will commit or abort, in both the cases we want to clear transactions' pending operations and remove transaction from
+								//the list of blocked transactions
+								//trx.removeOperationFromBlockedOperationsQueue(operationVO);
+								if(trx.getBlockedOperationsQueue()!=null)
+								{
+									trx.getBlockedOperationsQueue().clear();
+								}
+								if(getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
+								{
+									getBlockedTrxs().remove(trxName);
+								}
+								//Execute the operation in a normal manner
+								endTransaction(operationVO,out);
+																	
+							break;
+						case OperationConstants.READ_OPERATION:
+							if(TransactionConstants.BLOCKED_TRANSACTION_STATUS.equals(trx.getTransactionStatus()))
 							{
-								int operationToBePerformed = operationVO.getTypeOfOperation();
-								switch(operationToBePerformed)
+								String variable = operationVO.getVariable();
+								if(trx.isTrxReadOnly())
 								{
-								case OperationConstants.COMMIT_TRANSACTION_OPERATION:	
-										
-									    out.write("*************************************");
+									Integer committedValue = getCommittedValueAtReadOnlyTrxBirthTime(trx, variable);
+									if(committedValue!=null && isVariableAvailableToBeReadFromAnySite(variable))
+									{
+										out.newLine();
+										out.write("*************************************");
 										out.newLine();
 										out.write(operationVO.getOperation());
 										out.newLine();
 										out.write("*************************************");
+										out.newLine();													
+										out.writeResult("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+committedValue);
 										out.newLine();
-									    System.out.println("*************************************");
-										System.out.println(operationVO.getOperation());
-										System.out.println("*************************************");
-										//Either the transaction will commit or abort, in both the cases we want to clear transactions' pending operations and remove transaction from
-										//the list of blocked transactions
-										//trx.removeOperationFromBlockedOperationsQueue(operationVO);
+										out.writeEvent(EventLog.READ, tick, trxName, variable, 0, committedValue.intValue());
+										addVariableToVariablesReadByReadOnlyTrx(variable);
+										//Handle blocked transaction
+										trx.setTransactionStatus(TransactionConstants.ACTIVE_TRANSACTION_STATUS);
 										if(trx.getBlockedOperationsQueue()!=null)
 										{
-											trx.getBlockedOperationsQueue().clear();
-										}
-										if(getBlockedTrxsList()!=null && getBlockedTrxsList().contains(trxName))
-										{
-											iterator.remove();
-										}
-										//Execute the operation in a normal manner
-										endTransaction(operationVO,out);
-																			
-									break;
-								case OperationConstants.READ_OPERATION:
-									if(TransactionConstants.BLOCKED_TRANSACTION_STATUS.equals(trx.getTransactionStatus()))
-									{
-										String variable = operationVO.getVariable();
-										if(trx.isTrxReadOnly())
-										{
-											if(isVariableAvailableToBeReadFromAnySite(variable))
-											{
-												out.newLine();
-												out.write("*************************************");
-												out.newLine();
-												out.write(operationVO.getOperation());
-												out.newLine();
-												out.write("*************************************");
-												out.newLine();													
-												out.write("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+trx.getVariablesAndValuesMapForROTrx().get(variable));
-												out.newLine();
-												System.out.println();
-												System.out.println("*************************************");
-												System.out.println(operationVO.getOperation());
-												System.out.println("*************************************");	
-												System.out.println("Committed value of variable "+variable+" at read-only transaction "+trxName+"'s birth time is "+trx.getVariablesAndValuesMapForROTrx().get(variable));
-												addVariableToVariablesReadByReadOnlyTrx(variable);
-												//Handle blocked transaction
-												trx.setTransactionStatus(TransactionConstants.ACTIVE_TRANSACTION_STATUS);
-												if(trx.getBlockedOperationsQueue()!=null)
-												{
-													trx.getBlockedOperationsQueue().poll();
-												}
-												//trx.removeOperationFromBlockedOperationsQueue(operationVO);
-												//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
-												if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxsList()!=null && getBlockedTrxsList().contains(trxName))
-												{
-													iterator.remove();
-												}
-											}
-											//Keep it blocked
-											else
-											{
-												stopPeeking=true;
-											}
-										}
-										else
-										{
-										int response = shouldBlockedTrxTryAgainToReadVariable(trx,variable);
-										if(response==TransactionConstants.READ_LOCK_REQUEST_CAN_BE_GRANTED)
-										{
-											if(dataLockManagersMap!=null)
-											{
-												boolean readLockAcquired=false;
-												Iterator itrtr = (Iterator)dataLockManagersMap.entrySet().iterator();
-												while(itrtr.hasNext())
-												{
-													readLockAcquired=false;
-													Map.Entry pairs = (Map.Entry)itrtr.next();
-													if(pairs!=null)
-													{
-														DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();
-														if(dataAndLockManager!=null && dataAndLockManager.isVariableAvailableToBeReadFromSite(variable))
-														{
-															out.newLine();
-															out.write("*************************************");
-															out.newLine();
-															out.write(operationVO.getOperation());
-															out.newLine();
-															out.write("*************************************");
-															out.newLine();
-															out.write("Read Lock request can be granted. Proceeding to lock acquisition stage.");
-															out.newLine();
-															
-															System.out.println();
-															System.out.println("*************************************");
-															System.out.println(operationVO.getOperation());
-															System.out.println("*************************************");
-															System.out.println("Read Lock request can be granted. Proceeding to lock acquisition stage.");										
-															//Read lock needs to be applied only at the first available site
-															trx.addSiteAccessedInfoToSitesAccessedSoFarMap(dataAndLockManager.getDataAndLockManagerId(),tick);
-															dataAndLockManager.acquireReadLock(trx,variable);
-															out.write("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
-															out.newLine();
-															System.out.println("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
-															trx.addReadLockedVariables(variable);
-															readLockAcquired=true;
-															//Handle blocked transaction
-															trx.setTransactionStatus(TransactionConstants.ACTIVE_TRANSACTION_STATUS);
-															if(trx.getBlockedOperationsQueue()!=null)
-															{
-																trx.getBlockedOperationsQueue().poll();
-															}
-															//trx.removeOperationFromBlockedOperationsQueue(operationVO);
-															//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
-															if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxsList()!=null && getBlockedTrxsList().contains(trxName))
-															{
-																iterator.remove();
-															}
-														}
-													}
-													if(readLockAcquired)
-													{
-														break;
-													}
-												}
-												
-											}
-										}
-										else if(response==TransactionConstants.ABORT_TRANSACTION)
-										{
-											System.out.println("*************************************");
-											System.out.println(operationVO.getOperation());
-											System.out.println("*************************************");
-											out.write("*************************************");
-											out.newLine();
-											out.write(operationVO.getOperation());
-											out.newLine();
-											out.write("*************************************");
-											out.newLine();
-											out.write("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
-											out.newLine();
-											
-											System.out.println("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
-											informAllTheSitesThatTrxIsAborting(trx);
-											stopPeeking=true;
+											trx.getBlockedOperationsQueue().poll();
 										}
-										//Stop looking further down the queue. It's time to look at other blocked transaction's pending operations
-										else
+										//trx.removeOperationFromBlockedOperationsQueue(operationVO);
+										//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
+										if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
 										{
-											stopPeeking=true;
+											getBlockedTrxs().remove(trxName);
 										}
 									}
-									}
+									//Keep it blocked
 									else
+									{
+										stopPeeking=true;
+									}
+								}
+								else
+								{
+								int response = shouldBlockedTrxTryAgainToReadVariable(trx,variable);
+								if(response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
+								{
+									abortTrxsLockingVariable(trx,variable,false,out,tick);
+									response = shouldBlockedTrxTryAgainToReadVariable(trx,variable);
+								}
+								if(response==TransactionConstants.READ_LOCK_REQUEST_CAN_BE_GRANTED)
+								{
+									if(isVariableReplicatedWithQuorums(variable))
 									{
 										out.newLine();
 										out.write("*************************************");
@@ -753,209 +1217,298 @@ public class TransactionManager {
 										out.write(operationVO.getOperation());
 										out.newLine();
 										out.write("*************************************");
-										out.newLine();										
-										System.out.println();
-										System.out.println("*************************************");
-										System.out.println(operationVO.getOperation());
-										System.out.println("*************************************");
-										
-										int response = readVariable(operationVO,out,tick);
-										if(trx.isTrxReadOnly())
-										{
-											if(response==TransactionConstants.READ_OPERATION_SUCCESSFUL_FOR_READ_ONLY_TRANSACTION || response==TransactionConstants.READ_OPERATION_UNSUCCESSFUL_FOR_READ_ONLY_TRANSACTION)
-											{
-												if(trx.getBlockedOperationsQueue()!=null)
-												{
-													trx.getBlockedOperationsQueue().poll();
-												}
-												//trx.removeOperationFromBlockedOperationsQueue(operationVO);
-												//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
-												if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxsList()!=null && getBlockedTrxsList().contains(trxName))
-												{
-													iterator.remove();
-												}
-											}
-											else if(response==TransactionConstants.BLOCK_TRANSACTION)
-											{
-												stopPeeking=true;
-											}
-										}
-										else
-										{
-										
-										//Either transaction will be blocked, aborted or will be executed. 										
-										
-										//If transaction gets blocked, stop peeking the queue in this run. operationVO will not be removed from transaction's blocked operations queue.
-										if(response==TransactionConstants.BLOCK_TRANSACTION)
+										out.newLine();
+										out.write("Read Lock request can be granted. Proceeding to lock acquisition stage.");
+										out.newLine();
+										readLockReadQuorumAndReadVariable(trx,variable,getQuorumSites(variable,placementCatalog.getReadQuorum()),tick,out);
+										//Handle blocked transaction
+										trx.setTransactionStatus(TransactionConstants.ACTIVE_TRANSACTION_STATUS);
+										if(trx.getBlockedOperationsQueue()!=null)
 										{
-											stopPeeking=true;
+											trx.getBlockedOperationsQueue().poll();
 										}
-										//If read lock is acquired or read lock can't be acquired for some reason other than abort and block, we need to remove operation from the pending operations queue
-										else if((response==TransactionConstants.READ_LOCK_ACQUIRED)||(response==TransactionConstants.READ_LOCK_REQUEST_CANNOT_BE_GRANTED))
+										//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
+										if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
 										{
-											if(trx.getBlockedOperationsQueue()!=null)
-											{
-												trx.getBlockedOperationsQueue().poll();
-											}
-											//trx.removeOperationFromBlockedOperationsQueue(operationVO);
-											//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
-											if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxsList()!=null && getBlockedTrxsList().contains(trxName))
-											{
-												iterator.remove();
-											}
+											getBlockedTrxs().remove(trxName);
 										}
-										//If transaction gets aborted, informAllTheSitesThatTrxIsAborting(trx) method will remove the transaction from blocking transactions list maintained by 
-										//the Transaction Manager and clear pending operations' queue maintained by the transaction	
-									}
 									}
-									break;
-								case OperationConstants.WRITE_OPERATION:
-									if(TransactionConstants.BLOCKED_TRANSACTION_STATUS.equals(trx.getTransactionStatus()))
+									else if(dataLockManagersMap!=null)
 									{
-										String variable = operationVO.getVariable();
-										int value=operationVO.getValue();
-										int response = shouldBlockedTrxTryAgainToWriteVariable(trx,variable);
-										if(response==TransactionConstants.WRITE_LOCK_REQUEST_CAN_BE_GRANTED)
+										boolean readLockAcquired=false;
+										Iterator itrtr = (Iterator)dataLockManagersMap.entrySet().iterator();
+										while(itrtr.hasNext())
 										{
-											out.newLine();
-											out.write("*************************************");
-											out.newLine();
-											out.write(operationVO.getOperation());
-											out.newLine();
-											out.write("*************************************");
-											out.newLine();
-											out.write("Write lock request can be granted to Transaction "+trx.getTrxId());
-											out.newLine();
-											System.out.println();
-											System.out.println("*************************************");
-											System.out.println(operationVO.getOperation());
-											System.out.println("*************************************");
-											System.out.println("Write lock request can be granted to Transaction "+trx.getTrxId());									
-											
-											//If it's an non-replicated variable, then write lock needs to be applied only at the site hosting non-replicated variable
-											if(Arrays.asList(nonReplicatedVariables).contains(variable))
+											readLockAcquired=false;
+											Map.Entry pairs = (Map.Entry)itrtr.next();
+											if(pairs!=null)
 											{
-												int pos=Arrays.asList(nonReplicatedVariables).indexOf(variable);
-												int index=siteIdForNonReplicatedVariables[pos];													
-												if(dataLockManagersMap!=null && index>=1 && index<=10)
+												DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();
+												if(dataAndLockManager!=null && dataAndLockManager.isVariableAvailableToBeReadFromSite(variable))
 												{
-													DataAndLockManager dataAndLockManager=(DataAndLockManager)dataLockManagersMap.get(index);
-													if(dataAndLockManager!=null)
+													out.newLine();
+													out.write("*************************************");
+													out.newLine();
+													out.write(operationVO.getOperation());
+													out.newLine();
+													out.write("*************************************");
+													out.newLine();
+													out.write("Read Lock request can be granted. Proceeding to lock acquisition stage.");
+													out.newLine();
+													
+													//Read lock needs to be applied only at the first available site
+													trx.addSiteAccessedInfoToSitesAccessedSoFarMap(dataAndLockManager.getDataAndLockManagerId(),tick);
+													dataAndLockManager.acquireReadLock(trx,variable);
+													out.writeResult("Value of variable "+variable+" at Site "+pairs.getKey() +" is "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
+													out.newLine();
+													out.writeEvent(EventLog.READ, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), dataAndLockManager.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable));
+													trx.addReadLockedVariables(variable);
+													readLockAcquired=true;
+													//Handle blocked transaction
+													trx.setTransactionStatus(TransactionConstants.ACTIVE_TRANSACTION_STATUS);
+													if(trx.getBlockedOperationsQueue()!=null)
 													{
-														dataAndLockManager.acquireWriteLock(trx,variable);
-														trx.addSiteAccessedInfoToSitesAccessedSoFarMap(dataAndLockManager.getDataAndLockManagerId(),tick);
-														out.write("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ index);
-														out.newLine();
-														System.out.println("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ index);
+														trx.getBlockedOperationsQueue().poll();
 													}
-												}												
-											}
-											//If it's a replicated variable, then write lock needs to be applied at all the sites which are up
-											else
-											{
-												writeLockVariableOnAllTheSites(trx,variable,tick,out);
-											}											
-											trx.addWriteLockedVariables(variable);
-											//trxsMap.put(variable,value);
-											trx.setLockedVariablesAndValuesMap(variable, value);
-											//Handle blocked transaction
-											trx.setTransactionStatus(TransactionConstants.ACTIVE_TRANSACTION_STATUS);
-											if(trx.getBlockedOperationsQueue()!=null)
-											{
-												trx.getBlockedOperationsQueue().poll();
+													//trx.removeOperationFromBlockedOperationsQueue(operationVO);
+													//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
+													if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
+													{
+														getBlockedTrxs().remove(trxName);
+													}
+												}
 											}
-											//trx.removeOperationFromBlockedOperationsQueue(operationVO);
-											//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
-											if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxsList()!=null && getBlockedTrxsList().contains(trxName))
+											if(readLockAcquired)
 											{
-												iterator.remove();
+												break;
 											}
 										}
-										else if(response==TransactionConstants.ABORT_TRANSACTION)
-										{
-											out.write("*************************************");
-											out.newLine();
-											out.write(operationVO.getOperation());
-											out.newLine();
-											out.write("*************************************");
-											out.newLine();
-											out.write("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
-											out.newLine();
-											System.out.println("*************************************");
-											System.out.println(operationVO.getOperation());
-											System.out.println("*************************************");
-											System.out.println("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
-											informAllTheSitesThatTrxIsAborting(trx);
-											stopPeeking=true;
-										}
-										//Stop looking further down the queue. It's time to look at other blocked transaction's pending operations
-										else
-										{
-											stopPeeking=true;
-										}
-									}
-									else
-									{
-										out.newLine();
-										out.write("*************************************");
-										out.newLine();
-										out.write(operationVO.getOperation());
-										out.newLine();
-										out.write("*************************************");
-										out.newLine();
 										
-										System.out.println();
-										System.out.println("*************************************");
-										System.out.println(operationVO.getOperation());
-										System.out.println("*************************************");
-											
-										//Either transaction will be blocked, aborted or will be executed. 										
-										int response = writeVariable(operationVO,out,tick);
-										//If transaction gets blocked, stop peeking the queue in this run. operationVO will not be removed from transaction's blocked operations queue.
-										if(response==TransactionConstants.BLOCK_TRANSACTION)
-										{
-											stopPeeking=true;
-										}
-										//If write lock is acquired or write lock can't be acquired for some reason other than abort and block, we need to remove operation from the pending operations queue
-										else if((response==TransactionConstants.WRITE_LOCK_ACQUIRED)||(response==TransactionConstants.WRITE_LOCK_REQUEST_CANNOT_BE_GRANTED))
-										{
-											if(trx.getBlockedOperationsQueue()!=null)
-											{
-												trx.getBlockedOperationsQueue().poll();
-											}
-											//trx.removeOperationFromBlockedOperationsQueue(operationVO);
-											//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
-											if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxsList()!=null && getBlockedTrxsList().contains(trxName))
-											{
-												iterator.remove();
-											}
-										}
-										//If transaction gets aborted, informAllTheSitesThatTrxIsAborting(trx) method will remove the transaction from blocking transactions list maintained by 
-										//the Transaction Manager and clear pending operations' queue maintained by the transaction										
 									}
-									break;
-									default: 
-										out.write("Unknown Operation " + operationVO.getOperation()+ " was queued. Removing it.");
-										out.newLine();
-										System.out.println("Unknown Operation " + operationVO.getOperation()+ " was queued. Removing it.");
+								}
+								else if(response==TransactionConstants.ABORT_TRANSACTION)
+								{
+									out.write("*************************************");
+									out.newLine();
+									out.write(operationVO.getOperation());
+									out.newLine();
+									out.write("*************************************");
+									out.newLine();
+									out.writeResult("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
+									out.newLine();
+									out.writeEvent(EventLog.ABORT, tick, trx.getTrxId(), variable, 0, 0);
+									
+									informAllTheSitesThatTrxIsAborting(trx);
+									stopPeeking=true;
+								}
+								//Stop looking further down the queue. It's time to look at other blocked transaction's pending operations
+								else
+								{
+									stopPeeking=true;
+								}
+							}
+							}
+							else
+							{
+								out.newLine();
+								out.write("*************************************");
+								out.newLine();
+								out.write(operationVO.getOperation());
+								out.newLine();
+								out.write("*************************************");
+								out.newLine();										
+								
+								int response = readVariable(operationVO,out,tick);
+								if(trx.isTrxReadOnly())
+								{
+									if(response==TransactionConstants.READ_OPERATION_SUCCESSFUL_FOR_READ_ONLY_TRANSACTION || response==TransactionConstants.READ_OPERATION_UNSUCCESSFUL_FOR_READ_ONLY_TRANSACTION)
+									{
 										if(trx.getBlockedOperationsQueue()!=null)
 										{
 											trx.getBlockedOperationsQueue().poll();
 										}
 										//trx.removeOperationFromBlockedOperationsQueue(operationVO);
 										//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
-										if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxsList()!=null && getBlockedTrxsList().contains(trxName))
+										if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
 										{
-											iterator.remove();
+											getBlockedTrxs().remove(trxName);
 										}
-									break;
-								}								
+									}
+									else if(response==TransactionConstants.BLOCK_TRANSACTION)
+									{
+										stopPeeking=true;
+									}
+								}
+								else
+								{
+								
+								//Either transaction will be blocked, aborted or will be executed. 										
+								
+								//If transaction gets blocked, stop peeking the queue in this run. operationVO will not be removed from transaction's blocked operations queue.
+								if(response==TransactionConstants.BLOCK_TRANSACTION)
+								{
+									stopPeeking=true;
+								}
+								//If read lock is acquired or read lock can't be acquired for some reason other than abort and block, we need to remove operation from the pending operations queue
+								else if((response==TransactionConstants.READ_LOCK_ACQUIRED)||(response==TransactionConstants.READ_LOCK_REQUEST_CANNOT_BE_GRANTED))
+								{
+									if(trx.getBlockedOperationsQueue()!=null)
+									{
+										trx.getBlockedOperationsQueue().poll();
+									}
+									//trx.removeOperationFromBlockedOperationsQueue(operationVO);
+									//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
+									if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
+									{
+										getBlockedTrxs().remove(trxName);
+									}
+								}
+								//If transaction gets aborted, informAllTheSitesThatTrxIsAborting(trx) method will remove the transaction from blocking transactions list maintained by 
+								//the Transaction Manager and clear pending operations' queue maintained by the transaction	
+							}
 							}
-							if(stopPeeking)
+							break;
+						case OperationConstants.WRITE_OPERATION:
+							if(TransactionConstants.BLOCKED_TRANSACTION_STATUS.equals(trx.getTransactionStatus()))
 							{
-								break;
+								String variable = operationVO.getVariable();
+								int value=operationVO.getValue();
+								int response = shouldBlockedTrxTryAgainToWriteVariable(trx,variable);
+								if(response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
+								{
+									abortTrxsLockingVariable(trx,variable,true,out,tick);
+									response = shouldBlockedTrxTryAgainToWriteVariable(trx,variable);
+								}
+								if(response==TransactionConstants.WRITE_LOCK_REQUEST_CAN_BE_GRANTED)
+								{
+									out.newLine();
+									out.write("*************************************");
+									out.newLine();
+									out.write(operationVO.getOperation());
+									out.newLine();
+									out.write("*************************************");
+									out.newLine();
+									out.write("Write lock request can be granted to Transaction "+trx.getTrxId());
+									out.newLine();
+									
+									//If it's an non-replicated variable, then write lock needs to be applied only at the site hosting non-replicated variable
+									if(!placementCatalog.isVariableReplicated(variable))
+									{
+										int index=placementCatalog.getHomeSite(placementCatalog.getVariableId(variable),0);
+										if(dataLockManagersMap!=null && index>=1 && index<=placementCatalog.getNumberOfSites())
+										{
+											DataAndLockManager dataAndLockManager=(DataAndLockManager)dataLockManagersMap.get(index);
+											if(dataAndLockManager!=null)
+											{
+												dataAndLockManager.acquireWriteLock(trx,variable);
+												trx.addSiteAccessedInfoToSitesAccessedSoFarMap(dataAndLockManager.getDataAndLockManagerId(),tick);
+												out.write("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ index);
+												out.newLine();
+												out.writeEvent(EventLog.WRITE_LOCK, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), 0);
+											}
+										}												
+									}
+									//If it's written through quorums, then write lock needs to be applied at the sites of a write quorum
+									else if(isVariableReplicatedWithQuorums(variable))
+									{
+										writeLockVariableOnWriteQuorum(trx,variable,getQuorumSites(variable,placementCatalog.getWriteQuorum()),tick,out);
+									}
+									//If it's a replicated variable, then write lock needs to be applied at all the sites which are up
+									else
+									{
+										writeLockVariableOnAllTheSites(trx,variable,tick,out);
+									}											
+									trx.addWriteLockedVariables(variable);
+									//trxsMap.put(variable,value);
+									trx.setLockedVariablesAndValuesMap(variable, value);
+									//Handle blocked transaction
+									trx.setTransactionStatus(TransactionConstants.ACTIVE_TRANSACTION_STATUS);
+									if(trx.getBlockedOperationsQueue()!=null)
+									{
+										trx.getBlockedOperationsQueue().poll();
+									}
+									//trx.removeOperationFromBlockedOperationsQueue(operationVO);
+									//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
+									if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
+									{
+										getBlockedTrxs().remove(trxName);
+									}
+								}
+								else if(response==TransactionConstants.ABORT_TRANSACTION)
+								{
+									out.write("*************************************");
+									out.newLine();
+									out.write(operationVO.getOperation());
+									out.newLine();
+									out.write("*************************************");
+									out.newLine();
+									out.writeResult("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
+									out.newLine();
+									out.writeEvent(EventLog.ABORT, tick, trx.getTrxId(), variable, 0, 0);
+									informAllTheSitesThatTrxIsAborting(trx);
+									stopPeeking=true;
+								}
+								//Stop looking further down the queue. It's time to look at other blocked transaction's pending operations
+								else
+								{
+									stopPeeking=true;
+								}
 							}
-						}
+							else
+							{
+								out.newLine();
+								out.write("*************************************");
+								out.newLine();
+								out.write(operationVO.getOperation());
+								out.newLine();
+								out.write("*************************************");
+								out.newLine();
+								
+									
+								//Either transaction will be blocked, aborted or will be executed. 										
+								int response = writeVariable(operationVO,out,tick);
+								//If transaction gets blocked, stop peeking the queue in this run. operationVO will not be removed from transaction's blocked operations queue.
+								if(response==TransactionConstants.BLOCK_TRANSACTION)
+								{
+									stopPeeking=true;
+								}
+								//If write lock is acquired or write lock can't be acquired for some reason other than abort and block, we need to remove operation from the pending operations queue
+								else if((response==TransactionConstants.WRITE_LOCK_ACQUIRED)||(response==TransactionConstants.WRITE_LOCK_REQUEST_CANNOT_BE_GRANTED))
+								{
+									if(trx.getBlockedOperationsQueue()!=null)
+									{
+										trx.getBlockedOperationsQueue().poll();
+									}
+									//trx.removeOperationFromBlockedOperationsQueue(operationVO);
+									//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
+									if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
+									{
+										getBlockedTrxs().remove(trxName);
+									}
+								}
+								//If transaction gets aborted, informAllTheSitesThatTrxIsAborting(trx) method will remove the transaction from blocking transactions list maintained by 
+								//the Transaction Manager and clear pending operations' queue maintained by the transaction										
+							}
+							break;
+							default: 
+								out.write("Unknown Operation " + operationVO.getOperation()+ " was queued. Removing it.");
+								out.newLine();
+								if(trx.getBlockedOperationsQueue()!=null)
+								{
+									trx.getBlockedOperationsQueue().poll();
+								}
+								//trx.removeOperationFromBlockedOperationsQueue(operationVO);
+								//If all the pending operations of the transaction have been executed, remove the transaction from the blocked transactions list maintained by Transaction Manager
+								if(trx.getBlockedOperationsQueue()!=null && trx.getBlockedOperationsQueue().isEmpty() && getBlockedTrxs()!=null && getBlockedTrxs().contains(trxName))
+								{
+									getBlockedTrxs().remove(trxName);
+								}
+							break;
+						}								
+					}
+					if(stopPeeking)
+					{
+						break;
 					}
 				}
 			}
@@ -965,14 +1518,14 @@ public class TransactionManager {
 	/**
 	 * Method which describes the read and write lock information of all the available variables at all the sites which are up.
 	 * @author Ashish Walia
-	 * @param out - A BufferedWriter object to write contents to output file.
+	 * @param out - An OutputSink object to write contents to output file.
 	 * @throws IOException
 	 */
 	/**
 	 * @param out
 	 * @throws IOException
 	 */
-	public void queryState(BufferedWriter out)throws IOException
+	public void queryState(OutputSink out)throws IOException
 	{
 		if(dataLockManagersMap!=null)
 		{
@@ -983,24 +1536,20 @@ public class TransactionManager {
 				if(pairs!=null)
 				{
 					DataAndLockManager dataAndLockManager=(DataAndLockManager)pairs.getValue();
-					if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus() && dataAndLockManager.getSiteServicedByDataAndLockMgr().getMapOfVariablesAndValuesAtSite()!=null)
+					if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus() && dataAndLockManager.getSiteServicedByDataAndLockMgr().getVariableStore()!=null)
 					{
 						boolean displayInfo = false;
 						List <VariablesVO>list = new ArrayList<VariablesVO>();
-						Iterator iterator =(Iterator)dataAndLockManager.getSiteServicedByDataAndLockMgr().getMapOfVariablesAndValuesAtSite().entrySet().iterator();
+						Iterator iterator =(Iterator)dataAndLockManager.getSiteServicedByDataAndLockMgr().getVariableStore().getVariableVOsHoldingLockInformation().iterator();
 						while(iterator.hasNext())
 						{
-							Map.Entry variablePairs = (Map.Entry)iterator.next();
-							if(variablePairs!=null)
+							VariablesVO variableVO=(VariablesVO)iterator.next();
+							if(variableVO!=null)
 							{
-								VariablesVO variableVO=(VariablesVO)variablePairs.getValue();
-								if(variableVO!=null)
+								list.add(variableVO);
+								if((variableVO.getTrxsReadLockingVariable()!=null && !variableVO.getTrxsReadLockingVariable().isEmpty())||(variableVO.getTrxWriteLockingVariable()!=null && !variableVO.getTrxWriteLockingVariable().isEmpty()))
 								{
-									list.add(variableVO);
-									if((variableVO.getTrxsReadLockingVariable()!=null && !variableVO.getTrxsReadLockingVariable().isEmpty())||(variableVO.getTrxWriteLockingVariable()!=null && !variableVO.getTrxWriteLockingVariable().isEmpty()))
-									{
-										displayInfo = true;
-									}
+									displayInfo = true;
 								}
 							}
 						}
@@ -1013,9 +1562,6 @@ public class TransactionManager {
 							out.write("----------");
 							out.newLine();
 							
-							System.out.println("----------");
-							System.out.println("Site "+ dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId());
-							System.out.println("----------");
 						}
 						Collections.sort(list);
 						Iterator listIterator = (Iterator)list.iterator();
@@ -1026,7 +1572,6 @@ public class TransactionManager {
 							{
 								out.write(variableVO.getVariable()+" is read-locked by   ");
 								//System.out.println("Commited value of variable "+variableVO.getVariable()+" at Site "+siteId+ " is "+variableVO.getValue());
-								System.out.print(variableVO.getVariable()+" is read-locked by   ");
 								Iterator readLockIterator = (Iterator)variableVO.getTrxsReadLockingVariable().iterator();
 								while(readLockIterator.hasNext())
 								{
@@ -1034,18 +1579,15 @@ public class TransactionManager {
 									if(trx!=null && trx.getTrxId()!=null && !"".equals(trx.getTrxId()))
 									{
 										out.write(trx.getTrxId()+"   ");
-										System.out.print(trx.getTrxId()+"   ");
 									}
 								}
 								out.newLine();
-								System.out.println();
 							}
 							if(variableVO!=null && variableVO.getTrxWriteLockingVariable()!=null && !variableVO.getTrxWriteLockingVariable().isEmpty() )
 							{
 								
 								//System.out.println("Commited value of variable "+variableVO.getVariable()+" at Site "+siteId+ " is "+variableVO.getValue());
 								out.write(variableVO.getVariable()+" is write-locked by   ");
-								System.out.print(variableVO.getVariable()+" is write-locked by   ");
 								Iterator writeLockIterator = (Iterator)variableVO.getTrxWriteLockingVariable().iterator();
 								while(writeLockIterator.hasNext())
 								{
@@ -1053,11 +1595,9 @@ public class TransactionManager {
 									if(trx!=null && trx.getTrxId()!=null && !"".equals(trx.getTrxId()))
 									{
 										out.write(trx.getTrxId()+"   ");
-										System.out.print(trx.getTrxId()+"   ");
 									}
 								}
 								out.newLine();
-								System.out.println();
 							}
 						}	
 					}
@@ -1070,12 +1610,23 @@ public class TransactionManager {
 	 * It utilizes Wait-die algorithm implemented in DataAndLockManager,to decide whether the transaction needs to be blocked or aborted.
 	 * @author Ashish Walia
 	 * @param operationVO - An OperationVO object which holds all the information about any given operation
-	 * @param out - A BufferedWriter object to write contents to output file.
+	 * @param out - An OutputSink object to write contents to output file.
 	 * @param tick - An integer value used to correctly maintain the time stamp at which site is accessed 
 	 * @return int - An integer value representing outcome of the readVariable method's execution
 	 * @throws IOException
 	 */
-	public int writeVariable(OperationVO operationVO, BufferedWriter out, int tick)throws IOException
+	public int writeVariable(OperationVO operationVO, OutputSink out, int tick)throws IOException
+	{
+		synchronized(variableLocks.getLock((operationVO!=null)?operationVO.getVariable():null))
+		{
+			return writeVariableUnderVariableLock(operationVO,out,tick);
+		}
+	}
+
+	/**
+	 * Body of writeVariable, called while holding the monitor of the variable.
+	 */
+	private int writeVariableUnderVariableLock(OperationVO operationVO, OutputSink out, int tick)throws IOException
 	{
 		if(operationVO!=null)
 		{
@@ -1089,7 +1640,6 @@ public class TransactionManager {
 				{
 					out.write("Transaction " + trxName +" doesn't exist. Writing of variable "+variable+" by Transaction "+ trxName+" can't proceed.");
 					out.newLine();
-					System.out.println("Transaction " + trxName +" doesn't exist. Writing of variable "+variable+" by Transaction "+ trxName+" can't proceed.");
 					return TransactionConstants.WRITE_LOCK_REQUEST_CANNOT_BE_GRANTED;
 				}
 				else 
@@ -1101,11 +1651,35 @@ public class TransactionManager {
 						{
 							out.write("Transaction "+trxName+" is read-only transaction. Write lock request on variable "+variable+" denied to Transaction "+trxName);
 							out.newLine();
-							System.out.println("Transaction "+trxName+" is read-only transaction. Write lock request on variable "+variable+" denied to Transaction "+trxName);
 							return TransactionConstants.WRITE_LOCK_REQUEST_CANNOT_BE_GRANTED;
 						}				
+						//A replicated variable written through quorums is written to the copies of a write quorum instead
+						else if(trx!=null && dataLockManagersMap!=null && isVariableReplicatedWithQuorums(variable))
+						{
+							return writeVariableToWriteQuorum(trx,operationVO,out,tick);
+						}
 						else if(trx!=null && dataLockManagersMap!=null)
 						{
+							//A write is routed away from the suspected sites hosting the variable, and waits for the ones which don't respond
+							if(failureDetector!=null)
+							{
+								int[] homeSites = placementCatalog.getHomeSites(variable);
+								for(int i=0;i<homeSites.length;i++)
+								{
+									if(isSiteSuspected(homeSites[i]))
+									{
+										out.write("Site "+homeSites[i]+" is suspected by the failure detector. Variable "+variable+" isn't written to it.");
+										out.newLine();
+									}
+								}
+								int unresponsiveSite = getUnresponsiveHomeSite(variable);
+								if(unresponsiveSite>0)
+								{
+									out.write("Site "+unresponsiveSite+" doesn't respond. Transaction "+trx.getTrxId()+" waits for it to respond or to be suspected by the failure detector.");
+									out.newLine();
+									return blockTrx(trx,operationVO,true,unresponsiveSite,out,tick);
+								}
+							}
 							Iterator itr =(Iterator)dataLockManagersMap.entrySet().iterator();
 							while(itr.hasNext())
 							{
@@ -1113,26 +1687,28 @@ public class TransactionManager {
 								if(pairs!=null)
 								{
 									DataAndLockManager dataAndLockManager=(DataAndLockManager)pairs.getValue();
-									if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null)
+									if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && !isSiteSuspected(dataAndLockManager.getDataAndLockManagerId()))
 									{
 										int response = dataAndLockManager.canWriteLockBeAcquiredOnVariable(trx,variable);
+										if(response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
+										{
+											abortTrxsLockingVariable(trx,variable,true,out,tick);
+											response = dataAndLockManager.canWriteLockBeAcquiredOnVariable(trx,variable);
+										}
 										if(response==TransactionConstants.SITE_IS_DOWN)
 										{
 											out.write("Can't write variable "+variable +" to site "+ pairs.getKey()+" . Site "+pairs.getKey()+" is down.");
 											out.newLine();
-											System.out.println("Can't write variable "+variable +" to site "+ pairs.getKey()+" . Site "+pairs.getKey()+" is down.");
 										}
 										else if(response==TransactionConstants.VARIABLE_NOT_FOUND_AT_SITE)
 										{
 											out.write("Variable "+variable +" not found at site "+ pairs.getKey());
 											out.newLine();
-											System.out.println("Variable "+variable +" not found at site "+ pairs.getKey());
 										}
 										else if(response==TransactionConstants.WRITE_LOCK_ALREADY_ACQUIRED)
 										{
 											out.write("Write lock already acquired by Transaction "+trx.getTrxId()+" on variable "+variable);
 											out.newLine();
-											System.out.println("Write lock already acquired by Transaction "+trx.getTrxId()+" on variable "+variable);
 											//trxsMap.put(variable,value);
 											trx.setLockedVariablesAndValuesMap(variable, value);
 											return TransactionConstants.WRITE_LOCK_ACQUIRED;
@@ -1142,15 +1718,14 @@ public class TransactionManager {
 											
 											out.write("Write lock request can be granted to Transaction "+trx.getTrxId());
 											out.newLine();	
-											System.out.println("Write lock request can be granted to Transaction "+trx.getTrxId());
 											trx.addSiteAccessedInfoToSitesAccessedSoFarMap(dataAndLockManager.getDataAndLockManagerId(),tick);
 											//If it's an non-replicated variable, then write lock needs to be applied only at the site hosting non-replicated variable
-											if(Arrays.asList(nonReplicatedVariables).contains(variable))
+											if(!placementCatalog.isVariableReplicated(variable))
 											{
 												dataAndLockManager.acquireWriteLock(trx,variable);
 												out.write("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ pairs.getKey());
 												out.newLine();
-												System.out.println("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ pairs.getKey());
+												out.writeEvent(EventLog.WRITE_LOCK, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), 0);
 											}
 											//If it's a replicated variable, then write lock needs to be applied at all the sites which are up
 											else
@@ -1167,11 +1742,10 @@ public class TransactionManager {
 										{
 											out.write("Variable "+variable +" found at site "+ pairs.getKey());
 											out.newLine();	
-											System.out.println("Variable "+variable +" found at site "+ pairs.getKey());
-											dataAndLockManager.displayReasonWhyTrxNeedsToBeAborted(trx,variable,out);
-											out.write("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
+											dataAndLockManager.displayReasonWhyTrxNeedsToBeAborted(trx,variable,true,out);
+											out.writeResult("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
 											out.newLine();
-											System.out.println("Transaction " + trx.getTrxId()+" needs to be aborted. Informing all the sites that the transaction is aborting.");
+											out.writeEvent(EventLog.ABORT, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), 0);
 											informAllTheSitesThatTrxIsAborting(trx);
 											return TransactionConstants.ABORT_TRANSACTION;
 										}
@@ -1179,27 +1753,28 @@ public class TransactionManager {
 										{
 												out.write("Variable "+variable +" found at site "+ pairs.getKey());
 												out.newLine();	
-												System.out.println("Variable "+variable +" found at site "+ pairs.getKey());										
-												dataAndLockManager.displayReasonWhyTrxNeedsToBeBlocked(trx,variable,out);
+												dataAndLockManager.displayReasonWhyTrxNeedsToBeBlocked(trx,variable,true,out);
 												out.write("Transaction "+ trx.getTrxId()+" needs to be blocked.");
 												out.newLine();
 												out.write("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
 												out.newLine();
-											    System.out.println("Transaction "+ trx.getTrxId()+" needs to be blocked.");
-											    System.out.println("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
+												out.writeEvent(EventLog.BLOCK, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), 0);
 												trx.setTransactionStatus(TransactionConstants.BLOCKED_TRANSACTION_STATUS);
 												if(!trx.isOperationInBlockedOperationsQueue(operationVO))
 												{
 													trx.addOperationsToBlockedOperationsQueue(operationVO);
 												}
-												addTrxToBlockedTrxsList(trxName);												
+												addTrxToBlockedTrxsList(trxName,tick);
+												if(deadlockPolicy.detectsDeadlocks() && isTrxAbortedToBreakDeadlock(trx,variable,true,out,tick))
+												{
+													return TransactionConstants.ABORT_TRANSACTION;
+												}
 												return TransactionConstants.BLOCK_TRANSACTION;
 										}
 										else if(response==TransactionConstants.WRITE_LOCK_REQUEST_CANNOT_BE_GRANTED)
 										{
 											out.write("Write lock request can't be granted to transaction "+trx.getTrxId()+" on variable "+variable);
 											out.newLine();
-											System.out.println("Write lock request can't be granted to transaction "+trx.getTrxId()+" on variable "+variable);
 											return TransactionConstants.WRITE_LOCK_REQUEST_CANNOT_BE_GRANTED;
 										}																				
 									}
@@ -1211,13 +1786,18 @@ public class TransactionManager {
 							out.newLine();
 							out.write("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
 							out.newLine();
-							System.out.println("Transaction "+ trx.getTrxId()+" needs to be blocked.");
+							out.writeEvent(EventLog.BLOCK, tick, trx.getTrxId(), variable, 0, 0);
 							trx.setTransactionStatus(TransactionConstants.BLOCKED_TRANSACTION_STATUS);
 							if(!trx.isOperationInBlockedOperationsQueue(operationVO))
 							{
 								trx.addOperationsToBlockedOperationsQueue(operationVO);
 							}
-							addTrxToBlockedTrxsList(trxName);							
+							addTrxToBlockedTrxsList(trxName,tick);							
+							//Transactions locking the variable once it becomes available have to be known to wait for it
+							if(deadlockPolicy.detectsDeadlocks() && isTrxAbortedToBreakDeadlock(trx,variable,true,out,tick))
+							{
+								return TransactionConstants.ABORT_TRANSACTION;
+							}
 							return TransactionConstants.BLOCK_TRANSACTION;							
 							//End
 						}
@@ -1233,14 +1813,15 @@ public class TransactionManager {
 	 * @param trx - A Transaction object which holds every information about any given transaction.
 	 * @param variable - A String variable which needs to be write locked.
 	 * @param operationVO - An OperationVO object which holds all the information about any given operation
-	 * @param out - A BufferedWriter object to write contents to output file.
+	 * @param out - An OutputSink object to write contents to output file.
 	 * @param tick - An integer value used to correctly maintain the time stamp at which site is accessed 
 	 * @throws IOException
 	 */
-	public void writeLockVariableOnAllTheSites(Transaction trx, String variable,int tick,BufferedWriter out)throws IOException
+	public void writeLockVariableOnAllTheSites(Transaction trx, String variable,int tick,OutputSink out)throws IOException
 	{
 		if(trx!=null && variable!=null && dataLockManagersMap!=null)
 		{
+			List dataAndLockManagers = new ArrayList();
 			Iterator itr =(Iterator)dataLockManagersMap.entrySet().iterator();
 			while(itr.hasNext())
 			{
@@ -1248,20 +1829,393 @@ public class TransactionManager {
 				if(pairs!=null)
 				{
 					DataAndLockManager dataAndLockManager=(DataAndLockManager)pairs.getValue();
-					if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().isVariableAvailableOnSite(variable))
+					if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().isVariableAvailableOnSite(variable)
+							&& !isSiteSuspected(dataAndLockManager.getDataAndLockManagerId()))
 					{
-						dataAndLockManager.acquireWriteLock(trx, variable);
-						out.write("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ pairs.getKey());
-						out.newLine();
-						System.out.println("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ pairs.getKey());
-						trx.addSiteAccessedInfoToSitesAccessedSoFarMap(dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId(),tick);
+						dataAndLockManagers.add(dataAndLockManager);
 					}
 				}
 			}
+			//The write locks are pipelined to all the sites before any reply is waited for
+			if(siteRpcClient!=null)
+			{
+				siteRpcClient.acquireWriteLock(trx, variable, getDataAndLockManagerIds(dataAndLockManagers));
+			}
+			Iterator iterator = (Iterator)dataAndLockManagers.iterator();
+			while(iterator.hasNext())
+			{
+				DataAndLockManager dataAndLockManager=(DataAndLockManager)iterator.next();
+				if(siteRpcClient==null)
+				{
+					dataAndLockManager.acquireWriteLock(trx, variable);
+				}
+				out.write("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ dataAndLockManager.getDataAndLockManagerId());
+				out.newLine();
+				out.writeEvent(EventLog.WRITE_LOCK, tick, trx.getTrxId(), variable, dataAndLockManager.getDataAndLockManagerId(), 0);
+				trx.addSiteAccessedInfoToSitesAccessedSoFarMap(dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId(),tick);
+			}
 		}
 
 	}
 	
+	/**
+	 * Method which checks if a variable is replicated and read and written through quorums rather than with the available copies algorithm.
+	 * @param variable - A String variable.
+	 */
+	private boolean isVariableReplicatedWithQuorums(String variable)
+	{
+		return placementCatalog.isQuorumReplication() && placementCatalog.isVariableReplicated(variable);
+	}
+
+	/**
+	 * Method which returns the sites at which a quorum of copies of a variable is locked, the first sites hosting it which are up, in the order of its home sites.
+	 * @param variable - A String variable.
+	 * @param quorum - An integer value, the number of copies of the quorum.
+	 * @return int[] - The ids of the sites, or null if fewer sites hosting the variable are up.
+	 */
+	private int[] getQuorumSites(String variable, int quorum)
+	{
+		int variableId = placementCatalog.getVariableId(variable);
+		int numberOfHomeSites = placementCatalog.getNumberOfHomeSites(variableId);
+		int[] sites = new int[quorum];
+		int numberOfSites = 0;
+		for(int i=0;i<numberOfHomeSites && numberOfSites<quorum;i++)
+		{
+			int siteId = placementCatalog.getHomeSite(variableId,i);
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(siteId);
+			//A quorum is formed by the sites which respond, routed away from the suspected ones
+			if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus() && !isSiteSuspected(siteId))
+			{
+				sites[numberOfSites++]=siteId;
+			}
+		}
+		return (numberOfSites==quorum)?sites:null;
+	}
+
+	/**
+	 * Method which checks if a transaction can lock a quorum of copies of a variable, without reporting anything.
+	 * @param trx - A Transaction object, the transaction requesting the lock.
+	 * @param variable - A String variable which needs to be read or write locked.
+	 * @param isWriteLockRequested - A boolean value, true if a write lock is requested.
+	 * @return int - The request can be granted constant of the lock, ABORT_TRANSACTION or ABORT_LOCKING_TRANSACTIONS as decided at the first site of the quorum at which
+	 * the request conflicts, or the request can't be granted constant of the lock.
+	 */
+	private int canQuorumBeLocked(Transaction trx, String variable, boolean isWriteLockRequested)
+	{
+		int canBeGranted = isWriteLockRequested?TransactionConstants.WRITE_LOCK_REQUEST_CAN_BE_GRANTED:TransactionConstants.READ_LOCK_REQUEST_CAN_BE_GRANTED;
+		int cannotBeGranted = isWriteLockRequested?TransactionConstants.WRITE_LOCK_REQUEST_CANNOT_BE_GRANTED:TransactionConstants.READ_LOCK_REQUEST_CANNOT_BE_GRANTED;
+		int[] sites = getQuorumSites(variable, isWriteLockRequested?placementCatalog.getWriteQuorum():placementCatalog.getReadQuorum());
+		if(sites==null)
+		{
+			return cannotBeGranted;
+		}
+		for(int i=0;i<sites.length;i++)
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(sites[i]);
+			int response = isWriteLockRequested?dataAndLockManager.canWriteLockBeAcquiredOnVariable(trx, variable):dataAndLockManager.canReadLockBeAcquiredOnVariable(trx, variable);
+			if(response==TransactionConstants.ABORT_TRANSACTION || response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
+			{
+				return response;
+			}
+			else if(response!=canBeGranted && response!=TransactionConstants.READ_LOCK_ALREADY_ACQUIRED && response!=TransactionConstants.WRITE_LOCK_ALREADY_ACQUIRED)
+			{
+				return cannotBeGranted;
+			}
+		}
+		return canBeGranted;
+	}
+
+	/**
+	 * Method which blocks a transaction whose operation can't proceed yet and queues the operation.
+	 * @param trx - A Transaction object, the transaction to be blocked.
+	 * @param operationVO - An OperationVO object, the operation which can't proceed.
+	 * @param isWriteLockRequested - A boolean value, true if the operation requests a write lock.
+	 * @param siteId - An integer value, the site at which the lock request conflicts, or 0.
+	 * @return int - BLOCK_TRANSACTION, or ABORT_TRANSACTION if the transaction has been aborted to break a deadlock.
+	 * @throws IOException
+	 */
+	private int blockTrx(Transaction trx, OperationVO operationVO, boolean isWriteLockRequested, int siteId, OutputSink out, int tick)throws IOException
+	{
+		out.write("Transaction "+ trx.getTrxId()+" needs to be blocked.");
+		out.newLine();
+		out.write("Adding operation "+operationVO.getOperation()+" to transaction "+trx.getTrxId()+"'s blocked operations queue.");
+		out.newLine();
+		out.writeEvent(EventLog.BLOCK, tick, trx.getTrxId(), operationVO.getVariable(), siteId, 0);
+		trx.setTransactionStatus(TransactionConstants.BLOCKED_TRANSACTION_STATUS);
+		if(!trx.isOperationInBlockedOperationsQueue(operationVO))
+		{
+			trx.addOperationsToBlockedOperationsQueue(operationVO);
+		}
+		addTrxToBlockedTrxsList(trx.getTrxId(),tick);
+		if(deadlockPolicy.detectsDeadlocks() && isTrxAbortedToBreakDeadlock(trx,operationVO.getVariable(),isWriteLockRequested,out,tick))
+		{
+			return TransactionConstants.ABORT_TRANSACTION;
+		}
+		return TransactionConstants.BLOCK_TRANSACTION;
+	}
+
+	/**
+	 * Method which reads a replicated variable from a read quorum, i.e. read locks it at the first read quorum sites which are up and reads the copy with the highest
+	 * version number among them. Called by readVariable while holding the monitor of the variable.
+	 * @param trx - A Transaction object, the transaction reading the variable.
+	 * @param operationVO - An OperationVO object, the read operation.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @param tick - An integer value, the current tick.
+	 * @return int - An integer value representing outcome of the read, as returned by readVariable.
+	 * @throws IOException
+	 */
+	private int readVariableFromReadQuorum(Transaction trx, OperationVO operationVO, OutputSink out, int tick)throws IOException
+	{
+		String variable = operationVO.getVariable();
+		int[] sites = getQuorumSites(variable, placementCatalog.getReadQuorum());
+		for(int i=0;sites!=null && i<sites.length;i++)
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(sites[i]);
+			int response = dataAndLockManager.canReadLockBeAcquiredOnVariable(trx, variable);
+			if(response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
+			{
+				abortTrxsLockingVariable(trx,variable,false,out,tick);
+				response = dataAndLockManager.canReadLockBeAcquiredOnVariable(trx, variable);
+			}
+			if(response==TransactionConstants.ABORT_TRANSACTION)
+			{
+				out.write("Variable "+variable +" found at site "+ sites[i]);
+				out.newLine();
+				dataAndLockManager.displayReasonWhyTrxNeedsToBeAborted(trx,variable,false,out);
+				abortTrx(trx,variable,sites[i],out,tick);
+				return TransactionConstants.ABORT_TRANSACTION;
+			}
+			else if(response==TransactionConstants.BLOCK_TRANSACTION)
+			{
+				out.write("Variable "+variable +" found at site "+ sites[i]);
+				out.newLine();
+				dataAndLockManager.displayReasonWhyTrxNeedsToBeBlocked(trx,variable,false,out);
+				return blockTrx(trx,operationVO,false,sites[i],out,tick);
+			}
+			else if(response!=TransactionConstants.READ_LOCK_REQUEST_CAN_BE_GRANTED && response!=TransactionConstants.READ_LOCK_ALREADY_ACQUIRED)
+			{
+				sites=null;
+			}
+		}
+		if(sites==null)
+		{
+			out.write("Fewer than "+placementCatalog.getReadQuorum()+" copies of variable "+variable+" are up. A read quorum can't be formed.");
+			out.newLine();
+			//Transactions locking the variable once a read quorum can be formed have to be known to wait for it
+			return blockTrx(trx,operationVO,false,0,out,tick);
+		}
+		out.write("Read Lock request can be granted. Proceeding to lock acquisition stage.");
+		out.newLine();
+		readLockReadQuorumAndReadVariable(trx,variable,sites,tick,out);
+		return TransactionConstants.READ_LOCK_ACQUIRED;
+	}
+
+	/**
+	 * Method which read locks a variable at the sites of a read quorum and reads the copy with the highest version number among them.
+	 * @param trx - A Transaction object, the transaction reading the variable.
+	 * @param variable - A String variable which needs to be read.
+	 * @param sites - An array of the ids of the sites of the read quorum, as returned by getQuorumSites.
+	 * @param tick - An integer value, the current tick.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @throws IOException
+	 */
+	private void readLockReadQuorumAndReadVariable(Transaction trx, String variable, int[] sites, int tick, OutputSink out)throws IOException
+	{
+		DataAndLockManager latestCopy = null;
+		long latestVersionNumber = -1;
+		for(int i=0;i<sites.length;i++)
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(sites[i]);
+			trx.addSiteAccessedInfoToSitesAccessedSoFarMap(sites[i],tick);
+			dataAndLockManager.acquireReadLock(trx,variable);
+			out.write("Read lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+sites[i]);
+			out.newLine();
+			long versionNumber = dataAndLockManager.getVersionNumberOfVariable(variable);
+			if(versionNumber>latestVersionNumber)
+			{
+				latestCopy=dataAndLockManager;
+				latestVersionNumber=versionNumber;
+			}
+		}
+		int value = latestCopy.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable);
+		out.writeResult("Value of variable "+variable+" at Site "+latestCopy.getDataAndLockManagerId()+" is "+value);
+		out.newLine();
+		out.writeEvent(EventLog.READ, tick, trx.getTrxId(), variable, latestCopy.getDataAndLockManagerId(), value);
+		trx.addReadLockedVariables(variable);
+	}
+
+	/**
+	 * Method which writes a replicated variable to a write quorum, i.e. write locks it at the first write quorum sites which are up, which are the only ones
+	 * the value is committed at. Called by writeVariable while holding the monitor of the variable.
+	 * @param trx - A Transaction object, the transaction writing the variable.
+	 * @param operationVO - An OperationVO object, the write operation.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @param tick - An integer value, the current tick.
+	 * @return int - An integer value representing outcome of the write, as returned by writeVariable.
+	 * @throws IOException
+	 */
+	private int writeVariableToWriteQuorum(Transaction trx, OperationVO operationVO, OutputSink out, int tick)throws IOException
+	{
+		String variable = operationVO.getVariable();
+		int[] sites = getQuorumSites(variable, placementCatalog.getWriteQuorum());
+		boolean isWriteLockAlreadyAcquired = true;
+		for(int i=0;sites!=null && i<sites.length;i++)
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(sites[i]);
+			int response = dataAndLockManager.canWriteLockBeAcquiredOnVariable(trx, variable);
+			if(response==TransactionConstants.ABORT_LOCKING_TRANSACTIONS)
+			{
+				abortTrxsLockingVariable(trx,variable,true,out,tick);
+				response = dataAndLockManager.canWriteLockBeAcquiredOnVariable(trx, variable);
+			}
+			if(response==TransactionConstants.ABORT_TRANSACTION)
+			{
+				out.write("Variable "+variable +" found at site "+ sites[i]);
+				out.newLine();
+				dataAndLockManager.displayReasonWhyTrxNeedsToBeAborted(trx,variable,true,out);
+				abortTrx(trx,variable,sites[i],out,tick);
+				return TransactionConstants.ABORT_TRANSACTION;
+			}
+			else if(response==TransactionConstants.BLOCK_TRANSACTION)
+			{
+				out.write("Variable "+variable +" found at site "+ sites[i]);
+				out.newLine();
+				dataAndLockManager.displayReasonWhyTrxNeedsToBeBlocked(trx,variable,true,out);
+				return blockTrx(trx,operationVO,true,sites[i],out,tick);
+			}
+			else if(response==TransactionConstants.WRITE_LOCK_REQUEST_CAN_BE_GRANTED)
+			{
+				isWriteLockAlreadyAcquired=false;
+			}
+			else if(response!=TransactionConstants.WRITE_LOCK_ALREADY_ACQUIRED)
+			{
+				sites=null;
+			}
+		}
+		if(sites==null)
+		{
+			out.write("Fewer than "+placementCatalog.getWriteQuorum()+" copies of variable "+variable+" are up. A write quorum can't be formed.");
+			out.newLine();
+			//Transactions locking the variable once a write quorum can be formed have to be known to wait for it
+			return blockTrx(trx,operationVO,true,0,out,tick);
+		}
+		if(isWriteLockAlreadyAcquired)
+		{
+			out.write("Write lock already acquired by Transaction "+trx.getTrxId()+" on variable "+variable);
+			out.newLine();
+		}
+		else
+		{
+			out.write("Write lock request can be granted to Transaction "+trx.getTrxId());
+			out.newLine();
+			writeLockVariableOnWriteQuorum(trx,variable,sites,tick,out);
+			trx.addWriteLockedVariables(variable);
+		}
+		trx.setLockedVariablesAndValuesMap(variable, operationVO.getValue());
+		return TransactionConstants.WRITE_LOCK_ACQUIRED;
+	}
+
+	/**
+	 * Method which write locks a variable at the sites of a write quorum.
+	 * @param trx - A Transaction object, the transaction writing the variable.
+	 * @param variable - A String variable which needs to be write locked.
+	 * @param sites - An array of the ids of the sites of the write quorum, as returned by getQuorumSites.
+	 * @param tick - An integer value, the current tick.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @throws IOException
+	 */
+	private void writeLockVariableOnWriteQuorum(Transaction trx, String variable, int[] sites, int tick, OutputSink out)throws IOException
+	{
+		for(int i=0;i<sites.length;i++)
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(sites[i]);
+			dataAndLockManager.acquireWriteLock(trx, variable);
+			out.write("Write lock acquired by Transaction "+trx.getTrxId()+" on variable "+variable+" at Site "+ sites[i]);
+			out.newLine();
+			out.writeEvent(EventLog.WRITE_LOCK, tick, trx.getTrxId(), variable, sites[i], 0);
+			trx.addSiteAccessedInfoToSitesAccessedSoFarMap(sites[i],tick);
+		}
+	}
+
+	/**
+	 * Method which returns the committed value of a replicated variable written through quorums at the birth time of a read-only transaction, the one of the copy
+	 * with the highest version number among the first read quorum sites from which it could be read then.
+	 * @param trx - A Transaction object, the read-only transaction.
+	 * @param variable - A String variable which the read-only transaction wants to read.
+	 * @return Integer - The committed value, or null if fewer copies could be read at the transaction's birth time.
+	 */
+	private Integer getCommittedValueAtReadOnlyTrxBirthTimeFromReadQuorum(Transaction trx, String variable)
+	{
+		int variableId = placementCatalog.getVariableId(variable);
+		int numberOfHomeSites = placementCatalog.getNumberOfHomeSites(variableId);
+		int numberOfCopiesRead = 0;
+		Integer value = null;
+		long latestVersionNumber = -1;
+		for(int i=0;i<numberOfHomeSites && numberOfCopiesRead<placementCatalog.getReadQuorum();i++)
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(placementCatalog.getHomeSite(variableId,i));
+			if(dataAndLockManager!=null && dataAndLockManager.isVariableAvailableToBeReadFromSiteAtSnapshot(variable, trx.getSnapshot()))
+			{
+				numberOfCopiesRead++;
+				long versionNumber = dataAndLockManager.getVersionNumberOfVariableAtSnapshot(variable, trx.getSnapshot());
+				if(versionNumber>latestVersionNumber)
+				{
+					latestVersionNumber=versionNumber;
+					value=Integer.valueOf(dataAndLockManager.getValueOfVariableAtSnapshot(variable, trx.getSnapshot()));
+				}
+			}
+		}
+		return (numberOfCopiesRead==placementCatalog.getReadQuorum())?value:null;
+	}
+
+	/**
+	 * Method which brings the copies of the replicated variables at a recovered site up to date with the latest copy of a read quorum of each of them, so that
+	 * they are readable right away, nothing being done unless replicated variables are read and written through quorums.
+	 * @param siteId - An integer value, the id of the recovered site.
+	 * @param out - An OutputSink object to write contents to output file.
+	 * @throws IOException
+	 */
+	public void catchUpRecoveredSite(int siteId, OutputSink out)throws IOException
+	{
+		DataAndLockManager recoveredDataAndLockManager = (dataLockManagersMap!=null)?(DataAndLockManager)dataLockManagersMap.get(siteId):null;
+		if(!placementCatalog.isQuorumReplication() || recoveredDataAndLockManager==null || recoveredDataAndLockManager.getSiteServicedByDataAndLockMgr()==null || recoveredDataAndLockManager.getSiteServicedByDataAndLockMgr().getVariableStore()==null)
+		{
+			return;
+		}
+		VariableStore variableStore = recoveredDataAndLockManager.getSiteServicedByDataAndLockMgr().getVariableStore();
+		int numberOfCaughtUpVariables = 0;
+		for(int i=0;i<variableStore.getNumberOfVariables();i++)
+		{
+			String variable = variableStore.getVariableAt(i);
+			int[] sites = placementCatalog.isVariableReplicated(variable)?getQuorumSites(variable, placementCatalog.getReadQuorum()):null;
+			if(sites!=null)
+			{
+				DataAndLockManager latestCopy = null;
+				long latestVersionNumber = -1;
+				for(int j=0;j<sites.length;j++)
+				{
+					DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(sites[j]);
+					long versionNumber = dataAndLockManager.getVersionNumberOfVariable(variable);
+					if(versionNumber>latestVersionNumber)
+					{
+						latestCopy=dataAndLockManager;
+						latestVersionNumber=versionNumber;
+					}
+				}
+				if(recoveredDataAndLockManager.catchUpVariable(variable, latestCopy.getSiteServicedByDataAndLockMgr().getValueOfVariableAtSite(variable), latestVersionNumber))
+				{
+					numberOfCaughtUpVariables++;
+				}
+			}
+		}
+		//A recovery which caught nothing up leaves the output as it is without quorums
+		if(numberOfCaughtUpVariables>0)
+		{
+			out.write("Site "+siteId+" caught up "+numberOfCaughtUpVariables+" replicated variable(s) with read quorums.");
+			out.newLine();
+		}
+	}
+
 	/**
 	 * Method which checks if all the sites accessed by transaction are up at this moment or not
 	 * @author Ashish Walia
@@ -1286,7 +2240,9 @@ public class TransactionManager {
 					DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(id);
 					if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus())							
 					{
-						if(dataAndLockManager.getSiteServicedByDataAndLockMgr().getTickWhenSiteFailed()>siteAccessedAtTick)
+						//A site suspected since it was accessed has been treated as failed
+						if(dataAndLockManager.getSiteServicedByDataAndLockMgr().getTickWhenSiteFailed()>siteAccessedAtTick
+								|| (failureDetector!=null && failureDetector.getTickWhenSiteWasLastSuspected(id)>=siteAccessedAtTick))
 						{
 							areAllSitesUp=false;
 							return areAllSitesUp;
@@ -1311,13 +2267,111 @@ public class TransactionManager {
 
 	
 	/**
-	 * Method to commit the transaction on all the available sites. 
+	 * Method which groups the values written by a transaction by the up sites holding their copies, including the sites at which it holds no write lock as
+	 * they recovered since it wrote them, the committed values making their copies available for read again.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @return Map - A Map<Key,value>, key is id of a site and value is the WriteBatch of the values written to its copies.
+	 */
+	private Map groupValuesWrittenByTrxBySites(Transaction trx)
+	{
+		Map writeBatches = new HashMap();
+		Iterator variableItr = (Iterator)trx.getLockedVariablesAndValuesMap().entrySet().iterator();
+		while(variableItr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)variableItr.next();
+			int[] homeSites = placementCatalog.getHomeSites((String)pairs.getKey());
+			for(int i=0;i<homeSites.length;i++)
+			{
+				DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(homeSites[i]);
+				if(dataAndLockManager!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr()!=null && dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteStatus())
+				{
+					WriteBatch writeBatch = (WriteBatch)writeBatches.get(homeSites[i]);
+					if(writeBatch==null)
+					{
+						writeBatch = new WriteBatch(trx.getLockedVariablesAndValuesMap().size());
+						writeBatches.put(homeSites[i], writeBatch);
+					}
+					writeBatch.add((String)pairs.getKey(), ((Integer)pairs.getValue()).intValue());
+				}
+			}
+		}
+		return writeBatches;
+	}
+
+	/**
+	 * Method which makes the sites accessed by a transaction, and the sites receiving values it wrote, vote on its commit, the first phase of the two-phase
+	 * commit. Every site receiving values logs them before voting to commit.
+	 * @param trx - A Transaction object which holds every information about any given transaction.
+	 * @param writeBatches - A Map<Key,value>, key is id of a site and value is the WriteBatch of the values written to its copies.
+	 * @param sitesCommittingTrx - A Set to which ids of the sites voting to commit are added, the sites voting read-only having released the locks of the transaction.
+	 * @return boolean - True if no site voted to abort.
+	 * @throws IOException
+	 */
+	private boolean prepareSitesOfTrx(Transaction trx, Map writeBatches, Set sitesCommittingTrx)throws IOException
+	{
+		List participants = new ArrayList();
+		int[] sitesAccessedAtTicks = new int[trx.getSitesAccessedSoFar().size()+writeBatches.size()];
+		Iterator itr = (Iterator)trx.getSitesAccessedSoFar().entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(pairs.getKey());
+			if(dataAndLockManager!=null)
+			{
+				sitesAccessedAtTicks[participants.size()]=((Integer)pairs.getValue()).intValue();
+				participants.add(dataAndLockManager);
+			}
+		}
+		//A site which recovered since the transaction wrote to its copies hasn't been accessed by it
+		Iterator siteItr = (Iterator)new TreeSet(writeBatches.keySet()).iterator();
+		while(siteItr.hasNext())
+		{
+			Integer siteId = (Integer)siteItr.next();
+			if(!trx.getSitesAccessedSoFar().containsKey(siteId))
+			{
+				sitesAccessedAtTicks[participants.size()]=Integer.MAX_VALUE;
+				participants.add(dataLockManagersMap.get(siteId));
+			}
+		}
+		int[] siteIds = getDataAndLockManagerIds(participants);
+		WriteBatch[] writeBatchesOfSites = new WriteBatch[siteIds.length];
+		for(int i=0;i<siteIds.length;i++)
+		{
+			writeBatchesOfSites[i]=(WriteBatch)writeBatches.get(siteIds[i]);
+		}
+		String logId = (coordinatorLog!=null)?coordinatorLog.getLogId(trx.getTrxId()):trx.getTrxId();
+		//The prepares are pipelined to the sites before any vote is waited for
+		int[] votes = null;
+		if(siteRpcClient!=null)
+		{
+			votes = siteRpcClient.prepare(trx, sitesAccessedAtTicks, logId, writeBatchesOfSites, siteIds);
+		}
+		boolean isCommitVoted = true;
+		for(int i=0;i<participants.size();i++)
+		{
+			DataAndLockManager dataAndLockManager = (DataAndLockManager)participants.get(i);
+			int vote = (votes!=null)?votes[i]:dataAndLockManager.prepareTransaction(trx, sitesAccessedAtTicks[i], logId, writeBatchesOfSites[i]);
+			if(vote==TransactionConstants.VOTE_ABORT)
+			{
+				isCommitVoted = false;
+			}
+			else if(vote==TransactionConstants.VOTE_COMMIT)
+			{
+				sitesCommittingTrx.add(Integer.valueOf(dataAndLockManager.getDataAndLockManagerId()));
+			}
+		}
+		return isCommitVoted;
+	}
+
+	/**
+	 * Method to commit the transaction on the sites it accessed, through a two-phase commit in which the sites holding no write lock of the transaction vote read-only and skip the second phase.
+	 * When the sites log the values committed at them, the sites log the values of the transaction in the first phase and the decision to commit is logged in the coordinator log before the second phase.
 	 * If all the sites are not up since the first time they were accessed by a transaction, the transaction will be aborted.
 	 * @param operationVO - An OperationVO object which holds all the information about any given operation.
-	 * @param out - A BufferedWriter object to write contents to output file.
+	 * @param out - An OutputSink object to write contents to output file.
 	 * @throws IOException
 	 */
-	public void endTransaction(OperationVO operationVO, BufferedWriter out)throws IOException
+	public void endTransaction(OperationVO operationVO, OutputSink out)throws IOException
 	{
 		if(operationVO!=null)
 		{
@@ -1329,8 +2383,6 @@ public class TransactionManager {
 				out.newLine();
 				out.write("Transaction Manager can't proceed with committing Transaction "+trxName);
 				out.newLine();
-				System.out.println("Either Transaction "+trxName+" doesn't exist or has been aborted or committed earlier.");
-				System.out.println("Transaction Manager can't proceed with committing Transaction "+trxName);
 			}
 
 			else if(trxName!=null && trxsMap!=null && trxsMap.containsKey(trxName))
@@ -1341,7 +2393,6 @@ public class TransactionManager {
 					boolean areAllSitesUp=true;
 					out.write("Status of sites accessed by Transaction "+trxName);
 					out.newLine();
-					System.out.println("Status of sites accessed by Transaction "+trxName);
 					//If all the sites accessed by Transaction are up then only transaction can commit, otherwise abort the transaction
 					Iterator itr = (Iterator)trx.getSitesAccessedSoFar().entrySet().iterator();
 					while(itr.hasNext())
@@ -1360,20 +2411,23 @@ public class TransactionManager {
 									if(dataAndLockManager.getSiteServicedByDataAndLockMgr().getTickWhenSiteFailed()>siteAccessedAtTick)
 									{
 										out.write("Site "+dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId()+" - UP, FAILED AT TICK = " + dataAndLockManager.getSiteServicedByDataAndLockMgr().getTickWhenSiteFailed()+", FIRST ACCESSED AT TICK = "+siteAccessedAtTick+"    ");
-										System.out.print("Site "+dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId()+" - UP, FAILED AT TICK = " + dataAndLockManager.getSiteServicedByDataAndLockMgr().getTickWhenSiteFailed()+", FIRST ACCESSED AT TICK = "+siteAccessedAtTick+"    ");
+										areAllSitesUp=(areAllSitesUp && false);
+									}
+									//A site suspected since it was accessed has been treated as failed
+									else if(failureDetector!=null && failureDetector.getTickWhenSiteWasLastSuspected(id)>=siteAccessedAtTick)
+									{
+										out.write("Site "+dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId()+" - UP, SUSPECTED AT TICK = " + failureDetector.getTickWhenSiteWasLastSuspected(id)+", FIRST ACCESSED AT TICK = "+siteAccessedAtTick+"    ");
 										areAllSitesUp=(areAllSitesUp && false);
 									}
 									else
 									{
 										out.write("Site "+dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId()+" - UP    ");
-										System.out.print("Site "+dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId()+" - UP    ");
 										areAllSitesUp=(areAllSitesUp && true);
 									}
 								}
 								else
 								{
 									out.write("Site "+dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId()+" - DOWN    ");
-									System.out.print("Site "+dataAndLockManager.getSiteServicedByDataAndLockMgr().getSiteId()+" - DOWN    ");
 									areAllSitesUp=(areAllSitesUp && false);
 	
 								}
@@ -1381,38 +2435,62 @@ public class TransactionManager {
 						}
 					}
 					out.newLine();
-					System.out.println();
-					//Commit transaction only if all the sites accessed by transaction are up
-					if(areAllSitesUp)
+					//Commit transaction only if all the sites accessed by transaction are up and vote to commit it
+					Set sitesCommittingTrx = new TreeSet();
+					Map writeBatches = areAllSitesUp?groupValuesWrittenByTrxBySites(trx):null;
+					if(areAllSitesUp && prepareSitesOfTrx(trx, writeBatches, sitesCommittingTrx))
 					{
-						int sumOfResponse=0;
-						Iterator iterator = (Iterator)dataLockManagersMap.entrySet().iterator();
-						while(iterator.hasNext())
+						long commitNumber = lastCommitNumber.incrementAndGet();
+						int[] siteIds = new int[sitesCommittingTrx.size()];
+						WriteBatch[] writeBatchesOfSites = new WriteBatch[siteIds.length];
+						int index = 0;
+						Iterator siteItr = (Iterator)sitesCommittingTrx.iterator();
+						while(siteItr.hasNext())
 						{
-							Map.Entry pairs = (Map.Entry)iterator.next();
-							if(pairs!=null)
+							siteIds[index]=((Integer)siteItr.next()).intValue();
+							writeBatchesOfSites[index]=(WriteBatch)writeBatches.get(siteIds[index]);
+							//A site voting to commit without a copy of the written variables only releases the locks of the transaction
+							if(writeBatchesOfSites[index]==null)
 							{
-								DataAndLockManager dataAndLockManager = (DataAndLockManager)pairs.getValue();
-								//Send information to all the sites that the transaction trx is committing
-								if(dataAndLockManager!=null)
-								{
-									int response = dataAndLockManager.commitValuesForVariablesLockedByTransaction(trx);
-									sumOfResponse+=response;
-									if(response>0)
-									{
-										out.write("Transaction "+trx.getTrxId()+" got commited at Site "+dataAndLockManager.getDataAndLockManagerId());
-										out.newLine();
-										System.out.println("Transaction "+trx.getTrxId()+" got commited at Site "+dataAndLockManager.getDataAndLockManagerId());
-									}
-								}
-
+								writeBatchesOfSites[index]=new WriteBatch(0);
 							}
+							index++;
+						}
+						//Phase two, which a transaction all of whose sites voted read-only skips: the decision to commit is logged before it reaches the sites
+						if(coordinatorLog!=null && siteIds.length>0)
+						{
+							coordinatorLog.logCommit(trx.getTrxId());
+						}
+						//The commits are pipelined to the sites before any reply is waited for
+						int[] responses = null;
+						if(siteRpcClient!=null)
+						{
+							responses = siteRpcClient.commit(trx, commitNumber, writeBatchesOfSites, siteIds);
 						}
-						
-							out.write("Transaction "+trx.getTrxId()+" ended successfully.");
+						for(int i=0;i<siteIds.length;i++)
+						{
+							DataAndLockManager dataAndLockManager = (DataAndLockManager)dataLockManagersMap.get(siteIds[i]);
+							int response = (responses!=null)?responses[i]:dataAndLockManager.commitValuesForVariablesLockedByTransaction(trx,commitNumber,writeBatchesOfSites[i]);
+							if(response>0)
+							{
+								out.write("Transaction "+trx.getTrxId()+" got commited at Site "+dataAndLockManager.getDataAndLockManagerId());
+								out.newLine();
+							}
+						}
+						//A commit which wrote to a logging site is acknowledged only once the log has been forced at the end of the tick
+						if(commitsAwaitingDurability!=null && siteIds.length>0)
+						{
+							synchronized(commitsAwaitingDurability)
+							{
+								commitsAwaitingDurability.add(new Object[]{trx.getTrxId(),Integer.valueOf(tick)});
+							}
+						}
+						else
+						{
+							out.writeResult("Transaction "+trx.getTrxId()+" ended successfully.");
 							out.newLine();
-							System.out.println("Transaction "+trx.getTrxId()+" ended successfully.");
-						
+							out.writeEvent(EventLog.COMMIT, tick, trx.getTrxId(), null, 0, 0);
+						}
 
 						//Step 1 : Now removing the read locked and write variables from the committed transaction
 						trx.clearWriteLockedVariablesSet();
@@ -1421,13 +2499,18 @@ public class TransactionManager {
 						trx.clearLockedVariablesAndValuesMap();	
 						//Step 3: Finally remove the transaction trx from trxsMap maintained by TransactionManager
 						trxsMap.remove(trx.getTrxId());
+						if(waitsForGraph!=null)
+						{
+							waitsForGraph.removeTrx(trx.getTrxId());
+						}
 
 					}//Abort the transaction
 					else
 					{
-						out.write("Transaction "+trxName+" can't be committed as all the sites are not up since the first time they were accessed. Aborting the transaction.");
+						//Presumed abort: the abort isn't logged, the values the sites logged in the first phase being skipped when they are replayed
+						out.writeResult("Transaction "+trxName+" can't be committed as all the sites are not up since the first time they were accessed. Aborting the transaction.");
 						out.newLine();
-						System.out.println("Transaction "+trxName+" can't be committed as all the sites are not up since the first time they were accessed. Aborting the transaction.");
+						out.writeEvent(EventLog.ABORT, tick, trx.getTrxId(), null, 0, 0);
 						informAllTheSitesThatTrxIsAborting(trx);
 					}
 				}
@@ -1435,11 +2518,15 @@ public class TransactionManager {
 				{
 					if(trx!=null)
 					{
-						out.write("Transaction "+trxName+ " ended successfuly.");
+						out.writeResult("Transaction "+trxName+ " ended successfuly.");
 						out.newLine();
+						out.writeEvent(EventLog.COMMIT, tick, trx.getTrxId(), null, 0, 0);
 						//If trx is read only or trx has not read locked or write locked any variable
-						System.out.println("Transaction "+trxName+ " ended successfuly.");
 						trxsMap.remove(trx.getTrxId());
+						if(trx.isTrxReadOnly())
+						{
+							closeSnapshotOfReadOnlyTrx(trx);
+						}
 					}
 				}
 			}
@@ -0,0 +1,83 @@
+package transaction;
+import java.io.IOException;
+import java.util.*;
+import output.OutputSink;
+
+/**
+ * Wait-die: a transaction requesting a conflicting lock waits if it is older than every transaction locking the variable, and dies, i.e. is aborted, otherwise.
+ * Transactions only ever wait for younger ones, so they can't wait in a cycle unless they began at the same tick, which makes them of the same age.
+ */
+public class WaitDiePolicy extends DeadlockPolicy {
+
+	public String getName()
+	{
+		return WAIT_DIE;
+	}
+
+	public int resolveConflict(Transaction trx, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested)
+	{
+		//If age of Transaction T is less than age of any one of the transactions read/write locking variable x, then the transaction T must be aborted else it should be blocked
+		if(isTrxYoungerThanAnyOf(trx,trxsWriteLockingVariable) || isTrxYoungerThanAnyOf(trx,trxsReadLockingVariable))
+		{
+			return TransactionConstants.ABORT_TRANSACTION;
+		}
+		return TransactionConstants.BLOCK_TRANSACTION;
+	}
+
+	public int resolveConflictFromLockWord(Transaction trx, long oldestHolderTimeStamp)
+	{
+		return (trx.getTrxTimeStamp()>oldestHolderTimeStamp)?TransactionConstants.ABORT_TRANSACTION:TransactionConstants.BLOCK_TRANSACTION;
+	}
+
+	public void displayReasonWhyTrxNeedsToBeAborted(Transaction trx, String variable, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested, OutputSink out)throws IOException
+	{
+		Set olderTrxs = new HashSet();
+		addTrxIdsOfLockingTrxs(trx,trxsReadLockingVariable,true,olderTrxs);
+		addTrxIdsOfLockingTrxs(trx,trxsWriteLockingVariable,true,olderTrxs);
+		displayTrxsLockingVariable("Transaction "+trx.getTrxId()+" is younger than ", olderTrxs, variable, out);
+	}
+
+	public void displayReasonWhyTrxNeedsToBeBlocked(Transaction trx, String variable, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested, OutputSink out)throws IOException
+	{
+		Set youngerTrxs = new HashSet();
+		addTrxIdsOfLockingTrxs(trx,trxsReadLockingVariable,false,youngerTrxs);
+		addTrxIdsOfLockingTrxs(trx,trxsWriteLockingVariable,false,youngerTrxs);
+		displayTrxsLockingVariable("Transaction "+trx.getTrxId()+" is older than ", youngerTrxs, variable, out);
+	}
+
+	private static boolean isTrxYoungerThanAnyOf(Transaction trx, Set lockingTrxs)
+	{
+		if(lockingTrxs!=null)
+		{
+			Iterator itr = (Iterator)lockingTrxs.iterator();
+			while(itr.hasNext())
+			{
+				Transaction lockingTrx = (Transaction)itr.next();
+				if(lockingTrx!=null && trx.getTrxTimeStamp()>lockingTrx.getTrxTimeStamp())
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Method which adds the ids of the locking transactions older, or younger, than a transaction.
+	 */
+	private static void addTrxIdsOfLockingTrxs(Transaction trx, Set lockingTrxs, boolean older, Set trxIds)
+	{
+		if(lockingTrxs!=null)
+		{
+			Iterator itr = (Iterator)lockingTrxs.iterator();
+			while(itr.hasNext())
+			{
+				Transaction lockingTrx = (Transaction)itr.next();
+				if(lockingTrx!=null && (older?trx.getTrxTimeStamp()>lockingTrx.getTrxTimeStamp():trx.getTrxTimeStamp()<lockingTrx.getTrxTimeStamp()))
+				{
+					trxIds.add(lockingTrx.getTrxId());
+				}
+			}
+		}
+	}
+}
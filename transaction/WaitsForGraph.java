@@ -0,0 +1,278 @@
+package transaction;
+import java.util.*;
+
+/**
+ * The waits-for graph of the transactions blocked on lock conflicts, shared by the transaction manager and all the data and lock managers, and kept up to date
+ * as locks are requested, granted and released instead of being rebuilt from the lock tables whenever a cycle is looked for.
+ * An edge goes from a blocked transaction to a transaction holding a lock which conflicts with its blocked operation, and records the sites at which the
+ * conflicting lock is held, so that it only disappears once the lock has been released, or lost, at all of them.
+ * A transaction which is granted a lock is running, it waits for nobody, so new edges only ever close a cycle when a transaction is blocked, which is
+ * when the transaction manager looks for the cycles through it.
+ */
+public class WaitsForGraph {
+	//A Map<Key,value>, key is a blocked transaction and value is a Map<Key,value>, key is a transaction it waits for and value is the Set of sites at which that transaction holds the conflicting lock
+	private Map waitedForTrxs = new HashMap();
+	//A Map<Key,value>, key is a transaction and value is the Set of blocked transactions waiting for it
+	private Map waitingTrxs = new HashMap();
+	//A Map<Key,value>, key is a variable and value is a Map<Key,value>, key is a transaction blocked on it and value is true if it requests a write lock
+	private Map waitersByVariable = new HashMap();
+	//A Map<Key,value>, key is a blocked transaction and value is the variable it is blocked on
+	private Map variablesByWaiter = new HashMap();
+
+	/**
+	 * Method which records that a transaction is blocked on a lock request, replacing the edges of the request it was blocked on, and looks for a cycle through it.
+	 * @param trxName - A String value, the blocked transaction.
+	 * @param variable - A String variable the transaction requests a lock on.
+	 * @param isWriteLockRequested - A boolean value, true if a write lock is requested.
+	 * @param lockingTrxs - A Map<Key,value>, key is a transaction holding a conflicting lock and value is the Set of sites at which it holds it.
+	 * @return List - The transactions of a cycle through the blocked transaction, as returned by findCycle, or null if there is none.
+	 */
+	public synchronized List waitFor(String trxName, String variable, boolean isWriteLockRequested, Map lockingTrxs)
+	{
+		stopWaitingUnderLock(trxName);
+		Map waiters = (Map)waitersByVariable.get(variable);
+		if(waiters==null)
+		{
+			waiters = new LinkedHashMap();
+			waitersByVariable.put(variable, waiters);
+		}
+		waiters.put(trxName, Boolean.valueOf(isWriteLockRequested));
+		variablesByWaiter.put(trxName, variable);
+		Iterator itr = (Iterator)lockingTrxs.entrySet().iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			Iterator iterator = (Iterator)((Set)pairs.getValue()).iterator();
+			while(iterator.hasNext())
+			{
+				addEdge(trxName, (String)pairs.getKey(), (Integer)iterator.next());
+			}
+		}
+		return findCycleUnderLock(trxName);
+	}
+
+	/**
+	 * Method which records that a transaction is no longer blocked, removing the edges going out of it.
+	 * @param trxName - A String value, the transaction.
+	 */
+	public synchronized void stopWaiting(String trxName)
+	{
+		stopWaitingUnderLock(trxName);
+	}
+
+	/**
+	 * Method which records that a transaction has been granted a lock at a site, adding an edge to it from every transaction blocked on a conflicting request on the variable.
+	 * @param trxName - A String value, the transaction granted the lock, which no longer waits for anybody.
+	 * @param variable - A String variable which has been locked.
+	 * @param isWriteLock - A boolean value, true if a write lock has been granted.
+	 * @param siteId - An integer value, the site at which the lock has been granted.
+	 */
+	public synchronized void lockGranted(String trxName, String variable, boolean isWriteLock, int siteId)
+	{
+		stopWaitingUnderLock(trxName);
+		Map waiters = (Map)waitersByVariable.get(variable);
+		if(waiters!=null)
+		{
+			Iterator itr = (Iterator)waiters.entrySet().iterator();
+			while(itr.hasNext())
+			{
+				Map.Entry pairs = (Map.Entry)itr.next();
+				if(isWriteLock || ((Boolean)pairs.getValue()).booleanValue())
+				{
+					addEdge((String)pairs.getKey(), trxName, Integer.valueOf(siteId));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method which records that a transaction has released all its locks at a site, removing the edges to it which only stood for locks held at that site.
+	 * @param trxName - A String value, the transaction.
+	 * @param siteId - An integer value, the site.
+	 */
+	public synchronized void locksReleased(String trxName, int siteId)
+	{
+		Set waiters = (Set)waitingTrxs.get(trxName);
+		if(waiters!=null)
+		{
+			Iterator itr = (Iterator)new ArrayList(waiters).iterator();
+			while(itr.hasNext())
+			{
+				removeSiteOfEdge((String)itr.next(), trxName, Integer.valueOf(siteId));
+			}
+		}
+	}
+
+	/**
+	 * Method which records that a site has failed, losing all the locks held at it.
+	 * @param siteId - An integer value, the failed site.
+	 */
+	public synchronized void siteFailed(int siteId)
+	{
+		Integer site = Integer.valueOf(siteId);
+		Iterator itr = (Iterator)new ArrayList(waitedForTrxs.entrySet()).iterator();
+		while(itr.hasNext())
+		{
+			Map.Entry pairs = (Map.Entry)itr.next();
+			Iterator iterator = (Iterator)new ArrayList(((Map)pairs.getValue()).keySet()).iterator();
+			while(iterator.hasNext())
+			{
+				removeSiteOfEdge((String)pairs.getKey(), (String)iterator.next(), site);
+			}
+		}
+	}
+
+	/**
+	 * Method which removes a transaction which has committed or aborted from the graph, along with every edge going out of it or to it.
+	 * @param trxName - A String value, the transaction.
+	 */
+	public synchronized void removeTrx(String trxName)
+	{
+		stopWaitingUnderLock(trxName);
+		Set waiters = (Set)waitingTrxs.remove(trxName);
+		if(waiters!=null)
+		{
+			Iterator itr = (Iterator)waiters.iterator();
+			while(itr.hasNext())
+			{
+				String waiter = (String)itr.next();
+				Map edges = (Map)waitedForTrxs.get(waiter);
+				if(edges!=null)
+				{
+					edges.remove(trxName);
+					if(edges.isEmpty())
+					{
+						waitedForTrxs.remove(waiter);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Method which looks for a cycle of the graph through a transaction.
+	 * @param trxName - A String value, the transaction.
+	 * @return List - The transactions of the cycle, starting with trxName, each one waiting for the next one and the last one waiting for trxName, or null if there is no such cycle.
+	 */
+	public synchronized List findCycle(String trxName)
+	{
+		return findCycleUnderLock(trxName);
+	}
+
+	private List findCycleUnderLock(String trxName)
+	{
+		//Depth first search, path holds the transactions from trxName to the one being visited and iterators the edges of each of them left to follow
+		List path = new ArrayList();
+		List iterators = new ArrayList();
+		Set visitedTrxs = new HashSet();
+		path.add(trxName);
+		iterators.add(getWaitedForTrxs(trxName).iterator());
+		visitedTrxs.add(trxName);
+		while(!path.isEmpty())
+		{
+			Iterator itr = (Iterator)iterators.get(iterators.size()-1);
+			if(!itr.hasNext())
+			{
+				path.remove(path.size()-1);
+				iterators.remove(iterators.size()-1);
+				continue;
+			}
+			String waitedForTrx = (String)itr.next();
+			if(trxName.equals(waitedForTrx))
+			{
+				return path;
+			}
+			if(visitedTrxs.add(waitedForTrx))
+			{
+				path.add(waitedForTrx);
+				iterators.add(getWaitedForTrxs(waitedForTrx).iterator());
+			}
+		}
+		return null;
+	}
+
+	private Collection getWaitedForTrxs(String trxName)
+	{
+		Map edges = (Map)waitedForTrxs.get(trxName);
+		return (edges!=null)?edges.keySet():Collections.EMPTY_SET;
+	}
+
+	private void stopWaitingUnderLock(String trxName)
+	{
+		String variable = (String)variablesByWaiter.remove(trxName);
+		if(variable!=null)
+		{
+			Map waiters = (Map)waitersByVariable.get(variable);
+			waiters.remove(trxName);
+			if(waiters.isEmpty())
+			{
+				waitersByVariable.remove(variable);
+			}
+		}
+		Map edges = (Map)waitedForTrxs.remove(trxName);
+		if(edges!=null)
+		{
+			Iterator itr = (Iterator)edges.keySet().iterator();
+			while(itr.hasNext())
+			{
+				removeWaitingTrx((String)itr.next(), trxName);
+			}
+		}
+	}
+
+	private void addEdge(String waiter, String lockingTrx, Integer siteId)
+	{
+		if(waiter.equals(lockingTrx))
+		{
+			return;
+		}
+		Map edges = (Map)waitedForTrxs.get(waiter);
+		if(edges==null)
+		{
+			edges = new LinkedHashMap();
+			waitedForTrxs.put(waiter, edges);
+		}
+		Set sites = (Set)edges.get(lockingTrx);
+		if(sites==null)
+		{
+			sites = new HashSet();
+			edges.put(lockingTrx, sites);
+			Set waiters = (Set)waitingTrxs.get(lockingTrx);
+			if(waiters==null)
+			{
+				waiters = new HashSet();
+				waitingTrxs.put(lockingTrx, waiters);
+			}
+			waiters.add(waiter);
+		}
+		sites.add(siteId);
+	}
+
+	private void removeSiteOfEdge(String waiter, String lockingTrx, Integer siteId)
+	{
+		Map edges = (Map)waitedForTrxs.get(waiter);
+		Set sites = (edges!=null)?(Set)edges.get(lockingTrx):null;
+		if(sites!=null && sites.remove(siteId) && sites.isEmpty())
+		{
+			edges.remove(lockingTrx);
+			if(edges.isEmpty())
+			{
+				waitedForTrxs.remove(waiter);
+			}
+			removeWaitingTrx(lockingTrx, waiter);
+		}
+	}
+
+	private void removeWaitingTrx(String lockingTrx, String waiter)
+	{
+		Set waiters = (Set)waitingTrxs.get(lockingTrx);
+		if(waiters!=null)
+		{
+			waiters.remove(waiter);
+			if(waiters.isEmpty())
+			{
+				waitingTrxs.remove(lockingTrx);
+			}
+		}
+	}
+}
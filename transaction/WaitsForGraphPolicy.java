@@ -0,0 +1,90 @@
+package transaction;
+import java.io.IOException;
+import java.util.*;
+import output.OutputSink;
+
+/**
+ * Waits-for graph detection: a transaction requesting a conflicting lock always waits, and whenever a transaction is blocked the transaction manager
+ * looks for a cycle of transactions waiting for each other through it in the waits-for graph, whose edges go from every blocked transaction to the transactions
+ * holding locks which conflict with its blocked operation. The transaction of a cycle which has done the least work, i.e. written the fewest variables, is aborted
+ * to break it, so that long running transactions are not the ones whose work is thrown away.
+ * No transaction is aborted unless it is part of a deadlock, at the cost of keeping the graph up to date as locks are requested, granted and released.
+ */
+public class WaitsForGraphPolicy extends DeadlockPolicy {
+
+	public String getName()
+	{
+		return WAITS_FOR_GRAPH;
+	}
+
+	public int resolveConflict(Transaction trx, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested)
+	{
+		return TransactionConstants.BLOCK_TRANSACTION;
+	}
+
+	public int resolveConflictFromLockWord(Transaction trx, long oldestHolderTimeStamp)
+	{
+		return TransactionConstants.BLOCK_TRANSACTION;
+	}
+
+	public boolean detectsDeadlocks()
+	{
+		return true;
+	}
+
+	//Breaking a cycle aborts a transaction which may not lock the requested variable
+	public boolean isDecidedLocally()
+	{
+		return false;
+	}
+
+	/**
+	 * Method which chooses the transaction of a cycle to be aborted, the one which has written the fewest variables, the youngest one of them if several have.
+	 * @param cycle - A List of the transactions of the cycle.
+	 * @param trxsMap - A Map<Key,value>, key is a transaction and value is its Transaction object.
+	 * @return String - The transaction to be aborted.
+	 */
+	public String chooseVictim(List cycle, Map trxsMap)
+	{
+		Transaction victim = null;
+		Iterator itr = (Iterator)cycle.iterator();
+		while(itr.hasNext())
+		{
+			Transaction trx = (Transaction)trxsMap.get((String)itr.next());
+			if(trx!=null && (victim==null || getWork(trx)<getWork(victim) || (getWork(trx)==getWork(victim) && isTrxYoungerThan(trx,victim))))
+			{
+				victim = trx;
+			}
+		}
+		return (victim!=null)?victim.getTrxId():null;
+	}
+
+	/**
+	 * Method which displays the cycle a transaction is aborted to break.
+	 * @param victim - A String value, the transaction to be aborted.
+	 * @param cycle - A List of the transactions of the cycle.
+	 * @param out - An OutputSink object which write contents to the output file.
+	 * @throws IOException
+	 */
+	public void displayReasonWhyTrxIsChosenAsVictim(String victim, List cycle, OutputSink out)throws IOException
+	{
+		out.write("Deadlock detected. Transaction(s) ");
+		Iterator itr = (Iterator)cycle.iterator();
+		while(itr.hasNext())
+		{
+			out.write((String)itr.next()+"  ");
+		}
+		out.write("wait for each other.");
+		out.newLine();
+		out.write("Transaction "+victim+" has done the least work of the cycle.");
+		out.newLine();
+	}
+
+	/**
+	 * Method which returns the work done by a transaction, the number of variables it has written.
+	 */
+	private static int getWork(Transaction trx)
+	{
+		return (trx.getLockedVariablesAndValuesMap()!=null)?trx.getLockedVariablesAndValuesMap().size():0;
+	}
+}
@@ -0,0 +1,52 @@
+package transaction;
+import java.io.IOException;
+import java.util.*;
+import output.OutputSink;
+
+/**
+ * Wound-wait: a transaction requesting a conflicting lock wounds, i.e. aborts, the younger transactions holding conflicting locks, and waits for the older ones.
+ * Transactions only ever wait for older ones, so they can't wait in a cycle, and the oldest transaction is never aborted, unlike with wait-die where
+ * a young transaction is aborted as soon as it requests a lock an older one holds. Transactions which began at the same tick are as old as the order in which they began.
+ */
+public class WoundWaitPolicy extends DeadlockPolicy {
+
+	public String getName()
+	{
+		return WOUND_WAIT;
+	}
+
+	public int resolveConflict(Transaction trx, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested)
+	{
+		if(!getTrxsToBeAborted(trx,trxsReadLockingVariable,trxsWriteLockingVariable,isWriteLockRequested).isEmpty())
+		{
+			return TransactionConstants.ABORT_LOCKING_TRANSACTIONS;
+		}
+		return TransactionConstants.BLOCK_TRANSACTION;
+	}
+
+	public List getTrxsToBeAborted(Transaction trx, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested)
+	{
+		List youngerTrxs = new ArrayList();
+		Iterator itr = (Iterator)getConflictingTrxs(trx,trxsReadLockingVariable,trxsWriteLockingVariable,isWriteLockRequested).iterator();
+		while(itr.hasNext())
+		{
+			Transaction lockingTrx = (Transaction)itr.next();
+			if(lockingTrx!=null && isTrxYoungerThan(lockingTrx,trx))
+			{
+				youngerTrxs.add(lockingTrx);
+			}
+		}
+		return youngerTrxs;
+	}
+
+	public void displayReasonWhyTrxNeedsToBeBlocked(Transaction trx, String variable, Set trxsReadLockingVariable, Set trxsWriteLockingVariable, boolean isWriteLockRequested, OutputSink out)throws IOException
+	{
+		displayTrxsLockingVariable("Transaction "+trx.getTrxId()+" is younger than ", getTrxIds(getConflictingTrxs(trx,trxsReadLockingVariable,trxsWriteLockingVariable,isWriteLockRequested)), variable, out);
+	}
+
+	public void displayReasonWhyLockingTrxNeedsToBeAborted(Transaction lockingTrx, Transaction trx, String variable, OutputSink out)throws IOException
+	{
+		out.write("Transaction "+lockingTrx.getTrxId()+" locking variable "+variable+" is wounded by older transaction "+trx.getTrxId());
+		out.newLine();
+	}
+}
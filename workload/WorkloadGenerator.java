@@ -0,0 +1,314 @@
+package workload;
+import java.util.*;
+import java.io.*;
+import site.ConfigurationParser;
+import site.PlacementCatalog;
+
+/**
+ * Generates input files in the grammar accepted by RepCRecHelper, one tick per line with operations of the same tick separated by ';'.
+ * The number of sites and variables comes from the same configuration keys PlacementCatalog reads, so one configuration file describes both the
+ * topology and the workload run against it. Every tick, each of the concurrency open transactions issues one operation: its begin or beginRO,
+ * a read or a write of a variable drawn from a Zipfian distribution, or its end once all its operations have been issued. Sites fail at random
+ * and recover after a fixed number of ticks, and dump() and querystate() can be interleaved at fixed intervals.
+ */
+public class WorkloadGenerator {
+	public static final String TRANSACTIONS_KEY="workload.transactions";
+	public static final String OPERATIONS_PER_TRANSACTION_KEY="workload.operationsPerTransaction";
+	public static final String WRITE_RATIO_KEY="workload.writeRatio";
+	public static final String SKEW_KEY="workload.skew";
+	public static final String READ_ONLY_SHARE_KEY="workload.readOnlyShare";
+	public static final String FAILURE_RATE_KEY="workload.failureRate";
+	public static final String RECOVERY_TICKS_KEY="workload.recoveryTicks";
+	public static final String CONCURRENCY_KEY="workload.concurrency";
+	public static final String DUMP_INTERVAL_KEY="workload.dumpInterval";
+	public static final String QUERY_STATE_INTERVAL_KEY="workload.queryStateInterval";
+	public static final String SEED_KEY="workload.seed";
+
+	private int numberOfSites=10;
+	private int numberOfVariables=20;
+	private int numberOfTransactions=100;
+	//Mean number of reads and writes of a transaction, the actual number is drawn uniformly from 1..2*mean-1
+	private int operationsPerTransaction=4;
+	private double writeRatio=0.5;
+	//Exponent of the Zipfian distribution, 0 draws variables uniformly
+	private double skew=0;
+	private double readOnlyShare=0;
+	//Probability that a site fails at a given tick
+	private double failureRate=0;
+	private int recoveryTicks=10;
+	private int concurrency=4;
+	//Number of ticks between two dump() or querystate() operations, 0 to never issue them
+	private int dumpInterval=0;
+	private int queryStateInterval=0;
+	private long seed=1;
+
+	/**
+	 * Constructor for WorkloadGenerator class. Missing keys fall back to the defaults.
+	 * @param configuration - A Properties object holding the topology and workload configuration.
+	 * @throws IllegalArgumentException if the configuration describes an invalid topology or workload.
+	 */
+	public WorkloadGenerator(Properties configuration)
+	{
+		PlacementCatalog placementCatalog = new PlacementCatalog(configuration);
+		numberOfSites=placementCatalog.getNumberOfSites();
+		numberOfVariables=placementCatalog.getNumberOfVariables();
+		if(configuration!=null)
+		{
+			numberOfTransactions=ConfigurationParser.parseInt(configuration,TRANSACTIONS_KEY,numberOfTransactions,1);
+			operationsPerTransaction=ConfigurationParser.parseInt(configuration,OPERATIONS_PER_TRANSACTION_KEY,operationsPerTransaction,1,Integer.MAX_VALUE/2);
+			writeRatio=ConfigurationParser.parseDouble(configuration,WRITE_RATIO_KEY,writeRatio,0,1);
+			skew=ConfigurationParser.parseDouble(configuration,SKEW_KEY,skew,0,Double.MAX_VALUE);
+			readOnlyShare=ConfigurationParser.parseDouble(configuration,READ_ONLY_SHARE_KEY,readOnlyShare,0,1);
+			failureRate=ConfigurationParser.parseDouble(configuration,FAILURE_RATE_KEY,failureRate,0,1);
+			recoveryTicks=ConfigurationParser.parseInt(configuration,RECOVERY_TICKS_KEY,recoveryTicks,1);
+			concurrency=ConfigurationParser.parseInt(configuration,CONCURRENCY_KEY,concurrency,1);
+			dumpInterval=ConfigurationParser.parseInt(configuration,DUMP_INTERVAL_KEY,dumpInterval,0);
+			queryStateInterval=ConfigurationParser.parseInt(configuration,QUERY_STATE_INTERVAL_KEY,queryStateInterval,0);
+			seed=ConfigurationParser.parseLong(configuration,SEED_KEY,seed,Long.MIN_VALUE);
+		}
+	}
+
+	/**
+	 * Method which writes the workload, the same configuration always producing the same workload.
+	 * @param out - A Writer object to write the workload to.
+	 * @return int - The number of ticks, i.e. lines, written.
+	 * @throws IOException
+	 */
+	public int generate(Writer out)throws IOException
+	{
+		Random random = new Random(seed);
+		ZipfianSampler sampler = new ZipfianSampler(numberOfVariables, skew, random);
+		String[] openTrxs = new String[concurrency];
+		boolean[] isOpenTrxReadOnly = new boolean[concurrency];
+		int[] remainingOperations = new int[concurrency];
+		//Tick at which each site recovers, 0 if the site is up
+		int[] recoveryTick = new int[numberOfSites+1];
+		int sitesDown=0;
+		int begun=0;
+		int open=0;
+		int tick=0;
+		StringBuilder line = new StringBuilder();
+		while(begun<numberOfTransactions || open>0)
+		{
+			tick++;
+			line.setLength(0);
+			for(int siteId=1;siteId<=numberOfSites;siteId++)
+			{
+				if(recoveryTick[siteId]==tick)
+				{
+					appendOperation(line, "recover("+siteId+")");
+					recoveryTick[siteId]=0;
+					sitesDown--;
+				}
+			}
+			//Keep at least one site up
+			if(failureRate>0 && sitesDown<numberOfSites-1 && random.nextDouble()<failureRate)
+			{
+				int siteId = pickSiteUp(recoveryTick, sitesDown, random);
+				appendOperation(line, "fail("+siteId+")");
+				recoveryTick[siteId]=tick+recoveryTicks;
+				sitesDown++;
+			}
+			for(int slot=0;slot<concurrency;slot++)
+			{
+				if(openTrxs[slot]==null)
+				{
+					if(begun<numberOfTransactions)
+					{
+						begun++;
+						open++;
+						openTrxs[slot]="T"+begun;
+						isOpenTrxReadOnly[slot]=random.nextDouble()<readOnlyShare;
+						remainingOperations[slot]=1+random.nextInt(2*operationsPerTransaction-1);
+						appendOperation(line, (isOpenTrxReadOnly[slot]?"beginRO(":"begin(")+openTrxs[slot]+")");
+					}
+				}
+				else if(remainingOperations[slot]==0)
+				{
+					appendOperation(line, "end("+openTrxs[slot]+")");
+					openTrxs[slot]=null;
+					open--;
+				}
+				else
+				{
+					remainingOperations[slot]--;
+					String variable = "x"+sampler.next();
+					if(!isOpenTrxReadOnly[slot] && random.nextDouble()<writeRatio)
+					{
+						appendOperation(line, "W("+openTrxs[slot]+","+variable+","+random.nextInt(1000)+")");
+					}
+					else
+					{
+						appendOperation(line, "R("+openTrxs[slot]+","+variable+")");
+					}
+				}
+			}
+			if(dumpInterval>0 && tick%dumpInterval==0)
+			{
+				appendOperation(line, "dump()");
+			}
+			if(queryStateInterval>0 && tick%queryStateInterval==0)
+			{
+				appendOperation(line, "querystate()");
+			}
+			out.write(line.toString());
+			out.write(System.lineSeparator());
+		}
+		//Leave every site up at the end of the workload
+		if(sitesDown>0)
+		{
+			tick++;
+			line.setLength(0);
+			for(int siteId=1;siteId<=numberOfSites;siteId++)
+			{
+				if(recoveryTick[siteId]!=0)
+				{
+					appendOperation(line, "recover("+siteId+")");
+				}
+			}
+			out.write(line.toString());
+			out.write(System.lineSeparator());
+		}
+		out.flush();
+		return tick;
+	}
+
+	private int pickSiteUp(int[] recoveryTick, int sitesDown, Random random)
+	{
+		int index = random.nextInt(numberOfSites-sitesDown);
+		for(int siteId=1;siteId<=numberOfSites;siteId++)
+		{
+			if(recoveryTick[siteId]==0 && index--==0)
+			{
+				return siteId;
+			}
+		}
+		return 1;
+	}
+
+	private static void appendOperation(StringBuilder line, String operation)
+	{
+		if(line.length()>0)
+		{
+			line.append("; ");
+		}
+		line.append(operation);
+	}
+
+	/**
+	 * Draws variable ids 1..n with the probability of the variable of rank r proportional to 1/r^skew. Ranks are assigned to variables through a random
+	 * permutation so that the hot variables are a mix of replicated and non replicated ones.
+	 */
+	static class ZipfianSampler {
+		private Random random = null;
+		private int[] variableIdOfRank = null;
+		//Cumulative probability of ranks 1..r at index r-1, null if variables are drawn uniformly
+		private double[] cumulativeProbabilities = null;
+
+		ZipfianSampler(int numberOfVariables, double skew, Random random)
+		{
+			this.random=random;
+			variableIdOfRank = new int[numberOfVariables];
+			for(int i=0;i<numberOfVariables;i++)
+			{
+				variableIdOfRank[i]=i+1;
+			}
+			for(int i=numberOfVariables-1;i>0;i--)
+			{
+				int j = random.nextInt(i+1);
+				int variableId = variableIdOfRank[i];
+				variableIdOfRank[i]=variableIdOfRank[j];
+				variableIdOfRank[j]=variableId;
+			}
+			if(skew>0)
+			{
+				cumulativeProbabilities = new double[numberOfVariables];
+				double sum=0;
+				for(int rank=1;rank<=numberOfVariables;rank++)
+				{
+					sum+=1/Math.pow(rank, skew);
+					cumulativeProbabilities[rank-1]=sum;
+				}
+				for(int i=0;i<numberOfVariables;i++)
+				{
+					cumulativeProbabilities[i]/=sum;
+				}
+			}
+		}
+
+		int next()
+		{
+			if(cumulativeProbabilities==null)
+			{
+				return variableIdOfRank[random.nextInt(variableIdOfRank.length)];
+			}
+			int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+			if(index<0)
+			{
+				index=-index-1;
+			}
+			return variableIdOfRank[Math.min(index, variableIdOfRank.length-1)];
+		}
+	}
+
+	/**
+	 * Writes a workload to a file.
+	 * @param args - Full path of the output file and, optionally, of a configuration file with the topology and workload.* keys.
+	 */
+	public static void main(String[] args)
+	{
+		if(args.length==0)
+		{
+			System.out.println("Please provide output file and, optionally, configuration file as command line arguements.");
+			return;
+		}
+		Properties configuration = new Properties();
+		if(args.length>1)
+		{
+			try
+			{
+				Reader reader = new FileReader(new File(args[1]));
+				try
+				{
+					configuration.load(reader);
+				}
+				finally
+				{
+					reader.close();
+				}
+			}
+			catch(IOException ioException)
+			{
+				System.out.println("Unable to read configuration file.");
+				return;
+			}
+		}
+		WorkloadGenerator generator = null;
+		try
+		{
+			generator = new WorkloadGenerator(configuration);
+		}
+		catch(IllegalArgumentException illegalArgumentException)
+		{
+			System.out.println("Invalid configuration. "+illegalArgumentException.getMessage());
+			return;
+		}
+		try
+		{
+			Writer out = new BufferedWriter(new FileWriter(args[0]), 1<<16);
+			try
+			{
+				int ticks = generator.generate(out);
+				System.out.println("Wrote "+ticks+" ticks to "+args[0]);
+			}
+			finally
+			{
+				out.close();
+			}
+		}
+		catch(IOException ioException)
+		{
+			System.out.println("Unable to write output file.");
+		}
+	}
+}